@@ -1,25 +1,60 @@
 package se.cygni.snake.api;
 
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unchecked")
 public class GameMessageParser {
     private static Logger log = LoggerFactory.getLogger(GameMessageParser.class);
 
-    private static ObjectMapper mapper = new ObjectMapper();
+    /**
+     * WebSocket subprotocol of connections that send game messages as
+     * Smile, a binary encoding of JSON, in binary frames instead of text.
+     */
+    public static final String SMILE_PROTOCOL = "snakebot-smile";
 
-    static {
+    private static final String TYPE_PROPERTY = "type";
+
+    private static ObjectMapper mapper = configure(new ObjectMapper());
+    private static ObjectMapper smileMapper = configure(new ObjectMapper(new SmileFactory()));
+
+    // Binds a concrete message type without looking for its type id, which
+    // has already been read
+    private static ObjectMapper untypedMapper = configure(new ObjectMapper())
+            .addMixIn(GameMessage.class, Untyped.class);
+
+    private static ObjectReader reader = mapper.readerFor(GameMessage.class);
+    private static ObjectReader smileReader = smileMapper.readerFor(GameMessage.class);
+    private static ObjectWriter smileWriter = smileMapper.writerFor(GameMessage.class);
+
+    // Only ever holds the GameMessage types, whatever clients send
+    private static final Map<String, ObjectReader> readersByType = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> writersByType = new ConcurrentHashMap<>();
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NONE)
+    private abstract static class Untyped {
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
         mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         mapper.registerModule(new JavaTimeModule());
+        return mapper;
     }
 
     private GameMessageParser() {
@@ -27,19 +62,152 @@ public class GameMessageParser {
 
     public static GameMessage decodeMessage(final String msg)
             throws IOException {
-        try {
-            return mapper
-                    .readValue(msg, GameMessage.class);
-        } catch (final IllegalStateException e) {
-            throw e;
+        try (JsonParser parser = mapper.getFactory().createParser(msg)) {
+            GameMessage message = decodeWithTypeFirst(parser);
+            if (message != null) {
+                return message;
+            }
+        }
+        return reader.readValue(msg);
+    }
+
+    /**
+     * @param msg the message as UTF-8 encoded JSON
+     */
+    public static GameMessage decodeMessage(final byte[] msg)
+            throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(msg)) {
+            GameMessage message = decodeWithTypeFirst(parser);
+            if (message != null) {
+                return message;
+            }
         }
+        return reader.readValue(msg);
     }
 
     public static String encodeMessage(final GameMessage message)
             throws IOException {
+        return writerForType(message.getClass()).writeValueAsString(message);
+    }
+
+    /**
+     * @return the message as UTF-8 encoded JSON
+     */
+    public static byte[] encodeMessageAsBytes(final GameMessage message)
+            throws IOException {
+        return writerForType(message.getClass()).writeValueAsBytes(message);
+    }
+
+    public static GameMessage decodeSmileMessage(final byte[] msg)
+            throws IOException {
+        return smileReader.readValue(msg);
+    }
+
+    public static byte[] encodeSmileMessage(final GameMessage message)
+            throws IOException {
+        return smileWriter.writeValueAsBytes(message);
+    }
+
+    /**
+     * @return true if msg is JSON with the type of a GameMessage, without
+     * binding it
+     */
+    public static boolean isGameMessage(final String msg) {
+        try {
+            return readerForType(readType(msg)) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the top level type property of a JSON message, skipping the
+     * properties before it.
+     *
+     * @return the type, or null if msg is not an object with a type
+     */
+    public static String readType(final String msg) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(msg)) {
+            return readType(parser);
+        }
+    }
+
+    public static String readType(final byte[] msg) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(msg)) {
+            return readType(parser);
+        }
+    }
+
+    /**
+     * Binds the rest of the message straight to its concrete type when the
+     * type property comes first, as it does in everything encoded here.
+     *
+     * @return the message, or null if it has to be decoded the slow way
+     */
+    private static GameMessage decodeWithTypeFirst(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT ||
+                parser.nextToken() != JsonToken.FIELD_NAME ||
+                !TYPE_PROPERTY.equals(parser.getCurrentName()) ||
+                parser.nextToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        ObjectReader typedReader = readerForType(parser.getText());
+        if (typedReader == null) {
+            return null;
+        }
+        parser.nextToken();
+        return typedReader.readValue(parser);
+    }
+
+    private static String readType(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String property = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (TYPE_PROPERTY.equals(property)) {
+                return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * @return a reader of the concrete GameMessage named by type, or null if
+     * type is not one
+     */
+    private static ObjectReader readerForType(String type) {
+        if (type == null) {
+            return null;
+        }
+        ObjectReader typedReader = readersByType.get(type);
+        if (typedReader == null) {
+            Class<?> messageClass = findMessageClass(type);
+            if (messageClass == null) {
+                return null;
+            }
+            typedReader = untypedMapper.readerFor(messageClass);
+            readersByType.putIfAbsent(type, typedReader);
+        }
+        return typedReader;
+    }
+
+    private static Class<?> findMessageClass(String type) {
+        try {
+            Class<?> messageClass = mapper.getTypeFactory().findClass(type);
+            if (GameMessage.class.isAssignableFrom(messageClass) &&
+                    !Modifier.isAbstract(messageClass.getModifiers())) {
+                return messageClass;
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("Unknown message type {}", type);
+        }
+        return null;
+    }
 
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-        mapper.writeValue(out, message);
-        return out.toString();
+    private static ObjectWriter writerForType(Class<?> messageClass) {
+        return writersByType.computeIfAbsent(messageClass, mapper::writerFor);
     }
 }
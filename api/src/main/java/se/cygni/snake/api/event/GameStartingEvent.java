@@ -14,6 +14,19 @@ public class GameStartingEvent extends GameMessage {
     private final int width;
     private final int height;
     private final GameSettings gameSettings;
+    // The seed of all randomness in the game, replaying it with the same
+    // seed and moves gives the same game
+    private final long seed;
+
+    public GameStartingEvent(
+            String gameId,
+            int noofPlayers,
+            int width,
+            int gameHeight,
+            GameSettings gameSettings) {
+
+        this(gameId, noofPlayers, width, gameHeight, gameSettings, 0);
+    }
 
     @JsonCreator
     public GameStartingEvent(
@@ -21,13 +34,15 @@ public class GameStartingEvent extends GameMessage {
             @JsonProperty("noofPlayers") int noofPlayers,
             @JsonProperty("width") int width,
             @JsonProperty("height") int gameHeight,
-            @JsonProperty("gameSettings") GameSettings gameSettings) {
+            @JsonProperty("gameSettings") GameSettings gameSettings,
+            @JsonProperty("seed") long seed) {
 
         this.gameId = gameId;
         this.noofPlayers = noofPlayers;
         this.width = width;
         this.height = gameHeight;
         this.gameSettings = gameSettings;
+        this.seed = seed;
     }
 
     public GameStartingEvent(GameStartingEvent gse) {
@@ -36,6 +51,7 @@ public class GameStartingEvent extends GameMessage {
         this.width = gse.getWidth();
         this.height = gse.getHeight();
         this.gameSettings = gse.gameSettings;
+        this.seed = gse.seed;
     }
 
     public String getGameId() {
@@ -58,6 +74,10 @@ public class GameStartingEvent extends GameMessage {
         return gameSettings;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
     @Override
     public String toString() {
         return "GameStartingEvent{" +
@@ -65,6 +85,7 @@ public class GameStartingEvent extends GameMessage {
                 ", noofPlayers=" + noofPlayers +
                 ", width=" + width +
                 ", height=" + height +
+                ", seed=" + seed +
                 '}';
     }
 }
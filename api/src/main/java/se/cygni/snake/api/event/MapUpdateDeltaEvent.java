@@ -0,0 +1,104 @@
+package se.cygni.snake.api.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.model.SnakeDelta;
+import se.cygni.snake.api.type.GameMessageType;
+
+import java.util.Arrays;
+
+/**
+ * Sent instead of a MapUpdateEvent to players that asked for delta map
+ * updates when registering. It holds the changes to the map of
+ * previousGameTick, which was sent in a MapUpdateEvent or a
+ * MapUpdateDeltaEvent just before. Snakes that did not change are left out.
+ */
+@GameMessageType
+public class MapUpdateDeltaEvent extends GameMessage {
+
+    private final long gameTick;
+    private final long previousGameTick;
+    private final String gameId;
+    private final SnakeDelta[] snakeDeltas;
+    private final int[] addedFoodPositions;
+    private final int[] removedFoodPositions;
+    private final int[] addedObstaclePositions;
+    private final int[] removedObstaclePositions;
+
+    @JsonCreator
+    public MapUpdateDeltaEvent(
+            @JsonProperty("gameTick") long gameTick,
+            @JsonProperty("previousGameTick") long previousGameTick,
+            @JsonProperty("gameId") String gameId,
+            @JsonProperty("snakeDeltas") SnakeDelta[] snakeDeltas,
+            @JsonProperty("addedFoodPositions") int[] addedFoodPositions,
+            @JsonProperty("removedFoodPositions") int[] removedFoodPositions,
+            @JsonProperty("addedObstaclePositions") int[] addedObstaclePositions,
+            @JsonProperty("removedObstaclePositions") int[] removedObstaclePositions) {
+
+        this.gameTick = gameTick;
+        this.previousGameTick = previousGameTick;
+        this.gameId = gameId;
+        this.snakeDeltas = snakeDeltas;
+        this.addedFoodPositions = addedFoodPositions;
+        this.removedFoodPositions = removedFoodPositions;
+        this.addedObstaclePositions = addedObstaclePositions;
+        this.removedObstaclePositions = removedObstaclePositions;
+    }
+
+    public MapUpdateDeltaEvent(MapUpdateDeltaEvent mude) {
+        this.gameTick = mude.getGameTick();
+        this.previousGameTick = mude.getPreviousGameTick();
+        this.gameId = mude.getGameId();
+        this.snakeDeltas = mude.getSnakeDeltas();
+        this.addedFoodPositions = mude.getAddedFoodPositions();
+        this.removedFoodPositions = mude.getRemovedFoodPositions();
+        this.addedObstaclePositions = mude.getAddedObstaclePositions();
+        this.removedObstaclePositions = mude.getRemovedObstaclePositions();
+    }
+
+    public long getGameTick() {
+        return gameTick;
+    }
+
+    public long getPreviousGameTick() {
+        return previousGameTick;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public SnakeDelta[] getSnakeDeltas() {
+        return snakeDeltas;
+    }
+
+    public int[] getAddedFoodPositions() {
+        return addedFoodPositions;
+    }
+
+    public int[] getRemovedFoodPositions() {
+        return removedFoodPositions;
+    }
+
+    public int[] getAddedObstaclePositions() {
+        return addedObstaclePositions;
+    }
+
+    public int[] getRemovedObstaclePositions() {
+        return removedObstaclePositions;
+    }
+
+    @Override
+    public String toString() {
+        return "MapUpdateDeltaEvent{" +
+                "gameTick=" + gameTick +
+                ", previousGameTick=" + previousGameTick +
+                ", gameId='" + gameId + '\'' +
+                ", snakeDeltas=" + snakeDeltas.length +
+                ", addedFoodPositions=" + Arrays.toString(addedFoodPositions) +
+                ", removedFoodPositions=" + Arrays.toString(removedFoodPositions) +
+                '}';
+    }
+}
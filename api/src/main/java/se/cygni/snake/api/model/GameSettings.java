@@ -11,6 +11,15 @@ public class GameSettings {
     // The time clients have to respond with a new move
     private int timeInMsPerTick = 250;
 
+    // Shorten the time per tick when all live players
+    // consistently respond faster than timeInMsPerTick.
+    // A tick always advances as soon as all moves are in.
+    private boolean adaptiveTimePerTick = false;
+
+    // The shortest time per tick when adaptiveTimePerTick
+    // is active
+    private int minTimeInMsPerTick = 20;
+
     // Randomly place obstacles
     private boolean obstaclesEnabled = true;
 
@@ -80,6 +89,14 @@ public class GameSettings {
         return timeInMsPerTick;
     }
 
+    public boolean isAdaptiveTimePerTick() {
+        return adaptiveTimePerTick;
+    }
+
+    public int getMinTimeInMsPerTick() {
+        return minTimeInMsPerTick;
+    }
+
     public boolean isObstaclesEnabled() {
         return obstaclesEnabled;
     }
@@ -144,6 +161,14 @@ public class GameSettings {
         this.timeInMsPerTick = timeInMsPerTick;
     }
 
+    public void setAdaptiveTimePerTick(boolean adaptiveTimePerTick) {
+        this.adaptiveTimePerTick = adaptiveTimePerTick;
+    }
+
+    public void setMinTimeInMsPerTick(int minTimeInMsPerTick) {
+        this.minTimeInMsPerTick = minTimeInMsPerTick;
+    }
+
     public void setObstaclesEnabled(boolean obstaclesEnabled) {
         this.obstaclesEnabled = obstaclesEnabled;
     }
@@ -202,6 +227,8 @@ public class GameSettings {
                 "\n, maxNoofPlayers=" + maxNoofPlayers +
                 "\n, startSnakeLength=" + startSnakeLength +
                 "\n, timeInMsPerTick=" + timeInMsPerTick +
+                "\n, adaptiveTimePerTick=" + adaptiveTimePerTick +
+                "\n, minTimeInMsPerTick=" + minTimeInMsPerTick +
                 "\n, obstaclesEnabled=" + obstaclesEnabled +
                 "\n, foodEnabled=" + foodEnabled +
                 "\n, headToTailConsumes=" + headToTailConsumes +
@@ -240,6 +267,8 @@ public class GameSettings {
         private int maxNoofPlayers = 5;
         private int startSnakeLength = 1;
         private int timeInMsPerTick = 250;
+        private boolean adaptiveTimePerTick = false;
+        private int minTimeInMsPerTick = 20;
         private boolean obstaclesEnabled = true;
         private boolean foodEnabled = true;
         private boolean headToTailConsumes = true;
@@ -274,6 +303,16 @@ public class GameSettings {
             return this;
         }
 
+        public GameSettingsBuilder withAdaptiveTimePerTick(boolean adaptiveTimePerTick) {
+            this.adaptiveTimePerTick = adaptiveTimePerTick;
+            return this;
+        }
+
+        public GameSettingsBuilder withMinTimeInMsPerTick(int minTimeInMsPerTick) {
+            this.minTimeInMsPerTick = minTimeInMsPerTick;
+            return this;
+        }
+
         public GameSettingsBuilder withObstaclesEnabled(boolean obstaclesEnabled) {
             this.obstaclesEnabled = obstaclesEnabled;
             return this;
@@ -355,6 +394,8 @@ public class GameSettings {
             gameSettings.setMaxNoofPlayers(maxNoofPlayers);
             gameSettings.setStartSnakeLength(startSnakeLength);
             gameSettings.setTimeInMsPerTick(timeInMsPerTick);
+            gameSettings.setAdaptiveTimePerTick(adaptiveTimePerTick);
+            gameSettings.setMinTimeInMsPerTick(minTimeInMsPerTick);
             gameSettings.setObstaclesEnabled(obstaclesEnabled);
             gameSettings.setFoodEnabled(foodEnabled);
             gameSettings.setHeadToTailConsumes(headToTailConsumes);
@@ -0,0 +1,54 @@
+package se.cygni.snake.api.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * How one snake changed since the previous tick. Its new positions are
+ * newHeadPositions followed by its previous positions without the last
+ * removedTailLength of them.
+ */
+public class SnakeDelta {
+
+    final String playerId;
+    final int[] newHeadPositions;
+    final int removedTailLength;
+    final int points;
+    final int tailProtectedForGameTicks;
+
+    @JsonCreator
+    public SnakeDelta(
+            @JsonProperty("playerId") String playerId,
+            @JsonProperty("newHeadPositions") int[] newHeadPositions,
+            @JsonProperty("removedTailLength") int removedTailLength,
+            @JsonProperty("points") int points,
+            @JsonProperty("tailProtectedForGameTicks") int tailProtectedForGameTicks
+    )
+    {
+        this.playerId = playerId;
+        this.newHeadPositions = newHeadPositions;
+        this.removedTailLength = removedTailLength;
+        this.points = points;
+        this.tailProtectedForGameTicks = tailProtectedForGameTicks;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public int[] getNewHeadPositions() {
+        return newHeadPositions;
+    }
+
+    public int getRemovedTailLength() {
+        return removedTailLength;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getTailProtectedForGameTicks() {
+        return tailProtectedForGameTicks;
+    }
+}
@@ -11,18 +11,29 @@ public class RegisterPlayer extends GameMessage {
 
     private final String playerName;
     private final GameSettings gameSettings;
+    private final boolean deltaMapUpdates;
 
     public RegisterPlayer(String playerName) {
-        this.playerName = playerName;
-        this.gameSettings = null;
+        this(playerName, null);
+    }
+
+    public RegisterPlayer(String playerName, GameSettings gameSettings) {
+        this(playerName, gameSettings, false);
     }
 
+    /**
+     * @param deltaMapUpdates true to be sent a MapUpdateEvent only now and
+     *                        then, and a MapUpdateDeltaEvent with the
+     *                        changes since the previous tick otherwise
+     */
     @JsonCreator
     public RegisterPlayer(
             @JsonProperty("playerName") String playerName,
-            @JsonProperty("gameSettings") GameSettings gameSettings) {
+            @JsonProperty("gameSettings") GameSettings gameSettings,
+            @JsonProperty("deltaMapUpdates") boolean deltaMapUpdates) {
         this.playerName = playerName;
         this.gameSettings = gameSettings;
+        this.deltaMapUpdates = deltaMapUpdates;
     }
 
     public String getPlayerName() {
@@ -32,4 +43,8 @@ public class RegisterPlayer extends GameMessage {
     public GameSettings getGameSettings() {
         return gameSettings;
     }
+
+    public boolean isDeltaMapUpdates() {
+        return deltaMapUpdates;
+    }
 }
\ No newline at end of file
@@ -2,12 +2,13 @@ package se.cygni.snake.eventapi;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 @SuppressWarnings("unchecked")
@@ -22,25 +23,35 @@ public class ApiMessageParser {
         mapper.registerModule(new JavaTimeModule());
     }
 
+    private static ObjectReader reader = mapper.readerFor(ApiMessage.class);
+    private static ObjectWriter writer = mapper.writerFor(ApiMessage.class);
+
     private ApiMessageParser() {
     }
 
     public static ApiMessage decodeMessage(final String msg)
             throws IOException {
-        try {
-            return mapper
-                    .readValue(msg,
-                            ApiMessage.class);
-        } catch (final IllegalStateException e) {
-            throw e;
-        }
+        return reader.readValue(msg);
+    }
+
+    /**
+     * @param msg the message as UTF-8 encoded JSON
+     */
+    public static ApiMessage decodeMessage(final byte[] msg)
+            throws IOException {
+        return reader.readValue(msg);
     }
 
     public static String encodeMessage(final ApiMessage message)
             throws IOException {
+        return writer.writeValueAsString(message);
+    }
 
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-        mapper.writeValue(out, message);
-        return out.toString();
+    /**
+     * @return the message as UTF-8 encoded JSON
+     */
+    public static byte[] encodeMessageAsBytes(final ApiMessage message)
+            throws IOException {
+        return writer.writeValueAsBytes(message);
     }
 }
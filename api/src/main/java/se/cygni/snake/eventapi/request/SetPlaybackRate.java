@@ -0,0 +1,27 @@
+package se.cygni.snake.eventapi.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import se.cygni.snake.eventapi.ApiMessage;
+import se.cygni.snake.eventapi.type.ApiMessageType;
+
+/**
+ * Asks the server to play the games in the filter at most framesPerSecond
+ * map updates per second. 0 sends every event as soon as it happens. Rates
+ * above 60 are ignored.
+ */
+@ApiMessageType
+public class SetPlaybackRate extends ApiMessage {
+
+    private final int framesPerSecond;
+
+    @JsonCreator
+    public SetPlaybackRate(
+            @JsonProperty("framesPerSecond") int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+}
@@ -0,0 +1,105 @@
+package se.cygni.snake.api;
+
+import org.junit.Test;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeDirection;
+import se.cygni.snake.api.model.SnakeInfo;
+import se.cygni.snake.api.request.RegisterMove;
+import se.cygni.snake.api.request.StartGame;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class GameMessageParserTest {
+
+    @Test
+    public void testSmileMapUpdateEvent() throws Exception {
+        SnakeInfo[] snakeInfos = new SnakeInfo[] {
+                new SnakeInfo("one", 3, "id1", new int[] {8, 5, 2}, 1),
+                new SnakeInfo("two", 0, "id2", new int[] {0}, 0)
+        };
+        MapUpdateEvent mue = new MapUpdateEvent(5, "game", new Map(3, 3, 5, snakeInfos, new int[] {4}, new int[] {6}));
+        mue.setReceivingPlayerId("id1");
+
+        byte[] encoded = GameMessageParser.encodeSmileMessage(mue);
+        MapUpdateEvent decoded = (MapUpdateEvent) GameMessageParser.decodeSmileMessage(encoded);
+
+        assertEquals(5, decoded.getGameTick());
+        assertEquals("game", decoded.getGameId());
+        assertEquals("id1", decoded.getReceivingPlayerId());
+        assertEquals(mue.getTimestamp(), decoded.getTimestamp());
+        assertEquals("two", decoded.getMap().getSnakeInfos()[1].getName());
+        assertArrayEquals(new int[] {8, 5, 2}, decoded.getMap().getSnakeInfos()[0].getPositions());
+        assertArrayEquals(new int[] {6}, decoded.getMap().getObstaclePositions());
+
+        assertTrue(encoded.length < GameMessageParser.encodeMessage(mue).length());
+    }
+
+    @Test
+    public void testSmileRegisterMove() throws Exception {
+        RegisterMove registerMove = new RegisterMove("game", 7, SnakeDirection.LEFT);
+        registerMove.setReceivingPlayerId("id1");
+
+        RegisterMove decoded = (RegisterMove) GameMessageParser.decodeSmileMessage(
+                GameMessageParser.encodeSmileMessage(registerMove));
+
+        assertEquals("game", decoded.getGameId());
+        assertEquals(7, decoded.getGameTick());
+        assertEquals(SnakeDirection.LEFT, decoded.getDirection());
+        assertEquals("id1", decoded.getReceivingPlayerId());
+    }
+
+    @Test
+    public void testBytesAreUtf8Json() throws Exception {
+        RegisterMove registerMove = new RegisterMove("gåme", 7, SnakeDirection.UP);
+
+        byte[] encoded = GameMessageParser.encodeMessageAsBytes(registerMove);
+        assertEquals(GameMessageParser.encodeMessage(registerMove), new String(encoded, "UTF-8"));
+
+        RegisterMove decoded = (RegisterMove) GameMessageParser.decodeMessage(encoded);
+        assertEquals("gåme", decoded.getGameId());
+        assertEquals(SnakeDirection.UP, decoded.getDirection());
+    }
+
+    @Test
+    public void testReadType() throws Exception {
+        String msg = GameMessageParser.encodeMessage(new StartGame());
+
+        assertEquals(StartGame.class.getName(), GameMessageParser.readType(msg));
+        assertEquals("a", GameMessageParser.readType("{\"x\":{\"type\":\"b\"},\"y\":[1],\"type\":\"a\"}"));
+        assertNull(GameMessageParser.readType("{\"x\":{\"type\":\"b\"}}"));
+        assertNull(GameMessageParser.readType("[]"));
+    }
+
+    @Test
+    public void testDecodeWithTypeLast() throws Exception {
+        RegisterMove decoded = (RegisterMove) GameMessageParser.decodeMessage(
+                "{\"gameId\":\"game\",\"gameTick\":3,\"direction\":\"DOWN\"," +
+                        "\"type\":\"se.cygni.snake.api.request.RegisterMove\"}");
+
+        assertEquals("game", decoded.getGameId());
+        assertEquals(3, decoded.getGameTick());
+        assertEquals(SnakeDirection.DOWN, decoded.getDirection());
+    }
+
+    @Test
+    public void testIsGameMessage() throws Exception {
+        assertTrue(GameMessageParser.isGameMessage(GameMessageParser.encodeMessage(new StartGame())));
+        assertFalse(GameMessageParser.isGameMessage("{\"type\":\"se.cygni.snake.eventapi.request.ListActiveGames\"}"));
+        assertFalse(GameMessageParser.isGameMessage("{\"type\":\"se.cygni.snake.api.GameMessage\"}"));
+        assertFalse(GameMessageParser.isGameMessage("{\"type\":\"java.lang.String\"}"));
+        assertFalse(GameMessageParser.isGameMessage("not json"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAGameMessage() throws Exception {
+        GameMessageParser.decodeMessage("{\"type\":\"java.lang.String\"}");
+    }
+
+    @Test(expected = IOException.class)
+    public void testTextIsNotSmile() throws Exception {
+        GameMessageParser.decodeSmileMessage("{\"type\":\"x\"}".getBytes("UTF-8"));
+    }
+}
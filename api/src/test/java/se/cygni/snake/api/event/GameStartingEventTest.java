@@ -0,0 +1,33 @@
+package se.cygni.snake.api.event;
+
+import org.junit.Test;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.model.GameSettings;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameStartingEventTest {
+
+    @Test
+    public void testSerializationGameStartingEvent() throws Exception {
+        GameStartingEvent gse = new GameStartingEvent("666", 4, 46, 34, new GameSettings(), -4711L);
+        TestUtil.populateBaseData(gse, "rPlayerId");
+
+        String serialized = GameMessageParser.encodeMessage(gse);
+        GameStartingEvent parsedgse = (GameStartingEvent)GameMessageParser.decodeMessage(serialized);
+
+        assertEquals("666", parsedgse.getGameId());
+        assertEquals(4, parsedgse.getNoofPlayers());
+        assertEquals(46, parsedgse.getWidth());
+        assertEquals(34, parsedgse.getHeight());
+        assertEquals(-4711L, parsedgse.getSeed());
+        assertEquals("rPlayerId", parsedgse.getReceivingPlayerId());
+    }
+
+    @Test
+    public void testCopyKeepsSeed() throws Exception {
+        GameStartingEvent gse = new GameStartingEvent("666", 4, 46, 34, new GameSettings(), 17L);
+
+        assertEquals(17L, new GameStartingEvent(gse).getSeed());
+    }
+}
@@ -28,8 +28,8 @@ public class GameMessageConverter {
                 WorldStateConverter.convertWorldState(worldState, gameTick, players));
     }
 
-    public static GameStartingEvent onGameStart(String gameId, int noofPlayers, int width, int height, GameFeatures gameFeatures) {
-        return new GameStartingEvent(gameId, noofPlayers, width, height, GameSettingsConverter.toGameSettings(gameFeatures));
+    public static GameStartingEvent onGameStart(String gameId, int noofPlayers, int width, int height, GameFeatures gameFeatures, long seed) {
+        return new GameStartingEvent(gameId, noofPlayers, width, height, GameSettingsConverter.toGameSettings(gameFeatures), seed);
     }
 
     public static GameAbortedEvent onGameAborted(String gameId) {
@@ -0,0 +1,164 @@
+package se.cygni.snake.apiconversion;
+
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeDelta;
+import se.cygni.snake.api.model.SnakeInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Turns the MapUpdateEvents of one game into the stream sent to players
+ * that asked for delta map updates: the full MapUpdateEvent every
+ * keyframeInterval ticks, or when the snakes in the map changed, and a
+ * MapUpdateDeltaEvent against the previous map otherwise.
+ *
+ * Every MapUpdateEvent of the game has to be passed through next(), in
+ * order, for the deltas to add up.
+ */
+public class MapDeltaEncoder {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+
+    private final int keyframeInterval;
+    private Map previousMap;
+    private long previousGameTick;
+    private int ticksSinceKeyframe;
+
+    public MapDeltaEncoder() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public MapDeltaEncoder(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * @return mapUpdateEvent itself if a keyframe is due, otherwise the
+     * changes since the previous call
+     */
+    public GameMessage next(MapUpdateEvent mapUpdateEvent) {
+        Map map = mapUpdateEvent.getMap();
+        GameMessage message;
+        if (previousMap == null || ++ticksSinceKeyframe >= keyframeInterval || !sameSnakes(previousMap, map)) {
+            ticksSinceKeyframe = 0;
+            message = mapUpdateEvent;
+        } else {
+            message = new MapUpdateDeltaEvent(
+                    mapUpdateEvent.getGameTick(),
+                    previousGameTick,
+                    mapUpdateEvent.getGameId(),
+                    snakeDeltas(previousMap.getSnakeInfos(), map.getSnakeInfos()),
+                    difference(map.getFoodPositions(), previousMap.getFoodPositions()),
+                    difference(previousMap.getFoodPositions(), map.getFoodPositions()),
+                    difference(map.getObstaclePositions(), previousMap.getObstaclePositions()),
+                    difference(previousMap.getObstaclePositions(), map.getObstaclePositions()));
+        }
+
+        previousMap = map;
+        previousGameTick = mapUpdateEvent.getGameTick();
+        return message;
+    }
+
+    private static boolean sameSnakes(Map previous, Map current) {
+        if (previous.getSnakeInfos().length != current.getSnakeInfos().length) {
+            return false;
+        }
+
+        java.util.Map<String, SnakeInfo> previousById = byId(previous.getSnakeInfos());
+        for (SnakeInfo snakeInfo : current.getSnakeInfos()) {
+            if (!previousById.containsKey(snakeInfo.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SnakeDelta[] snakeDeltas(SnakeInfo[] previous, SnakeInfo[] current) {
+        java.util.Map<String, SnakeInfo> previousById = byId(previous);
+
+        List<SnakeDelta> snakeDeltas = new ArrayList<>();
+        for (SnakeInfo snakeInfo : current) {
+            SnakeInfo previousInfo = previousById.get(snakeInfo.getId());
+            SnakeDelta snakeDelta = snakeDelta(previousInfo, snakeInfo);
+            if (snakeDelta != null) {
+                snakeDeltas.add(snakeDelta);
+            }
+        }
+        return snakeDeltas.toArray(new SnakeDelta[0]);
+    }
+
+    /**
+     * @return the delta between previous and current, or null if nothing
+     * changed
+     */
+    private static SnakeDelta snakeDelta(SnakeInfo previous, SnakeInfo current) {
+        int[] previousPositions = previous.getPositions();
+        int[] positions = current.getPositions();
+
+        // A snake usually has one new head, grows by none or loses one tail.
+        // Anything else is sent as all new positions.
+        int noofNewHeads = positions.length;
+        for (int heads = 0; heads <= positions.length; heads++) {
+            if (continues(previousPositions, positions, heads)) {
+                noofNewHeads = heads;
+                break;
+            }
+        }
+        int removedTailLength = previousPositions.length - (positions.length - noofNewHeads);
+
+        if (noofNewHeads == 0 && removedTailLength == 0 &&
+                previous.getPoints() == current.getPoints() &&
+                previous.getTailProtectedForGameTicks() == current.getTailProtectedForGameTicks()) {
+            return null;
+        }
+
+        return new SnakeDelta(
+                current.getId(),
+                Arrays.copyOf(positions, noofNewHeads),
+                removedTailLength,
+                current.getPoints(),
+                current.getTailProtectedForGameTicks());
+    }
+
+    /**
+     * @return true if positions after its first noofNewHeads are the first
+     * positions of previousPositions
+     */
+    private static boolean continues(int[] previousPositions, int[] positions, int noofNewHeads) {
+        int kept = positions.length - noofNewHeads;
+        if (kept > previousPositions.length) {
+            return false;
+        }
+        for (int i = 0; i < kept; i++) {
+            if (positions[noofNewHeads + i] != previousPositions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the positions in a that are not in b
+     */
+    private static int[] difference(int[] a, int[] b) {
+        int[] sortedB = b.clone();
+        Arrays.sort(sortedB);
+        return Arrays.stream(a)
+                .filter(position -> Arrays.binarySearch(sortedB, position) < 0)
+                .toArray();
+    }
+
+    private static java.util.Map<String, SnakeInfo> byId(SnakeInfo[] snakeInfos) {
+        java.util.Map<String, SnakeInfo> byId = new HashMap<>();
+        for (SnakeInfo snakeInfo : snakeInfos) {
+            byId.put(snakeInfo.getId(), snakeInfo);
+        }
+        return byId;
+    }
+}
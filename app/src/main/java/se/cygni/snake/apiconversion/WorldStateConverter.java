@@ -45,10 +45,9 @@ public class WorldStateConverter {
         String id = player.getPlayerId();
         int points = player.getTotalPoints();
 
-        try {
-            SnakeHead snakeHead = ws.getSnakeHeadById(id);
-            return getSnakeInfo(ws, snakeHead);
-        } catch (Exception e) {}
+        if (id != null && ws.hasSnake(id)) {
+            return getSnakeInfo(ws, ws.getSnakeHeadById(id));
+        }
 
         return new SnakeInfo(name, points, id, new int[] {}, 0);
     }
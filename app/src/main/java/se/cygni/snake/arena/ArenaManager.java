@@ -18,8 +18,10 @@ import se.cygni.snake.event.InternalGameEvent;
 import se.cygni.snake.game.Game;
 import se.cygni.snake.game.GameFeatures;
 import se.cygni.snake.game.GameManager;
+import se.cygni.snake.player.PlayerSessionRegistry;
 import se.cygni.snake.player.RemotePlayer;
 import se.cygni.snake.tournament.util.TournamentUtil;
+import se.cygni.snake.websocket.event.SpectatorHub;
 
 import java.text.SimpleDateFormat;
 import java.util.HashSet;
@@ -31,25 +33,28 @@ public class ArenaManager {
     private static final Logger log = LoggerFactory.getLogger(ArenaManager.class);
     private static final int ARENA_PLAYER_COUNT = 8;
 
-    private final EventBus outgoingEventBus;
+    private final PlayerSessionRegistry playerSessions;
     private final EventBus incomingEventBus;
     private final EventBus globalEventBus;
+    private final SpectatorHub spectatorHub;
 
     private String arenaName;
     private boolean ranked;
 
     private GameManager gameManager;
     private Set<Player> connectedPlayers = new HashSet<>();
+    private Set<String> deltaMapUpdatePlayerIds = new HashSet<>();
     private long secondsUntilNextAutostartedGame = 0;
     private Game currentGame = null;
     private double currentGameStartTime;
 
     ArenaRater rater = new ArenaRater();
 
-    public ArenaManager(GameManager gameManager, EventBus globalEventBus) {
+    public ArenaManager(GameManager gameManager, EventBus globalEventBus, SpectatorHub spectatorHub) {
         this.gameManager = gameManager;
+        this.spectatorHub = spectatorHub;
 
-        this.outgoingEventBus = new EventBus("arena-outgoing");
+        this.playerSessions = new PlayerSessionRegistry("arena");
         this.incomingEventBus = new EventBus("arena-incoming");
         this.globalEventBus = globalEventBus;
 
@@ -70,17 +75,20 @@ public class ArenaManager {
             InvalidPlayerName playerNameTaken = new InvalidPlayerName(InvalidPlayerName.PlayerNameInvalidReason.Taken);
             MessageUtils.copyCommonAttributes(registerPlayer, playerNameTaken);
             playerNameTaken.setReceivingPlayerId(playerId);
-            outgoingEventBus.post(playerNameTaken);
+            playerSessions.post(playerNameTaken);
             return;
         }
 
         connectedPlayers.add(player);
+        if (registerPlayer.isDeltaMapUpdates()) {
+            deltaMapUpdatePlayerIds.add(playerId);
+        }
 
         GameSettings gameSettings = GameSettingsConverter.toGameSettings(new GameFeatures());
         PlayerRegistered playerRegistered = new PlayerRegistered("not_yet_known", player.getName(), gameSettings, GameMode.ARENA);
         MessageUtils.copyCommonAttributes(registerPlayer, playerRegistered);
 
-        outgoingEventBus.post(playerRegistered);
+        playerSessions.post(playerRegistered);
 
         log.debug("Player: {} registered in the arena {}", player.getName(), arenaName);
 
@@ -98,6 +106,7 @@ public class ArenaManager {
         Player player = new Player("name_unknown");
         player.setPlayerId(playerId);
         connectedPlayers.remove(player);
+        deltaMapUpdatePlayerIds.remove(playerId);
 
         if (currentGame != null) {
             currentGame.playerLostConnection(playerId);
@@ -148,6 +157,15 @@ public class ArenaManager {
 
     // Because the game engine can run faster than the viewers, we have to calculate if they have finished the game.
     private boolean viewersHaveFinished(Game currentGame) {
+        // Viewers that chose a playback rate are paced by the server, which knows where they are
+        String gameId = currentGame.getGameId();
+        if (!spectatorHub.isPlaybackFinished(gameId)) {
+            return false;
+        }
+        if (spectatorHub.isPlaybackKnown(gameId)) {
+            return true;
+        }
+
         long ticks = currentGame.getGameEngine().getCurrentWorldTick();
         double elapsedSeconds = System.nanoTime() / 1e9 - currentGameStartTime;
         return elapsedSeconds > 5 + currentGame.getGameEngine().getCurrentWorldTick() * 0.25 + 5;
@@ -193,10 +211,11 @@ public class ArenaManager {
         }
 
         currentGame = gameManager.createArenaGame();
-        currentGame.setOutgoingEventBus(outgoingEventBus);
+        currentGame.setPlayerSessions(playerSessions);
         players.forEach(player -> {
             // This object is mutable, we need a new one each game
-            RemotePlayer remotePlayer = new RemotePlayer(player, outgoingEventBus);
+            RemotePlayer remotePlayer = new RemotePlayer(player, playerSessions,
+                    deltaMapUpdatePlayerIds.contains(player.getPlayerId()));
             currentGame.addPlayer(remotePlayer);
         });
         currentGame.startGame();
@@ -213,8 +232,8 @@ public class ArenaManager {
         }
     }
 
-    public EventBus getOutgoingEventBus() {
-        return outgoingEventBus;
+    public PlayerSessionRegistry getPlayerSessions() {
+        return playerSessions;
     }
 
     public EventBus getIncomingEventBus() {
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import se.cygni.snake.game.GameManager;
+import se.cygni.snake.websocket.event.SpectatorHub;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,13 +21,15 @@ public class ArenaSelectionManager {
 
     private final GameManager gameManager;
     private final EventBus globalEventBus;
+    private final SpectatorHub spectatorHub;
 
     private Map<String, ArenaManager> arenas = new HashMap<>();
 
     @Autowired
-    public ArenaSelectionManager(GameManager gameManager, EventBus globalEventBus) {
+    public ArenaSelectionManager(GameManager gameManager, EventBus globalEventBus, SpectatorHub spectatorHub) {
         this.gameManager = gameManager;
         this.globalEventBus = globalEventBus;
+        this.spectatorHub = spectatorHub;
     }
 
     public synchronized ArenaManager getArena(String arenaName) {
@@ -51,7 +54,7 @@ public class ArenaSelectionManager {
     }
 
     private ArenaManager createNewArenaManager() {
-        return new ArenaManager(gameManager, globalEventBus);
+        return new ArenaManager(gameManager, globalEventBus, spectatorHub);
     }
 
     @Scheduled(fixedRate = 1000)
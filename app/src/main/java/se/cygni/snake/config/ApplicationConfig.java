@@ -1,16 +1,47 @@
 package se.cygni.snake.config;
 
 import com.google.common.eventbus.EventBus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import se.cygni.snake.game.GameManager;
+import se.cygni.snake.game.scheduler.GameScheduler;
+import se.cygni.snake.game.scheduler.TickLagMetrics;
+import se.cygni.snake.game.scheduler.TimerWheelGameScheduler;
+import se.cygni.snake.websocket.OutboundQueue;
+import se.cygni.snake.websocket.OutboundQueueMetrics;
+import se.cygni.snake.websocket.OutboundQueues;
+import se.cygni.snake.websocket.event.ActiveGamesView;
+import se.cygni.snake.websocket.event.PlaybackMetrics;
+import se.cygni.snake.websocket.event.SpectatorHub;
 
 @Configuration
 public class ApplicationConfig {
 
+    @Value("${snakebot.scheduler.poolsize}")
+    private int schedulerPoolSize;
+
+    @Value("${snakebot.scheduler.virtualthreads}")
+    private boolean schedulerVirtualThreads;
+
+    @Value("${snakebot.scheduler.wheel.tick}")
+    private long schedulerWheelTickInMs;
+
+    @Value("${snakebot.outbound.capacity}")
+    private int outboundCapacity;
+
+    @Value("${snakebot.outbound.overflow}")
+    private OutboundQueue.OverflowPolicy outboundOverflowPolicy;
+
+    @Value("${snakebot.spectator.activegames.interval}")
+    private long activeGamesIntervalInMs;
+
+    @Value("${snakebot.spectator.playback.maxbufferedframes}")
+    private int playbackMaxBufferedFrames;
+
     @Bean
     public GameManager gameManager() {
-        return new GameManager(globalEventBus());
+        return new GameManager(globalEventBus(), gameScheduler());
     }
 
     @Bean
@@ -18,5 +49,37 @@ public class ApplicationConfig {
         return new EventBus("globalEventBus");
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public GameScheduler gameScheduler() {
+        if (schedulerVirtualThreads) {
+            return TimerWheelGameScheduler.withVirtualThreads(schedulerPoolSize, schedulerWheelTickInMs);
+        }
+        return TimerWheelGameScheduler.withWorkerPool(schedulerPoolSize, schedulerWheelTickInMs);
+    }
+
+    @Bean
+    public TickLagMetrics tickLagMetrics() {
+        return gameScheduler().getTickLagMetrics();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OutboundQueues outboundQueues() {
+        return new OutboundQueues(outboundCapacity, outboundOverflowPolicy);
+    }
+
+    @Bean
+    public OutboundQueueMetrics outboundQueueMetrics() {
+        return outboundQueues().getMetrics();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SpectatorHub spectatorHub() {
+        return new SpectatorHub(globalEventBus(), new ActiveGamesView(gameManager()),
+                activeGamesIntervalInMs, playbackMaxBufferedFrames);
+    }
 
+    @Bean
+    public PlaybackMetrics playbackMetrics() {
+        return spectatorHub().getPlaybackMetrics();
+    }
 }
@@ -7,6 +7,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import se.cygni.snake.persistence.history.ElasticBulkIndexClient;
+import se.cygni.snake.persistence.history.ElasticBulkWriter;
+import se.cygni.snake.persistence.history.ElasticBulkWriterMetrics;
 
 import java.net.InetAddress;
 
@@ -20,9 +23,35 @@ public class ElasticConfig {
     @Value("${snakebot.elastic.port}")
     private int elasticPort;
 
+    @Value("${snakebot.elastic.bulk.size}")
+    private int bulkSize;
+
+    @Value("${snakebot.elastic.bulk.flush.interval}")
+    private long bulkFlushIntervalInMs;
+
+    @Value("${snakebot.elastic.bulk.queue.capacity}")
+    private int bulkQueueCapacity;
+
+    @Value("${snakebot.elastic.bulk.retries}")
+    private int bulkRetries;
+
+    @Value("${snakebot.elastic.bulk.retry.backoff}")
+    private long bulkRetryBackoffInMs;
+
     @Bean
     public Client elasticSearchClient() throws Exception {
         return TransportClient.builder().build()
                 .addTransportAddress(new InetSocketTransportAddress(InetAddress.getByName(elasticHost), elasticPort));
     }
-}
\ No newline at end of file
+
+    @Bean(destroyMethod = "shutdown")
+    public ElasticBulkWriter elasticBulkWriter() throws Exception {
+        return new ElasticBulkWriter(new ElasticBulkIndexClient(elasticSearchClient()),
+                bulkSize, bulkFlushIntervalInMs, bulkQueueCapacity, bulkRetries, bulkRetryBackoffInMs);
+    }
+
+    @Bean
+    public ElasticBulkWriterMetrics elasticBulkWriterMetrics(ElasticBulkWriter elasticBulkWriter) {
+        return elasticBulkWriter.getMetrics();
+    }
+}
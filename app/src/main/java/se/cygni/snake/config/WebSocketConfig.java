@@ -7,7 +7,10 @@ import org.springframework.web.socket.client.standard.WebSocketContainerFactoryB
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.handler.PerConnectionWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import se.cygni.snake.api.GameMessageParser;
 import se.cygni.snake.websocket.arena.ArenaWebSocketHandler;
 import se.cygni.snake.websocket.event.EventSocketHandler;
 import se.cygni.snake.websocket.tournament.TournamentWebSocketHandler;
@@ -20,9 +23,22 @@ public class WebSocketConfig implements WebSocketConfigurer {
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(eventWebSocketHandler(), "/events").setAllowedOrigins("*").withSockJS();
         registry.addHandler(eventWebSocketHandler(), "/events-native").setAllowedOrigins("*");
-        registry.addHandler(snakeTrainingWebSocketHandler(), "/training");
-        registry.addHandler(snakeTournamentWebSocketHandler(), "/tournament");
-        registry.addHandler(snakeArenaWebSocketHandler(), "/arena", "/arena/", "/arena/{arenaName}");
+        registry.addHandler(snakeTrainingWebSocketHandler(), "/training")
+                .setHandshakeHandler(gameHandshakeHandler());
+        registry.addHandler(snakeTournamentWebSocketHandler(), "/tournament")
+                .setHandshakeHandler(gameHandshakeHandler());
+        registry.addHandler(snakeArenaWebSocketHandler(), "/arena", "/arena/", "/arena/{arenaName}")
+                .setHandshakeHandler(gameHandshakeHandler());
+    }
+
+    /**
+     * Lets players choose the binary Smile encoding of game messages
+     */
+    @Bean
+    public HandshakeHandler gameHandshakeHandler() {
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(GameMessageParser.SMILE_PROTOCOL);
+        return handshakeHandler;
     }
 
     @Bean
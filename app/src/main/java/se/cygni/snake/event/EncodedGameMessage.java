@@ -0,0 +1,170 @@
+package se.cygni.snake.event;
+
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.GameMessageParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A GameMessage serialized once for several receiving players. Only the
+ * receivingPlayerId differs between the payloads, and it is spliced into
+ * the encoded message for each player.
+ *
+ * The Smile encoding is made the first time a player on a binary
+ * connection asks for it. Smile frames a short ASCII string by its length,
+ * so it is encoded once for each length of player id.
+ */
+public class EncodedGameMessage {
+
+    private static final String NO_RECEIVER = "\"receivingPlayerId\":null";
+    private static final char PLACEHOLDER = '\u0001';
+
+    private final GameMessage message;
+    private final Set<String> receivingPlayerIds;
+    private final String head;
+    private final String tail;
+    private final Map<Integer, SmileTemplate> smileTemplates = new ConcurrentHashMap<>();
+
+    private EncodedGameMessage(GameMessage message, Set<String> receivingPlayerIds,
+                               String head, String tail) {
+        this.message = message;
+        this.receivingPlayerIds = receivingPlayerIds;
+        this.head = head;
+        this.tail = tail;
+    }
+
+    /**
+     * @param message must not have a receivingPlayerId, and must not be
+     *                changed afterwards
+     */
+    public static EncodedGameMessage encode(GameMessage message, Set<String> receivingPlayerIds) throws IOException {
+        if (message.getReceivingPlayerId() != null) {
+            throw new IllegalArgumentException("Message is already addressed to " + message.getReceivingPlayerId());
+        }
+
+        // Quotes within strings are escaped, so this only matches the
+        // property of the message itself
+        String encoded = GameMessageParser.encodeMessage(message);
+        int at = encoded.indexOf(NO_RECEIVER);
+        if (at < 0) {
+            throw new IllegalStateException("No receivingPlayerId in encoded message " + encoded);
+        }
+
+        return new EncodedGameMessage(
+                message,
+                receivingPlayerIds,
+                encoded.substring(0, at) + "\"receivingPlayerId\":\"",
+                "\"" + encoded.substring(at + NO_RECEIVER.length()));
+    }
+
+    public Class<? extends GameMessage> getMessageType() {
+        return message.getClass();
+    }
+
+    public Set<String> getReceivingPlayerIds() {
+        return receivingPlayerIds;
+    }
+
+    /**
+     * @return the message as GameMessageParser would encode it with
+     * receivingPlayerId set to playerId
+     */
+    public String getPayload(String playerId) {
+        return head + playerId + tail;
+    }
+
+    /**
+     * @return the message as GameMessageParser would encode it as Smile
+     * with receivingPlayerId set to playerId
+     */
+    public byte[] getSmilePayload(String playerId) throws IOException {
+        if (!isAscii(playerId)) {
+            return encodeSmile(playerId);
+        }
+
+        SmileTemplate template;
+        try {
+            template = smileTemplates.computeIfAbsent(playerId.length(), this::createSmileTemplate);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return template != null ? template.fill(playerId) : encodeSmile(playerId);
+    }
+
+    /**
+     * @return null if the placeholder id can not be told apart from the
+     * rest of the message
+     */
+    private SmileTemplate createSmileTemplate(int idLength) {
+        char[] placeholder = new char[idLength];
+        Arrays.fill(placeholder, PLACEHOLDER);
+        byte[] placeholderBytes = new String(placeholder).getBytes(StandardCharsets.US_ASCII);
+
+        try {
+            byte[] encoded = encodeSmile(new String(placeholder));
+            int at = indexOf(encoded, placeholderBytes, 0);
+            if (at < 0 || indexOf(encoded, placeholderBytes, at + 1) >= 0) {
+                return null;
+            }
+            return new SmileTemplate(encoded, at);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] encodeSmile(String playerId) throws IOException {
+        try {
+            GameMessage copy = (GameMessage) message.clone();
+            copy.setReceivingPlayerId(playerId);
+            return GameMessageParser.encodeSmileMessage(copy);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+        for (int i = from; i <= bytes.length - pattern.length; i++) {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class SmileTemplate {
+        private final byte[] encoded;
+        private final int idOffset;
+
+        private SmileTemplate(byte[] encoded, int idOffset) {
+            this.encoded = encoded;
+            this.idOffset = idOffset;
+        }
+
+        private byte[] fill(String playerId) {
+            byte[] payload = encoded.clone();
+            for (int i = 0; i < playerId.length(); i++) {
+                payload[idOffset + i] = (byte) playerId.charAt(i);
+            }
+            return payload;
+        }
+    }
+}
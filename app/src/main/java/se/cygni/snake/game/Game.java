@@ -21,7 +21,9 @@ import se.cygni.snake.api.util.MessageUtils;
 import se.cygni.snake.apiconversion.DirectionConverter;
 import se.cygni.snake.apiconversion.GameSettingsConverter;
 import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.game.scheduler.GameScheduler;
 import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.PlayerSessionRegistry;
 import se.cygni.snake.player.RemotePlayer;
 import se.cygni.snake.player.bot.*;
 
@@ -32,7 +34,7 @@ public class Game {
 
     private final boolean trainingGame;
     private final EventBus incomingEventBus;
-    private EventBus outgoingEventBus;
+    private PlayerSessionRegistry playerSessions;
     private final String gameId;
     PlayerManager playerManager = new PlayerManager();
     private GameFeatures gameFeatures;
@@ -42,22 +44,23 @@ public class Game {
 
     private XORShiftRandom botSelector = new XORShiftRandom();
 
-    public Game(GameFeatures gameFeatures, EventBus globalEventBus, boolean trainingGame, String viewUrl) {
+    public Game(GameFeatures gameFeatures, EventBus globalEventBus, GameScheduler gameScheduler,
+                boolean trainingGame, String viewUrl) {
 
         this.globalEventBus = globalEventBus;
         this.gameFeatures = gameFeatures;
         this.trainingGame = trainingGame;
         this.viewUrl = viewUrl;
         gameId = UUID.randomUUID().toString();
-        gameEngine = new GameEngine(gameFeatures, playerManager, gameId, globalEventBus);
+        gameEngine = new GameEngine(gameFeatures, playerManager, gameId, globalEventBus, gameScheduler);
         incomingEventBus = new EventBus("game-" + gameId + "-incoming");
         incomingEventBus.register(this);
 
-        outgoingEventBus = new EventBus("game-" + gameId + "-outgoing");
+        playerSessions = new PlayerSessionRegistry("game-" + gameId);
     }
 
-    public void setOutgoingEventBus(EventBus outgoingEventBus) {
-        this.outgoingEventBus = outgoingEventBus;
+    public void setPlayerSessions(PlayerSessionRegistry playerSessions) {
+        this.playerSessions = playerSessions;
     }
 
     @Subscribe
@@ -76,11 +79,11 @@ public class Game {
         if (playerManager.containsPlayerWithName(player.getName())) {
             InvalidPlayerName playerNameTaken = new InvalidPlayerName(InvalidPlayerName.PlayerNameInvalidReason.Taken);
             MessageUtils.copyCommonAttributes(registerPlayer, playerNameTaken);
-            outgoingEventBus.post(playerNameTaken);
+            playerSessions.post(playerNameTaken);
             return;
         }
 
-        RemotePlayer remotePlayer = new RemotePlayer(player, outgoingEventBus);
+        RemotePlayer remotePlayer = new RemotePlayer(player, playerSessions, registerPlayer.isDeltaMapUpdates());
         addPlayer(remotePlayer);
 
         // If this is a training game changes to settings are allowed
@@ -94,7 +97,7 @@ public class Game {
         PlayerRegistered playerRegistered = new PlayerRegistered(gameId, player.getName(), gameSettings, GameMode.TRAINING);
         MessageUtils.copyCommonAttributes(registerPlayer, playerRegistered);
 
-        outgoingEventBus.post(playerRegistered);
+        playerSessions.post(playerRegistered);
         sendGameLink(player);
         publishGameChanged();
     }
@@ -142,15 +145,15 @@ public class Game {
     private void sendGameLink(Player player) {
         GameLinkEvent gle = new GameLinkEvent(gameId, viewUrl + gameId);
         gle.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(gle);
+        playerSessions.post(gle);
     }
 
     public PlayerManager getPlayerManager() {
         return playerManager;
     }
 
-    public EventBus getOutgoingEventBus() {
-        return outgoingEventBus;
+    public PlayerSessionRegistry getPlayerSessions() {
+        return playerSessions;
     }
 
     public EventBus getIncomingEventBus() {
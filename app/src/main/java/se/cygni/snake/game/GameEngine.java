@@ -3,8 +3,10 @@ package se.cygni.snake.game;
 import com.google.common.eventbus.EventBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.WorldState;
 import se.cygni.game.enums.Direction;
+import se.cygni.game.exception.TransformationException;
 import se.cygni.game.random.XORShiftRandom;
 import se.cygni.game.transformation.*;
 import se.cygni.game.worldobject.Food;
@@ -12,17 +14,19 @@ import se.cygni.game.worldobject.SnakeHead;
 import se.cygni.snake.api.GameMessage;
 import se.cygni.snake.api.event.GameEndedEvent;
 import se.cygni.snake.api.event.GameResultEvent;
-import se.cygni.snake.api.event.GameStartingEvent;
 import se.cygni.snake.api.event.MapUpdateEvent;
 import se.cygni.snake.apiconversion.GameMessageConverter;
-import se.cygni.snake.apiconversion.GameSettingsConverter;
+import se.cygni.snake.apiconversion.MapDeltaEncoder;
 import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.game.scheduler.GameScheduler;
+import se.cygni.snake.game.scheduler.TickTimeout;
 import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.RemotePlayer;
 
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -30,7 +34,7 @@ import java.util.stream.IntStream;
  * GameEngine is responsible for:
  *
  * - Maintaining the world
- * - Handling the time ticker
+ * - Handling the time ticker, ticks are run by the GameScheduler
  * - Executing player moves
  * - Executing the rules from GameFeatures
  */
@@ -38,9 +42,12 @@ public class GameEngine {
     private static Logger log = LoggerFactory
             .getLogger(GameEngine.class);
 
+    // Moves in a row a player must answer before the time per tick adapts
+    private static final int NOOF_MOVES_BEFORE_ADAPTING_TIME = 20;
+
     private GameFeatures gameFeatures;
     private WorldState world;
-    private long currentWorldTick = 0;
+    private volatile long currentWorldTick = 0;
     private java.util.Map<String, Direction> snakeDirections;
     private AtomicBoolean isRunning = new AtomicBoolean(false);
     private AtomicBoolean gameComplete = new AtomicBoolean(false);
@@ -49,21 +56,48 @@ public class GameEngine {
     private final PlayerManager playerManager;
     private final String gameId;
 
-    private CountDownLatch countDownLatch;
-    private Set<String> registeredMovesByPlayers = Collections.synchronizedSet(new HashSet<>());
-    private XORShiftRandom random = new XORShiftRandom();
+    private final GameScheduler gameScheduler;
+    private volatile TickTimeout tickTimeout;
+    private volatile long tickStart;
+    private Set<String> tickPlayerIds = Collections.emptySet();
+    private long timeInMsForTick;
+    private MoveBuffer moveBuffer;
+    private java.util.Map<String, LatencyHistogram> latencyByPlayer;
+    private java.util.Map<String, Integer> movesInARowByPlayer;
+    private final long seed;
+    private final Random random;
+    private boolean headless = false;
     private GameResult gameResult;
+    private MapDeltaEncoder mapDeltaEncoder;
 
 
     public GameEngine(GameFeatures gameFeatures,
                       PlayerManager playerManager,
                       String gameId,
-                      EventBus globalEventBus) {
+                      EventBus globalEventBus,
+                      GameScheduler gameScheduler) {
+
+        this(gameFeatures, playerManager, gameId, globalEventBus, gameScheduler, new XORShiftRandom().nextLong());
+    }
+
+    /**
+     * @param seed of all randomness in the game, the same seed and the same
+     *             moves replay the same game
+     */
+    public GameEngine(GameFeatures gameFeatures,
+                      PlayerManager playerManager,
+                      String gameId,
+                      EventBus globalEventBus,
+                      GameScheduler gameScheduler,
+                      long seed) {
 
         this.gameFeatures = gameFeatures;
         this.gameId = gameId;
         this.playerManager = playerManager;
         this.globalEventBus = globalEventBus;
+        this.gameScheduler = gameScheduler;
+        this.seed = seed;
+        this.random = new XORShiftRandom(seed);
         this.worldTransformer = new WorldTransformer(
                 gameFeatures, playerManager, gameId, globalEventBus
         );
@@ -85,15 +119,15 @@ public class GameEngine {
 
     private void initPlacePlayers() {
         // Place players
-        List<SnakeHead> snakeHeads = playerManager.toSet().stream().map(player -> new SnakeHead(player.getName(), player.getPlayerId(), 0)).collect(Collectors.toList());
-        AddWorldObjectsInCircle snakeHeadsInCircleFormation = new AddWorldObjectsInCircle(snakeHeads, 0.9d);
+        List<SnakeHead> snakeHeads = sortedPlayers().stream().map(player -> new SnakeHead(player.getName(), player.getPlayerId(), 0)).collect(Collectors.toList());
+        AddWorldObjectsInCircle snakeHeadsInCircleFormation = new AddWorldObjectsInCircle(snakeHeads, 0.9d, random);
         world = snakeHeadsInCircleFormation.transform(world);
     }
 
     private void initPlaceFood() {
         if (gameFeatures.isFoodEnabled()) {
             IntStream.range(0, gameFeatures.getStartFood()).forEach(n -> {
-                AddWorldObjectAtRandomPosition addFoodTransform = new AddWorldObjectAtRandomPosition(new Food());
+                AddWorldObjectAtRandomPosition addFoodTransform = new AddWorldObjectAtRandomPosition(new Food(), random);
                 world = addFoodTransform.transform(world);
             });
         }
@@ -102,7 +136,7 @@ public class GameEngine {
     private void initPlaceObstacles() {
         if (gameFeatures.isObstaclesEnabled()) {
             IntStream.range(0, gameFeatures.getStartObstacles()).forEach(n -> {
-                AddRandomObstacle obstacleTransform = new AddRandomObstacle();
+                AddRandomObstacle obstacleTransform = new AddRandomObstacle(random);
                 world = obstacleTransform.transform(world);
             });
         }
@@ -113,6 +147,10 @@ public class GameEngine {
     }
 
     private void notifyPlayers(Set<IPlayer> players, GameMessage message) {
+        if (headless) {
+            return;
+        }
+
         players.stream().forEach( player -> {
             try {
                 player.onGameMessage((GameMessage) message.clone());
@@ -129,14 +167,16 @@ public class GameEngine {
 
     private void initGame() {
         world = new WorldState(gameFeatures.getWidth(), gameFeatures.getHeight());
+        mapDeltaEncoder = new MapDeltaEncoder();
 
         initPlacePlayers();
 
-        notifyAllPlayers(new GameStartingEvent(
+        notifyAllPlayers(GameMessageConverter.onGameStart(
                 gameId,
                 playerManager.size(),
                 world.getWidth(), world.getHeight(),
-                GameSettingsConverter.toGameSettings(gameFeatures)));
+                gameFeatures,
+                seed));
 
         initPlaceObstacles();
         initPlaceFood();
@@ -147,99 +187,257 @@ public class GameEngine {
     private void gameLoop() {
         initSnakeDirections();
 
-        Runnable r = new Runnable() {
-            @Override
-            public void run() {
-                // Set internal state to running
-                isRunning.set(true);
+        // Set internal state to running
+        isRunning.set(true);
 
-                // Loop till winner is decided
-                while (isGameRunning()) {
+        tickTimeout = gameScheduler.schedule(gameId, this::startTick, 0);
+    }
 
-                    Set<IPlayer> livePlayers = playerManager.getLivePlayers();
-                    countDownLatch = new CountDownLatch(livePlayers.size());
-                    registeredMovesByPlayers.clear();
+    /**
+     * Sends the world to all live players and schedules the tick to be
+     * resolved when all moves are in or the time per tick has passed.
+     */
+    private void startTick() {
+        if (!isGameRunning()) {
+            endGame();
+            return;
+        }
 
-                    DecrementTailProtection decrementTailProtection = new DecrementTailProtection();
-                    world = decrementTailProtection.transform(world);
+        Set<IPlayer> livePlayers = playerManager.getLivePlayers();
+        MapUpdateEvent mapUpdateEvent = openTick(livePlayers);
+        tickTimeout = gameScheduler.schedule(gameId, this::resolveTick, timeInMsForTick);
 
-                    Set<IPlayer> players = playerManager.toSet();
-                    MapUpdateEvent mapUpdateEvent = GameMessageConverter
-                            .onWorldUpdate(world, gameId, currentWorldTick, players);
+        notifyWorldUpdate(livePlayers, mapUpdateEvent);
+    }
 
-                    notifyPlayers(livePlayers, mapUpdateEvent);
+    /**
+     * Players that want delta map updates get the same stream of keyframes
+     * and deltas, encoded once per tick. Players only drop out of the live
+     * players, so every one of them has seen the map the delta is against.
+     */
+    private void notifyWorldUpdate(Set<IPlayer> livePlayers, MapUpdateEvent mapUpdateEvent) {
+        if (headless) {
+            return;
+        }
 
-                    long tstart = System.currentTimeMillis();
-                    try {
-                        countDownLatch.await(gameFeatures.getTimeInMsPerTick(), TimeUnit.MILLISECONDS);
-                    } catch (InterruptedException e) {
-                        log.error("Waiting for all players moves was interrupted!", e);
-                    }
+        Set<IPlayer> deltaPlayers = livePlayers.stream()
+                .filter(IPlayer::isDeltaMapUpdates)
+                .collect(Collectors.toSet());
+        Set<IPlayer> fullPlayers = new HashSet<>(livePlayers);
+        fullPlayers.removeAll(deltaPlayers);
 
-                    long timeSpent = System.currentTimeMillis() - tstart;
-                    log.info("All moves received, gameId: {}, tick: {}, time waiting: " + timeSpent + "ms", gameId, currentWorldTick);
+        broadcast(fullPlayers, mapUpdateEvent);
+        if (!deltaPlayers.isEmpty()) {
+            broadcast(deltaPlayers, mapDeltaEncoder.next(mapUpdateEvent));
+        }
 
-                    try {
-                        world = worldTransformer.transform(snakeDirections, gameFeatures, world, spontaneousGrowth(), currentWorldTick);
-                    } catch (Exception e) {
-                        // This is really undefined, if this happens we have a bug
-                        log.error("Bug found in WorldTransformer:", e);
-                    }
+        // Spectators and the game history always get the full map
+        globalEventBus.post(new InternalGameEvent(
+                System.currentTimeMillis(),
+                mapUpdateEvent));
+    }
 
-                    currentWorldTick++;
+    /**
+     * Remote players share one serialization of message, the others get a
+     * copy each like in notifyPlayers.
+     */
+    private void broadcast(Set<IPlayer> players, GameMessage message) {
+        List<RemotePlayer> remotePlayers = new ArrayList<>();
+        for (IPlayer player : players) {
+            if (player instanceof RemotePlayer) {
+                remotePlayers.add((RemotePlayer) player);
+                continue;
+            }
+            try {
+                player.onGameMessage((GameMessage) message.clone());
+            } catch (Exception e) {
+                log.error("Failed to send {} to player {}, gameId: {}",
+                        message.getClass().getSimpleName(), player.getPlayerId(), gameId, e);
+            }
+        }
 
-                    // Add random objects
-                    if (gameFeatures.isFoodEnabled()) {
-                        randomFood();
-                    }
-                }
+        try {
+            RemotePlayer.broadcast(remotePlayers, message);
+        } catch (Exception e) {
+            log.error("Failed to broadcast {}, gameId: {}", message.getClass().getSimpleName(), gameId, e);
+        }
+    }
 
-                // Set internal state to not running
-                isRunning.set(false);
+    private void resolveTick() {
+        advanceTick();
+        startTick();
+    }
 
-                // Create GameResult
-                Set<IPlayer> allPlayers = playerManager.toSet();
-                for (IPlayer player : allPlayers) {
-                    gameResult.addResult(player);
-                    log.debug("Adding player {} to gameResult", player.getName());
+    /**
+     * Plays the whole game on the calling thread, used to simulate bot only
+     * games. Instead of being sent any messages every live player is asked
+     * for its move by moves, and each tick is resolved as soon as all have
+     * answered. The game ends when at most one snake is left or after
+     * maxNoofTicks. Nothing is posted on the globalEventBus, so a headless
+     * game may be created without one.
+     */
+    public void runHeadless(BiFunction<IPlayer, MapUpdateEvent, Direction> moves, long maxNoofTicks) {
+        headless = true;
+        worldTransformer.setHeadless(true);
+        initGame();
+        initSnakeDirections();
+        isRunning.set(true);
+
+        while (isRunning.get() && noofLiveSnakesInWorld() > 1 && currentWorldTick < maxNoofTicks) {
+            Set<IPlayer> livePlayers = playerManager.getLivePlayers();
+            MapUpdateEvent mapUpdateEvent = openTick(livePlayers);
+
+            for (IPlayer player : livePlayers) {
+                Direction direction = moves.apply(player, mapUpdateEvent);
+                if (direction != null) {
+                    moveBuffer.register(currentWorldTick, player.getPlayerId(), direction);
                 }
+            }
+
+            advanceTick();
+        }
+
+        endGame();
+    }
+
+    private MapUpdateEvent openTick(Set<IPlayer> livePlayers) {
+        tickPlayerIds = livePlayers.stream()
+                .map(IPlayer::getPlayerId)
+                .collect(Collectors.toSet());
+        timeInMsForTick = timeInMsForTick(tickPlayerIds);
+        moveBuffer.open(currentWorldTick, tickPlayerIds);
+
+        DecrementTailProtection decrementTailProtection = new DecrementTailProtection();
+        world = decrementTailProtection.transform(world);
 
-                gameComplete.set(true);
+        Set<IPlayer> players = playerManager.toSet();
+        MapUpdateEvent mapUpdateEvent = GameMessageConverter
+                .onWorldUpdate(world, gameId, currentWorldTick, players);
 
-                // Notify of GameResult
-                GameResultEvent gameResultEvent = GameMessageConverter.onGameResult(gameId, gameResult);
-                notifyPlayers(allPlayers, gameResultEvent);
+        tickStart = System.nanoTime();
+        return mapUpdateEvent;
+    }
+
+    private void advanceTick() {
+        moveBuffer.close(currentWorldTick, snakeDirections);
+        countMovesInARow();
+
+        long timeSpent = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - tickStart);
+        log.info("All moves received, gameId: {}, tick: {}, time waiting: " + timeSpent + "ms", gameId, currentWorldTick);
+
+        // The moves and the random objects are applied in one pass, and
+        // only the resulting world is published
+        final boolean spontaneousGrowth = spontaneousGrowth();
+        final long worldTick = currentWorldTick;
+        TransformationPipeline tick = new TransformationPipeline()
+                .then((InPlaceTransformation) world -> moveSnakes(world, spontaneousGrowth, worldTick));
+
+        // Add random objects
+        if (gameFeatures.isFoodEnabled()) {
+            tick.then((InPlaceTransformation) this::randomFood);
+        }
+
+        // A failing step leaves the world as it was, the working copy is
+        // only published if the whole pipeline succeeds
+        try {
+            world = tick.transform(world);
+        } catch (Exception e) {
+            // This is really undefined, if this happens we have a bug
+            log.error("Bug found in WorldTransformer, gameId: {}, tick: {}", gameId, worldTick, e);
+        }
+
+        currentWorldTick++;
+    }
+
+    private void moveSnakes(MutableWorldState world, boolean spontaneousGrowth, long worldTick)
+            throws TransformationException {
+        worldTransformer.transform(snakeDirections, gameFeatures, world, spontaneousGrowth, worldTick);
+    }
 
-                // Notify of GameEnded
-                GameEndedEvent gameEndedEvent = GameMessageConverter.onGameEnded(
-                        gameResult.getWinner().getPlayerId(),
-                        gameResult.getWinner().getName(),
-                        gameId,
-                        currentWorldTick,
-                        world,
-                        allPlayers
-                );
-                notifyPlayers(allPlayers, gameEndedEvent);
+    /**
+     * With adaptiveTimePerTick, once every live player has answered enough
+     * ticks in a row the time per tick is cut to twice the 99th percentile
+     * response time of the slowest of them. A missed tick resets the count
+     * for that player, so the full time applies again.
+     */
+    private long timeInMsForTick(Set<String> livePlayerIds) {
+        long timeInMsPerTick = gameFeatures.getTimeInMsPerTick();
+        if (!gameFeatures.isAdaptiveTimePerTick()) {
+            return timeInMsPerTick;
+        }
 
-                publishGameChanged();
+        long slowestInMicros = 0;
+        for (String playerId : livePlayerIds) {
+            if (movesInARowByPlayer.getOrDefault(playerId, 0) < NOOF_MOVES_BEFORE_ADAPTING_TIME) {
+                return timeInMsPerTick;
             }
-        };
+            slowestInMicros = Math.max(slowestInMicros, latencyByPlayer.get(playerId).getPercentileInMicros(99));
+        }
 
-        Thread t = new Thread(r);
-        t.start();
+        long adaptedTimeInMs = TimeUnit.MICROSECONDS.toMillis(2 * slowestInMicros) + 1;
+        return Math.max(gameFeatures.getMinTimeInMsPerTick(), Math.min(timeInMsPerTick, adaptedTimeInMs));
     }
 
-    private void randomFood() {
+    private void countMovesInARow() {
+        for (String playerId : tickPlayerIds) {
+            if (moveBuffer.hasMoved(currentWorldTick, playerId)) {
+                movesInARowByPlayer.merge(playerId, 1, Integer::sum);
+            } else {
+                movesInARowByPlayer.put(playerId, 0);
+                latencyByPlayer.get(playerId).record(TimeUnit.MILLISECONDS.toNanos(timeInMsForTick));
+            }
+        }
+    }
+
+    private void endGame() {
+        // Set internal state to not running
+        isRunning.set(false);
+
+        // Create GameResult
+        Set<IPlayer> allPlayers = playerManager.toSet();
+        for (IPlayer player : allPlayers) {
+            gameResult.addResult(player);
+            log.debug("Adding player {} to gameResult", player.getName());
+        }
+
+        gameComplete.set(true);
+        if (!headless) {
+            latencyByPlayer.forEach((playerId, latency) ->
+                    log.debug("Response times, gameId: {}, player: {}, {}", gameId, playerId, latency));
+            log.info("Game ended, gameId: {}, tick lag: {}", gameId,
+                    gameScheduler.getTickLagMetrics().getTickLag(gameId));
+            gameScheduler.release(gameId);
+        }
+
+        // Notify of GameResult
+        GameResultEvent gameResultEvent = GameMessageConverter.onGameResult(gameId, gameResult);
+        notifyPlayers(allPlayers, gameResultEvent);
+
+        // Notify of GameEnded
+        GameEndedEvent gameEndedEvent = GameMessageConverter.onGameEnded(
+                gameResult.getWinner().getPlayerId(),
+                gameResult.getWinner().getName(),
+                gameId,
+                currentWorldTick,
+                world,
+                allPlayers
+        );
+        notifyPlayers(allPlayers, gameEndedEvent);
+
+        publishGameChanged();
+    }
+
+    private void randomFood(MutableWorldState world) {
         if (shouldExecute(gameFeatures.getRemoveFoodLikelihood())) {
             RemoveRandomWorldObject<Food> removeTransform =
-                    new RemoveRandomWorldObject<>(Food.class);
-            world = removeTransform.transform(world);
+                    new RemoveRandomWorldObject<>(Food.class, random);
+            removeTransform.transform(world);
         }
 
         if (shouldExecute(gameFeatures.getAddFoodLikelihood())) {
             AddWorldObjectAtRandomPosition addTransform =
-                    new AddWorldObjectAtRandomPosition(new Food());
-            world = addTransform.transform(world);
+                    new AddWorldObjectAtRandomPosition(new Food(), random);
+            addTransform.transform(world);
         }
     }
 
@@ -262,9 +460,24 @@ public class GameEngine {
     private void initSnakeDirections() {
         snakeDirections = new HashMap<>();
 
-        playerManager.toSet().stream().forEach( player -> {
+        sortedPlayers().stream().forEach( player -> {
             snakeDirections.put(player.getPlayerId(), getRandomDirection());
         });
+
+        moveBuffer = new MoveBuffer(snakeDirections.keySet());
+        latencyByPlayer = new HashMap<>();
+        movesInARowByPlayer = new HashMap<>();
+        snakeDirections.keySet().forEach(playerId -> latencyByPlayer.put(playerId, new LatencyHistogram()));
+    }
+
+    /**
+     * @return all players in a stable order, so that a seeded game is
+     * reproducible
+     */
+    private List<IPlayer> sortedPlayers() {
+        return playerManager.toSet().stream()
+                .sorted(Comparator.comparing(IPlayer::getPlayerId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
     }
 
     public boolean isGameRunning() {
@@ -280,29 +493,42 @@ public class GameEngine {
     }
 
     public void registerMove(long gameTick, String playerId, Direction direction) {
-        if (!isGameRunning()) {
+        // Whether the player still is alive is up to the move buffer, so
+        // that moves can be registered without locking the PlayerManager
+        if (!isRunning.get()) {
             return;
         }
 
-        // Move is for wrong gameTick
-        if (gameTick != currentWorldTick) {
-            log.warn("Player: {} with id {} sent move within wrong world tick. Current world tick: {}, player's world tick: {}",
-                    playerManager.getPlayerName(playerId), playerId,
-                    currentWorldTick, gameTick);
-            return;
+        MoveBuffer.Result result = moveBuffer.register(gameTick, playerId, direction);
+        if (result == MoveBuffer.Result.ACCEPTED || result == MoveBuffer.Result.ALL_MOVES_IN) {
+            latencyByPlayer.get(playerId).record(System.nanoTime() - tickStart);
         }
 
-        // Player has already registered a move
-        if (registeredMovesByPlayers.contains(playerId)) {
-            log.warn("Player: {} with id {} sent more than one move. Current world tick: {}, player's world tick: {}",
-                    playerManager.getPlayerName(playerId), playerId,
-                    currentWorldTick, gameTick);
-            return;
+        switch (result) {
+            case ALL_MOVES_IN:
+                tickTimeout.fire();
+                break;
+
+            case WRONG_TICK:
+                log.warn("Player: {} with id {} sent move within wrong world tick. Current world tick: {}, player's world tick: {}",
+                        playerManager.getPlayerName(playerId), playerId,
+                        currentWorldTick, gameTick);
+                break;
+
+            case DUPLICATE:
+                log.warn("Player: {} with id {} sent more than one move. Current world tick: {}, player's world tick: {}",
+                        playerManager.getPlayerName(playerId), playerId,
+                        currentWorldTick, gameTick);
+                break;
+
+            case UNKNOWN_PLAYER:
+            case NOT_EXPECTED:
+                log.debug("Ignoring move from player with id {} that is not playing this tick", playerId);
+                break;
+
+            default:
+                break;
         }
-
-        registeredMovesByPlayers.add(playerId);
-        snakeDirections.put(playerId, direction);
-        countDownLatch.countDown();
     }
 
     private Direction getRandomDirection() {
@@ -319,11 +545,28 @@ public class GameEngine {
     }
 
     public void publishGameChanged() {
+        if (headless) {
+            return;
+        }
+
         InternalGameEvent gevent = new InternalGameEvent(System.currentTimeMillis());
         gevent.onGameChanged(gameId);
         globalEventBus.post(gevent);
     }
 
+    /**
+     * @return the response times of the player, or null if the game
+     * hasn't started or the player isn't part of it
+     */
+    public LatencyHistogram getLatencyHistogram(String playerId) {
+        java.util.Map<String, LatencyHistogram> latencies = latencyByPlayer;
+        return latencies == null ? null : latencies.get(playerId);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
     public long getCurrentWorldTick() {
         return currentWorldTick;
     }
@@ -15,6 +15,15 @@ public class GameFeatures {
     // The time clients have to respond with a new move
     private int timeInMsPerTick = 250;
 
+    // Shorten the time per tick when all live players
+    // consistently respond faster than timeInMsPerTick.
+    // A tick always advances as soon as all moves are in.
+    private boolean adaptiveTimePerTick = false;
+
+    // The shortest time per tick when adaptiveTimePerTick
+    // is active
+    private int minTimeInMsPerTick = 20;
+
     // Randomly place obstacles
     private boolean obstaclesEnabled = true;
 
@@ -86,6 +95,8 @@ public class GameFeatures {
         spontaneousGrowthEveryNWorldTick = spontaneousGrowthEveryNWorldTick < 2 ? 2 : spontaneousGrowthEveryNWorldTick;
         startObstacles = Math.max(0, startObstacles);
         startFood = Math.max(0, startFood);
+
+        minTimeInMsPerTick = Math.max(1, Math.min(timeInMsPerTick, minTimeInMsPerTick));
     }
 
     public int getWidth() {
@@ -120,6 +131,22 @@ public class GameFeatures {
         this.timeInMsPerTick = timeInMsPerTick;
     }
 
+    public boolean isAdaptiveTimePerTick() {
+        return adaptiveTimePerTick;
+    }
+
+    public void setAdaptiveTimePerTick(boolean adaptiveTimePerTick) {
+        this.adaptiveTimePerTick = adaptiveTimePerTick;
+    }
+
+    public int getMinTimeInMsPerTick() {
+        return minTimeInMsPerTick;
+    }
+
+    public void setMinTimeInMsPerTick(int minTimeInMsPerTick) {
+        this.minTimeInMsPerTick = minTimeInMsPerTick;
+    }
+
     public boolean isObstaclesEnabled() {
         return obstaclesEnabled;
     }
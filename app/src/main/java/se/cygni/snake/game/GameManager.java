@@ -18,6 +18,7 @@ import se.cygni.snake.api.event.GameAbortedEvent;
 import se.cygni.snake.api.event.GameCreatedEvent;
 import se.cygni.snake.api.event.GameEndedEvent;
 import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.game.scheduler.GameScheduler;
 
 public class GameManager {
 
@@ -25,27 +26,30 @@ public class GameManager {
 
     EventBus globalEventBus;
 
+    private final GameScheduler gameScheduler;
+
     private final Map<String, Game> activeGames = new ConcurrentHashMap<>(new HashMap<>());
 
     @Value("${snakebot.view.url}")
     private String viewUrl;
 
     @Autowired
-    public GameManager(EventBus globalEventBus) {
+    public GameManager(EventBus globalEventBus, GameScheduler gameScheduler) {
 	this.globalEventBus = globalEventBus;
+	this.gameScheduler = gameScheduler;
 	globalEventBus.register(this);
     }
 
     public Game createArenaGame() {
 	final GameFeatures gameFeatures = new GameFeatures();
-	final Game game = new Game(gameFeatures, globalEventBus, false, viewUrl);
+	final Game game = new Game(gameFeatures, globalEventBus, gameScheduler, false, viewUrl);
 	registerGame(game);
 
 	return game;
     }
 
     public Game createGame(GameFeatures gameFeatures) {
-	final Game game = new Game(gameFeatures, globalEventBus, false, viewUrl);
+	final Game game = new Game(gameFeatures, globalEventBus, gameScheduler, false, viewUrl);
 	registerGame(game);
 
 	return game;
@@ -54,7 +58,7 @@ public class GameManager {
     public Game createTrainingGame() {
 	final GameFeatures gameFeatures = new GameFeatures();
 	gameFeatures.setTrainingGame(true);
-	final Game game = new Game(gameFeatures, globalEventBus, true, viewUrl);
+	final Game game = new Game(gameFeatures, globalEventBus, gameScheduler, true, viewUrl);
 
 	registerGame(game);
 	return game;
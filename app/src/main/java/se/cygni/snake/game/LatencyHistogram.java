@@ -0,0 +1,65 @@
+package se.cygni.snake.game;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Response times of one player, counted in buckets of powers of two
+ * microseconds. Bucket n holds latencies below 2^n us, the last bucket
+ * holds everything above.
+ */
+public class LatencyHistogram {
+
+    private static final int NOOF_BUCKETS = 26;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NOOF_BUCKETS);
+
+    public void record(long latencyInNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, latencyInNanos));
+        int bucket = Math.min(NOOF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < NOOF_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound in microseconds of the bucket holding the
+     * given percentile, or 0 if nothing has been recorded
+     */
+    public long getPercentileInMicros(double percentile) {
+        long[] counts = new long[NOOF_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NOOF_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < NOOF_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return 1L << i;
+            }
+        }
+        return 1L << (NOOF_BUCKETS - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + getCount() +
+                ", p50: " + getPercentileInMicros(50) + "us" +
+                ", p99: " + getPercentileInMicros(99) + "us";
+    }
+}
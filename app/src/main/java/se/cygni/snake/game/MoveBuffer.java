@@ -0,0 +1,141 @@
+package se.cygni.snake.game;
+
+import se.cygni.game.enums.Direction;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the moves of one game tick without locking.
+ *
+ * Every player gets a dense slot when the game starts. A slot holds the
+ * tick the player last moved in together with the direction, packed into
+ * one long, so that a move is accepted with a single compare-and-set and
+ * duplicates or moves for an old tick are rejected by the stamp alone.
+ */
+public class MoveBuffer {
+
+    public enum Result {
+        ACCEPTED,
+        /** Accepted, and the last live player has now moved */
+        ALL_MOVES_IN,
+        UNKNOWN_PLAYER,
+        WRONG_TICK,
+        DUPLICATE,
+        /** The player is not alive this tick */
+        NOT_EXPECTED
+    }
+
+    private static final int DIRECTION_BITS = 3;
+    private static final long DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+    private static final long NO_DIRECTION = 0;
+    private static final long CLOSED = -1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Map<String, Integer> slotByPlayerId = new HashMap<>();
+    private final String[] playerIds;
+    private final AtomicLongArray moves;
+
+    // The open tick in the high bits and number of moves left in the low bits
+    private final AtomicLong movesLeft = new AtomicLong();
+    private volatile long currentTick = CLOSED;
+
+    public MoveBuffer(Collection<String> playerIds) {
+        this.playerIds = playerIds.toArray(new String[0]);
+        this.moves = new AtomicLongArray(this.playerIds.length);
+        for (int slot = 0; slot < this.playerIds.length; slot++) {
+            slotByPlayerId.put(this.playerIds[slot], slot);
+        }
+    }
+
+    /**
+     * Starts accepting moves for tick from the given live players.
+     */
+    public void open(long tick, Set<String> livePlayerIds) {
+        int noofLivePlayers = 0;
+        for (int slot = 0; slot < playerIds.length; slot++) {
+            if (livePlayerIds.contains(playerIds[slot])) {
+                noofLivePlayers++;
+            } else {
+                moves.set(slot, stamp(tick) | NO_DIRECTION);
+            }
+        }
+
+        movesLeft.set(((tick + 1) << 32) | noofLivePlayers);
+        currentTick = tick;
+    }
+
+    public Result register(long tick, String playerId, Direction direction) {
+        Integer slot = slotByPlayerId.get(playerId);
+        if (slot == null) {
+            return Result.UNKNOWN_PLAYER;
+        }
+
+        if (tick != currentTick) {
+            return Result.WRONG_TICK;
+        }
+
+        long stamp = stamp(tick);
+        long previous = moves.get(slot);
+        if (previous < stamp && moves.compareAndSet(slot, previous, stamp | (direction.ordinal() + 1))) {
+            return countDown(tick) ? Result.ALL_MOVES_IN : Result.ACCEPTED;
+        }
+
+        // Whatever beat us to the slot stamped it with this tick or a later one
+        long current = moves.get(slot);
+        if (current >>> DIRECTION_BITS > tick + 1) {
+            return Result.WRONG_TICK;
+        }
+        return (current & DIRECTION_MASK) == NO_DIRECTION ? Result.NOT_EXPECTED : Result.DUPLICATE;
+    }
+
+    /**
+     * Stops accepting moves for tick and puts the direction of every player
+     * that moved in it into directions.
+     */
+    public void close(long tick, Map<String, Direction> directions) {
+        currentTick = CLOSED;
+
+        long stamp = stamp(tick);
+        for (int slot = 0; slot < playerIds.length; slot++) {
+            long move = moves.get(slot);
+            if ((move & ~DIRECTION_MASK) == stamp && (move & DIRECTION_MASK) != NO_DIRECTION) {
+                directions.put(playerIds[slot], DIRECTIONS[(int) (move & DIRECTION_MASK) - 1]);
+            }
+        }
+    }
+
+    public boolean hasMoved(long tick, String playerId) {
+        Integer slot = slotByPlayerId.get(playerId);
+        if (slot == null) {
+            return false;
+        }
+
+        long move = moves.get(slot);
+        return (move & ~DIRECTION_MASK) == stamp(tick) && (move & DIRECTION_MASK) != NO_DIRECTION;
+    }
+
+    /**
+     * @return true if this was the last move expected in tick
+     */
+    private boolean countDown(long tick) {
+        long expected = tick + 1;
+        while (true) {
+            long current = movesLeft.get();
+            if (current >>> 32 != expected || (int) current == 0) {
+                return false;
+            }
+            if (movesLeft.compareAndSet(current, current - 1)) {
+                return (int) (current - 1) == 0;
+            }
+        }
+    }
+
+    private static long stamp(long tick) {
+        return (tick + 1) << DIRECTION_BITS;
+    }
+}
@@ -2,39 +2,31 @@ package se.cygni.snake.game;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.eventbus.EventBus;
 
 import se.cygni.game.Coordinate;
+import se.cygni.game.MergeBuffer;
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
-import se.cygni.game.TileMultipleContent;
 import se.cygni.game.WorldState;
 import se.cygni.game.enums.Direction;
-import se.cygni.game.exception.ObstacleCollision;
-import se.cygni.game.exception.SnakeCollision;
 import se.cygni.game.exception.TransformationException;
-import se.cygni.game.exception.WallCollision;
 import se.cygni.game.transformation.KeepOnlyObjectsOfType;
-import se.cygni.game.transformation.KeepOnlySnakeWithId;
-import se.cygni.game.transformation.MoveSnake;
-import se.cygni.game.transformation.TailNibbled;
 import se.cygni.game.worldobject.Empty;
 import se.cygni.game.worldobject.Food;
 import se.cygni.game.worldobject.Obstacle;
 import se.cygni.game.worldobject.SnakeBody;
 import se.cygni.game.worldobject.SnakeHead;
+import se.cygni.game.worldobject.SnakePart;
 import se.cygni.game.worldobject.WorldObject;
 import se.cygni.snake.api.event.SnakeDeadEvent;
 import se.cygni.snake.api.model.DeathReason;
@@ -43,6 +35,20 @@ import se.cygni.snake.apiconversion.GameMessageConverter;
 import se.cygni.snake.event.InternalGameEvent;
 import se.cygni.snake.player.IPlayer;
 
+/**
+ * Resolves one world tick.
+ *
+ * All snakes are moved in place, then every collision is found through an
+ * index keyed by the positions the heads moved to. Only these positions can
+ * hold more than one snake part so nothing else of the world is inspected.
+ * The rules are the same as in the merging implementation it replaced, kept
+ * in the tests as MergingWorldTransformer:
+ *
+ * - Snakes hitting a wall, an obstacle or themselves die first
+ * - Snakes whose heads swapped places die
+ * - Snakes overlapping each other on more than one tile die
+ * - Remaining contested tiles are either a tail nibble or a collision
+ */
 public class WorldTransformer {
 
     private static final Logger log = LoggerFactory.getLogger(WorldTransformer.class);
@@ -51,8 +57,11 @@ public class WorldTransformer {
     private final PlayerManager playerManager;
     private final String gameId;
     private final EventBus globalEventBus;
-    private int snakesDiedThisRound = 0;
-    private final ThreadLocal<WorldState> startingWorldState = new ThreadLocal<>();
+    private boolean headless = false;
+
+    // Reused every tick, sized to the world on first use
+    private MergeBuffer mergeBuffer;
+    private SnakeBody[] bodies;
 
     public WorldTransformer(GameFeatures gameFeatures, PlayerManager playerManager, String gameId,
 	    EventBus globalEventBus) {
@@ -62,179 +71,228 @@ public class WorldTransformer {
 	this.globalEventBus = globalEventBus;
     }
 
-    private List<WorldState> analyzeWorldStates(List<WorldState> worldStates, GameFeatures gameFeatures,
-	    long worldTick) {
+    /**
+     * A headless transformer only marks dead players as dead, nothing is
+     * logged, sent to the players or posted on the globalEventBus.
+     */
+    public void setHeadless(boolean headless) {
+	this.headless = headless;
+    }
+
+    public WorldState transform(Map<String, Direction> directions, GameFeatures gameFeatures, WorldState ws,
+	    boolean spontaneousGrowth, long worldTick) throws TransformationException {
+
+	final MutableWorldState world = new MutableWorldState(ws);
+	transform(directions, gameFeatures, world, spontaneousGrowth, worldTick);
+	return world.toWorldState();
+    }
 
-	// Create a map of which states each snake is responsible for
-	final Map<String, WorldState> snakeToWorldState = new HashMap<>();
-	for (final WorldState ws : worldStates) {
+    /**
+     * Moves all snakes one step and writes the tiles that changed to world.
+     */
+    @SuppressWarnings("unchecked")
+    public void transform(Map<String, Direction> directions, GameFeatures gameFeatures, MutableWorldState world,
+	    boolean spontaneousGrowth, long worldTick) throws TransformationException {
+
+	final WorldState ws = world.toWorldState();
+	final int[] headPositions = ws.listPositionsWithContentOf(SnakeHead.class);
+	final List<SnakeMove> snakeMoves = new ArrayList<>(headPositions.length);
+	final Map<String, SnakeMove> snakeMovesById = new HashMap<>();
+	final Map<String, Integer> indexById = new HashMap<>();
 
-	    snakeToWorldState.put(ws.listSnakeIds().get(0), ws);
+	// Move all snakes, those hitting a wall, an obstacle or themselves die
+	// directly (and interested parties are notified).
+	for (final int headPosition : headPositions) {
+	    final SnakeHead snakeHead = (SnakeHead) ws.getTile(headPosition).getContent();
+	    final SnakeMove snakeMove = new SnakeMove(snakeHead, ws.getSnakeSpread(snakeHead));
+	    snakeMoves.add(snakeMove);
+	    snakeMovesById.put(snakeHead.getPlayerId(), snakeMove);
+	    indexById.put(snakeHead.getPlayerId(), snakeMoves.size() - 1);
+
+	    moveSnake(ws, snakeMove, directions.get(snakeHead.getPlayerId()), spontaneousGrowth, worldTick);
 	}
 
-	// Create a merged view of all states
-	TileMultipleContent[] mergedTileContent = mergeStates(worldStates);
+	final MergeBuffer buffer = mergeBuffer(ws.getSize());
+	final TickIndex index = new TickIndex(ws, snakeMoves, indexById, buffer, bodies);
 
 	// Find snake heads that have passed through each other. This is
 	// immediate death. Example:
 	// | B1 | H1 | H2 | B2 | (H1 moves left, H2 moves right)
 	// results in:
 	// | | B1 H2 | H1 B2 | |
-	final Set<String> snakeHeadsPassingThrough = getHeadsPassingThrough(mergedTileContent);
-	mergedTileContent = snakeDied(snakeToWorldState, snakeHeadsPassingThrough, DeathReason.CollisionWithSnake,
+	snakesDied(getHeadsPassingThrough(snakeMoves, index), snakeMovesById, DeathReason.CollisionWithSnake, ws,
 		worldTick);
 
-	if (snakeToWorldState.isEmpty()) {
-	    return snakeToWorldState.values().stream().collect(Collectors.toList());
-	}
-
 	// Find snakes overlapping on more than one tile,
 	// this kills both of them.
-	final Set<String> overlappingSnakes = getOverlappingSnakes(mergedTileContent);
-	mergedTileContent = snakeDied(snakeToWorldState, overlappingSnakes, DeathReason.CollisionWithSnake, worldTick);
-
-	if (snakeToWorldState.isEmpty()) {
-	    return snakeToWorldState.values().stream().collect(Collectors.toList());
-	}
+	final List<ContestedTile> contestedTiles = index.listContestedTiles();
+	snakesDied(getOverlappingSnakes(contestedTiles), snakeMovesById, DeathReason.CollisionWithSnake, ws,
+		worldTick);
 
-	// Validate all tiles
-	for (final TileMultipleContent tile : mergedTileContent) {
-	    if (!tile.isValidCombinationOfContents()) {
+	// Resolve the remaining contested tiles. The contents are fixed before
+	// any snake dies so that a dying snake's body still counts this tick.
+	for (final ContestedTile tile : index.listContestedTiles()) {
 
-		// Special case when head hits tail and that feature is enabled
-		if (gameFeatures.isHeadToTailConsumes() && isNibbleSituation(tile, snakeToWorldState)) {
-		    handleTailNibbling(gameFeatures, snakeToWorldState, tile);
-		    continue;
-		}
+	    // Special case when head hits tail and that feature is enabled
+	    if (gameFeatures.isHeadToTailConsumes() && isNibbleSituation(tile)) {
+		handleTailNibbling(gameFeatures, tile);
+		continue;
+	    }
 
-		// Remove all WorldStates with SnakesHeads involving this clash
-		snakeDied(snakeToWorldState, tile.listOffendingSnakeHeadIds(), DeathReason.CollisionWithSnake,
-			worldTick);
+	    for (final SnakeMove snakeMove : tile.heads) {
+		snakeDied(snakeMove, DeathReason.CollisionWithSnake, ws, worldTick);
+	    }
 
-		// Assign points to SnakeParts still living
-		final List<SnakeBody> survivors = tile.listContentsOfType(SnakeBody.class);
-		survivors.stream().forEach(snakeBody -> {
-		    playerManager.getPlayer(snakeBody.getPlayerId()).addPoints(PointReason.CAUSED_SNAKE_DEATH,
-			    gameFeatures.getPointsPerCausedDeath());
-		});
+	    // Assign points to SnakeParts still living
+	    if (tile.body != null) {
+		playerManager.getPlayer(tile.body.getPlayerId()).addPoints(PointReason.CAUSED_SNAKE_DEATH,
+			gameFeatures.getPointsPerCausedDeath());
 	    }
 	}
 
-	return snakeToWorldState.values().stream().collect(Collectors.toList());
-    }
+	final List<SnakeMove> survivors = new ArrayList<>(snakeMoves.size());
+	for (final SnakeMove snakeMove : snakeMoves) {
+	    if (snakeMove.alive) {
+		survivors.add(snakeMove);
+	    }
+	}
 
-    private TileMultipleContent[] convertToTileMultipleContent(Tile[] tiles) {
-	final TileMultipleContent[] mTiles = new TileMultipleContent[tiles.length];
-	IntStream.range(0, tiles.length).forEach(pos -> {
-	    final WorldObject wo = tiles[pos].getContent();
-	    mTiles[pos] = new TileMultipleContent(wo);
-	});
-	return mTiles;
-    }
+	// All Snakes died, return the world with static objects
+	if (survivors.isEmpty()) {
+	    final KeepOnlyObjectsOfType worldBaseLine = new KeepOnlyObjectsOfType(
+		    new Class[] { Empty.class, Food.class, Obstacle.class });
+	    worldBaseLine.transform(world);
+	    return;
+	}
 
-    private Tile[] createValidWorldState(TileMultipleContent[] mTiles) {
-	final Tile[] tiles = new Tile[mTiles.length];
+	// Dead snakes are removed entirely. Of a surviving snake only the new
+	// head, the part that took the old head position and the released
+	// tail change. Later replacements win, so all tiles are emptied first.
+	int noofChanges = 0;
+	for (final SnakeMove snakeMove : snakeMoves) {
+	    noofChanges += snakeMove.alive ? 4 : snakeMove.previousSpread.length;
+	}
 
-	IntStream.range(0, mTiles.length).forEach(pos -> {
-	    if (!mTiles[pos].isValidCombinationOfContents()) {
-		throw new IllegalStateException("Tried to create valid world state from invalid merge of states");
+	final int[] positions = new int[noofChanges];
+	final Tile[] replacements = new Tile[noofChanges];
+	int change = 0;
+	for (final SnakeMove snakeMove : snakeMoves) {
+	    if (!snakeMove.alive) {
+		for (final int position : snakeMove.previousSpread) {
+		    positions[change] = position;
+		    replacements[change++] = new Tile();
+		}
+	    } else {
+		if (snakeMove.releasedPosition >= 0) {
+		    positions[change] = snakeMove.releasedPosition;
+		    replacements[change++] = new Tile();
+		}
+		// Stays empty only if a nibble took the part behind the head
+		positions[change] = snakeMove.previousHeadPosition();
+		replacements[change++] = new Tile();
 	    }
+	}
 
-	    tiles[pos] = new Tile(mTiles[pos].getContent());
-	});
-	return tiles;
-    }
+	final Map<String, SnakeHead> survivingHeads = new HashMap<>();
+	for (final SnakeMove snakeMove : survivors) {
+	    final SnakeHead head = snakeMove.head;
+	    positions[change] = head.getPosition();
+	    replacements[change++] = new Tile(head);
 
-    // Get all possible world states (one per snake + static objects)
-    private List<WorldState> getAllPossibleWorldStates(WorldState ws, Map<String, Direction> directions,
-	    boolean spontaneousGrowth, long worldTick) throws TransformationException {
+	    final SnakePart follower = head.getNextSnakePart();
+	    if (follower != null && follower.getPosition() == snakeMove.previousHeadPosition()) {
+		positions[change] = follower.getPosition();
+		replacements[change++] = new Tile(follower);
+	    }
+	    survivingHeads.put(head.getPlayerId(), head);
+	}
 
-	final List<WorldState> worldStates = new ArrayList<>();
+	syncPoints(survivingHeads);
 
-	// One world for each Snake
-	final int[] headPositions = ws.listPositionsWithContentOf(SnakeHead.class);
-	for (final int headPosition : headPositions) {
+	world.setTiles(Arrays.copyOf(positions, change), Arrays.copyOf(replacements, change));
+    }
 
-	    final SnakeHead snakeHead = (SnakeHead) ws.getTile(headPosition).getContent();
-	    final String playerId = snakeHead.getPlayerId();
+    /**
+     * Moves the snake in place, the same way MoveSnake would in a world where
+     * only this snake existed.
+     */
+    private void moveSnake(WorldState ws, SnakeMove snakeMove, Direction direction, boolean spontaneousGrowth,
+	    long worldTick) {
 
-	    // First remove all other objects (just keep the current snake)
-	    final KeepOnlySnakeWithId keepSnake = new KeepOnlySnakeWithId(playerId);
-	    final WorldState singleSnakeState = keepSnake.transform(ws);
+	final SnakeHead snakeHead = snakeMove.head;
+	final String playerId = snakeHead.getPlayerId();
+	final int snakeHeadPos = snakeHead.getPosition();
 
-	    // Transform the snake in the choosen direction
-	    final Direction snakeDirection = directions.get(playerId);
-	    final MoveSnake moveSnake = new MoveSnake(singleSnakeState.getSnakeHeadForBodyAt(headPosition),
-		    snakeDirection, spontaneousGrowth);
+	// MoveSnake treats a missing direction as any other failed transformation
+	if (direction == null) {
+	    snakeDied(snakeMove, DeathReason.CollisionWithObstacle, ws.translatePosition(0), worldTick);
+	    return;
+	}
 
-	    try {
-		final WorldState nws = moveSnake.transform(singleSnakeState);
+	if (!ws.hasAdjacentTile(snakeHeadPos, direction)) {
+	    snakeDied(snakeMove, DeathReason.CollisionWithWall, ws.translatePosition(snakeHeadPos), worldTick);
+	    return;
+	}
 
-		// Assign points
-		if (moveSnake.isFoodConsumed()) {
-		    playerManager.getPlayer(playerId).addPoints(PointReason.FOOD, gameFeatures.getPointsPerFood());
-		}
+	final int targetSnakePos = ws.getPositionForAdjacent(snakeHeadPos, direction);
+	final WorldObject targetContent = ws.getTile(targetSnakePos).getContent();
 
-		if (moveSnake.isGrowthExecuted()) {
-		    playerManager.getPlayer(playerId).addPoints(PointReason.GROWTH, gameFeatures.getPointsPerLength());
-		}
+	if (targetContent instanceof Obstacle) {
+	    snakeDied(snakeMove, DeathReason.CollisionWithObstacle, ws.translatePosition(targetSnakePos), worldTick);
+	    return;
+	}
 
-		worldStates.add(nws);
-
-	    } catch (final ObstacleCollision oc) {
-		notifySnakeDied(snakeHead, DeathReason.CollisionWithObstacle, ws.translatePosition(oc.getPosition()),
-			worldTick);
-	    } catch (final WallCollision wc) {
-		notifySnakeDied(snakeHead, DeathReason.CollisionWithWall, ws.translatePosition(wc.getPosition()),
-			worldTick);
-	    } catch (final SnakeCollision sc) {
-		notifySnakeDied(snakeHead, DeathReason.CollisionWithSelf, ws.translatePosition(sc.getPosition()),
-			worldTick);
-	    } catch (final TransformationException oc) {
-		notifySnakeDied(snakeHead, DeathReason.CollisionWithObstacle, ws.translatePosition(0), worldTick);
-	    }
+	// Other snakes are handled once every snake has moved
+	if (targetContent instanceof SnakePart && playerId.equals(((SnakePart) targetContent).getPlayerId())) {
+	    snakeDied(snakeMove, DeathReason.CollisionWithSelf, ws.translatePosition(targetSnakePos), worldTick);
+	    return;
 	}
 
-	return worldStates;
-    }
+	final boolean consumedFood = targetContent instanceof Food;
+	final boolean grow = consumedFood || spontaneousGrowth;
 
-    private Set<String> getHeadsPassingThrough(TileMultipleContent[] tiles) {
-	final Set<String> passingThroughHeads = new HashSet<>();
+	snakeMove.releasedPosition = snakeHead.moveTo(targetSnakePos, grow);
 
-	// Find any two snake heads that have switched places.
-	final WorldState startState = startingWorldState.get();
+	// Assign points
+	if (consumedFood) {
+	    playerManager.getPlayer(playerId).addPoints(PointReason.FOOD, gameFeatures.getPointsPerFood());
+	}
 
-	final Map<String, Integer> newSnakeHeadPositions = new HashMap<>();
-	final Map<Integer, List<String>> newPositionsPerSnakeHead = new HashMap<>();
+	if (grow) {
+	    playerManager.getPlayer(playerId).addPoints(PointReason.GROWTH, gameFeatures.getPointsPerLength());
+	}
 
-	for (final TileMultipleContent tile : tiles) {
-	    final List<SnakeHead> heads = tile.listContentsOfType(SnakeHead.class);
-	    for (final SnakeHead head : heads) {
-		newSnakeHeadPositions.put(head.getPlayerId(), head.getPosition());
+	snakeMove.moved = true;
+    }
 
-		final List<String> ids = newPositionsPerSnakeHead.getOrDefault(head.getPosition(), new ArrayList<>());
-		ids.add(head.getPlayerId());
-		newPositionsPerSnakeHead.put(head.getPosition(), ids);
-	    }
+    private MergeBuffer mergeBuffer(int worldSize) {
+	if (mergeBuffer == null || mergeBuffer.getWorldSize() != worldSize) {
+	    mergeBuffer = new MergeBuffer(worldSize);
+	    bodies = new SnakeBody[worldSize];
 	}
+	return mergeBuffer;
+    }
 
-	startState.listSnakeIds().stream().forEach(snakeId -> {
-	    final int originalHeadPosition = startState.getPositionOfSnakeHead(snakeId);
+    private Set<String> getHeadsPassingThrough(List<SnakeMove> snakeMoves, TickIndex index) {
+	final Set<String> passingThroughHeads = new HashSet<>();
 
-	    // The snake might have died already
-	    if (newSnakeHeadPositions.containsKey(snakeId)) {
-		final int newHeadPosition = newSnakeHeadPositions.get(snakeId);
+	for (final SnakeMove snakeMove : snakeMoves) {
+	    if (!snakeMove.isMovedAndAlive()) {
+		continue;
+	    }
 
-		final List<String> ids = newPositionsPerSnakeHead.getOrDefault(originalHeadPosition, new ArrayList<>());
-		for (final String newHead : ids) {
-		    if (newSnakeHeadPositions.get(newHead) == originalHeadPosition
-			    && newHeadPosition == startState.getPositionOfSnakeHead(newHead)) {
-			passingThroughHeads.add(newHead);
-			passingThroughHeads.add(snakeId);
-		    }
+	    final int previousHeadPosition = snakeMove.previousHeadPosition();
+	    for (int i = 0; i < index.countAt(previousHeadPosition); i++) {
+		if (!index.isHeadAt(previousHeadPosition, i)) {
+		    continue;
+		}
+		final SnakeMove other = index.snakeAt(previousHeadPosition, i);
+		if (other.alive && other.previousHeadPosition() == snakeMove.head.getPosition()) {
+		    passingThroughHeads.add(snakeMove.head.getPlayerId());
+		    passingThroughHeads.add(other.head.getPlayerId());
 		}
 	    }
-	});
+	}
 
 	return passingThroughHeads;
     }
@@ -244,21 +302,29 @@ public class WorldTransformer {
      * through each other. Or if they both eat each others tail at the same time.
      * This last case may be okay if headToTail is enabled.
      *
-     * @param tiles
-     * @return List of playerIds of Snakes that overlap
+     * Every tile with more than one snake part holds at least one head, so
+     * only the contested tiles need to be compared.
+     *
+     * @return playerIds of Snakes that overlap
      */
-    private Set<String> getOverlappingSnakes(TileMultipleContent[] tiles) {
+    private Set<String> getOverlappingSnakes(List<ContestedTile> contestedTiles) {
 	final Set<String> overlappingSnakes = new HashSet<>();
+	final boolean headToTailConsumes = gameFeatures.isHeadToTailConsumes();
+
+	for (final ContestedTile tile : contestedTiles) {
+	    final Set<String> snakeIds = tile.listSnakeIdsPresent();
 
-	// Find all tiles containing more than one snake part
-	final List<List<String>> list = Arrays.stream(tiles)
-		.filter(tile -> tile.countInstancesOf(SnakeBody.class) + tile.countInstancesOf(SnakeHead.class) > 1)
-		.map(mtile -> mtile.listSnakeIdsPresent()).collect(Collectors.toList());
+	    int count = 0;
+	    for (final ContestedTile other : contestedTiles) {
+		if (headToTailConsumes && other.containsExactlyOneHeadAndOneTail()) {
+		    continue;
+		}
+		if (other.listSnakeIdsPresent().containsAll(snakeIds)) {
+		    count++;
+		}
+	    }
 
-	// If there exists two or more tiles with the same combination
-	// of snake parts they are overlapping
-	for (final List<String> snakeIds : list) {
-	    if (isSnakeIdsOccupyingSameTileMoreThanOnce(snakeIds, tiles)) {
+	    if (count > 1) {
 		overlappingSnakes.addAll(snakeIds);
 	    }
 	}
@@ -266,94 +332,59 @@ public class WorldTransformer {
 	return overlappingSnakes;
     }
 
-    private void handleTailNibbling(GameFeatures gameFeatures, Map<String, WorldState> snakeToWorldState,
-	    TileMultipleContent tileMultipleContent) {
-	try {
-	    final SnakeBody snakeBodyTail = tileMultipleContent.listContentsOfType(SnakeBody.class).get(0);
-	    final SnakeHead head = tileMultipleContent.listContentsOfType(SnakeHead.class).get(0);
+    private boolean isNibbleSituation(ContestedTile tile) {
+	if (tile.containsExactlyOneHeadAndOneTail()) {
+	    final SnakeMove tailOwner = tile.bodyOwner;
 
-	    // Need to remove tail from original world state!
-	    WorldState tailWorldState = snakeToWorldState.get(snakeBodyTail.getPlayerId());
-
-	    final TailNibbled tailNibbled = new TailNibbled(snakeBodyTail.getPlayerId(), snakeBodyTail.getPosition(),
-		    gameFeatures.getNoofRoundsTailProtectedAfterNibble());
-
-	    tailWorldState = tailNibbled.transform(tailWorldState);
-	    snakeToWorldState.put(snakeBodyTail.getPlayerId(), tailWorldState);
-
-	    // Assign points
-	    playerManager.getPlayer(head.getPlayerId()).addPoints(PointReason.NIBBLE,
-		    gameFeatures.getPointsPerNibble());
-	} catch (final TransformationException e) {
-	    log.error("TailNibbled transformation failed.", e);
-	}
-    }
-
-    @SuppressWarnings("unchecked")
-    private boolean isNibbleSituation(TileMultipleContent tile, Map<String, WorldState> snakeToWorldState) {
-	if (tile.size() == 2 && // Nibble is only possible if there exists two objects on the same tile
-		tile.listSnakeIdsPresent().size() > 1 && // Not ok to eat your own tail!
-		tile.containsExactlyOneOfEachType(new Class[] { SnakeHead.class, SnakeBody.class }) && // One body and
-												       // one head
-		tile.listContentsOfType(SnakeBody.class).get(0).isTail()) { // And the body is a tail
-
-	    final String tailPlayerId = tile.listContentsOfType(SnakeBody.class).get(0).getPlayerId();
-	    final WorldState ws = snakeToWorldState.get(tailPlayerId);
+	    // The body of a snake that died earlier this tick still counts, but
+	    // there is no tail left to nibble.
+	    if (!tailOwner.alive) {
+		return false;
+	    }
 
 	    // Nibble is ok if this player is not currently protected
-	    return ws.getSnakeHeadById(tailPlayerId).getTailProtectedForGameTicks() == 0;
+	    return tailOwner.head.getTailProtectedForGameTicks() == 0;
 	}
 
 	return false;
     }
 
-    private boolean isSnakeIdsOccupyingSameTileMoreThanOnce(List<String> playerIds, TileMultipleContent[] tiles) {
-
-	int count = 0;
-	for (final TileMultipleContent tile : tiles) {
-	    final List<String> currentPlayerIds = tile.listSnakeIdsPresent();
+    private void handleTailNibbling(GameFeatures gameFeatures, ContestedTile tile) {
+	final SnakeMove tailOwner = tile.bodyOwner;
+	final SnakeMove nibbler = tile.heads.get(0);
 
-	    final boolean containsHeadAndTail = tile.containsExactlyOneHeadAndOneTail();
-	    final boolean headToTailConsumes = gameFeatures.isHeadToTailConsumes();
+	tailOwner.head.removeTail();
+	tailOwner.head.setTailProtectedForGameTicks(gameFeatures.getNoofRoundsTailProtectedAfterNibble() + 1);
 
-	    if (containsHeadAndTail && headToTailConsumes) {
-
-	    } else if (CollectionUtils.isSubCollection(playerIds, currentPlayerIds)) {
-		count++;
-	    }
-	}
-
-	return count > 1;
+	// Assign points
+	playerManager.getPlayer(nibbler.head.getPlayerId()).addPoints(PointReason.NIBBLE,
+		gameFeatures.getPointsPerNibble());
     }
 
-    private TileMultipleContent[] mergeStates(List<WorldState> worldStates) {
-	if (worldStates.isEmpty()) {
-	    return new TileMultipleContent[0];
-	}
-
-	final WorldState firstState = worldStates.get(0);
-	final TileMultipleContent[] mTiles = convertToTileMultipleContent(firstState.getTiles());
-
-	for (int i = 1; i < worldStates.size(); i++) {
-	    mergeTiles(mTiles, worldStates.get(i).getTiles());
+    private void snakesDied(Set<String> snakeIds, Map<String, SnakeMove> snakeMovesById, DeathReason deathReason,
+	    WorldState ws, long worldTick) {
+	for (final String snakeId : snakeIds) {
+	    snakeDied(snakeMovesById.get(snakeId), deathReason, ws, worldTick);
 	}
+    }
 
-	return mTiles;
+    private void snakeDied(SnakeMove snakeMove, DeathReason deathReason, WorldState ws, long worldTick) {
+	snakeDied(snakeMove, deathReason, ws.translatePosition(snakeMove.head.getPosition()), worldTick);
     }
 
-    private TileMultipleContent[] mergeTiles(TileMultipleContent[] first, Tile[] second) {
-	IntStream.range(0, first.length).forEach(pos -> {
-	    final WorldObject contentSecond = second[pos].getContent();
-	    first[pos].addContent(contentSecond);
-	});
-	return first;
+    private void snakeDied(SnakeMove snakeMove, DeathReason deathReason, Coordinate coordinate, long worldTick) {
+	snakeMove.alive = false;
+	notifySnakeDied(snakeMove.head, deathReason, coordinate, worldTick);
     }
 
     private void notifySnakeDied(SnakeHead head, DeathReason deathReason, Coordinate coordinate, long worldTick) {
 
-	snakesDiedThisRound++;
-
 	final IPlayer deadPlayer = playerManager.getPlayer(head.getPlayerId());
+	if (headless) {
+	    deadPlayer.dead(worldTick);
+	    return;
+	}
+
 	log.info("Death occurred by: {}. GameId: {}, Player: {}, with id: {}, died at: {}", deathReason, gameId,
 		deadPlayer.getName(), deadPlayer.getPlayerId(), coordinate);
 
@@ -370,81 +401,193 @@ public class WorldTransformer {
 	globalEventBus.post(gevent);
     }
 
-    private SnakeHead removeSnake(Map<String, WorldState> snakeToWorldState, String snakeId) {
-	final WorldState ws = snakeToWorldState.get(snakeId);
-	snakeToWorldState.remove(snakeId);
-	return ws.getSnakeHeadById(snakeId);
+    private void syncPoints(Map<String, SnakeHead> survivingHeads) {
+	playerManager.toSet().stream().forEach(player -> {
+	    if (player.isAlive()) {
+		final SnakeHead head = survivingHeads.get(player.getPlayerId());
+		if (head == null) {
+		    throw new IllegalArgumentException(
+			    "Could not find SnakeHead with playerId " + player.getPlayerId());
+		}
+		head.setPoints(player.getTotalPoints());
+	    }
+	});
     }
 
-    private TileMultipleContent[] snakeDied(Map<String, WorldState> snakeToWorldState, Collection<String> snakeIds,
-	    DeathReason deathReason, long worldTick) {
+    /**
+     * The state of one snake during the tick
+     */
+    private static class SnakeMove {
+	private final SnakeHead head;
+	private final int[] previousSpread;
+	private int releasedPosition = -1;
+	private boolean moved = false;
+	private boolean alive = true;
+
+	SnakeMove(SnakeHead head, int[] previousSpread) {
+	    this.head = head;
+	    this.previousSpread = previousSpread;
+	}
 
-	snakeIds.stream().forEach(snakeId -> {
-	    final SnakeHead snakeHead = removeSnake(snakeToWorldState, snakeId);
-	    notifySnakeDied(snakeHead, deathReason, startingWorldState.get().translatePosition(snakeHead.getPosition()),
-		    worldTick);
-	});
+	int previousHeadPosition() {
+	    return previousSpread[0];
+	}
 
-	return mergeStates(snakeToWorldState.values().stream().collect(Collectors.toList()));
+	boolean isMovedAndAlive() {
+	    return moved && alive;
+	}
     }
 
-    private void syncPoints(WorldState ws) {
-	playerManager.toSet().stream().forEach(player -> {
-	    if (player.isAlive()) {
-		ws.getSnakeHeadById(player.getPlayerId()).setPoints(player.getTotalPoints());
+    /**
+     * A tile that a head moved to and that holds more than one snake part
+     */
+    private static class ContestedTile {
+	private final List<SnakeMove> heads;
+	private final SnakeBody body;
+	private final SnakeMove bodyOwner;
+
+	ContestedTile(List<SnakeMove> heads, SnakeBody body, SnakeMove bodyOwner) {
+	    this.heads = heads;
+	    this.body = body;
+	    this.bodyOwner = bodyOwner;
+	}
+
+	Set<String> listSnakeIdsPresent() {
+	    final Set<String> snakeIds = new HashSet<>();
+	    for (final SnakeMove snakeMove : heads) {
+		snakeIds.add(snakeMove.head.getPlayerId());
 	    }
-	});
+	    if (bodyOwner != null) {
+		snakeIds.add(bodyOwner.head.getPlayerId());
+	    }
+	    return snakeIds;
+	}
+
+	boolean containsExactlyOneHeadAndOneTail() {
+	    return heads.size() == 1 && body != null && body.isTail();
+	}
     }
 
-    @SuppressWarnings("unchecked")
-    public WorldState transform(Map<String, Direction> directions, GameFeatures gameFeatures, WorldState ws,
-	    boolean spontaneousGrowth, long worldTick) throws TransformationException {
+    /**
+     * Index of the positions heads moved to, and the body parts (if any) that
+     * ended up on the same positions. Kept in the merge buffer of the game,
+     * with snakes stored by their index in the list of moves.
+     *
+     * A body part can only be on a head target after the move if the target
+     * held a part of a snake before it, so only the tiles of the head targets
+     * in the world before the tick are looked at, never whole snake bodies.
+     */
+    private static class TickIndex {
+	private final List<SnakeMove> snakeMoves;
+	private final MergeBuffer buffer;
+	private final SnakeBody[] bodies;
+
+	TickIndex(WorldState previous, List<SnakeMove> snakeMoves, Map<String, Integer> indexById,
+		MergeBuffer buffer, SnakeBody[] bodies) {
+	    this.snakeMoves = snakeMoves;
+	    this.buffer = buffer;
+	    this.bodies = bodies;
+
+	    buffer.clear();
+	    for (int i = 0; i < snakeMoves.size(); i++) {
+		final SnakeMove snakeMove = snakeMoves.get(i);
+		if (snakeMove.isMovedAndAlive()) {
+		    buffer.add(snakeMove.head.getPosition(), i, MergeBuffer.HEAD);
+		}
+	    }
 
-	startingWorldState.set(ws);
-	snakesDiedThisRound = 0;
-	final int snakesAliveAtStart = ws.listPositionsWithContentOf(SnakeHead.class).length;
+	    // Only head targets are occupied yet
+	    buffer.sortOccupiedPositions();
 
-	// Get possible world states
-	final List<WorldState> worldStates = getAllPossibleWorldStates(ws, directions, spontaneousGrowth, worldTick);
+	    for (int p = 0; p < buffer.getNoofOccupiedPositions(); p++) {
+		final int position = buffer.getOccupiedPosition(p);
+		final WorldObject content = previous.getTile(position).getContent();
+		if (!(content instanceof SnakePart)) {
+		    continue;
+		}
 
-	// Snakes that have collided with a wall or obstacle will
-	// already have now been removed (and interested parties notified).
+		final Integer i = indexById.get(((SnakePart) content).getPlayerId());
+		if (i == null || !snakeMoves.get(i).isMovedAndAlive()) {
+		    continue;
+		}
 
-	// All Snakes died, return the world with static objects
-	if (worldStates.size() == 0) {
-	    final KeepOnlyObjectsOfType worldBaseLine = new KeepOnlyObjectsOfType(
-		    new Class[] { Empty.class, Food.class, Obstacle.class });
-	    return worldBaseLine.transform(ws);
+		final SnakeBody body = bodyAfterMove(snakeMoves.get(i), (SnakePart) content, position);
+		if (body != null) {
+		    buffer.add(position, i, MergeBuffer.BODY);
+		    bodies[position] = body;
+		}
+	    }
 	}
 
-	// Find any outstanding illegal states
-	// This could be:
-	// - SnakeParts occupying the same tile
-	// - Two or more SnakeHeads occupying the same tile
-	// Remove all offending snake state worlds
-	final List<WorldState> validWorldStates = analyzeWorldStates(worldStates, gameFeatures, worldTick);
+	/**
+	 * @return the part of the snake at position after it moved, given the
+	 *         part that was there before, or null if it moved away
+	 */
+	private static SnakeBody bodyAfterMove(SnakeMove snakeMove, SnakePart before, int position) {
+	    // The head left, the part behind the new head took its place
+	    if (before.isHead()) {
+		final SnakePart follower = snakeMove.head.getNextSnakePart();
+		return follower != null && follower.getPosition() == position ? (SnakeBody) follower : null;
+	    }
 
-	// All Snakes died, return the world with static objects
-	if (validWorldStates.size() == 0) {
-	    final KeepOnlyObjectsOfType worldBaseLine = new KeepOnlyObjectsOfType(
-		    new Class[] { Empty.class, Food.class, Obstacle.class });
-	    return worldBaseLine.transform(ws);
+	    // The tail left, every other part stays where it was
+	    if (position == snakeMove.releasedPosition) {
+		return null;
+	    }
+	    return (SnakeBody) before;
 	}
 
-	// Create a merged view of all states
-	final TileMultipleContent[] mergedTileContent = mergeStates(validWorldStates);
+	int countAt(int position) {
+	    return buffer.count(position);
+	}
 
-	final Tile[] resultingTiles = createValidWorldState(mergedTileContent);
-	final WorldState resultingWorld = new WorldState(ws.getWidth(), ws.getHeight(), resultingTiles);
+	boolean isHeadAt(int position, int i) {
+	    return buffer.getTag(position, i) == MergeBuffer.HEAD;
+	}
 
-	syncPoints(resultingWorld);
+	SnakeMove snakeAt(int position, int i) {
+	    return snakeMoves.get(buffer.getOccupant(position, i));
+	}
 
-	final int snakesAliveAtEnd = resultingWorld.listPositionsWithContentOf(SnakeHead.class).length;
+	/**
+	 * @return the tiles currently holding more than one part of a live
+	 *         snake, in position order
+	 */
+	List<ContestedTile> listContestedTiles() {
+	    final List<ContestedTile> contestedTiles = new ArrayList<>();
+
+	    for (int p = 0; p < buffer.getNoofOccupiedPositions(); p++) {
+		final int position = buffer.getOccupiedPosition(p);
+
+		int noofHeads = 0;
+		SnakeMove bodyOwner = null;
+		for (int i = 0; i < buffer.count(position); i++) {
+		    final SnakeMove snakeMove = snakeMoves.get(buffer.getOccupant(position, i));
+		    if (!snakeMove.alive) {
+			continue;
+		    }
+		    if (buffer.getTag(position, i) == MergeBuffer.HEAD) {
+			noofHeads++;
+		    } else {
+			bodyOwner = snakeMove;
+		    }
+		}
+
+		if (noofHeads + (bodyOwner == null ? 0 : 1) < 2) {
+		    continue;
+		}
+
+		final List<SnakeMove> heads = new ArrayList<>(noofHeads);
+		for (int i = 0; i < buffer.count(position); i++) {
+		    final SnakeMove snakeMove = snakeMoves.get(buffer.getOccupant(position, i));
+		    if (snakeMove.alive && buffer.getTag(position, i) == MergeBuffer.HEAD) {
+			heads.add(snakeMove);
+		    }
+		}
+		contestedTiles.add(new ContestedTile(heads, bodyOwner == null ? null : bodies[position], bodyOwner));
+	    }
 
-	if (snakesAliveAtStart != snakesAliveAtEnd + snakesDiedThisRound) {
-	    log.error("SnakeHead count doesn't match up. Start: {}, End: {}, Died: " + snakesDiedThisRound,
-		    snakesAliveAtStart, snakesAliveAtEnd);
+	    return contestedTiles;
 	}
-	return resultingWorld;
     }
 }
@@ -0,0 +1,23 @@
+package se.cygni.snake.game.scheduler;
+
+/**
+ * Drives the ticks of all running games. A game schedules its next tick
+ * with a deadline and may fire it earlier, e.g. when all moves are in.
+ */
+public interface GameScheduler {
+
+    /**
+     * Runs tick after delayInMs unless the returned timeout is fired or
+     * cancelled before that.
+     */
+    TickTimeout schedule(String gameId, Runnable tick, long delayInMs);
+
+    /**
+     * Called when a game has ended, releases everything kept for it.
+     */
+    void release(String gameId);
+
+    TickLagMetrics getTickLagMetrics();
+
+    void shutdown();
+}
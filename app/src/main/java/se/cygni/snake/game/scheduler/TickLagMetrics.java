@@ -0,0 +1,90 @@
+package se.cygni.snake.game.scheduler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tick lag is the time from a tick being fired, by its deadline or by all
+ * moves being in, until a worker actually starts running it.
+ */
+public class TickLagMetrics implements MeterBinder {
+
+    private final Map<String, GameTickLag> tickLagByGame = new ConcurrentHashMap<>();
+    private volatile Timer tickLagTimer;
+
+    void record(String gameId, long lagInNanos) {
+        tickLagByGame.computeIfAbsent(gameId, id -> new GameTickLag()).record(lagInNanos);
+
+        Timer timer = tickLagTimer;
+        if (timer != null) {
+            timer.record(lagInNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void remove(String gameId) {
+        tickLagByGame.remove(gameId);
+    }
+
+    public GameTickLag getTickLag(String gameId) {
+        return tickLagByGame.get(gameId);
+    }
+
+    public Map<String, GameTickLag> getTickLagByGame() {
+        return Collections.unmodifiableMap(tickLagByGame);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        tickLagTimer = Timer.builder("snakebot.scheduler.tick.lag")
+                .description("Time from a game tick being due until it starts running")
+                .register(registry);
+
+        Gauge.builder("snakebot.scheduler.games", tickLagByGame, Map::size)
+                .description("Number of games with scheduled ticks")
+                .register(registry);
+    }
+
+    public static class GameTickLag {
+        private long noofTicks;
+        private long lastLagInNanos;
+        private long maxLagInNanos;
+        private long totalLagInNanos;
+
+        synchronized void record(long lagInNanos) {
+            noofTicks++;
+            lastLagInNanos = lagInNanos;
+            maxLagInNanos = Math.max(maxLagInNanos, lagInNanos);
+            totalLagInNanos += lagInNanos;
+        }
+
+        public synchronized long getNoofTicks() {
+            return noofTicks;
+        }
+
+        public synchronized long getLastLagInMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(lastLagInNanos);
+        }
+
+        public synchronized long getMaxLagInMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxLagInNanos);
+        }
+
+        public synchronized long getMeanLagInMicros() {
+            return noofTicks == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLagInNanos / noofTicks);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "ticks: " + noofTicks +
+                    ", mean lag: " + getMeanLagInMicros() + "us" +
+                    ", max lag: " + getMaxLagInMicros() + "us";
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package se.cygni.snake.game.scheduler;
+
+/**
+ * A scheduled tick. It is run at most once, either when its deadline
+ * expires or when fired, whichever comes first.
+ */
+public interface TickTimeout {
+
+    /**
+     * Runs the tick now instead of waiting for the deadline.
+     *
+     * @return false if the tick already has been fired or cancelled
+     */
+    boolean fire();
+
+    /**
+     * @return false if the tick already has been fired or cancelled
+     */
+    boolean cancel();
+
+    boolean isDone();
+}
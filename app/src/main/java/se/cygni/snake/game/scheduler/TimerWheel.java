@@ -0,0 +1,121 @@
+package se.cygni.snake.game.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timer wheel. A single thread advances the wheel one bucket per
+ * tick and expires the timeouts that are due, so the cost of a pending
+ * deadline is an entry in a list rather than a parked thread.
+ *
+ * Timeouts are only accurate to within one tick of the wheel.
+ */
+class TimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickInNanos;
+    private final List<Entry>[] buckets;
+    private final int mask;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final long startTime;
+
+    private volatile boolean running = true;
+    private long currentTick = 0;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(String name, long tickInMs, int wheelSize) {
+        if (tickInMs <= 0) {
+            throw new IllegalArgumentException("tickInMs must be positive");
+        }
+
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickInNanos = TimeUnit.MILLISECONDS.toNanos(tickInMs);
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+
+        this.startTime = System.nanoTime();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @param deadline in System.nanoTime()
+     */
+    void add(long deadline, Runnable expire) {
+        added.add(new Entry(deadline, expire));
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startTime + (currentTick + 1) * tickInNanos;
+            long sleepInNanos = tickDeadline - System.nanoTime();
+            if (sleepInNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepInNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+
+            transferAdded();
+            expire(buckets[(int) (currentTick & mask)], System.nanoTime());
+            currentTick++;
+        }
+    }
+
+    private void transferAdded() {
+        Entry entry;
+        while ((entry = added.poll()) != null) {
+            long ticks = Math.max(currentTick, (entry.deadline - startTime + tickInNanos - 1) / tickInNanos);
+            entry.remainingRounds = (ticks - currentTick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(entry);
+        }
+    }
+
+    private void expire(List<Entry> bucket, long now) {
+        Iterator<Entry> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                continue;
+            }
+
+            iterator.remove();
+            try {
+                entry.expire.run();
+            } catch (Exception e) {
+                log.error("Failed to expire timeout", e);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final long deadline;
+        private final Runnable expire;
+        private long remainingRounds;
+
+        private Entry(long deadline, Runnable expire) {
+            this.deadline = deadline;
+            this.expire = expire;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package se.cygni.snake.game.scheduler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the ticks of all games on a shared executor. Deadlines are kept in a
+ * timer wheel, so a game waiting for moves does not occupy a thread.
+ */
+public class TimerWheelGameScheduler implements GameScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheelGameScheduler.class);
+
+    public static final long DEFAULT_WHEEL_TICK_IN_MS = 5;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final ExecutorService executor;
+    private final TimerWheel timerWheel;
+    private final TickLagMetrics tickLagMetrics = new TickLagMetrics();
+
+    public TimerWheelGameScheduler(ExecutorService executor, long wheelTickInMs, int wheelSize) {
+        this.executor = executor;
+        this.timerWheel = new TimerWheel("game-scheduler-wheel", wheelTickInMs, wheelSize);
+    }
+
+    /**
+     * Ticks are run by a fixed pool of poolSize platform threads.
+     */
+    public static TimerWheelGameScheduler withWorkerPool(int poolSize, long wheelTickInMs) {
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize,
+                new ThreadFactoryBuilder().setNameFormat("game-tick-%d").build());
+        return new TimerWheelGameScheduler(executor, wheelTickInMs, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Every tick is run by a new virtual thread. Virtual threads are only
+     * available on JDK 21 and later, on older JDKs this falls back to a
+     * worker pool of poolSize threads.
+     */
+    public static TimerWheelGameScheduler withVirtualThreads(int poolSize, long wheelTickInMs) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            return new TimerWheelGameScheduler(executor, wheelTickInMs, DEFAULT_WHEEL_SIZE);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by this JVM, using a worker pool of {} threads", poolSize);
+            return withWorkerPool(poolSize, wheelTickInMs);
+        }
+    }
+
+    @Override
+    public TickTimeout schedule(String gameId, Runnable tick, long delayInMs) {
+        ScheduledTick scheduledTick = new ScheduledTick(gameId, tick);
+        if (delayInMs <= 0) {
+            scheduledTick.fire();
+        } else {
+            timerWheel.add(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayInMs), scheduledTick::fire);
+        }
+        return scheduledTick;
+    }
+
+    @Override
+    public void release(String gameId) {
+        tickLagMetrics.remove(gameId);
+    }
+
+    @Override
+    public TickLagMetrics getTickLagMetrics() {
+        return tickLagMetrics;
+    }
+
+    @Override
+    public void shutdown() {
+        timerWheel.stop();
+        executor.shutdown();
+    }
+
+    private class ScheduledTick implements TickTimeout {
+        private static final int PENDING = 0;
+        private static final int FIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final String gameId;
+        private final Runnable tick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private ScheduledTick(String gameId, Runnable tick) {
+            this.gameId = gameId;
+            this.tick = tick;
+        }
+
+        @Override
+        public boolean fire() {
+            if (!state.compareAndSet(PENDING, FIRED)) {
+                return false;
+            }
+
+            long firedAt = System.nanoTime();
+            executor.execute(() -> {
+                tickLagMetrics.record(gameId, System.nanoTime() - firedAt);
+                try {
+                    tick.run();
+                } catch (Exception e) {
+                    log.error("Tick failed for gameId: " + gameId, e);
+                }
+            });
+            return true;
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        @Override
+        public boolean isDone() {
+            return state.get() != PENDING;
+        }
+    }
+}
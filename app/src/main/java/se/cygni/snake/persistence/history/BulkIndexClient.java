@@ -0,0 +1,18 @@
+package se.cygni.snake.persistence.history;
+
+import org.elasticsearch.action.index.IndexRequest;
+
+import java.util.List;
+
+/**
+ * Sends index requests to Elasticsearch in one bulk request.
+ */
+public interface BulkIndexClient {
+
+    /**
+     * @return the requests that failed and may be retried, empty if all of
+     * them were indexed
+     * @throws Exception if the bulk request as a whole failed
+     */
+    List<IndexRequest> bulk(List<IndexRequest> requests) throws Exception;
+}
@@ -0,0 +1,39 @@
+package se.cygni.snake.persistence.history;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ElasticBulkIndexClient implements BulkIndexClient {
+
+    private final Client elasticClient;
+
+    public ElasticBulkIndexClient(Client elasticClient) {
+        this.elasticClient = elasticClient;
+    }
+
+    @Override
+    public List<IndexRequest> bulk(List<IndexRequest> requests) {
+        BulkRequest bulkRequest = new BulkRequest();
+        requests.forEach(bulkRequest::add);
+
+        BulkResponse response = elasticClient.bulk(bulkRequest).actionGet();
+        if (!response.hasFailures()) {
+            return Collections.emptyList();
+        }
+
+        List<IndexRequest> failed = new ArrayList<>();
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                failed.add(requests.get(item.getItemId()));
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,174 @@
+package se.cygni.snake.persistence.history;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.elasticsearch.action.index.IndexRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes index requests to Elasticsearch from a background thread, so that
+ * offer() never waits for Elasticsearch.
+ *
+ * Requests are queued, at most queueCapacity of them, and sent in bulk
+ * requests of up to batchSize as soon as a batch is full or flushInterval
+ * after the first request of the batch. The requests of a bulk request
+ * that fail are retried up to maxRetries times, waiting retryBackoff,
+ * twice that, and so on, in between. Requests that do not fit in the
+ * queue or run out of retries are dropped and counted in the metrics.
+ */
+public class ElasticBulkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ElasticBulkWriter.class);
+
+    private static final long SHUTDOWN_TIMEOUT_IN_MS = 10000;
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    // Wakes the writer up from waiting for more requests on shutdown
+    private static final Pending WAKE_UP = new Pending(null, 0);
+
+    private final BulkIndexClient client;
+    private final int batchSize;
+    private final long flushIntervalInMs;
+    private final int maxRetries;
+    private final long retryBackoffInMs;
+
+    private final BlockingQueue<Pending> queue;
+    private final ElasticBulkWriterMetrics metrics;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ElasticBulkWriter(BulkIndexClient client, int batchSize, long flushIntervalInMs,
+                             int queueCapacity, int maxRetries, long retryBackoffInMs) {
+        this.client = client;
+        this.batchSize = batchSize;
+        this.flushIntervalInMs = flushIntervalInMs;
+        this.maxRetries = maxRetries;
+        this.retryBackoffInMs = retryBackoffInMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.metrics = new ElasticBulkWriterMetrics(queue::size);
+
+        this.writer = new ThreadFactoryBuilder().setNameFormat("elastic-bulk-writer").setDaemon(true).build()
+                .newThread(this::run);
+        writer.start();
+    }
+
+    /**
+     * @return false if request was dropped because the queue is full or the
+     * writer is shut down
+     */
+    public boolean offer(IndexRequest request) {
+        if (!running || !queue.offer(new Pending(request, System.nanoTime()))) {
+            metrics.dropped(1);
+            return false;
+        }
+        return true;
+    }
+
+    public ElasticBulkWriterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops taking requests and writes the ones already queued, waiting at
+     * most SHUTDOWN_TIMEOUT_IN_MS for them.
+     */
+    public void shutdown() {
+        running = false;
+        queue.offer(WAKE_UP);
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_IN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Gave up writing {} queued documents to Elasticsearch", queue.size());
+            writer.interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(flushIntervalInMs, TimeUnit.MILLISECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalInMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = running && remaining > 0 ?
+                            queue.poll(remaining, TimeUnit.NANOSECONDS) :
+                            queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next != WAKE_UP) {
+                        batch.add(next);
+                    }
+                }
+
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            metrics.dropped(batch.size() + queue.size());
+        }
+    }
+
+    private void write(List<Pending> batch) throws InterruptedException {
+        List<Pending> pending = batch;
+        for (int attempt = 0; ; attempt++) {
+            Set<IndexRequest> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+            long start = System.nanoTime();
+            try {
+                failed.addAll(client.bulk(pending.stream().map(p -> p.request).collect(Collectors.toList())));
+            } catch (Exception e) {
+                log.warn("Bulk request of {} documents failed", pending.size(), e);
+                pending.forEach(p -> failed.add(p.request));
+            }
+            long now = System.nanoTime();
+            metrics.bulkRequest(now - start);
+
+            List<Pending> retry = new ArrayList<>(failed.size());
+            for (Pending p : pending) {
+                if (failed.contains(p.request)) {
+                    retry.add(p);
+                } else {
+                    metrics.indexed(now - p.offeredAt);
+                }
+            }
+
+            if (retry.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxRetries) {
+                log.error("Dropping {} documents that could not be indexed after {} retries", retry.size(), maxRetries);
+                metrics.dropped(retry.size());
+                return;
+            }
+
+            metrics.retried(retry.size());
+            Thread.sleep(retryBackoffInMs << Math.min(attempt, MAX_BACKOFF_DOUBLINGS));
+            pending = retry;
+        }
+    }
+
+    private static class Pending {
+        final IndexRequest request;
+        final long offeredAt;
+
+        Pending(IndexRequest request, long offeredAt) {
+            this.request = request;
+            this.offeredAt = offeredAt;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package se.cygni.snake.persistence.history;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Documents waiting for, written by, retried and dropped by an
+ * ElasticBulkWriter, and how long bulk requests and documents took.
+ */
+public class ElasticBulkWriterMetrics implements MeterBinder {
+
+    private final IntSupplier queueDepth;
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicLong bulkRequestNanos = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+
+    ElasticBulkWriterMetrics(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void bulkRequest(long nanos) {
+        bulkRequests.incrementAndGet();
+        bulkRequestNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @param nanos from the document being offered until it was indexed
+     */
+    void indexed(long nanos) {
+        indexed.incrementAndGet();
+        latencyNanos.addAndGet(nanos);
+    }
+
+    void retried(int noofDocuments) {
+        retried.addAndGet(noofDocuments);
+    }
+
+    void dropped(int noofDocuments) {
+        dropped.addAndGet(noofDocuments);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getIndexed() {
+        return indexed.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getBulkRequests() {
+        return bulkRequests.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("snakebot.elastic.bulk.queue.depth", this, ElasticBulkWriterMetrics::getQueueDepth)
+                .description("Documents waiting to be sent to Elasticsearch")
+                .register(registry);
+
+        FunctionTimer.builder("snakebot.elastic.bulk.requests", this,
+                metrics -> metrics.bulkRequests.get(), metrics -> metrics.bulkRequestNanos.get(), TimeUnit.NANOSECONDS)
+                .description("Bulk requests sent to Elasticsearch, retries included")
+                .register(registry);
+
+        FunctionTimer.builder("snakebot.elastic.bulk.latency", this,
+                metrics -> metrics.indexed.get(), metrics -> metrics.latencyNanos.get(), TimeUnit.NANOSECONDS)
+                .description("Time from a document being queued until it was indexed")
+                .register(registry);
+
+        FunctionCounter.builder("snakebot.elastic.bulk.documents.retried", retried, AtomicLong::get)
+                .description("Documents sent again after a failed bulk request")
+                .register(registry);
+
+        FunctionCounter.builder("snakebot.elastic.bulk.documents.dropped", dropped, AtomicLong::get)
+                .description("Documents dropped because the queue was full or retries ran out")
+                .register(registry);
+    }
+}
@@ -26,7 +26,7 @@ import se.cygni.snake.persistence.history.domain.GameHistoryPersisted;
 
 import java.util.*;
 
-@Profile({"production"})
+@Profile({"production & !gamelog"})
 @Component
 public class GameHistoryStorageElastic implements GameHistoryStorage {
 
@@ -49,44 +49,45 @@ public class GameHistoryStorageElastic implements GameHistoryStorage {
 
     private final EventBus eventBus;
     private final Client elasticClient;
+    private final ElasticBulkWriter bulkWriter;
 
     @Autowired
-    public GameHistoryStorageElastic(EventBus eventBus, Client elasticClient) {
+    public GameHistoryStorageElastic(EventBus eventBus, Client elasticClient, ElasticBulkWriter bulkWriter) {
         log.debug("GameHistoryStorageElastic started");
 
         this.eventBus = eventBus;
         this.eventBus.register(this);
 
         this.elasticClient = elasticClient;
+        this.bulkWriter = bulkWriter;
     }
 
+    /**
+     * Queues the game for the bulk writer and returns without waiting for
+     * Elasticsearch. Events get ids derived from the game id so that a
+     * retried bulk request overwrites rather than duplicates them.
+     */
     @Override
     @Subscribe
     public void addGameHistory(GameHistory gameHistory) {
         try {
-            gameHistory.getMessages().stream().forEach( gameMessage -> {
-
-                String eventId = UUID.randomUUID().toString();
-                try {
-                    IndexRequest indexRequest = new IndexRequest(gameEventIndex, gameEventType, eventId);
-                    String msg = GameMessageParser.encodeMessage(gameMessage);
-                    indexRequest.source(msg);
-                    elasticClient.index(indexRequest).actionGet();
-                } catch (Exception e) {
-                    log.error("Failed to store GameEvent", e);
-                }
-            });
+            String gameId = gameHistory.getGameId();
+            List<GameMessage> messages = gameHistory.getMessages();
+            for (int i = 0; i < messages.size(); i++) {
+                IndexRequest indexRequest = new IndexRequest(gameEventIndex, gameEventType, gameId + "-" + i);
+                indexRequest.source(GameMessageParser.encodeMessage(messages.get(i)));
+                bulkWriter.offer(indexRequest);
+            }
 
             GameHistoryPersisted ghp = new GameHistoryPersisted(
-                    gameHistory.getGameId(),
+                    gameId,
                     gameHistory.getPlayerNames(),
                     gameHistory.getGameDate()
             );
 
-            IndexRequest indexRequest = new IndexRequest(gameHistoryIndex, gameHistoryType, gameHistory.getGameId());
-            String msg = ApiMessageParser.encodeMessage(ghp);
-            indexRequest.source(msg);
-            elasticClient.index(indexRequest).actionGet();
+            IndexRequest indexRequest = new IndexRequest(gameHistoryIndex, gameHistoryType, gameId);
+            indexRequest.source(ApiMessageParser.encodeMessage(ghp));
+            bulkWriter.offer(indexRequest);
         } catch (Exception e) {
             log.error("Failed to store a GameHistory", e);
         }
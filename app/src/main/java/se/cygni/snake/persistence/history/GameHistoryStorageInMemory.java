@@ -19,7 +19,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-@Profile({"!production"})
+@Profile({"!production & !gamelog"})
 @Component
 public class GameHistoryStorageInMemory implements GameHistoryStorage {
 
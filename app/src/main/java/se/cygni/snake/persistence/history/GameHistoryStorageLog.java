@@ -0,0 +1,436 @@
+package se.cygni.snake.persistence.history;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import se.cygni.snake.eventapi.ApiMessageParser;
+import se.cygni.snake.eventapi.history.GameHistory;
+import se.cygni.snake.eventapi.history.GameHistorySearchItem;
+import se.cygni.snake.eventapi.history.GameHistorySearchResult;
+import se.cygni.snake.persistence.history.domain.GameHistoryPersisted;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores each finished game as one record appended to segment files in a
+ * local directory, instead of one Elasticsearch request per game message.
+ *
+ * A record is the length of the rest of the record, a CRC32 of what follows
+ * it, the length of the GameHistoryPersisted header, the header as JSON and
+ * finally the whole GameHistory as deflated JSON. Only the headers are read
+ * when the index of games and player names is rebuilt at startup. Games are
+ * read back from sealed segments through a memory mapping, and from the
+ * segment being appended to with positional reads.
+ *
+ * Only the segment being appended to can end in a record cut short by a
+ * crash, and it is truncated at its first bad record at startup. A bad
+ * record in a sealed segment is logged and skipped, the file is left as
+ * it is.
+ */
+@Profile({"gamelog"})
+@Component
+public class GameHistoryStorageLog implements GameHistoryStorage, Closeable {
+
+    private static Logger log = LoggerFactory
+            .getLogger(GameHistoryStorageLog.class);
+
+    private final static int MAX_SEARCH_RESULT = 20;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Record length, CRC32 and header length
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final Map<String, Entry> entriesByGameId = new ConcurrentHashMap<>();
+    private final Map<String, List<Entry>> entriesByPlayerName = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private FileChannel activeChannel;
+    private long activeSize;
+
+    @Autowired
+    public GameHistoryStorageLog(
+            EventBus eventBus,
+            @Value("${snakebot.gamelog.dir}") String directory,
+            @Value("${snakebot.gamelog.segment.size}") long segmentSize) throws IOException {
+        this(Paths.get(directory), segmentSize);
+        eventBus.register(this);
+    }
+
+    public GameHistoryStorageLog(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+
+        Files.createDirectories(directory);
+        List<Path> paths = listSegments();
+        for (Path path : paths) {
+            Segment segment = new Segment(segmentNumber(path), path);
+            segments.add(segment);
+            if (segment.number < paths.size() - 1) {
+                load(segment, false);
+                segment.seal();
+            } else {
+                load(segment, true);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(new Segment(0, segmentPath(0)));
+        }
+        openActiveSegment();
+
+        log.info("GameHistoryStorageLog started with {} games in {} segments",
+                entriesByGameId.size(), segments.size());
+    }
+
+    @Override
+    @Subscribe
+    public void addGameHistory(GameHistory gameHistory) {
+        try {
+            byte[] header = ApiMessageParser.encodeMessageAsBytes(new GameHistoryPersisted(
+                    gameHistory.getGameId(),
+                    gameHistory.getPlayerNames(),
+                    gameHistory.getGameDate()));
+            byte[] body = deflate(ApiMessageParser.encodeMessageAsBytes(gameHistory));
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + header.length + body.length);
+            record.putInt(record.capacity() - 4);
+            record.putInt(0);
+            record.putInt(header.length);
+            record.put(header);
+            record.put(body);
+            record.putInt(4, crc(record, 8, record.capacity()));
+            record.flip();
+
+            append(record, gameHistory);
+        } catch (IOException e) {
+            log.error("Failed to store a GameHistory", e);
+        }
+    }
+
+    @Override
+    public Optional<GameHistory> getGameHistory(String gameId) {
+        Entry entry = entriesByGameId.get(gameId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer record = segments.get(entry.segment).read(entry.offset, entry.length);
+            int headerLength = record.getInt(8);
+            byte[] body = new byte[entry.length - RECORD_HEADER_SIZE - headerLength];
+            record.position(RECORD_HEADER_SIZE + headerLength);
+            record.get(body);
+            return Optional.of((GameHistory) ApiMessageParser.decodeMessage(inflate(body)));
+        } catch (Exception e) {
+            log.error("Failed to read stored GameHistory", e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public GameHistorySearchResult listGamesWithPlayer(String playerName) {
+        List<GameHistorySearchItem> items = entriesByPlayerName
+                .getOrDefault(playerName, Collections.emptyList())
+                .stream()
+                .sorted(Comparator.comparing((Entry entry) -> entry.gameDate,
+                        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed())
+                .limit(MAX_SEARCH_RESULT)
+                .map(entry -> new GameHistorySearchItem(entry.gameId, entry.playerNames, entry.gameDate))
+                .collect(Collectors.toList());
+
+        return new GameHistorySearchResult(items);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private synchronized void append(ByteBuffer record, GameHistory gameHistory) throws IOException {
+        if (activeSize > 0 && activeSize + record.remaining() > segmentSize) {
+            activeChannel.close();
+            segments.get(segments.size() - 1).seal();
+            segments.add(new Segment(segments.size(), segmentPath(segments.size())));
+            openActiveSegment();
+        }
+
+        long offset = activeSize;
+        int length = record.remaining();
+        while (record.hasRemaining()) {
+            activeChannel.write(record);
+        }
+        activeSize += length;
+
+        index(new Entry(
+                gameHistory.getGameId(),
+                gameHistory.getPlayerNames(),
+                gameHistory.getGameDate(),
+                segments.size() - 1,
+                offset,
+                length));
+    }
+
+    private void openActiveSegment() throws IOException {
+        Segment segment = segments.get(segments.size() - 1);
+        activeChannel = FileChannel.open(segment.path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSize = activeChannel.size();
+    }
+
+    /**
+     * Indexes the records of segment. The active segment is cut off at the
+     * first record that is incomplete or does not match its CRC. In a sealed
+     * segment such a record is skipped if its length can be trusted, and
+     * otherwise the rest of the segment is left out of the index.
+     */
+    private void load(Segment segment, boolean active) throws IOException {
+        OpenOption[] options = active ?
+                new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE} :
+                new OpenOption[] {StandardOpenOption.READ};
+        try (FileChannel channel = FileChannel.open(segment.path, options)) {
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+
+            while (offset < size) {
+                lengthBuffer.clear();
+                int length = -1;
+                if (size - offset >= RECORD_HEADER_SIZE && channel.read(lengthBuffer, offset) == 4) {
+                    length = lengthBuffer.getInt(0) + 4;
+                }
+                if (length < RECORD_HEADER_SIZE || offset + length > size) {
+                    break;
+                }
+
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, offset);
+                int headerLength = record.getInt(8);
+                if (record.getInt(4) != crc(record, 8, length) ||
+                        headerLength < 0 || headerLength > length - RECORD_HEADER_SIZE) {
+                    if (active) {
+                        break;
+                    }
+                    log.error("Skipping corrupt record at {} in {}", offset, segment.path);
+                    offset += length;
+                    continue;
+                }
+
+                byte[] header = new byte[headerLength];
+                record.position(RECORD_HEADER_SIZE);
+                record.get(header);
+                GameHistoryPersisted ghp = (GameHistoryPersisted) ApiMessageParser.decodeMessage(header);
+                index(new Entry(ghp.getGameId(), ghp.getPlayerNames(), ghp.getGameDate(),
+                        segment.number, offset, length));
+
+                offset += length;
+            }
+
+            if (offset < size) {
+                if (active) {
+                    log.warn("Truncating {} from {} to {} bytes after an incomplete record", segment.path, size, offset);
+                    channel.truncate(offset);
+                } else {
+                    log.error("Corrupt record length at {} in {}, the {} bytes after it are not indexed",
+                            offset, segment.path, size - offset);
+                }
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private void index(Entry entry) {
+        // A game stored again replaces the earlier record
+        Entry replaced = entriesByGameId.put(entry.gameId, entry);
+        if (replaced != null && replaced.playerNames != null) {
+            for (String playerName : replaced.playerNames) {
+                entriesByPlayerName.getOrDefault(playerName, Collections.emptyList()).remove(replaced);
+            }
+        }
+        if (entry.playerNames != null) {
+            for (String playerName : entry.playerNames) {
+                entriesByPlayerName.computeIfAbsent(playerName, name -> new CopyOnWriteArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(Comparator.comparing(this::segmentNumber));
+
+        for (int i = 0; i < paths.size(); i++) {
+            if (segmentNumber(paths.get(i)) != i) {
+                throw new IOException("Missing segment " + segmentPath(i));
+            }
+        }
+        return paths;
+    }
+
+    private int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + from, to - from);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated GameHistory record");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt GameHistory record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class Segment {
+        final int number;
+        final Path path;
+
+        // A sealed segment no longer changes and is mapped once, the active
+        // one is read through a channel so that appends need no remapping
+        private boolean sealed;
+        private MappedByteBuffer mapped;
+        private FileChannel channel;
+
+        Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        synchronized void seal() throws IOException {
+            sealed = true;
+            close();
+        }
+
+        /**
+         * @return the bytes from offset, positioned at 0
+         */
+        synchronized ByteBuffer read(long offset, int length) throws IOException {
+            if (!sealed) {
+                if (channel == null) {
+                    channel = FileChannel.open(path, StandardOpenOption.READ);
+                }
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, offset);
+                record.flip();
+                return record;
+            }
+
+            if (mapped == null) {
+                try (FileChannel sealedChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    mapped = sealedChannel.map(FileChannel.MapMode.READ_ONLY, 0, sealedChannel.size());
+                }
+            }
+            ByteBuffer record = mapped.duplicate();
+            record.limit((int) offset + length).position((int) offset);
+            return record.slice();
+        }
+
+        synchronized void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private static class Entry {
+        final String gameId;
+        final String[] playerNames;
+        final LocalDateTime gameDate;
+        final int segment;
+        final long offset;
+        final int length;
+
+        Entry(String gameId, String[] playerNames, LocalDateTime gameDate,
+              int segment, long offset, int length) {
+            this.gameId = gameId;
+            this.playerNames = playerNames;
+            this.gameDate = gameDate;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -9,6 +9,8 @@ public interface IPlayer extends Comparable<IPlayer> {
     default void onGameMessage(GameMessage gameMessage) {
         if (gameMessage instanceof  MapUpdateEvent) {
             onWorldUpdate((MapUpdateEvent)gameMessage);
+        } else if (gameMessage instanceof  MapUpdateDeltaEvent) {
+            onWorldUpdateDelta((MapUpdateDeltaEvent)gameMessage);
         } else if (gameMessage instanceof  SnakeDeadEvent) {
             onSnakeDead((SnakeDeadEvent)gameMessage);
         } else if (gameMessage instanceof  GameResultEvent) {
@@ -24,6 +26,20 @@ public interface IPlayer extends Comparable<IPlayer> {
 
     void onWorldUpdate(MapUpdateEvent mapUpdateEvent);
 
+    /**
+     * Only sent to players that want delta map updates
+     */
+    default void onWorldUpdateDelta(MapUpdateDeltaEvent mapUpdateDeltaEvent) {
+    }
+
+    /**
+     * @return true if this player wants MapUpdateDeltaEvents between the
+     * full MapUpdateEvents
+     */
+    default boolean isDeltaMapUpdates() {
+        return false;
+    }
+
     void onSnakeDead(SnakeDeadEvent snakeDeadEvent);
 
     void onGameResult(GameResultEvent gameResultEvent);
@@ -0,0 +1,16 @@
+package se.cygni.snake.player;
+
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.event.EncodedGameMessage;
+
+/**
+ * The connection of one remote player, as seen by a PlayerSessionRegistry.
+ */
+public interface PlayerSession {
+
+    String getPlayerId();
+
+    void sendSnakeMessage(GameMessage message);
+
+    void sendEncodedMessage(EncodedGameMessage message);
+}
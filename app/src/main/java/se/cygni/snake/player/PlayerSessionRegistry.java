@@ -0,0 +1,92 @@
+package se.cygni.snake.player;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.event.EncodedGameMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The sessions of the remote players of an arena, tournament or training
+ * game, keyed by playerId. A message addressed to a player is handed to
+ * that player's session only, sending to everyone is done with broadcast().
+ */
+public class PlayerSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerSessionRegistry.class);
+
+    private final String name;
+    private final Map<String, PlayerSession> sessions = new ConcurrentHashMap<>();
+
+    public PlayerSessionRegistry(String name) {
+        this.name = name;
+    }
+
+    public void register(PlayerSession session) {
+        sessions.put(session.getPlayerId(), session);
+    }
+
+    public void unregister(PlayerSession session) {
+        sessions.remove(session.getPlayerId(), session);
+    }
+
+    public boolean isRegistered(String playerId) {
+        return sessions.containsKey(playerId);
+    }
+
+    /**
+     * Sends message to the session of its receivingPlayerId. Messages
+     * without a receivingPlayerId, or to players without a session, are
+     * dropped.
+     */
+    public void post(GameMessage message) {
+        String playerId = message.getReceivingPlayerId();
+        if (StringUtils.isEmpty(playerId)) {
+            log.warn("{}: {} has no receivingPlayerId, use broadcast to send to everyone",
+                    name, message.getClass().getSimpleName());
+            return;
+        }
+
+        PlayerSession session = sessions.get(playerId);
+        if (session == null) {
+            log.debug("{}: no session for player {}, dropping {}", name, playerId, message.getClass().getSimpleName());
+            return;
+        }
+        send(session, message);
+    }
+
+    /**
+     * Sends message to the sessions of all of its receiving players.
+     */
+    public void post(EncodedGameMessage message) {
+        for (String playerId : message.getReceivingPlayerIds()) {
+            PlayerSession session = sessions.get(playerId);
+            if (session != null) {
+                try {
+                    session.sendEncodedMessage(message);
+                } catch (Exception e) {
+                    log.error("{}: failed to send to player {}", name, playerId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends message to every registered session.
+     */
+    public void broadcast(GameMessage message) {
+        sessions.values().forEach(session -> send(session, message));
+    }
+
+    private void send(PlayerSession session, GameMessage message) {
+        try {
+            session.sendSnakeMessage(message);
+        } catch (Exception e) {
+            log.error("{}: failed to send {} to player {}", name,
+                    message.getClass().getSimpleName(), session.getPlayerId(), e);
+        }
+    }
+}
@@ -1,60 +1,105 @@
 package se.cygni.snake.player;
 
-import com.google.common.eventbus.EventBus;
 import se.cygni.game.Player;
+import se.cygni.snake.api.GameMessage;
 import se.cygni.snake.api.event.*;
+import se.cygni.snake.event.EncodedGameMessage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class RemotePlayer extends BasePlayer {
 
     private Player player;
-    private EventBus outgoingEventBus;
+    private PlayerSessionRegistry playerSessions;
+    private final boolean deltaMapUpdates;
+
+    public RemotePlayer(Player player, PlayerSessionRegistry playerSessions) {
+        this(player, playerSessions, false);
+    }
 
-    public RemotePlayer(Player player, EventBus outgoingEventBus) {
+    public RemotePlayer(Player player, PlayerSessionRegistry playerSessions, boolean deltaMapUpdates) {
         super();
         this.player = player;
-        this.outgoingEventBus = outgoingEventBus;
+        this.playerSessions = playerSessions;
+        this.deltaMapUpdates = deltaMapUpdates;
+    }
+
+    /**
+     * Sends message to all of players, serialized once instead of once per
+     * player. Each PlayerSessionRegistry gets a single EncodedGameMessage.
+     */
+    public static void broadcast(Collection<RemotePlayer> players, GameMessage message) throws IOException {
+        if (players.isEmpty()) {
+            return;
+        }
+
+        Set<String> playerIds = players.stream()
+                .map(RemotePlayer::getPlayerId)
+                .collect(Collectors.toSet());
+        EncodedGameMessage encoded = EncodedGameMessage.encode(message, playerIds);
+
+        Set<PlayerSessionRegistry> registries = Collections.newSetFromMap(new IdentityHashMap<>());
+        players.forEach(player -> registries.add(player.playerSessions));
+        registries.forEach(registry -> registry.post(encoded));
     }
 
     @Override
     public void onWorldUpdate(MapUpdateEvent mue) {
         MapUpdateEvent mapUpdateEvent = new MapUpdateEvent(mue);
         mapUpdateEvent.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(mapUpdateEvent);
+        playerSessions.post(mapUpdateEvent);
+    }
+
+    @Override
+    public void onWorldUpdateDelta(MapUpdateDeltaEvent mude) {
+        MapUpdateDeltaEvent mapUpdateDeltaEvent = new MapUpdateDeltaEvent(mude);
+        mapUpdateDeltaEvent.setReceivingPlayerId(player.getPlayerId());
+        playerSessions.post(mapUpdateDeltaEvent);
+    }
+
+    @Override
+    public boolean isDeltaMapUpdates() {
+        return deltaMapUpdates;
     }
 
     @Override
     public void onSnakeDead(SnakeDeadEvent sde) {
         SnakeDeadEvent snakeDeadEvent = new SnakeDeadEvent(sde);
         snakeDeadEvent.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(snakeDeadEvent);
+        playerSessions.post(snakeDeadEvent);
     }
 
     @Override
     public void onGameResult(GameResultEvent gre) {
         GameResultEvent gameResultEvent = new GameResultEvent(gre);
         gameResultEvent.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(gameResultEvent);
+        playerSessions.post(gameResultEvent);
     }
 
     @Override
     public void onGameEnded(GameEndedEvent gee) {
         GameEndedEvent gameEndedEvent = new GameEndedEvent(gee);
         gameEndedEvent.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(gameEndedEvent);
+        playerSessions.post(gameEndedEvent);
     }
 
     @Override
     public void onGameStart(GameStartingEvent gse) {
         GameStartingEvent gameStartingEvent = new GameStartingEvent(gse);
         gameStartingEvent.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(gameStartingEvent);
+        playerSessions.post(gameStartingEvent);
     }
 
     @Override
     public void onTournamentEnded(TournamentEndedEvent tournamentEndedEvent) {
         TournamentEndedEvent tee = new TournamentEndedEvent(tournamentEndedEvent);
         tee.setReceivingPlayerId(player.getPlayerId());
-        outgoingEventBus.post(tee);
+        playerSessions.post(tee);
     }
 
 
@@ -1,19 +1,25 @@
 package se.cygni.snake.player.bot;
 
 import com.google.common.eventbus.EventBus;
+import se.cygni.game.random.XORShiftRandom;
 import se.cygni.snake.api.event.*;
 import se.cygni.snake.api.model.Map;
 import se.cygni.snake.api.model.SnakeDirection;
 import se.cygni.snake.api.model.TileContent;
+import se.cygni.snake.api.request.RegisterMove;
 import se.cygni.snake.client.MapCoordinate;
 import se.cygni.snake.client.MapUtil;
 import se.cygni.snake.player.BasePlayer;
 
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
 public abstract class BotPlayer extends BasePlayer {
 
     private boolean alive = true;
     protected final String playerId;
     protected final EventBus incomingEventbus;
+    protected Random random = new XORShiftRandom();
     private int accumulatedPoints = 0;
 
     public BotPlayer(String playerId, EventBus incomingEventbus) {
@@ -23,7 +29,34 @@ public abstract class BotPlayer extends BasePlayer {
 
     @Override
     public void onWorldUpdate(MapUpdateEvent mapUpdateEvent) {
+        CompletableFuture.runAsync(() -> {
+            SnakeDirection direction = nextMove(mapUpdateEvent);
+            if (direction == null) {
+                return;
+            }
+
+            RegisterMove registerMove = new RegisterMove(mapUpdateEvent.getGameId(), mapUpdateEvent.getGameTick(), direction);
+            registerMove.setReceivingPlayerId(playerId);
+            incomingEventbus.post(registerMove);
+        });
+    }
 
+    /**
+     * Decides the move for the tick in mapUpdateEvent. Called once per
+     * tick, in order, so bots may keep state between calls.
+     *
+     * @return the direction to move in or null to not register a move
+     */
+    public SnakeDirection nextMove(MapUpdateEvent mapUpdateEvent) {
+        return null;
+    }
+
+    /**
+     * Replaces the source of randomness, e.g. with a seeded one for
+     * reproducible simulations.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
     }
 
     @Override
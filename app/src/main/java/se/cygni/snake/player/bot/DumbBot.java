@@ -4,14 +4,12 @@ import com.google.common.eventbus.EventBus;
 import se.cygni.snake.api.event.MapUpdateEvent;
 import se.cygni.snake.api.model.Map;
 import se.cygni.snake.api.model.SnakeDirection;
-import se.cygni.snake.api.request.RegisterMove;
 import se.cygni.snake.client.MapCoordinate;
 import se.cygni.snake.client.MapUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * Strategy:
@@ -31,21 +29,14 @@ public class DumbBot extends BotPlayer {
     }
 
     @Override
-    public void onWorldUpdate(MapUpdateEvent mapUpdateEvent) {
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
-            postNextMove(mapUpdateEvent.getGameId(), mapUpdateEvent.getMap(), mapUpdateEvent.getGameTick());
-        });
-    }
-
-    private void postNextMove(final String gameId, final Map map, final long gameTick) {
+    public SnakeDirection nextMove(MapUpdateEvent mapUpdateEvent) {
+        Map map = mapUpdateEvent.getMap();
         MapUtil mapUtil = new MapUtil(map, getPlayerId());
 
         List<PotentialDirection> directions = createDirections(map, mapUtil);
         currentDirection = directions.get(0).getDirection();
 
-        RegisterMove registerMove = new RegisterMove(gameId, gameTick, currentDirection);
-        registerMove.setReceivingPlayerId(playerId);
-        incomingEventbus.post(registerMove);
+        return currentDirection;
     }
 
     private List<PotentialDirection> createDirections(final Map gameMap, final MapUtil mapUtil) {
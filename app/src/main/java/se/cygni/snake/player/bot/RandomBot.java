@@ -1,36 +1,25 @@
 package se.cygni.snake.player.bot;
 
 import com.google.common.eventbus.EventBus;
-import se.cygni.game.random.XORShiftRandom;
 import se.cygni.snake.api.event.MapUpdateEvent;
-import se.cygni.snake.api.model.Map;
 import se.cygni.snake.api.model.SnakeDirection;
-import se.cygni.snake.api.request.RegisterMove;
 import se.cygni.snake.client.MapUtil;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 public class RandomBot extends BotPlayer {
 
     private SnakeDirection myLastDirection;
-    private XORShiftRandom random = new XORShiftRandom();
 
     public RandomBot(String playerId, EventBus incomingEventbus) {
         super(playerId, incomingEventbus);
     }
 
     @Override
-    public void onWorldUpdate(MapUpdateEvent mapUpdateEvent) {
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
-            postNextMove(mapUpdateEvent.getGameId(), mapUpdateEvent.getMap(), mapUpdateEvent.getGameTick());
-        });
-    }
-
-    private void postNextMove(String gameId, Map map, long gameTick) {
+    public SnakeDirection nextMove(MapUpdateEvent mapUpdateEvent) {
 
-        MapUtil mapUtil = new MapUtil(map, playerId);
+        MapUtil mapUtil = new MapUtil(mapUpdateEvent.getMap(), playerId);
 
         SnakeDirection rndDirection = getRandomDirection();
         List<SnakeDirection> validDirections = getValidDirections(mapUtil);
@@ -39,9 +28,7 @@ public class RandomBot extends BotPlayer {
         }
         myLastDirection = rndDirection;
 
-        RegisterMove registerMove = new RegisterMove(gameId, gameTick, rndDirection);
-        registerMove.setReceivingPlayerId(playerId);
-        incomingEventbus.post(registerMove);
+        return rndDirection;
     }
 
     private List<SnakeDirection> getValidDirections(MapUtil mapUtil) {
@@ -7,7 +7,6 @@ import se.cygni.snake.api.event.MapUpdateEvent;
 import se.cygni.snake.api.model.Map;
 import se.cygni.snake.api.model.SnakeDirection;
 import se.cygni.snake.api.model.SnakeInfo;
-import se.cygni.snake.api.request.RegisterMove;
 import se.cygni.snake.client.MapCoordinate;
 import se.cygni.snake.client.MapUtil;
 import se.cygni.snake.player.bot.snakey.*;
@@ -16,7 +15,6 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.concurrent.CompletableFuture;
 
 public class Snakey extends BotPlayer {
 
@@ -39,27 +37,23 @@ public class Snakey extends BotPlayer {
     }
 
     @Override
-    public void onWorldUpdate(MapUpdateEvent mapUpdateEvent) {
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
-            upDateInstance(mapUpdateEvent);
+    public SnakeDirection nextMove(MapUpdateEvent mapUpdateEvent) {
+        upDateInstance(mapUpdateEvent);
 
-            //Needed for multiple games with same instance
-            if (mapUpdateEvent.getGameTick() > 0) {
-                updateState();
-            } else {
-                initiateState();
-            }
+        //Needed for multiple games with same instance
+        if (mapUpdateEvent.getGameTick() > 0) {
+            updateState();
+        } else {
+            initiateState();
+        }
 
-            SnakeDirection bestDir = getBestPossibleDirection();
+        SnakeDirection bestDir = getBestPossibleDirection();
 
-            if (foodSet.contains(getTileInFront(currentState.getSelf(), bestDir))) {
-                currentState.getSelf().setHasEaten(true);
-            }
+        if (foodSet.contains(getTileInFront(currentState.getSelf(), bestDir))) {
+            currentState.getSelf().setHasEaten(true);
+        }
 
-            RegisterMove registerMove = new RegisterMove(mapUpdateEvent.getGameId(), mapUpdateEvent.getGameTick(), bestDir);
-            registerMove.setReceivingPlayerId(playerId);
-            incomingEventbus.post(registerMove);
-        });
+        return bestDir;
     }
 
     private void initiateState() {
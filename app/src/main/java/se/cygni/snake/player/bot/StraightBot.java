@@ -1,42 +1,33 @@
 package se.cygni.snake.player.bot;
 
 import com.google.common.eventbus.EventBus;
-import se.cygni.game.random.XORShiftRandom;
 import se.cygni.snake.api.event.MapUpdateEvent;
-import se.cygni.snake.api.model.Map;
 import se.cygni.snake.api.model.SnakeDirection;
-import se.cygni.snake.api.request.RegisterMove;
 import se.cygni.snake.client.MapUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class StraightBot extends BotPlayer {
 
     SnakeDirection lastDirection;
-    private XORShiftRandom random = new XORShiftRandom();
 
     public StraightBot(String playerId, EventBus incomingEventbus) {
         super(playerId, incomingEventbus);
-        lastDirection = getRandomDirection();
     }
 
     @Override
-    public void onWorldUpdate(MapUpdateEvent mapUpdateEvent) {
-        CompletableFuture cf = CompletableFuture.runAsync(() -> {
-
-            postNextMove(mapUpdateEvent.getGameId(), mapUpdateEvent.getMap(), mapUpdateEvent.getGameTick());
-        });
-    }
-
-
-    private void postNextMove(String gameId, Map map, long gameTick) {
+    public SnakeDirection nextMove(MapUpdateEvent mapUpdateEvent) {
 
         // MapUtil contains lot's of useful methods for querying the map!
-        MapUtil mapUtil = new MapUtil(map, playerId);
+        MapUtil mapUtil = new MapUtil(mapUpdateEvent.getMap(), playerId);
+
+        // Picked on the first move so that a replaced random is used
+        if (lastDirection == null) {
+            lastDirection = getRandomDirection();
+        }
 
 
         SnakeDirection chosenDirection = lastDirection;
@@ -52,12 +43,8 @@ public class StraightBot extends BotPlayer {
                 chosenDirection = directions.get(random.nextInt(directions.size()));
         }
 
-        // Register action here!
-        RegisterMove registerMove = new RegisterMove(gameId, gameTick, chosenDirection);
-        registerMove.setReceivingPlayerId(playerId);
-        incomingEventbus.post(registerMove);
         lastDirection = chosenDirection;
-
+        return chosenDirection;
     }
 
     private SnakeDirection getRandomDirection() {
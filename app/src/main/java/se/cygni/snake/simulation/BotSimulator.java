@@ -0,0 +1,158 @@
+package se.cygni.snake.simulation;
+
+import com.google.common.eventbus.EventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.cygni.game.random.XORShiftRandom;
+import se.cygni.snake.api.model.SnakeDirection;
+import se.cygni.snake.apiconversion.DirectionConverter;
+import se.cygni.snake.game.GameEngine;
+import se.cygni.snake.game.GameFeatures;
+import se.cygni.snake.game.PlayerManager;
+import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.bot.*;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Plays bot only games as fast as possible, without an EventBus, sockets
+ * or tick deadlines, to compare bot strategies.
+ *
+ * All randomness is derived from one seed, so a run with the same seed,
+ * bots and settings always gives the same result regardless of the number
+ * of threads.
+ *
+ * Usage: BotSimulator [games=1000] [threads=#cores] [seed=1] [maxticks=1000]
+ *                     [bots=RandomBot,StraightBot,...]
+ */
+public class BotSimulator {
+    private static final Logger log = LoggerFactory.getLogger(BotSimulator.class);
+
+    private static final Map<String, BiFunction<String, EventBus, BotPlayer>> BOTS = new LinkedHashMap<>();
+
+    static {
+        BOTS.put("RandomBot", RandomBot::new);
+        BOTS.put("StraightBot", StraightBot::new);
+        BOTS.put("StayAliveBot", StayAliveBot::new);
+        BOTS.put("DumbBot", DumbBot::new);
+        BOTS.put("Snakey", Snakey::new);
+        BOTS.put("BrainySnakePlayer", BrainySnakePlayer::new);
+    }
+
+    private final GameFeatures gameFeatures;
+    private final List<String> bots;
+    private final long seed;
+    private final long maxNoofTicks;
+
+    public BotSimulator(GameFeatures gameFeatures, List<String> bots, long seed, long maxNoofTicks) {
+        for (String bot : bots) {
+            if (!BOTS.containsKey(bot)) {
+                throw new IllegalArgumentException("Unknown bot: " + bot + ", known bots: " + BOTS.keySet());
+            }
+        }
+
+        this.gameFeatures = gameFeatures;
+        this.bots = new ArrayList<>(bots);
+        this.seed = seed;
+        this.maxNoofTicks = maxNoofTicks;
+    }
+
+    public SimulationResult run(int noofGames, int noofThreads) {
+        SimulationResult result = new SimulationResult();
+        ExecutorService executor = Executors.newFixedThreadPool(noofThreads);
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> games = new ArrayList<>();
+            for (int game = 0; game < noofGames; game++) {
+                long gameSeed = gameSeed(game);
+                games.add(executor.submit(() -> playGame(gameSeed, result)));
+            }
+            for (Future<?> game : games) {
+                game.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Simulation failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    private void playGame(long gameSeed, SimulationResult result) {
+        XORShiftRandom seeds = new XORShiftRandom(gameSeed);
+
+        PlayerManager playerManager = new PlayerManager();
+        Map<String, String> botByPlayerId = new HashMap<>();
+        for (int i = 0; i < bots.size(); i++) {
+            String playerId = "bot-" + i;
+            // Moves are asked for directly, a headless game never calls
+            // onWorldUpdate, so the bots have no EventBus to post to
+            BotPlayer bot = BOTS.get(bots.get(i)).apply(playerId, null);
+            bot.setRandom(new XORShiftRandom(seeds.nextLong()));
+            playerManager.add(bot);
+            botByPlayerId.put(playerId, bots.get(i));
+        }
+
+        // A headless game never schedules or publishes anything
+        GameEngine gameEngine = new GameEngine(gameFeatures, playerManager, "simulation",
+                null, null, seeds.nextLong());
+
+        gameEngine.runHeadless((player, mapUpdateEvent) -> {
+            try {
+                SnakeDirection direction = ((BotPlayer) player).nextMove(mapUpdateEvent);
+                return direction == null ? null : DirectionConverter.toDirection(direction);
+            } catch (Exception e) {
+                // Same as on the server, where a failing bot just misses the tick
+                log.debug("Bot {} failed to move", player.getName(), e);
+                return null;
+            }
+        }, maxNoofTicks);
+
+        IPlayer winner = gameEngine.getGameResult().getWinner();
+        result.addGame(bots, winner == null ? null : botByPlayerId.get(winner.getPlayerId()),
+                gameEngine.getCurrentWorldTick());
+    }
+
+    /**
+     * Spreads the master seed over the games (the splitmix64 finalizer), so
+     * that neighbouring games do not start from related seeds.
+     */
+    private long gameSeed(int game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.split("=", 2))
+                .filter(arg -> arg.length == 2)
+                .collect(Collectors.toMap(arg -> arg[0], arg -> arg[1]));
+
+        int noofGames = Integer.parseInt(options.getOrDefault("games", "1000"));
+        int noofThreads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        long maxNoofTicks = Long.parseLong(options.getOrDefault("maxticks", "1000"));
+        List<String> bots = Arrays.asList(options.getOrDefault("bots",
+                String.join(",", BOTS.keySet())).split(","));
+
+        GameFeatures gameFeatures = new GameFeatures();
+        gameFeatures.setMaxNoofPlayers(bots.size());
+        gameFeatures.applyValidation();
+
+        log.warn("Simulating {} games with {} on {} threads, seed: {}", noofGames, bots, noofThreads, seed);
+        SimulationResult result = new BotSimulator(gameFeatures, bots, seed, maxNoofTicks)
+                .run(noofGames, noofThreads);
+        System.out.println(result);
+    }
+}
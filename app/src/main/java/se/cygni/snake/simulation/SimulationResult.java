@@ -0,0 +1,68 @@
+package se.cygni.snake.simulation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a batch of simulated games, with wins and games played
+ * counted per bot type.
+ */
+public class SimulationResult {
+
+    private final Map<String, Integer> winsByBot = new TreeMap<>();
+    private final Map<String, Integer> gamesByBot = new TreeMap<>();
+    private long noofGames = 0;
+    private long noofTicks = 0;
+    private long elapsedNanos = 0;
+
+    synchronized void addGame(Iterable<String> bots, String winner, long ticks) {
+        noofGames++;
+        noofTicks += ticks;
+        for (String bot : bots) {
+            gamesByBot.merge(bot, 1, Integer::sum);
+        }
+        if (winner != null) {
+            winsByBot.merge(winner, 1, Integer::sum);
+        }
+    }
+
+    synchronized void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public synchronized long getNoofGames() {
+        return noofGames;
+    }
+
+    public synchronized long getNoofTicks() {
+        return noofTicks;
+    }
+
+    public synchronized int getWins(String bot) {
+        return winsByBot.getOrDefault(bot, 0);
+    }
+
+    /**
+     * @return the share of the games bot took part in that it won
+     */
+    public synchronized double getWinRate(String bot) {
+        int games = gamesByBot.getOrDefault(bot, 0);
+        return games == 0 ? 0d : (double) getWins(bot) / games;
+    }
+
+    public synchronized double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0d : noofTicks * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games: %d, ticks: %d, time: %d ms, ticks/s: %.0f%n",
+                noofGames, noofTicks, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getTicksPerSecond()));
+        gamesByBot.forEach((bot, games) ->
+                sb.append(String.format("%-20s games: %6d, wins: %6d, win rate: %5.1f%%%n",
+                        bot, games, getWins(bot), 100 * getWinRate(bot))));
+        return sb.toString();
+    }
+}
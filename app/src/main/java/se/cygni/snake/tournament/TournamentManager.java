@@ -26,6 +26,7 @@ import se.cygni.snake.eventapi.model.TournamentInfo;
 import se.cygni.snake.game.*;
 import se.cygni.snake.player.HistoricalPlayer;
 import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.PlayerSessionRegistry;
 import se.cygni.snake.player.RemotePlayer;
 import se.cygni.snake.tournament.util.TournamentUtil;
 
@@ -36,7 +37,7 @@ public class TournamentManager {
     private static final Logger log = LoggerFactory.getLogger(TournamentManager.class);
 
     private GameManager gameManager;
-    private final EventBus outgoingEventBus;
+    private final PlayerSessionRegistry playerSessions;
     private final EventBus incomingEventBus;
     private final EventBus globalEventBus;
 
@@ -57,7 +58,7 @@ public class TournamentManager {
         this.gameManager = gameManager;
         this.globalEventBus = globalEventBus;
 
-        this.outgoingEventBus = new EventBus("tournament-outgoing");
+        this.playerSessions = new PlayerSessionRegistry("tournament");
         this.incomingEventBus = new EventBus("tournament-incoming");
 
         incomingEventBus.register(this);
@@ -181,7 +182,7 @@ public class TournamentManager {
             playersInTournament.removeAll(players);
 
             Game game = gameManager.createGame(gameFeatures);
-            game.setOutgoingEventBus(outgoingEventBus);
+            game.setPlayerSessions(playerSessions);
             tGame.setGame(game);
             players.forEach(player -> {
                 game.addPlayer(player);
@@ -207,7 +208,7 @@ public class TournamentManager {
         if (!isTournamentActive() || isTournamentStarted()) {
             NoActiveTournament notActive = new NoActiveTournament();
             notActive.setReceivingPlayerId(playerId);
-            outgoingEventBus.post(notActive);
+            playerSessions.post(notActive);
             return;
         }
 
@@ -218,18 +219,18 @@ public class TournamentManager {
             InvalidPlayerName playerNameTaken = new InvalidPlayerName(InvalidPlayerName.PlayerNameInvalidReason.Taken);
             MessageUtils.copyCommonAttributes(registerPlayer, playerNameTaken);
             playerNameTaken.setReceivingPlayerId(playerId);
-            outgoingEventBus.post(playerNameTaken);
+            playerSessions.post(playerNameTaken);
             return;
         }
 
-        RemotePlayer remotePlayer = new RemotePlayer(player, outgoingEventBus);
+        RemotePlayer remotePlayer = new RemotePlayer(player, playerSessions, registerPlayer.isDeltaMapUpdates());
         addPlayer(remotePlayer);
 
         GameSettings gameSettings = GameSettingsConverter.toGameSettings(gameFeatures);
         PlayerRegistered playerRegistered = new PlayerRegistered("not_yet_known", player.getName(), gameSettings, GameMode.TOURNAMENT);
         MessageUtils.copyCommonAttributes(registerPlayer, playerRegistered);
 
-        outgoingEventBus.post(playerRegistered);
+        playerSessions.post(playerRegistered);
     }
 
     @Subscribe
@@ -347,8 +348,8 @@ public class TournamentManager {
         return playerManager;
     }
 
-    public EventBus getOutgoingEventBus() {
-        return outgoingEventBus;
+    public PlayerSessionRegistry getPlayerSessions() {
+        return playerSessions;
     }
 
     public EventBus getIncomingEventBus() {
@@ -1,31 +1,46 @@
 package se.cygni.snake.websocket;
 
 import com.google.common.eventbus.EventBus;
-import com.google.common.eventbus.Subscribe;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 import se.cygni.snake.api.GameMessage;
 import se.cygni.snake.api.GameMessageParser;
 import se.cygni.snake.api.exception.InvalidMessage;
 import se.cygni.snake.api.request.HeartBeatRequest;
 import se.cygni.snake.api.response.HeartBeatResponse;
+import se.cygni.snake.event.EncodedGameMessage;
+import se.cygni.snake.player.PlayerSession;
+import se.cygni.snake.player.PlayerSessionRegistry;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
-public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
+/**
+ * The connection of one player. Game messages are text JSON, or Smile in
+ * binary frames if the client asked for GameMessageParser.SMILE_PROTOCOL
+ * in the handshake.
+ */
+public abstract class BaseGameSocketHandler extends AbstractWebSocketHandler implements PlayerSession {
 
     private static final Logger log = LoggerFactory.getLogger(BaseGameSocketHandler.class);
 
     private final String playerId;
-    private EventBus outgoingEventBus;
+    private PlayerSessionRegistry playerSessions;
     private EventBus incomingEventBus;
     private WebSocketSession webSocketSession;
+    private OutboundQueues outboundQueues;
+    private OutboundQueue outboundQueue;
+    private boolean smile = false;
+    private final ByteArrayOutputStream binaryBuffer = new ByteArrayOutputStream();
 
     public BaseGameSocketHandler() {
 
@@ -33,9 +48,18 @@ public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
         playerId = UUID.randomUUID().toString();
     }
 
+    @Autowired(required = false)
+    public void setOutboundQueues(OutboundQueues outboundQueues) {
+        this.outboundQueues = outboundQueues;
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         this.webSocketSession = session;
+        this.smile = GameMessageParser.SMILE_PROTOCOL.equals(session.getAcceptedProtocol());
+        if (outboundQueues != null) {
+            this.outboundQueue = outboundQueues.create(session);
+        }
     }
 
     private void sendHeartbeat() {
@@ -52,9 +76,30 @@ public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         log.trace("Received: {}", message.getPayload());
 
+        handleGameMessage(() -> GameMessageParser.decodeMessage(message.getPayload()), message.getPayload());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        byte[] part = new byte[message.getPayloadLength()];
+        message.getPayload().get(part);
+        binaryBuffer.write(part);
+        if (!message.isLast()) {
+            return;
+        }
+
+        byte[] payload = binaryBuffer.toByteArray();
+        binaryBuffer.reset();
+        log.trace("Received {} bytes of Smile", payload.length);
+
+        handleGameMessage(() -> GameMessageParser.decodeSmileMessage(payload),
+                "Smile message of " + payload.length + " bytes");
+    }
+
+    private void handleGameMessage(Callable<GameMessage> decoder, String receivedMessage) {
         try {
             // Deserialize message
-            GameMessage gameMessage = GameMessageParser.decodeMessage(message.getPayload());
+            GameMessage gameMessage = decoder.call();
 
             // Overwrite playerId to hinder any cheating
             gameMessage.setReceivingPlayerId(playerId);
@@ -67,20 +112,16 @@ public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
             // Send to game
             incomingEventBus.post(gameMessage);
         } catch (Throwable e) {
-            log.error("Could not handle incoming text message: {}", e.getMessage());
+            log.error("Could not handle incoming message: {}", e.getMessage());
 
             InvalidMessage invalidMessage = new InvalidMessage(
                     "Could not understand this message. Error:" + e.getMessage(),
-                    message.getPayload()
+                    receivedMessage
             );
             invalidMessage.setReceivingPlayerId(playerId);
 
-            try {
-                log.info("Sending InvalidMessage to client.");
-                outgoingEventBus.post(invalidMessage);
-            } catch (Throwable ee) {
-                ee.printStackTrace();
-            }
+            log.info("Sending InvalidMessage to client.");
+            sendSnakeMessage(invalidMessage);
         }
     }
 
@@ -94,7 +135,12 @@ public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         super.afterConnectionClosed(session, status);
         session.close(CloseStatus.SERVER_ERROR);
-        outgoingEventBus.unregister(this);
+        if (playerSessions != null) {
+            playerSessions.unregister(this);
+        }
+        if (outboundQueue != null) {
+            outboundQueue.close();
+        }
         playerLostConnection();
 
         log.info("afterConnectionClosed {}", status);
@@ -105,31 +151,55 @@ public abstract class BaseGameSocketHandler extends TextWebSocketHandler {
         return true;
     }
 
-    @Subscribe
-    public void sendSnakeMessage(GameMessage message) throws IOException {
-
-        // Verify that this message is intended to this player (or null if for all players)
-        if (!StringUtils.isEmpty(message.getReceivingPlayerId()) && !playerId.equals(message.getReceivingPlayerId())) {
-            return;
-        }
+    @Override
+    public void sendSnakeMessage(GameMessage message) {
         try {
-            String msg = GameMessageParser.encodeMessage(message);
-            log.trace("Sending: {}", msg);
-            webSocketSession.sendMessage(new TextMessage(msg));
+            if (smile) {
+                send(new BinaryMessage(GameMessageParser.encodeSmileMessage(message)), message.getClass());
+            } else {
+                send(new TextMessage(GameMessageParser.encodeMessage(message)), message.getClass());
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void sendEncodedMessage(EncodedGameMessage message) {
+        try {
+            if (smile) {
+                send(new BinaryMessage(message.getSmilePayload(playerId)), message.getMessageType());
+            } else {
+                send(new TextMessage(message.getPayload(playerId)), message.getMessageType());
+            }
+        } catch (Exception e) {
+            log.error("Failed to send {} to player {}", message.getMessageType().getSimpleName(), playerId, e);
+        }
+    }
+
+    /**
+     * Writes msg through the outbound queue of this session, or right away
+     * if there is none.
+     */
+    private void send(WebSocketMessage<?> msg, Class<?> messageType) throws IOException {
+        log.trace("Sending: {}", msg.getPayload());
+        if (outboundQueue != null) {
+            outboundQueue.offer(msg, messageType);
+        } else {
+            webSocketSession.sendMessage(msg);
+        }
+    }
+
     protected abstract void playerLostConnection();
 
-    protected String getPlayerId() {
+    @Override
+    public String getPlayerId() {
         return playerId;
     }
 
-    protected void setOutgoingEventBus(EventBus eventBus) {
-        this.outgoingEventBus = eventBus;
-        outgoingEventBus.register(this);
+    protected void setPlayerSessions(PlayerSessionRegistry playerSessions) {
+        this.playerSessions = playerSessions;
+        playerSessions.register(this);
     }
 
     protected void setIncomingEventBus(EventBus eventBus) {
@@ -0,0 +1,199 @@
+package se.cygni.snake.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The messages waiting to be written to one websocket session. Messages are
+ * queued by the thread sending them, usually a game tick, and written by a
+ * writer task so that a slow client only delays itself.
+ *
+ * At most capacity messages are kept. What happens when a message arrives
+ * to a full queue is decided by the OverflowPolicy.
+ */
+public class OutboundQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+    public enum OverflowPolicy {
+        /**
+         * Drops the map updates that a newer MapUpdateEvent makes stale,
+         * together with the deltas against them. Disconnects if that is
+         * not enough.
+         */
+        DROP_STALE_MAP_UPDATES,
+
+        DISCONNECT
+    }
+
+    enum Kind {
+        MAP_UPDATE, MAP_UPDATE_DELTA, OTHER;
+
+        static Kind of(Class<?> messageType) {
+            if (messageType == MapUpdateEvent.class) {
+                return MAP_UPDATE;
+            }
+            if (messageType == MapUpdateDeltaEvent.class) {
+                return MAP_UPDATE_DELTA;
+            }
+            return OTHER;
+        }
+    }
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writer;
+    private final OutboundQueueMetrics metrics;
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private boolean writing = false;
+    private boolean closed = false;
+
+    OutboundQueue(WebSocketSession session, int capacity, OverflowPolicy overflowPolicy,
+                  Executor writer, OutboundQueueMetrics metrics) {
+        this.session = session;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = writer;
+        this.metrics = metrics;
+        metrics.register(this);
+    }
+
+    public void offer(WebSocketMessage<?> message, Class<?> messageType) {
+        Kind kind = Kind.of(messageType);
+        boolean startWriter = false;
+        boolean overflow = false;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            if (frames.size() >= capacity && !makeRoomFor(kind)) {
+                overflow = true;
+            } else {
+                frames.addLast(new Frame(message, kind));
+                if (!writing) {
+                    writing = true;
+                    startWriter = true;
+                }
+            }
+        }
+
+        if (overflow) {
+            disconnect();
+        } else if (startWriter) {
+            startWriter();
+        }
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            frames.clear();
+        }
+        metrics.unregister(this);
+    }
+
+    /**
+     * @return true if there is room for one more message
+     */
+    private boolean makeRoomFor(Kind kind) {
+        if (overflowPolicy != OverflowPolicy.DROP_STALE_MAP_UPDATES) {
+            return false;
+        }
+
+        // Everything map related before the newest full map update is stale
+        int newest = -1;
+        if (kind == Kind.MAP_UPDATE) {
+            newest = frames.size();
+        } else {
+            int i = 0;
+            for (Frame frame : frames) {
+                if (frame.kind == Kind.MAP_UPDATE) {
+                    newest = i;
+                }
+                i++;
+            }
+        }
+
+        int dropped = 0;
+        Iterator<Frame> iterator = frames.iterator();
+        for (int i = 0; i < newest; i++) {
+            if (iterator.next().kind != Kind.OTHER) {
+                iterator.remove();
+                dropped++;
+            }
+        }
+        metrics.dropped(dropped);
+
+        return frames.size() < capacity;
+    }
+
+    private void startWriter() {
+        try {
+            writer.execute(this::write);
+        } catch (RejectedExecutionException e) {
+            log.warn("No writer available for session {}", session.getId());
+            close();
+        }
+    }
+
+    private void write() {
+        while (true) {
+            Frame frame;
+            synchronized (this) {
+                frame = frames.pollFirst();
+                if (frame == null) {
+                    writing = false;
+                    return;
+                }
+            }
+
+            try {
+                session.sendMessage(frame.message);
+            } catch (Exception e) {
+                log.warn("Failed to write to session {}: {}", session.getId(), e.getMessage());
+                close();
+                return;
+            }
+        }
+    }
+
+    private void disconnect() {
+        log.warn("Outbound queue of session {} is full, disconnecting", session.getId());
+        metrics.disconnected();
+        close();
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.warn("Failed to close session {}", session.getId(), e);
+        }
+    }
+
+    private static class Frame {
+        private final WebSocketMessage<?> message;
+        private final Kind kind;
+
+        private Frame(WebSocketMessage<?> message, Kind kind) {
+            this.message = message;
+            this.kind = kind;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package se.cygni.snake.websocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Depth of the outbound queues of all open sessions, and the messages
+ * dropped or sessions disconnected because a queue was full.
+ */
+public class OutboundQueueMetrics implements MeterBinder {
+
+    private final Set<OutboundQueue> queues = ConcurrentHashMap.newKeySet();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+
+    void register(OutboundQueue queue) {
+        queues.add(queue);
+    }
+
+    void unregister(OutboundQueue queue) {
+        queues.remove(queue);
+    }
+
+    void dropped(int noofFrames) {
+        droppedFrames.addAndGet(noofFrames);
+    }
+
+    void disconnected() {
+        disconnects.incrementAndGet();
+    }
+
+    public int getNoofQueues() {
+        return queues.size();
+    }
+
+    public int getTotalDepth() {
+        return queues.stream().mapToInt(OutboundQueue::size).sum();
+    }
+
+    public int getMaxDepth() {
+        return queues.stream().mapToInt(OutboundQueue::size).max().orElse(0);
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getDisconnects() {
+        return disconnects.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("snakebot.outbound.sessions", this, OutboundQueueMetrics::getNoofQueues)
+                .description("Number of sessions with an outbound queue")
+                .register(registry);
+
+        Gauge.builder("snakebot.outbound.queue.depth", this, OutboundQueueMetrics::getTotalDepth)
+                .description("Messages waiting to be written, summed over all sessions")
+                .register(registry);
+
+        Gauge.builder("snakebot.outbound.queue.depth.max", this, OutboundQueueMetrics::getMaxDepth)
+                .description("Messages waiting to be written to the most lagging session")
+                .register(registry);
+
+        FunctionCounter.builder("snakebot.outbound.frames.dropped", droppedFrames, AtomicLong::get)
+                .description("Stale map updates dropped from full outbound queues")
+                .register(registry);
+
+        FunctionCounter.builder("snakebot.outbound.disconnects", disconnects, AtomicLong::get)
+                .description("Sessions disconnected because their outbound queue was full")
+                .register(registry);
+    }
+}
@@ -0,0 +1,39 @@
+package se.cygni.snake.websocket;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the OutboundQueue of each websocket session. The queues share a
+ * pool of writer threads that grows with the number of sessions being
+ * written to at once.
+ */
+public class OutboundQueues {
+
+    private final int capacity;
+    private final OutboundQueue.OverflowPolicy overflowPolicy;
+    private final ExecutorService writers;
+    private final OutboundQueueMetrics metrics = new OutboundQueueMetrics();
+
+    public OutboundQueues(int capacity, OutboundQueue.OverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writers = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("outbound-writer-%d").setDaemon(true).build());
+    }
+
+    public OutboundQueue create(WebSocketSession session) {
+        return new OutboundQueue(session, capacity, overflowPolicy, writers, metrics);
+    }
+
+    public OutboundQueueMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void shutdown() {
+        writers.shutdown();
+    }
+}
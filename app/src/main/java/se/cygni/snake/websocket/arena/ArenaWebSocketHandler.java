@@ -10,8 +10,6 @@ import se.cygni.snake.arena.ArenaManager;
 import se.cygni.snake.arena.ArenaSelectionManager;
 import se.cygni.snake.websocket.BaseGameSocketHandler;
 
-import java.io.IOException;
-
 public class ArenaWebSocketHandler extends BaseGameSocketHandler {
     private static final Logger log = LoggerFactory.getLogger(ArenaWebSocketHandler.class);
 
@@ -40,19 +38,15 @@ public class ArenaWebSocketHandler extends BaseGameSocketHandler {
         }
 
         this.arenaManager = arenaSelectionManager.getArena(arenaName);
-        setOutgoingEventBus(arenaManager.getOutgoingEventBus());
+        setPlayerSessions(arenaManager.getPlayerSessions());
         setIncomingEventBus(arenaManager.getIncomingEventBus());
         log.info("Started arena web socket handler");
     }
 
     private void handleInvalidName(String uri, String arenaFromUri) {
-        try {
-            sendSnakeMessage(new InvalidMessage(
-                    String.format("Arena name %s does not match allowed pattern %s", arenaFromUri, ARENA_NAME_WHITELIST),
-                    uri));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        sendSnakeMessage(new InvalidMessage(
+                String.format("Arena name %s does not match allowed pattern %s", arenaFromUri, ARENA_NAME_WHITELIST),
+                uri));
     }
 
 
@@ -0,0 +1,111 @@
+package se.cygni.snake.websocket.event;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.web.socket.TextMessage;
+import se.cygni.snake.apiconversion.GameSettingsConverter;
+import se.cygni.snake.eventapi.ApiMessageParser;
+import se.cygni.snake.eventapi.model.ActiveGame;
+import se.cygni.snake.eventapi.model.ActiveGamePlayer;
+import se.cygni.snake.eventapi.response.ActiveGamesList;
+import se.cygni.snake.game.Game;
+import se.cygni.snake.game.GameManager;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The list of games shown to spectators. Games that were created, changed
+ * or removed are marked with gameChanged() and gameRemoved(), and only
+ * those are converted again the next time the list is asked for.
+ */
+public class ActiveGamesView {
+
+    private final GameManager gameManager;
+
+    private final Map<String, ActiveGame> games = new LinkedHashMap<>();
+    private final Set<String> changedGameIds = new HashSet<>();
+    private final Set<String> removedGameIds = new HashSet<>();
+    private boolean loaded = false;
+
+    // The list without any game subscribed to, shared by all spectators
+    // not filtering on games
+    private TextMessage encoded;
+
+    public ActiveGamesView(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    public synchronized void gameChanged(String gameId) {
+        if (gameId != null) {
+            changedGameIds.add(gameId);
+        }
+    }
+
+    public synchronized void gameRemoved(String gameId) {
+        if (gameId != null) {
+            removedGameIds.add(gameId);
+        }
+    }
+
+    /**
+     * @param subscribedGameIds the games to mark as subscribed to
+     */
+    public synchronized ActiveGamesList getActiveGamesList(String[] subscribedGameIds) {
+        update();
+        List<ActiveGame> activeGames = games.values().stream()
+                .map(game -> ArrayUtils.contains(subscribedGameIds, game.gameId) ?
+                        new ActiveGame(game.gameId, true, game.gameFeatures, game.players) : game)
+                .collect(Collectors.toList());
+        return new ActiveGamesList(activeGames);
+    }
+
+    public synchronized TextMessage encode(String[] subscribedGameIds) throws IOException {
+        if (!ArrayUtils.isEmpty(subscribedGameIds)) {
+            return new TextMessage(ApiMessageParser.encodeMessage(getActiveGamesList(subscribedGameIds)));
+        }
+
+        update();
+        if (encoded == null) {
+            encoded = new TextMessage(ApiMessageParser.encodeMessage(getActiveGamesList(null)));
+        }
+        return encoded;
+    }
+
+    private void update() {
+        if (!loaded) {
+            for (Game game : gameManager.listAllGames()) {
+                games.put(game.getGameId(), toActiveGame(game));
+            }
+            loaded = true;
+        } else if (!changedGameIds.isEmpty() || !removedGameIds.isEmpty()) {
+            for (String gameId : changedGameIds) {
+                Game game = gameManager.getGame(gameId);
+                if (game == null) {
+                    games.remove(gameId);
+                } else {
+                    games.put(gameId, toActiveGame(game));
+                }
+            }
+            games.keySet().removeAll(removedGameIds);
+        } else {
+            return;
+        }
+
+        changedGameIds.clear();
+        removedGameIds.clear();
+        encoded = null;
+    }
+
+    private static ActiveGame toActiveGame(Game game) {
+        List<ActiveGamePlayer> players = game.getPlayerManager().toSet().stream().map(player -> {
+            return new ActiveGamePlayer(player.getName(), player.getPlayerId(), player.getTotalPoints());
+        }).collect(Collectors.toList());
+
+        return new ActiveGame(
+                game.getGameId(),
+                false,
+                GameSettingsConverter.toGameSettings(game.getGameFeatures()),
+                players);
+    }
+}
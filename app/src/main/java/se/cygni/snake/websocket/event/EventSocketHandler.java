@@ -1,10 +1,7 @@
 package se.cygni.snake.websocket.event;
 
 
-import com.google.common.eventbus.EventBus;
-import com.google.common.eventbus.Subscribe;
 import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,20 +11,14 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import se.cygni.snake.api.GameMessage;
 import se.cygni.snake.api.GameMessageParser;
-import se.cygni.snake.api.event.*;
 import se.cygni.snake.api.request.HeartBeatRequest;
 import se.cygni.snake.api.response.HeartBeatResponse;
 import se.cygni.snake.apiconversion.GameSettingsConverter;
 import se.cygni.snake.arena.ArenaSelectionManager;
-import se.cygni.snake.event.InternalGameEvent;
 import se.cygni.snake.eventapi.ApiMessage;
 import se.cygni.snake.eventapi.ApiMessageParser;
 import se.cygni.snake.eventapi.exception.Unauthorized;
-import se.cygni.snake.eventapi.model.ActiveGame;
-import se.cygni.snake.eventapi.model.ActiveGamePlayer;
-import se.cygni.snake.eventapi.model.TournamentGamePlan;
 import se.cygni.snake.eventapi.request.*;
-import se.cygni.snake.eventapi.response.ActiveGamesList;
 import se.cygni.snake.eventapi.response.NoActiveTournamentEvent;
 import se.cygni.snake.eventapi.response.TournamentCreated;
 import se.cygni.snake.game.Game;
@@ -36,20 +27,18 @@ import se.cygni.snake.security.TokenService;
 import se.cygni.snake.tournament.TournamentManager;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * This is a per-connection websocket. That means a new instance will
  * be created for each connecting client.
  */
-public class EventSocketHandler extends TextWebSocketHandler {
+public class EventSocketHandler extends TextWebSocketHandler implements SpectatorSession {
 
     private static Logger log = LoggerFactory.getLogger(EventSocketHandler.class);
 
     private WebSocketSession session;
     private String[] filterGameIds = new String[0];
-    private EventBus globalEventBus;
+    private SpectatorHub spectatorHub;
     private GameManager gameManager;
     private TournamentManager tournamentManager;
     private TokenService tokenService;
@@ -59,13 +48,13 @@ public class EventSocketHandler extends TextWebSocketHandler {
 
     @Autowired
     public EventSocketHandler(
-            EventBus globalEventBus,
+            SpectatorHub spectatorHub,
             GameManager gameManager,
             TournamentManager tournamentManager,
             ArenaSelectionManager arenaSelectionManager,
             TokenService tokenService) {
 
-        this.globalEventBus = globalEventBus;
+        this.spectatorHub = spectatorHub;
         this.gameManager = gameManager;
         this.tournamentManager = tournamentManager;
         this.arenaSelectionManager = arenaSelectionManager;
@@ -77,14 +66,14 @@ public class EventSocketHandler extends TextWebSocketHandler {
     public void afterConnectionEstablished(WebSocketSession session) {
         log.info("Opened new event session for " + session.getId());
         this.session = session;
-        globalEventBus.register(this);
+        spectatorHub.register(this);
         sendListOfActiveGames();
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         super.afterConnectionClosed(session, status);
-        globalEventBus.unregister(this);
+        spectatorHub.unregister(this);
         log.info("Removed session: {}", session.getId());
     }
 
@@ -103,6 +92,8 @@ public class EventSocketHandler extends TextWebSocketHandler {
                 arenaSelectionManager.getArena(currentArenaName).broadcastState();
             } else if (apiMessage instanceof SetGameFilter) {
                 setActiveGameFilter((SetGameFilter) apiMessage);
+            } else if (apiMessage instanceof SetPlaybackRate) {
+                spectatorHub.setPlaybackRate(this, ((SetPlaybackRate) apiMessage).getFramesPerSecond());
 
             } else if (apiMessage instanceof StartGame) {
                 startGame((StartGame) apiMessage);
@@ -181,10 +172,11 @@ public class EventSocketHandler extends TextWebSocketHandler {
         String msg = message.getPayload();
         log.debug(msg);
 
-        if (!tryToHandleGameMessage(msg)) {
-            if (!tryToHandleApiMessage(msg)) {
-                log.error("Got message which I could not understand: {}", msg);
-            }
+        // The type tells which of the two parsers to decode with
+        boolean handled = GameMessageParser.isGameMessage(msg) ?
+                tryToHandleGameMessage(msg) : tryToHandleApiMessage(msg);
+        if (!handled) {
+            log.error("Got message which I could not understand: {}", msg);
         }
     }
 
@@ -193,54 +185,28 @@ public class EventSocketHandler extends TextWebSocketHandler {
             throws Exception {
 
         session.close(CloseStatus.SERVER_ERROR);
-        globalEventBus.unregister(this);
+        spectatorHub.unregister(this);
         log.info("Transport error, removed session: {}", session.getId());
     }
 
-    @Subscribe
-    public void onInternalGameEvent(InternalGameEvent event) {
-
-        GameMessage gameMessage = event.getGameMessage();
-
-        if (gameMessage instanceof GameCreatedEvent ||
-                gameMessage instanceof GameChangedEvent ||
-                gameMessage instanceof GameAbortedEvent) {
-            sendListOfActiveGames();
-            return;
-        }
-
-        if (gameMessage instanceof TournamentEndedEvent) {
-            sendGameMessage(gameMessage);
-            return;
-        }
-
-        if (gameMessage instanceof GameEndedEvent) {
-            sendListOfActiveGames();
-        }
-
-        if (gameMessage instanceof ArenaUpdateEvent) {
-            ArenaUpdateEvent updateEvent = (ArenaUpdateEvent) gameMessage;
-            if (updateEvent.getArenaName().equals(currentArenaName)) {
-                sendGameMessage(gameMessage);
+    /**
+     * Called from the hub as well as in reply to this session's own
+     * messages, so writes are serialized here.
+     */
+    @Override
+    public synchronized void sendMessage(TextMessage message) {
+        try {
+            if (session.isOpen()) {
+                session.sendMessage(message);
             }
+        } catch (IOException e) {
+            log.error("Failed to send GameMessage over eventsocket", e);
         }
-
-        sendGameEvent(event.getGameMessage());
     }
 
-    @Subscribe
-    public void onTournamentGamePlan(TournamentGamePlan tgp) {
-        sendApiMessage(tgp);
-    }
-
-    private void sendGameEvent(GameMessage message) {
-        if (!session.isOpen())
-            return;
-
-        String gameId = extractGameId(message);
-        if (ArrayUtils.contains(filterGameIds, gameId)) {
-            sendGameMessage(message);
-        }
+    @Override
+    public void onActiveGamesChanged() {
+        sendListOfActiveGames();
     }
 
     private void sendHeartbeat() {
@@ -250,31 +216,21 @@ public class EventSocketHandler extends TextWebSocketHandler {
 
     private void sendListOfActiveGames() {
         log.debug("Sending updated list of games");
-        List<Game> games = gameManager.listAllGames();
-
-        List<ActiveGame> activeGames = games.stream().map(game -> {
-            List<ActiveGamePlayer> players = game.getPlayerManager().toSet().stream().map(player -> {
-                return new ActiveGamePlayer(player.getName(), player.getPlayerId(), player.getTotalPoints());
-            }).collect(Collectors.toList());
-
-            return new ActiveGame(
-                    game.getGameId(),
-                    ArrayUtils.contains(filterGameIds, game.getGameId()),
-                    GameSettingsConverter.toGameSettings(game.getGameFeatures()),
-                    players);
-
-        }).collect(Collectors.toList());
-
-        ActiveGamesList gamesList = new ActiveGamesList(activeGames);
-        sendApiMessage(gamesList);
+        try {
+            sendMessage(spectatorHub.encodeActiveGamesList(filterGameIds));
+        } catch (IOException e) {
+            log.error("Failed to encode list of active games", e);
+        }
     }
 
     private void setCurrentArena(SetCurrentArena apiMessage) {
         this.currentArenaName = apiMessage.getCurrentArena();
+        spectatorHub.setArena(this, currentArenaName);
     }
 
     private void setActiveGameFilter(SetGameFilter gameFilter) {
         this.filterGameIds = gameFilter.getIncludedGameIds();
+        spectatorHub.setGameFilter(this, filterGameIds);
     }
 
     private void startGame(StartGame apiMessage) {
@@ -309,31 +265,19 @@ public class EventSocketHandler extends TextWebSocketHandler {
         return true;
     }
 
-    private String extractGameId(GameMessage gameMessage) {
-        try {
-            return BeanUtils.getProperty(gameMessage, "gameId");
-        } catch (Exception e) {
-            return ":";
-        }
-    }
-
     private void sendGameMessage(GameMessage gameMessage) {
         try {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(GameMessageParser.encodeMessage(gameMessage)));
-            }
+            sendMessage(new TextMessage(GameMessageParser.encodeMessage(gameMessage)));
         } catch (IOException e) {
-            log.error("Failed to send GameMessage over eventsocket", e);
+            log.error("Failed to encode GameMessage", e);
         }
     }
 
     private void sendApiMessage(ApiMessage apiMessage) {
         try {
-            if (session.isOpen()) {
-                session.sendMessage(new TextMessage(ApiMessageParser.encodeMessage(apiMessage)));
-            }
+            sendMessage(new TextMessage(ApiMessageParser.encodeMessage(apiMessage)));
         } catch (IOException e) {
-            log.error("Failed to send GameMessage over eventsocket", e);
+            log.error("Failed to encode ApiMessage", e);
         }
     }
 }
@@ -0,0 +1,180 @@
+package se.cygni.snake.websocket.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.MapUpdateEvent;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays the game events sent to one spectator session at a chosen frame
+ * rate instead of at the speed of the game engine.
+ *
+ * Events are queued by offer() and playNextFrame(), called once per frame,
+ * sends everything up to and including the next MapUpdateEvent. When more
+ * than maxBufferedFrames map updates are waiting the oldest are skipped,
+ * so a viewer falls at most that far behind. Other events are never
+ * skipped.
+ *
+ * Frames are sent one at a time and in order, whichever thread plays them,
+ * and sending never blocks offer().
+ */
+public class PlaybackController {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaybackController.class);
+
+    private final SpectatorSession session;
+    private final int maxBufferedFrames;
+
+    private final Object sendLock = new Object();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+
+    private final Deque<Item> queue = new ArrayDeque<>();
+    private final Map<String, Integer> queuedByGameId = new HashMap<>();
+    private int bufferedFrames = 0;
+    private long skippedFrames = 0;
+
+    public PlaybackController(SpectatorSession session, int maxBufferedFrames) {
+        this.session = session;
+        this.maxBufferedFrames = maxBufferedFrames;
+    }
+
+    public synchronized void offer(String gameId, GameMessage gameMessage, TextMessage encoded) {
+        Item item = new Item(gameId, gameMessage, encoded);
+        queue.add(item);
+        queuedByGameId.merge(gameId, 1, Integer::sum);
+
+        if (item.isFrame() && ++bufferedFrames > maxBufferedFrames) {
+            skipOldestFrame();
+        }
+    }
+
+    /**
+     * Plays the next frame on executor, unless the previous frame handed
+     * to it is still being sent. A skipped call leaves the events queued,
+     * so a slow session falls behind rather than taking more threads.
+     */
+    public void playNextFrame(Executor executor) {
+        if (!frameScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    playNextFrame();
+                } catch (Exception e) {
+                    log.warn("Failed to play frame to spectator", e);
+                } finally {
+                    frameScheduled.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            frameScheduled.set(false);
+            throw e;
+        }
+    }
+
+    public void playNextFrame() {
+        synchronized (sendLock) {
+            List<TextMessage> messages = new ArrayList<>();
+            synchronized (this) {
+                Item item;
+                while ((item = queue.poll()) != null) {
+                    dequeued(item);
+                    messages.add(item.encoded);
+                    if (item.isFrame()) {
+                        break;
+                    }
+                }
+            }
+
+            for (TextMessage message : messages) {
+                session.sendMessage(message);
+            }
+        }
+    }
+
+    public void playRemaining() {
+        while (hasQueued()) {
+            playNextFrame();
+        }
+    }
+
+    /**
+     * Drops the queued events of the games not in gameIds.
+     */
+    public synchronized void retainGames(String[] gameIds) {
+        Set<String> retained = new HashSet<>(Arrays.asList(gameIds == null ? new String[0] : gameIds));
+        Iterator<Item> items = queue.iterator();
+        while (items.hasNext()) {
+            Item item = items.next();
+            if (!retained.contains(item.gameId)) {
+                items.remove();
+                dequeued(item);
+            }
+        }
+    }
+
+    /**
+     * @return true while events of the game are waiting to be played
+     */
+    public synchronized boolean isPlaying(String gameId) {
+        return queuedByGameId.containsKey(gameId);
+    }
+
+    private synchronized boolean hasQueued() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * @return the map updates waiting to be played, i.e. how many frames
+     * the session is behind the games it watches
+     */
+    public synchronized int getBufferedFrames() {
+        return bufferedFrames;
+    }
+
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    private void skipOldestFrame() {
+        Iterator<Item> items = queue.iterator();
+        while (items.hasNext()) {
+            Item item = items.next();
+            if (item.isFrame()) {
+                items.remove();
+                dequeued(item);
+                skippedFrames++;
+                return;
+            }
+        }
+    }
+
+    private void dequeued(Item item) {
+        queuedByGameId.computeIfPresent(item.gameId, (gameId, count) -> count == 1 ? null : count - 1);
+        if (item.isFrame()) {
+            bufferedFrames--;
+        }
+    }
+
+    private static class Item {
+        final String gameId;
+        final GameMessage gameMessage;
+        final TextMessage encoded;
+
+        Item(String gameId, GameMessage gameMessage, TextMessage encoded) {
+            this.gameId = gameId;
+            this.gameMessage = gameMessage;
+            this.encoded = encoded;
+        }
+
+        boolean isFrame() {
+            return gameMessage instanceof MapUpdateEvent;
+        }
+    }
+}
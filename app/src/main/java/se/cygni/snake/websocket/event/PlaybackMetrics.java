@@ -0,0 +1,63 @@
+package se.cygni.snake.websocket.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How far the spectators with a playback rate are behind the games they
+ * watch, counted in map updates waiting to be played, and the map updates
+ * skipped because a spectator fell too far behind.
+ */
+public class PlaybackMetrics implements MeterBinder {
+
+    private final Collection<PlaybackController> playbacks;
+    private final AtomicLong skippedByRemoved = new AtomicLong();
+
+    PlaybackMetrics(Collection<PlaybackController> playbacks) {
+        this.playbacks = playbacks;
+    }
+
+    void removed(PlaybackController playback) {
+        skippedByRemoved.addAndGet(playback.getSkippedFrames());
+    }
+
+    public int getNoofSessions() {
+        return playbacks.size();
+    }
+
+    public int getTotalBufferedFrames() {
+        return playbacks.stream().mapToInt(PlaybackController::getBufferedFrames).sum();
+    }
+
+    public int getMaxBufferedFrames() {
+        return playbacks.stream().mapToInt(PlaybackController::getBufferedFrames).max().orElse(0);
+    }
+
+    public long getSkippedFrames() {
+        return skippedByRemoved.get() + playbacks.stream().mapToLong(PlaybackController::getSkippedFrames).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("snakebot.playback.sessions", this, PlaybackMetrics::getNoofSessions)
+                .description("Number of spectator sessions with a playback rate")
+                .register(registry);
+
+        Gauge.builder("snakebot.playback.frames.buffered", this, PlaybackMetrics::getTotalBufferedFrames)
+                .description("Map updates waiting to be played, summed over all paced sessions")
+                .register(registry);
+
+        Gauge.builder("snakebot.playback.frames.buffered.max", this, PlaybackMetrics::getMaxBufferedFrames)
+                .description("Map updates the paced session furthest behind its games has yet to play")
+                .register(registry);
+
+        FunctionCounter.builder("snakebot.playback.frames.skipped", this, PlaybackMetrics::getSkippedFrames)
+                .description("Map updates skipped because a paced session fell too far behind")
+                .register(registry);
+    }
+}
@@ -0,0 +1,392 @@
+package se.cygni.snake.websocket.event;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.beanutils.BeanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.event.*;
+import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.eventapi.ApiMessageParser;
+import se.cygni.snake.eventapi.model.TournamentGamePlan;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands the game events on the global EventBus to the spectator sessions
+ * that watch them. Sessions are indexed by the games they filter on, and by
+ * their current arena, so an event costs nothing for the sessions not
+ * watching it and is encoded once for the ones that do.
+ *
+ * Changes to the list of games are coalesced: sessions are told to send
+ * the list again at most once every activeGamesIntervalInMs.
+ *
+ * Sessions that set a playback rate get the events of their games through
+ * a PlaybackController, how far they are behind is reported by the
+ * PlaybackMetrics. The timer
+ * of the hub only hands each frame to the playback executor, and a session
+ * still busy sending its previous frame skips the frame, so a slow session
+ * never holds up the others.
+ */
+public class SpectatorHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SpectatorHub.class);
+
+    public static final int MAX_FRAMES_PER_SECOND = 60;
+
+    private final Set<SpectatorSession> sessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<SpectatorSession>> sessionsByGameId = new ConcurrentHashMap<>();
+    private final Map<String, Set<SpectatorSession>> sessionsByArena = new ConcurrentHashMap<>();
+
+    // What each session is indexed under, guarded by this
+    private final Map<SpectatorSession, String[]> gameIdsBySession = new HashMap<>();
+    private final Map<SpectatorSession, String> arenaBySession = new HashMap<>();
+
+    private final ActiveGamesView activeGamesView;
+    private final long activeGamesIntervalInMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean activeGamesChangePending = new AtomicBoolean();
+
+    private final int maxBufferedFrames;
+    private final ExecutorService playbackExecutor;
+    private final Map<SpectatorSession, PlaybackController> playbacks = new ConcurrentHashMap<>();
+    private final PlaybackMetrics playbackMetrics = new PlaybackMetrics(playbacks.values());
+    // Guarded by this
+    private final Map<SpectatorSession, ScheduledFuture<?>> playbackTasks = new HashMap<>();
+
+    /**
+     * @param activeGamesIntervalInMs 0 to tell sessions about every change
+     *                                right away
+     * @param maxBufferedFrames       the most map updates a paced session
+     *                                may fall behind before frames are skipped
+     */
+    public SpectatorHub(EventBus globalEventBus, ActiveGamesView activeGamesView,
+                        long activeGamesIntervalInMs, int maxBufferedFrames) {
+        this.activeGamesView = activeGamesView;
+        this.activeGamesIntervalInMs = activeGamesIntervalInMs;
+        this.maxBufferedFrames = maxBufferedFrames;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("spectator-%d").setDaemon(true).build());
+        this.playbackExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("spectator-playback-%d").setDaemon(true).build());
+        globalEventBus.register(this);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        playbackExecutor.shutdownNow();
+    }
+
+    public void register(SpectatorSession session) {
+        sessions.add(session);
+    }
+
+    public synchronized void unregister(SpectatorSession session) {
+        sessions.remove(session);
+        stopPlayback(session);
+        removePlayback(session);
+        unindex(sessionsByGameId, session, gameIdsBySession.remove(session));
+        unindex(sessionsByArena, session, arenaBySession.remove(session));
+    }
+
+    /**
+     * Replaces the games session watches.
+     */
+    public synchronized void setGameFilter(SpectatorSession session, String[] gameIds) {
+        unindex(sessionsByGameId, session, gameIdsBySession.remove(session));
+        if (!sessions.contains(session) || gameIds == null) {
+            return;
+        }
+        gameIdsBySession.put(session, gameIds);
+        index(sessionsByGameId, session, gameIds);
+
+        PlaybackController playback = playbacks.get(session);
+        if (playback != null) {
+            playback.retainGames(gameIds);
+        }
+    }
+
+    /**
+     * Plays the games session watches at framesPerSecond from now on, or
+     * as they happen if framesPerSecond is 0. Events already waiting are
+     * kept when the rate changes, and sent at once when pacing is turned
+     * off.
+     *
+     * @return false, leaving the rate as it was, if framesPerSecond is not
+     * between 0 and MAX_FRAMES_PER_SECOND
+     */
+    public synchronized boolean setPlaybackRate(SpectatorSession session, int framesPerSecond) {
+        if (framesPerSecond < 0 || framesPerSecond > MAX_FRAMES_PER_SECOND) {
+            log.warn("Ignoring playback rate of {} frames per second, must be between 0 and {}",
+                    framesPerSecond, MAX_FRAMES_PER_SECOND);
+            return false;
+        }
+
+        stopPlayback(session);
+        if (!sessions.contains(session)) {
+            return false;
+        }
+
+        if (framesPerSecond == 0) {
+            PlaybackController playback = removePlayback(session);
+            if (playback != null) {
+                playback.playRemaining();
+            }
+            return true;
+        }
+
+        PlaybackController playback = playbacks.computeIfAbsent(session,
+                s -> new PlaybackController(s, maxBufferedFrames));
+        long periodInMicros = TimeUnit.SECONDS.toMicros(1) / framesPerSecond;
+        playbackTasks.put(session, scheduler.scheduleAtFixedRate(() -> {
+            try {
+                playback.playNextFrame(playbackExecutor);
+            } catch (Exception e) {
+                log.warn("Failed to play frame to spectator", e);
+            }
+        }, periodInMicros, periodInMicros, TimeUnit.MICROSECONDS));
+        return true;
+    }
+
+    /**
+     * @return false while a spectator with a playback rate still has events
+     * of the game waiting
+     */
+    public boolean isPlaybackFinished(String gameId) {
+        for (SpectatorSession session : watchers(gameId)) {
+            PlaybackController playback = playbacks.get(session);
+            if (playback != null && playback.isPlaying(gameId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the game has spectators and all of them have a
+     * playback rate, so that isPlaybackFinished() speaks for every one
+     */
+    public boolean isPlaybackKnown(String gameId) {
+        Set<SpectatorSession> watchers = watchers(gameId);
+        return !watchers.isEmpty() && playbacks.keySet().containsAll(watchers);
+    }
+
+    /**
+     * Replaces the arena whose updates session gets.
+     */
+    public synchronized void setArena(SpectatorSession session, String arenaName) {
+        unindex(sessionsByArena, session, arenaBySession.remove(session));
+        if (!sessions.contains(session) || arenaName == null) {
+            return;
+        }
+        arenaBySession.put(session, arenaName);
+        index(sessionsByArena, session, arenaName);
+    }
+
+    /**
+     * @param subscribedGameIds the games the session filters on
+     */
+    public TextMessage encodeActiveGamesList(String[] subscribedGameIds) throws IOException {
+        return activeGamesView.encode(subscribedGameIds);
+    }
+
+    public int getNoofSessions() {
+        return sessions.size();
+    }
+
+    public PlaybackMetrics getPlaybackMetrics() {
+        return playbackMetrics;
+    }
+
+    public int getNoofWatchers(String gameId) {
+        return watchers(gameId).size();
+    }
+
+    @Subscribe
+    public void onInternalGameEvent(InternalGameEvent event) {
+        GameMessage gameMessage = event.getGameMessage();
+        if (gameMessage == null) {
+            return;
+        }
+        String gameId = extractGameId(gameMessage);
+
+        if (gameMessage instanceof GameCreatedEvent ||
+                gameMessage instanceof GameChangedEvent) {
+            activeGamesView.gameChanged(gameId);
+            activeGamesChanged();
+            return;
+        }
+
+        if (gameMessage instanceof GameAbortedEvent) {
+            activeGamesView.gameRemoved(gameId);
+            activeGamesChanged();
+            return;
+        }
+
+        if (gameMessage instanceof TournamentEndedEvent) {
+            sendGameMessage(sessions, gameMessage);
+            return;
+        }
+
+        if (gameMessage instanceof GameEndedEvent) {
+            activeGamesView.gameRemoved(gameId);
+            activeGamesChanged();
+        }
+
+        Set<SpectatorSession> watchers = watchers(gameId);
+        if (gameMessage instanceof ArenaUpdateEvent) {
+            // Arena state is not part of the game's playback
+            Set<SpectatorSession> union = new HashSet<>(watchers);
+            union.addAll(sessionsByArena.getOrDefault(((ArenaUpdateEvent) gameMessage).getArenaName(), Collections.emptySet()));
+            sendGameMessage(union, gameMessage);
+            return;
+        }
+
+        playGameMessage(watchers, gameId, gameMessage);
+    }
+
+    @Subscribe
+    public void onTournamentGamePlan(TournamentGamePlan tgp) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        try {
+            send(sessions, new TextMessage(ApiMessageParser.encodeMessage(tgp)));
+        } catch (IOException e) {
+            log.error("Failed to encode TournamentGamePlan", e);
+        }
+    }
+
+    private void activeGamesChanged() {
+        if (activeGamesIntervalInMs <= 0) {
+            notifyActiveGamesChanged();
+        } else if (activeGamesChangePending.compareAndSet(false, true)) {
+            scheduler.schedule(this::flushActiveGamesChanges, activeGamesIntervalInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flushActiveGamesChanges() {
+        if (activeGamesChangePending.compareAndSet(true, false)) {
+            notifyActiveGamesChanged();
+        }
+    }
+
+    private void notifyActiveGamesChanged() {
+        for (SpectatorSession session : sessions) {
+            try {
+                session.onActiveGamesChanged();
+            } catch (Exception e) {
+                log.warn("Failed to update list of active games of spectator", e);
+            }
+        }
+    }
+
+    private void playGameMessage(Collection<SpectatorSession> watchers, String gameId, GameMessage gameMessage) {
+        if (watchers.isEmpty()) {
+            return;
+        }
+        TextMessage encoded;
+        try {
+            encoded = new TextMessage(GameMessageParser.encodeMessage(gameMessage));
+        } catch (IOException e) {
+            log.error("Failed to encode {}", gameMessage.getClass().getSimpleName(), e);
+            return;
+        }
+
+        for (SpectatorSession session : watchers) {
+            PlaybackController playback = playbacks.get(session);
+            if (playback != null) {
+                playback.offer(gameId, gameMessage, encoded);
+            } else {
+                send(session, encoded);
+            }
+        }
+    }
+
+    private void sendGameMessage(Collection<SpectatorSession> watchers, GameMessage gameMessage) {
+        if (watchers.isEmpty()) {
+            return;
+        }
+        try {
+            send(watchers, new TextMessage(GameMessageParser.encodeMessage(gameMessage)));
+        } catch (IOException e) {
+            log.error("Failed to encode {}", gameMessage.getClass().getSimpleName(), e);
+        }
+    }
+
+    private void send(Collection<SpectatorSession> watchers, TextMessage message) {
+        for (SpectatorSession session : watchers) {
+            send(session, message);
+        }
+    }
+
+    private static void send(SpectatorSession session, TextMessage message) {
+        try {
+            session.sendMessage(message);
+        } catch (Exception e) {
+            log.warn("Failed to send to spectator", e);
+        }
+    }
+
+    private Set<SpectatorSession> watchers(String gameId) {
+        return gameId == null ? Collections.emptySet() :
+                sessionsByGameId.getOrDefault(gameId, Collections.emptySet());
+    }
+
+    private PlaybackController removePlayback(SpectatorSession session) {
+        PlaybackController playback = playbacks.remove(session);
+        if (playback != null) {
+            playbackMetrics.removed(playback);
+        }
+        return playback;
+    }
+
+    private void stopPlayback(SpectatorSession session) {
+        ScheduledFuture<?> task = playbackTasks.remove(session);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private static void index(Map<String, Set<SpectatorSession>> index, SpectatorSession session, String... keys) {
+        for (String key : keys) {
+            if (key != null) {
+                index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(session);
+            }
+        }
+    }
+
+    private static void unindex(Map<String, Set<SpectatorSession>> index, SpectatorSession session, String... keys) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                index.computeIfPresent(key, (k, watchers) -> {
+                    watchers.remove(session);
+                    return watchers.isEmpty() ? null : watchers;
+                });
+            }
+        }
+    }
+
+    private static String extractGameId(GameMessage gameMessage) {
+        try {
+            return BeanUtils.getProperty(gameMessage, "gameId");
+        } catch (Exception e) {
+            return ":";
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package se.cygni.snake.websocket.event;
+
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * A connection watching games through the SpectatorHub.
+ */
+public interface SpectatorSession {
+
+    /**
+     * @param message already encoded, and shared with the other sessions
+     */
+    void sendMessage(TextMessage message);
+
+    /**
+     * Called when a game was created, changed, aborted or ended.
+     */
+    void onActiveGamesChanged();
+}
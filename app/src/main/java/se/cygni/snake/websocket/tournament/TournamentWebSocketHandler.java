@@ -20,7 +20,7 @@ public class TournamentWebSocketHandler extends BaseGameSocketHandler {
         log.info("Started tournament web socket handler");
 
         // Get an eventbus and register this handler
-        this.setOutgoingEventBus(tournamentManager.getOutgoingEventBus());
+        this.setPlayerSessions(tournamentManager.getPlayerSessions());
         this.setIncomingEventBus(tournamentManager.getIncomingEventBus());
     }
 
@@ -22,7 +22,7 @@ public class TrainingWebSocketHandler extends BaseGameSocketHandler {
 
         game = gameManager.createTrainingGame();
 
-        setOutgoingEventBus(game.getOutgoingEventBus());
+        setPlayerSessions(game.getPlayerSessions());
         setIncomingEventBus(game.getIncomingEventBus());
     }
 
@@ -27,4 +27,17 @@ public class GameSettingsConverterTest {
 
         assertTrue(gameFeatures.isTrainingGame());
     }
+
+    @Test
+    public void testAdaptiveTimePerTickIsCopied() throws Exception {
+        GameSettings gameSettings = new GameSettings.GameSettingsBuilder()
+                .withAdaptiveTimePerTick(true)
+                .withMinTimeInMsPerTick(30)
+                .build();
+        GameFeatures gameFeatures = GameSettingsConverter.toGameFeatures(gameSettings);
+
+        assertTrue(gameFeatures.isAdaptiveTimePerTick());
+        assertEquals(30, gameFeatures.getMinTimeInMsPerTick());
+        assertTrue(GameSettingsConverter.toGameSettings(gameFeatures).isAdaptiveTimePerTick());
+    }
 }
\ No newline at end of file
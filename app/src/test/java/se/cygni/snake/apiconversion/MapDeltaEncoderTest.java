@@ -0,0 +1,126 @@
+package se.cygni.snake.apiconversion;
+
+import org.junit.Test;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeDelta;
+import se.cygni.snake.api.model.SnakeInfo;
+import se.cygni.snake.client.MapDeltaDecoder;
+
+import static org.junit.Assert.*;
+
+public class MapDeltaEncoderTest {
+
+    @Test
+    public void testFirstUpdateIsKeyframe() throws Exception {
+        MapDeltaEncoder encoder = new MapDeltaEncoder();
+        MapUpdateEvent first = mapUpdate(0, snakes(new int[] {3, 2, 1}), new int[] {10}, new int[0]);
+
+        assertSame(first, encoder.next(first));
+    }
+
+    @Test
+    public void testDeltaOfMovingSnake() throws Exception {
+        MapDeltaEncoder encoder = new MapDeltaEncoder();
+        encoder.next(mapUpdate(0, snakes(new int[] {3, 2, 1}, new int[] {20, 21}), new int[] {10}, new int[0]));
+
+        GameMessage message = encoder.next(
+                mapUpdate(1, snakes(new int[] {4, 3, 2}, new int[] {20, 21}), new int[] {10, 11}, new int[0]));
+
+        assertTrue(message instanceof MapUpdateDeltaEvent);
+        MapUpdateDeltaEvent delta = (MapUpdateDeltaEvent) message;
+        assertEquals(0, delta.getPreviousGameTick());
+        assertEquals(1, delta.getSnakeDeltas().length);
+
+        SnakeDelta snakeDelta = delta.getSnakeDeltas()[0];
+        assertEquals("a", snakeDelta.getPlayerId());
+        assertArrayEquals(new int[] {4}, snakeDelta.getNewHeadPositions());
+        assertEquals(1, snakeDelta.getRemovedTailLength());
+        assertArrayEquals(new int[] {11}, delta.getAddedFoodPositions());
+        assertArrayEquals(new int[0], delta.getRemovedFoodPositions());
+    }
+
+    @Test
+    public void testKeyframeWhenSnakesChange() throws Exception {
+        MapDeltaEncoder encoder = new MapDeltaEncoder();
+        encoder.next(mapUpdate(0, snakes(new int[] {3, 2, 1}, new int[] {20, 21}), new int[0], new int[0]));
+
+        MapUpdateEvent withoutB = mapUpdate(1, snakes(new int[] {4, 3, 2}), new int[0], new int[0]);
+
+        assertSame(withoutB, encoder.next(withoutB));
+    }
+
+    @Test
+    public void testKeyframeInterval() throws Exception {
+        MapDeltaEncoder encoder = new MapDeltaEncoder(3);
+        int[] positions = {3, 2, 1};
+        for (int tick = 0; tick < 7; tick++) {
+            positions = new int[] {positions[0] + 1, positions[0], positions[1]};
+            GameMessage message = encoder.next(mapUpdate(tick, snakes(positions), new int[0], new int[0]));
+
+            assertEquals("tick " + tick, tick % 3 == 0, message instanceof MapUpdateEvent);
+        }
+    }
+
+    @Test
+    public void testDecodedDeltasMatchFullUpdates() throws Exception {
+        MapDeltaEncoder encoder = new MapDeltaEncoder(10);
+        MapDeltaDecoder decoder = new MapDeltaDecoder();
+
+        int[] a = {40, 39, 38};
+        int[] b = {100, 101};
+        int[] food = {5, 60};
+        int[] obstacles = {7};
+        for (int tick = 0; tick < 25; tick++) {
+            // a grows every fifth tick, b stands still and food moves around
+            a = move(a, a[0] + 1, tick % 5 == 0);
+            food = new int[] {5, 60 + tick % 4};
+            if (tick == 12) {
+                obstacles = new int[] {7, 8};
+            }
+            MapUpdateEvent expected = mapUpdate(tick, snakes(a, b), food, obstacles);
+
+            // Through json, the way a client receives it
+            GameMessage received = GameMessageParser.decodeMessage(
+                    GameMessageParser.encodeMessage(encoder.next(expected)));
+            MapUpdateEvent actual = received instanceof MapUpdateDeltaEvent ?
+                    decoder.update((MapUpdateDeltaEvent) received) :
+                    decoder.update((MapUpdateEvent) received);
+
+            assertEquals(expected.getGameTick(), actual.getGameTick());
+            assertEquals(expected.getMap().getWorldTick(), actual.getMap().getWorldTick());
+            assertArrayEquals(expected.getMap().getFoodPositions(), actual.getMap().getFoodPositions());
+            assertArrayEquals(expected.getMap().getObstaclePositions(), actual.getMap().getObstaclePositions());
+            for (int i = 0; i < 2; i++) {
+                SnakeInfo expectedSnake = expected.getMap().getSnakeInfos()[i];
+                SnakeInfo actualSnake = actual.getMap().getSnakeInfos()[i];
+                assertEquals(expectedSnake.getId(), actualSnake.getId());
+                assertEquals(expectedSnake.getPoints(), actualSnake.getPoints());
+                assertArrayEquals("tick " + tick, expectedSnake.getPositions(), actualSnake.getPositions());
+            }
+        }
+    }
+
+    private static int[] move(int[] positions, int head, boolean grow) {
+        int[] moved = new int[grow ? positions.length + 1 : positions.length];
+        moved[0] = head;
+        System.arraycopy(positions, 0, moved, 1, moved.length - 1);
+        return moved;
+    }
+
+    private static SnakeInfo[] snakes(int[]... positions) {
+        SnakeInfo[] snakeInfos = new SnakeInfo[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            String id = String.valueOf((char) ('a' + i));
+            snakeInfos[i] = new SnakeInfo(id, positions[i].length, id, positions[i], 0);
+        }
+        return snakeInfos;
+    }
+
+    private static MapUpdateEvent mapUpdate(long tick, SnakeInfo[] snakeInfos, int[] food, int[] obstacles) {
+        return new MapUpdateEvent(tick, "game", new Map(15, 15, tick, snakeInfos, food, obstacles));
+    }
+}
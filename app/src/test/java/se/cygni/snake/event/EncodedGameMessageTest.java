@@ -0,0 +1,73 @@
+package se.cygni.snake.event;
+
+import org.junit.Test;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeInfo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class EncodedGameMessageTest {
+
+    @Test
+    public void testPayloadIsSameAsEncodedCopy() throws Exception {
+        MapUpdateEvent mapUpdateEvent = mapUpdate("\"receivingPlayerId\":null");
+        EncodedGameMessage encoded = EncodedGameMessage.encode(mapUpdateEvent, new HashSet<>(Arrays.asList("a", "b")));
+
+        for (String playerId : Arrays.asList("a", "b")) {
+            MapUpdateEvent copy = new MapUpdateEvent(mapUpdateEvent);
+            copy.setReceivingPlayerId(playerId);
+            copy.setTimestamp(mapUpdateEvent.getTimestamp());
+
+            assertEquals(GameMessageParser.encodeMessage(copy), encoded.getPayload(playerId));
+        }
+    }
+
+    @Test
+    public void testSmilePayloadIsSameAsEncodedCopy() throws Exception {
+        assertSmilePayloadsAreSameAsEncodedCopies(mapUpdate("one"));
+    }
+
+    @Test
+    public void testSmilePayloadWhenNameLooksLikePlaceholder() throws Exception {
+        char[] name = new char[40];
+        Arrays.fill(name, '\u0001');
+
+        assertSmilePayloadsAreSameAsEncodedCopies(mapUpdate(new String(name)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddressedMessage() throws Exception {
+        MapUpdateEvent mapUpdateEvent = mapUpdate("a");
+        mapUpdateEvent.setReceivingPlayerId("a");
+
+        EncodedGameMessage.encode(mapUpdateEvent, new HashSet<>(Arrays.asList("a")));
+    }
+
+    private static void assertSmilePayloadsAreSameAsEncodedCopies(MapUpdateEvent mapUpdateEvent) throws Exception {
+        List<String> playerIds = Arrays.asList(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), "short", "åäö");
+        EncodedGameMessage encoded = EncodedGameMessage.encode(mapUpdateEvent, new HashSet<>(playerIds));
+
+        for (String playerId : playerIds) {
+            MapUpdateEvent copy = new MapUpdateEvent(mapUpdateEvent);
+            copy.setReceivingPlayerId(playerId);
+            copy.setTimestamp(mapUpdateEvent.getTimestamp());
+
+            assertArrayEquals(playerId, GameMessageParser.encodeSmileMessage(copy), encoded.getSmilePayload(playerId));
+        }
+    }
+
+    private static MapUpdateEvent mapUpdate(String snakeName) {
+        SnakeInfo[] snakeInfos = new SnakeInfo[] {
+                new SnakeInfo(snakeName, 3, "a", new int[] {8, 5, 2}, 0)
+        };
+        return new MapUpdateEvent(5, "game", new Map(3, 3, 5, snakeInfos, new int[] {4}, new int[0]));
+    }
+}
@@ -0,0 +1,108 @@
+package se.cygni.snake.game;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import se.cygni.game.Player;
+import se.cygni.game.enums.Direction;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.SnakeInfo;
+import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.player.PlayerSessionRegistry;
+import se.cygni.snake.player.RemotePlayer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two remote players that answer every tick, running on a scheduler that
+ * only runs a tick when told to. The snakes loop around a square
+ * towards the centre of the map so that they stay alive.
+ */
+class AdaptiveGame {
+
+    static final String[] PLAYER_IDS = { "one", "two" };
+
+    // Long enough for the snakes not to catch their tails, they grow
+    // every other tick
+    static final int SIDE = 7;
+
+    final ManualGameScheduler scheduler = new ManualGameScheduler();
+    final GameEngine gameEngine;
+    final Map<String, Direction[]> loops = new HashMap<>();
+    volatile MapUpdateEvent mapUpdate;
+
+    AdaptiveGame(int minTimeInMsPerTick) {
+        final GameFeatures gameFeatures = new GameFeatures();
+        gameFeatures.setTimeInMsPerTick(1000);
+        gameFeatures.setAdaptiveTimePerTick(true);
+        gameFeatures.setMinTimeInMsPerTick(minTimeInMsPerTick);
+        gameFeatures.setFoodEnabled(false);
+        gameFeatures.setObstaclesEnabled(false);
+
+        final PlayerSessionRegistry playerSessions = new PlayerSessionRegistry("test");
+        final PlayerManager playerManager = new PlayerManager();
+        for (final String playerId : PLAYER_IDS) {
+            final Player player = new Player(playerId);
+            player.setPlayerId(playerId);
+            playerManager.add(new RemotePlayer(player, playerSessions));
+        }
+
+        final EventBus globalEventBus = new EventBus();
+        globalEventBus.register(new Object() {
+            @Subscribe
+            public void onInternalGameEvent(InternalGameEvent event) {
+                if (event.getGameMessage() instanceof MapUpdateEvent) {
+                    mapUpdate = (MapUpdateEvent) event.getGameMessage();
+                }
+            }
+        });
+
+        gameEngine = new GameEngine(gameFeatures, playerManager, "game", globalEventBus, scheduler, 4711);
+        gameEngine.startGame();
+        scheduler.runNext();
+    }
+
+    /**
+     * @return the deadlines of the ticks played
+     */
+    List<Long> playTicks(int noofTicks, long responseTimeInMs) throws Exception {
+        final List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < noofTicks; i++) {
+            deadlines.add(scheduler.lastDelay());
+            playTick(null, responseTimeInMs);
+        }
+        return deadlines;
+    }
+
+    /**
+     * @param onlyPlayerId the only player to answer, or null for all
+     */
+    void playTick(String onlyPlayerId, long responseTimeInMs) throws Exception {
+        Thread.sleep(responseTimeInMs);
+
+        final long tick = mapUpdate.getGameTick();
+        for (final SnakeInfo snakeInfo : mapUpdate.getMap().getSnakeInfos()) {
+            final String playerId = snakeInfo.getId();
+            if (onlyPlayerId == null || onlyPlayerId.equals(playerId)) {
+                final Direction[] loop = loops.computeIfAbsent(playerId,
+                        id -> loopTowardsCentre(snakeInfo.getPositions()[0]));
+                gameEngine.registerMove(tick, playerId, loop[(int) (tick / SIDE % loop.length)]);
+            }
+        }
+        scheduler.runNext();
+    }
+
+    private Direction[] loopTowardsCentre(int position) {
+        final int width = mapUpdate.getMap().getWidth();
+        final int height = mapUpdate.getMap().getHeight();
+        final boolean down = position / width < height / 2;
+        final boolean right = position % width < width / 2;
+        return new Direction[] {
+                down ? Direction.DOWN : Direction.UP,
+                right ? Direction.RIGHT : Direction.LEFT,
+                down ? Direction.UP : Direction.DOWN,
+                right ? Direction.LEFT : Direction.RIGHT };
+    }
+}
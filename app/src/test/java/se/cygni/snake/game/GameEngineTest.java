@@ -2,17 +2,26 @@ package se.cygni.snake.game;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 
+import se.cygni.game.Player;
 import se.cygni.game.Tile;
 import se.cygni.game.TileMultipleContent;
 import se.cygni.game.WorldState;
@@ -26,12 +35,21 @@ import se.cygni.game.worldobject.Food;
 import se.cygni.game.worldobject.Obstacle;
 import se.cygni.game.worldobject.SnakePart;
 import se.cygni.game.worldobject.WorldObject;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
 import se.cygni.snake.api.model.GameSettings;
 import se.cygni.snake.api.request.RegisterPlayer;
+import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.game.scheduler.GameScheduler;
+import se.cygni.snake.game.scheduler.TimerWheelGameScheduler;
+import se.cygni.snake.player.PlayerSessionRegistry;
+import se.cygni.snake.player.RemotePlayer;
 
 public class GameEngineTest {
 
     private Game game;
+    private GameScheduler gameScheduler;
 
     private TileMultipleContent[] convertToTileMultipleContent(Tile[] tiles) {
 	final TileMultipleContent[] mTiles = new TileMultipleContent[tiles.length];
@@ -87,10 +105,16 @@ public class GameEngineTest {
 	gameFeatures.setSpontaneousGrowthEveryNWorldTick(2);
 	gameFeatures.setTrainingGame(true);
 
-	final GameManager gameManager = new GameManager(new EventBus());
+	gameScheduler = TimerWheelGameScheduler.withWorkerPool(1, TimerWheelGameScheduler.DEFAULT_WHEEL_TICK_IN_MS);
+	final GameManager gameManager = new GameManager(new EventBus(), gameScheduler);
 	game = gameManager.createGame(gameFeatures);
     }
 
+    @After
+    public void tearDown() {
+	gameScheduler.shutdown();
+    }
+
     @Test
     public void testGame() {
 	game.registerPlayer(new RegisterPlayer("emil", new GameSettings()));
@@ -100,6 +124,94 @@ public class GameEngineTest {
 
     }
 
+    @Test
+    public void testSpectatorsGetOneFullMapPerTickWithDeltaPlayers() throws Exception {
+	final GameFeatures gameFeatures = new GameFeatures();
+	gameFeatures.setTimeInMsPerTick(10);
+
+	final PlayerSessionRegistry playerSessions = new PlayerSessionRegistry("test");
+	final PlayerManager playerManager = new PlayerManager();
+	playerManager.add(remotePlayer("full", false, playerSessions));
+	playerManager.add(remotePlayer("delta", true, playerSessions));
+
+	final List<GameMessage> posted = new CopyOnWriteArrayList<>();
+	final EventBus globalEventBus = new EventBus();
+	globalEventBus.register(new Object() {
+	    @Subscribe
+	    public void onInternalGameEvent(InternalGameEvent event) {
+		if (event.getGameMessage() != null) {
+		    posted.add(event.getGameMessage());
+		}
+	    }
+	});
+
+	final GameEngine gameEngine = new GameEngine(gameFeatures, playerManager, "game", globalEventBus, gameScheduler, 4711);
+	gameEngine.startGame();
+
+	final long deadline = System.currentTimeMillis() + 5000;
+	while (gameEngine.getCurrentWorldTick() < 5 && !gameEngine.isGameComplete()
+		&& System.currentTimeMillis() < deadline) {
+	    Thread.sleep(5);
+	}
+	gameEngine.abort();
+
+	final List<Long> mapUpdateTicks = posted.stream()
+		.filter(message -> message instanceof MapUpdateEvent)
+		.map(message -> ((MapUpdateEvent) message).getGameTick())
+		.collect(Collectors.toList());
+
+	assertFalse(mapUpdateTicks.isEmpty());
+	assertEquals(new HashSet<>(mapUpdateTicks).size(), mapUpdateTicks.size());
+	assertTrue(posted.stream().noneMatch(message -> message instanceof MapUpdateDeltaEvent));
+    }
+
+    @Test
+    public void testAdaptiveTimePerTickShrinksToTwiceP99() throws Exception {
+	final AdaptiveGame adaptiveGame = new AdaptiveGame(1);
+
+	final List<Long> deadlines = adaptiveGame.playTicks(20, 8);
+	assertTrue(deadlines.stream().allMatch(deadline -> deadline == 1000));
+
+	long slowestP99InMicros = 0;
+	for (final String playerId : AdaptiveGame.PLAYER_IDS) {
+	    slowestP99InMicros = Math.max(slowestP99InMicros,
+		    adaptiveGame.gameEngine.getLatencyHistogram(playerId).getPercentileInMicros(99));
+	}
+	final long adapted = adaptiveGame.scheduler.lastDelay();
+	assertEquals(TimeUnit.MICROSECONDS.toMillis(2 * slowestP99InMicros) + 1, adapted);
+	assertTrue(adapted >= 16 && adapted < 1000);
+	adaptiveGame.gameEngine.abort();
+    }
+
+    @Test
+    public void testAdaptiveTimePerTickStopsAtMinTimeInMsPerTick() throws Exception {
+	final AdaptiveGame adaptiveGame = new AdaptiveGame(200);
+
+	adaptiveGame.playTicks(20, 1);
+
+	assertEquals(200, adaptiveGame.scheduler.lastDelay());
+	adaptiveGame.gameEngine.abort();
+    }
+
+    @Test
+    public void testMissedTickRestoresFullTimePerTick() throws Exception {
+	final AdaptiveGame adaptiveGame = new AdaptiveGame(1);
+	adaptiveGame.playTicks(20, 8);
+	assertTrue(adaptiveGame.scheduler.lastDelay() < 1000);
+
+	// Only one player answers, the other one's deadline passes
+	adaptiveGame.playTick(AdaptiveGame.PLAYER_IDS[0], 0);
+
+	assertEquals(1000, adaptiveGame.scheduler.lastDelay());
+	adaptiveGame.gameEngine.abort();
+    }
+
+    private static RemotePlayer remotePlayer(String name, boolean deltaMapUpdates, PlayerSessionRegistry playerSessions) {
+	final Player player = new Player(name);
+	player.setPlayerId(name);
+	return new RemotePlayer(player, playerSessions, deltaMapUpdates);
+    }
+
     @Test
     @Ignore
     public void testSimpleGame() {
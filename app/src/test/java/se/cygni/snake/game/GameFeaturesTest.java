@@ -101,4 +101,19 @@ public class GameFeaturesTest {
 
         Assert.assertEquals(7, gf.getStartFood());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMinTimeInMsPerTickIsWithinTimeInMsPerTick() throws Exception {
+        GameFeatures gf = new GameFeatures();
+        gf.setTimeInMsPerTick(100);
+        gf.setMinTimeInMsPerTick(500);
+        gf.applyValidation();
+
+        Assert.assertEquals(100, gf.getMinTimeInMsPerTick());
+
+        gf.setMinTimeInMsPerTick(-5);
+        gf.applyValidation();
+
+        Assert.assertEquals(1, gf.getMinTimeInMsPerTick());
+    }
+}
@@ -0,0 +1,41 @@
+package se.cygni.snake.game;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileInMicros(99));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(300));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(512, histogram.getPercentileInMicros(50));
+        assertEquals(8192, histogram.getPercentileInMicros(99));
+        assertEquals(262144, histogram.getPercentileInMicros(100));
+    }
+
+    @Test
+    public void testVeryLongLatenciesEndUpInLastBucket() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        assertEquals(1 << 25, histogram.getPercentileInMicros(50));
+    }
+}
@@ -0,0 +1,63 @@
+package se.cygni.snake.game;
+
+import se.cygni.snake.game.scheduler.GameScheduler;
+import se.cygni.snake.game.scheduler.TickLagMetrics;
+import se.cygni.snake.game.scheduler.TickTimeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the scheduled tick only when runNext() is called and remembers
+ * the deadline every tick was scheduled with.
+ */
+class ManualGameScheduler implements GameScheduler {
+
+    private final List<Long> delays = new ArrayList<>();
+    private Runnable next;
+
+    @Override
+    public TickTimeout schedule(String gameId, Runnable tick, long delayInMs) {
+        delays.add(delayInMs);
+        next = tick;
+        return new TickTimeout() {
+            @Override
+            public boolean fire() {
+                return true;
+            }
+
+            @Override
+            public boolean cancel() {
+                return true;
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+        };
+    }
+
+    void runNext() {
+        final Runnable tick = next;
+        next = null;
+        tick.run();
+    }
+
+    long lastDelay() {
+        return delays.get(delays.size() - 1);
+    }
+
+    @Override
+    public void release(String gameId) {
+    }
+
+    @Override
+    public TickLagMetrics getTickLagMetrics() {
+        return new TickLagMetrics();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
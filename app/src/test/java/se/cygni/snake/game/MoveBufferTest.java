@@ -0,0 +1,141 @@
+package se.cygni.snake.game;
+
+import org.junit.Test;
+import se.cygni.game.enums.Direction;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MoveBufferTest {
+
+    private final List<String> playerIds = Arrays.asList("id1", "id2", "id3");
+
+    @Test
+    public void testAllMovesIn() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(0, new HashSet<>(playerIds));
+
+        assertEquals(MoveBuffer.Result.ACCEPTED, moveBuffer.register(0, "id1", Direction.UP));
+        assertEquals(MoveBuffer.Result.ACCEPTED, moveBuffer.register(0, "id2", Direction.LEFT));
+        assertEquals(MoveBuffer.Result.ALL_MOVES_IN, moveBuffer.register(0, "id3", Direction.DOWN));
+
+        Map<String, Direction> directions = new HashMap<>();
+        moveBuffer.close(0, directions);
+
+        assertEquals(Direction.UP, directions.get("id1"));
+        assertEquals(Direction.LEFT, directions.get("id2"));
+        assertEquals(Direction.DOWN, directions.get("id3"));
+    }
+
+    @Test
+    public void testDuplicateMoveIsRejected() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(3, new HashSet<>(playerIds));
+
+        assertEquals(MoveBuffer.Result.ACCEPTED, moveBuffer.register(3, "id1", Direction.UP));
+        assertEquals(MoveBuffer.Result.DUPLICATE, moveBuffer.register(3, "id1", Direction.DOWN));
+
+        Map<String, Direction> directions = new HashMap<>();
+        moveBuffer.close(3, directions);
+        assertEquals(Direction.UP, directions.get("id1"));
+    }
+
+    @Test
+    public void testMoveForWrongTickIsRejected() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(1, new HashSet<>(playerIds));
+
+        assertEquals(MoveBuffer.Result.WRONG_TICK, moveBuffer.register(0, "id1", Direction.UP));
+        assertEquals(MoveBuffer.Result.WRONG_TICK, moveBuffer.register(2, "id1", Direction.UP));
+
+        moveBuffer.close(1, new HashMap<>());
+        assertEquals(MoveBuffer.Result.WRONG_TICK, moveBuffer.register(1, "id1", Direction.UP));
+    }
+
+    @Test
+    public void testMovesFromOtherTicksAreNotCollected() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(0, new HashSet<>(playerIds));
+        moveBuffer.register(0, "id1", Direction.UP);
+        moveBuffer.close(0, new HashMap<>());
+
+        moveBuffer.open(1, new HashSet<>(playerIds));
+        moveBuffer.register(1, "id2", Direction.RIGHT);
+
+        Map<String, Direction> directions = new HashMap<>();
+        moveBuffer.close(1, directions);
+        assertEquals(Collections.singletonMap("id2", Direction.RIGHT), directions);
+    }
+
+    @Test
+    public void testHasMoved() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(2, new HashSet<>(Arrays.asList("id1", "id2")));
+        moveBuffer.register(2, "id1", Direction.UP);
+
+        assertTrue(moveBuffer.hasMoved(2, "id1"));
+        assertFalse(moveBuffer.hasMoved(2, "id2"));
+        assertFalse(moveBuffer.hasMoved(2, "id3"));
+        assertFalse(moveBuffer.hasMoved(1, "id1"));
+    }
+
+    @Test
+    public void testDeadAndUnknownPlayers() throws Exception {
+        MoveBuffer moveBuffer = new MoveBuffer(playerIds);
+        moveBuffer.open(0, new HashSet<>(Arrays.asList("id1", "id3")));
+
+        assertEquals(MoveBuffer.Result.NOT_EXPECTED, moveBuffer.register(0, "id2", Direction.UP));
+        assertEquals(MoveBuffer.Result.UNKNOWN_PLAYER, moveBuffer.register(0, "id4", Direction.UP));
+        assertEquals(MoveBuffer.Result.ACCEPTED, moveBuffer.register(0, "id1", Direction.UP));
+        assertEquals(MoveBuffer.Result.ALL_MOVES_IN, moveBuffer.register(0, "id3", Direction.UP));
+    }
+
+    @Test
+    public void testConcurrentMovesAreCountedOnce() throws Exception {
+        int noofPlayers = 64;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < noofPlayers; i++) {
+            ids.add("id" + i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            MoveBuffer moveBuffer = new MoveBuffer(ids);
+            for (long tick = 0; tick < 50; tick++) {
+                moveBuffer.open(tick, new HashSet<>(ids));
+
+                CountDownLatch go = new CountDownLatch(1);
+                List<Future<MoveBuffer.Result>> results = new ArrayList<>();
+                for (int i = 0; i < noofPlayers * 2; i++) {
+                    String id = ids.get(i % noofPlayers);
+                    long t = tick;
+                    results.add(executor.submit(() -> {
+                        go.await();
+                        return moveBuffer.register(t, id, Direction.LEFT);
+                    }));
+                }
+                go.countDown();
+
+                Map<MoveBuffer.Result, Integer> counts = new EnumMap<>(MoveBuffer.Result.class);
+                for (Future<MoveBuffer.Result> result : results) {
+                    counts.merge(result.get(), 1, Integer::sum);
+                }
+
+                assertEquals(Integer.valueOf(1), counts.get(MoveBuffer.Result.ALL_MOVES_IN));
+                assertEquals(Integer.valueOf(noofPlayers - 1), counts.get(MoveBuffer.Result.ACCEPTED));
+                assertEquals(Integer.valueOf(noofPlayers), counts.get(MoveBuffer.Result.DUPLICATE));
+
+                Map<String, Direction> directions = new HashMap<>();
+                moveBuffer.close(tick, directions);
+                assertEquals(noofPlayers, directions.size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package se.cygni.snake.game;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import se.cygni.game.Player;
+import se.cygni.game.WorldState;
+import se.cygni.game.enums.Direction;
+import se.cygni.game.testutil.SnakeTestUtil;
+import se.cygni.game.worldobject.*;
+import se.cygni.snake.api.event.SnakeDeadEvent;
+import se.cygni.snake.api.model.PointReason;
+import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.PlayerSessionRegistry;
+import se.cygni.snake.player.RemotePlayer;
+
+import java.util.*;
+
+/**
+ * A randomly generated world and set of moves for a single tick. The world
+ * is rebuilt on every run since the transformers move the snakes in place.
+ */
+class TickScenario {
+
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 8;
+
+    private final List<int[]> snakes = new ArrayList<>();
+    private final List<Integer> tailProtections = new ArrayList<>();
+    private final List<Direction> directions = new ArrayList<>();
+    private final Set<Integer> food = new TreeSet<>();
+    private final Set<Integer> obstacles = new TreeSet<>();
+    private boolean spontaneousGrowth;
+    private boolean headToTailConsumes;
+
+    static TickScenario random(Random random) {
+        TickScenario scenario = new TickScenario();
+        scenario.spontaneousGrowth = random.nextBoolean();
+        scenario.headToTailConsumes = random.nextInt(4) > 0;
+
+        Set<Integer> occupied = new HashSet<>();
+        int noofSnakes = 2 + random.nextInt(5);
+        for (int s = 0; s < noofSnakes; s++) {
+            int[] spread = randomSnake(random, occupied, 1 + random.nextInt(6));
+            if (spread.length == 0) {
+                continue;
+            }
+            scenario.snakes.add(spread);
+            scenario.tailProtections.add(random.nextInt(3) == 0 ? 1 : 0);
+            scenario.directions.add(Direction.values()[random.nextInt(Direction.values().length)]);
+        }
+
+        for (int n = 0; n < 6; n++) {
+            int position = random.nextInt(WIDTH * HEIGHT);
+            if (occupied.add(position)) {
+                if (random.nextBoolean()) {
+                    scenario.food.add(position);
+                } else {
+                    scenario.obstacles.add(position);
+                }
+            }
+        }
+        return scenario;
+    }
+
+    private static int[] randomSnake(Random random, Set<Integer> occupied, int length) {
+        int head = random.nextInt(WIDTH * HEIGHT);
+        if (occupied.contains(head)) {
+            return new int[0];
+        }
+
+        List<Integer> spread = new ArrayList<>();
+        spread.add(head);
+        occupied.add(head);
+
+        int current = head;
+        while (spread.size() < length) {
+            List<Integer> candidates = new ArrayList<>();
+            int x = current % WIDTH, y = current / WIDTH;
+            if (x > 0) candidates.add(current - 1);
+            if (x < WIDTH - 1) candidates.add(current + 1);
+            if (y > 0) candidates.add(current - WIDTH);
+            if (y < HEIGHT - 1) candidates.add(current + WIDTH);
+            candidates.removeAll(occupied);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            current = candidates.get(random.nextInt(candidates.size()));
+            spread.add(current);
+            occupied.add(current);
+        }
+        return spread.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return a description of the resulting world, deaths and points
+     */
+    String run(boolean merging) throws Exception {
+        GameFeatures gameFeatures = new GameFeatures();
+        gameFeatures.setHeadToTailConsumes(headToTailConsumes);
+
+        EventBus globalEventBus = new EventBus();
+        Map<String, String> deaths = new TreeMap<>();
+        globalEventBus.register(new Object() {
+            @Subscribe
+            public void onInternalGameEvent(InternalGameEvent event) {
+                SnakeDeadEvent sde = (SnakeDeadEvent) event.getGameMessage();
+                deaths.put(sde.getPlayerId(), sde.getDeathReason() + "@" + sde.getX() + "," + sde.getY());
+            }
+        });
+
+        PlayerManager playerManager = new PlayerManager();
+        Map<String, Direction> snakeDirections = new HashMap<>();
+
+        WorldState ws = new WorldState(WIDTH, HEIGHT);
+        for (int s = 0; s < snakes.size(); s++) {
+            Player player = new Player("snake" + s);
+            player.setPlayerId("id" + s);
+            playerManager.add(new RemotePlayer(player, new PlayerSessionRegistry("test")));
+
+            SnakePart[] parts = SnakeTestUtil.createSnake(player.getName(), player.getPlayerId(), snakes.get(s));
+            ((SnakeHead) parts[0]).setTailProtectedForGameTicks(tailProtections.get(s));
+            ws = SnakeTestUtil.addSnake(ws, parts);
+            snakeDirections.put(player.getPlayerId(), directions.get(s));
+        }
+        for (int position : food) {
+            ws = SnakeTestUtil.replaceWorldObjectAt(ws, new Food(), position);
+        }
+        for (int position : obstacles) {
+            ws = SnakeTestUtil.replaceWorldObjectAt(ws, new Obstacle(), position);
+        }
+
+        WorldState result;
+        if (merging) {
+            result = new MergingWorldTransformer(gameFeatures, playerManager, "game", globalEventBus)
+                    .transform(snakeDirections, gameFeatures, ws, spontaneousGrowth, 5);
+        } else {
+            result = new WorldTransformer(gameFeatures, playerManager, "game", globalEventBus)
+                    .transform(snakeDirections, gameFeatures, ws, spontaneousGrowth, 5);
+        }
+
+        return describe(result, playerManager, deaths);
+    }
+
+    private static String describe(WorldState ws, PlayerManager playerManager, Map<String, String> deaths) {
+        StringBuilder sb = new StringBuilder("deaths: ").append(deaths);
+
+        Map<String, String> snakes = new TreeMap<>();
+        for (int headPosition : ws.listPositionsWithContentOf(SnakeHead.class)) {
+            SnakeHead head = (SnakeHead) ws.getTile(headPosition).getContent();
+            snakes.put(head.getPlayerId(), Arrays.toString(ws.getSnakeSpread(head))
+                    + " protected:" + head.getTailProtectedForGameTicks()
+                    + " points:" + head.getPoints());
+        }
+        sb.append("\nsnakes: ").append(snakes);
+
+        Map<String, String> players = new TreeMap<>();
+        for (IPlayer player : playerManager.toSet()) {
+            StringBuilder points = new StringBuilder("alive:" + player.isAlive());
+            for (PointReason reason : PointReason.values()) {
+                points.append(' ').append(reason).append(':').append(player.getPointsBy(reason));
+            }
+            players.put(player.getPlayerId(), points.toString());
+        }
+        sb.append("\nplayers: ").append(players).append("\ntiles:");
+
+        for (int position = 0; position < ws.getSize(); position++) {
+            WorldObject content = ws.getTile(position).getContent();
+            sb.append(position % WIDTH == 0 ? "\n" : " ").append(content.getClass().getSimpleName().charAt(0));
+            if (content instanceof SnakePart) {
+                sb.append(((SnakePart) content).getPlayerId());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int s = 0; s < snakes.size(); s++) {
+            sb.append("snake").append(s).append(Arrays.toString(snakes.get(s)))
+                    .append(' ').append(directions.get(s))
+                    .append(" protected:").append(tailProtections.get(s)).append(", ");
+        }
+        return sb.append("food:").append(food)
+                .append(", obstacles:").append(obstacles)
+                .append(", growth:").append(spontaneousGrowth)
+                .append(", headToTail:").append(headToTailConsumes).toString();
+    }
+}
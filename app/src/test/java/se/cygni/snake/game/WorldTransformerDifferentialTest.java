@@ -0,0 +1,42 @@
+package se.cygni.snake.game;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs randomly generated ticks through both WorldTransformer and
+ * MergingWorldTransformer and verifies that the outcomes are identical.
+ */
+public class WorldTransformerDifferentialTest {
+
+    private static final int NOOF_SCENARIOS = 3000;
+
+    @Test
+    public void testSameOutcomeAsMergingWorldTransformer() throws Exception {
+        Random random = new Random(4711);
+
+        int compared = 0;
+        for (int i = 0; i < NOOF_SCENARIOS; i++) {
+            TickScenario scenario = TickScenario.random(random);
+
+            String expected;
+            try {
+                expected = scenario.run(true);
+            } catch (RuntimeException e) {
+                // The merging transformer can't handle all combinations
+                // of nibbles and deaths on the same tick.
+                continue;
+            }
+
+            String actual = scenario.run(false);
+            assertEquals("Scenario " + i + ": " + scenario, expected, actual);
+            compared++;
+        }
+
+        assertTrue("Too few scenarios compared: " + compared, compared > NOOF_SCENARIOS * 0.9);
+    }
+}
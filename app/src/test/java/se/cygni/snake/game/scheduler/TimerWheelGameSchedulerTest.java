@@ -0,0 +1,95 @@
+package se.cygni.snake.game.scheduler;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelGameSchedulerTest {
+
+    private final TimerWheelGameScheduler scheduler = TimerWheelGameScheduler.withWorkerPool(2, 1);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testTickRunsAtDeadline() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        scheduler.schedule("game", ran::countDown, 50);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(49));
+    }
+
+    @Test
+    public void testFireRunsTickOnlyOnce() throws Exception {
+        AtomicInteger noofRuns = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        TickTimeout timeout = scheduler.schedule("game", () -> {
+            noofRuns.incrementAndGet();
+            ran.countDown();
+        }, 100);
+
+        assertTrue(timeout.fire());
+        assertFalse(timeout.fire());
+        assertTrue(ran.await(50, TimeUnit.MILLISECONDS));
+
+        // Let the deadline pass as well
+        Thread.sleep(200);
+        assertEquals(1, noofRuns.get());
+    }
+
+    @Test
+    public void testCancelledTickIsNotRun() throws Exception {
+        AtomicInteger noofRuns = new AtomicInteger();
+
+        TickTimeout timeout = scheduler.schedule("game", noofRuns::incrementAndGet, 20);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.fire());
+        Thread.sleep(100);
+        assertEquals(0, noofRuns.get());
+    }
+
+    @Test
+    public void testDeadlinesBeyondOneRevolution() throws Exception {
+        TimerWheelGameScheduler smallWheel = new TimerWheelGameScheduler(
+                Executors.newSingleThreadExecutor(), 1, 4);
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            long start = System.nanoTime();
+
+            smallWheel.schedule("game", ran::countDown, 30);
+
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(29));
+        } finally {
+            smallWheel.shutdown();
+        }
+    }
+
+    @Test
+    public void testTickLagIsRecordedPerGame() throws Exception {
+        CountDownLatch ran = new CountDownLatch(2);
+
+        scheduler.schedule("game1", ran::countDown, 0);
+        scheduler.schedule("game2", ran::countDown, 5);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getTickLagMetrics().getTickLag("game1").getNoofTicks());
+        assertEquals(1, scheduler.getTickLagMetrics().getTickLag("game2").getNoofTicks());
+
+        scheduler.release("game1");
+        assertNull(scheduler.getTickLagMetrics().getTickLag("game1"));
+    }
+}
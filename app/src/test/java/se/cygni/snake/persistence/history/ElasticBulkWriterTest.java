@@ -0,0 +1,120 @@
+package se.cygni.snake.persistence.history;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ElasticBulkWriterTest {
+
+    private final StandInBulkIndexClient client = new StandInBulkIndexClient();
+    private ElasticBulkWriter writer;
+
+    @After
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    public void testFullBatchesAreSentAtOnce() throws Exception {
+        writer = new ElasticBulkWriter(client, 5, 60000, 100, 0, 1);
+        offer(0, 10);
+
+        awaitTrue(() -> client.indexedIds.size() == 10);
+        assertEquals(2, client.bulks.size());
+        assertTrue(client.bulks.stream().allMatch(bulk -> bulk.size() == 5));
+        assertEquals(ids(0, 10), client.indexedIds);
+        assertEquals(10, writer.getMetrics().getIndexed());
+        assertEquals(0, writer.getMetrics().getQueueDepth());
+    }
+
+    @Test
+    public void testPartialBatchIsSentAfterFlushInterval() throws Exception {
+        writer = new ElasticBulkWriter(client, 100, 50, 100, 0, 1);
+        offer(0, 3);
+
+        awaitTrue(() -> client.indexedIds.size() == 3);
+        assertEquals(1, client.bulks.size());
+        assertEquals(1, writer.getMetrics().getBulkRequests());
+    }
+
+    @Test
+    public void testFailedRequestsAreRetried() throws Exception {
+        writer = new ElasticBulkWriter(client, 4, 10, 100, 3, 1);
+        client.failNextBulks(1, false);
+        offer(0, 4);
+
+        awaitTrue(() -> client.indexedIds.size() == 4);
+        assertEquals(2, client.bulks.size());
+        assertEquals(ids(0, 4), client.bulks.get(0).stream().map(IndexRequest::id).collect(Collectors.toList()));
+        assertEquals(2, client.bulks.get(1).size());
+        assertEquals(2, writer.getMetrics().getRetried());
+        assertEquals(0, writer.getMetrics().getDropped());
+    }
+
+    @Test
+    public void testRequestsAreDroppedWhenRetriesRunOut() throws Exception {
+        writer = new ElasticBulkWriter(client, 2, 10, 100, 2, 1);
+        client.failNextBulks(3, true);
+        offer(0, 2);
+
+        awaitTrue(() -> writer.getMetrics().getDropped() == 2);
+        assertEquals(3, client.bulks.size());
+        assertEquals(4, writer.getMetrics().getRetried());
+        assertTrue(client.indexedIds.isEmpty());
+    }
+
+    @Test
+    public void testOfferDoesNotWaitWhenQueueIsFull() throws Exception {
+        client.blockUntilReleased();
+        writer = new ElasticBulkWriter(client, 1, 10, 2, 0, 1);
+        offer(0, 1);
+        awaitTrue(() -> writer.getMetrics().getQueueDepth() == 0);
+
+        assertTrue(writer.offer(request(1)));
+        assertTrue(writer.offer(request(2)));
+        assertFalse(writer.offer(request(3)));
+        assertEquals(2, writer.getMetrics().getQueueDepth());
+        assertEquals(1, writer.getMetrics().getDropped());
+
+        client.release();
+        awaitTrue(() -> client.indexedIds.size() == 3);
+        assertEquals(ids(0, 3), client.indexedIds);
+    }
+
+    @Test
+    public void testShutdownWritesQueuedRequests() throws Exception {
+        writer = new ElasticBulkWriter(client, 100, 60000, 100, 0, 1);
+        offer(0, 7);
+        writer.shutdown();
+
+        assertEquals(ids(0, 7), client.indexedIds);
+        assertFalse(writer.offer(request(7)));
+    }
+
+    private void offer(int from, int to) {
+        IntStream.range(from, to).forEach(i -> assertTrue(writer.offer(request(i))));
+    }
+
+    private static IndexRequest request(int i) {
+        return new IndexRequest("gameevent", "event", String.valueOf(i)).source("{}");
+    }
+
+    private static List<String> ids(int from, int to) {
+        return IntStream.range(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
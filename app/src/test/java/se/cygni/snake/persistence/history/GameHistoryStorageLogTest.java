@@ -0,0 +1,166 @@
+package se.cygni.snake.persistence.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.GameEndedEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeInfo;
+import se.cygni.snake.eventapi.history.GameHistory;
+import se.cygni.snake.eventapi.history.GameHistorySearchItem;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class GameHistoryStorageLogTest {
+
+    private static final LocalDateTime GAME_DATE = LocalDateTime.of(2019, 3, 1, 12, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        GameHistoryStorageLog storage = new GameHistoryStorageLog(directory, 1 << 20);
+        storage.addGameHistory(createGameHistory("game1", 0, "one", "two"));
+        storage.addGameHistory(createGameHistory("game2", 1, "two", "three"));
+        assertGameHistory("game1", storage.getGameHistory("game1").get());
+        storage.close();
+
+        GameHistoryStorageLog reopened = new GameHistoryStorageLog(directory, 1 << 20);
+        assertGameHistory("game1", reopened.getGameHistory("game1").get());
+        assertGameHistory("game2", reopened.getGameHistory("game2").get());
+        assertFalse(reopened.getGameHistory("game3").isPresent());
+
+        // Newest first
+        assertEquals(listGameIds(reopened, "two"), Arrays.asList("game2", "game1"));
+        assertEquals(listGameIds(reopened, "three"), Arrays.asList("game2"));
+        assertTrue(listGameIds(reopened, "four").isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    public void testSegmentsAreRolled() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        GameHistoryStorageLog storage = new GameHistoryStorageLog(directory, 100);
+        for (int i = 0; i < 3; i++) {
+            storage.addGameHistory(createGameHistory("game" + i, i, "one"));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertGameHistory("game" + i, storage.getGameHistory("game" + i).get());
+        }
+        storage.close();
+
+        assertEquals(3, directory.toFile().list().length);
+        GameHistoryStorageLog reopened = new GameHistoryStorageLog(directory, 100);
+        assertEquals(3, listGameIds(reopened, "one").size());
+        reopened.close();
+    }
+
+    @Test
+    public void testIncompleteRecordIsTruncated() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        GameHistoryStorageLog storage = new GameHistoryStorageLog(directory, 1 << 20);
+        storage.addGameHistory(createGameHistory("game1", 0, "one"));
+        storage.addGameHistory(createGameHistory("game2", 1, "one"));
+        storage.close();
+
+        File segment = directory.resolve("segment-000000.log").toFile();
+        long size = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(size - 10);
+        }
+
+        GameHistoryStorageLog reopened = new GameHistoryStorageLog(directory, 1 << 20);
+        assertGameHistory("game1", reopened.getGameHistory("game1").get());
+        assertFalse(reopened.getGameHistory("game2").isPresent());
+
+        // Appends continue after the last complete record
+        reopened.addGameHistory(createGameHistory("game3", 2, "one"));
+        reopened.close();
+
+        GameHistoryStorageLog again = new GameHistoryStorageLog(directory, 1 << 20);
+        assertEquals(Arrays.asList("game3", "game1"), listGameIds(again, "one"));
+        assertGameHistory("game3", again.getGameHistory("game3").get());
+        again.close();
+    }
+
+    @Test
+    public void testCorruptRecordInSealedSegmentIsSkipped() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        GameHistoryStorageLog storage = new GameHistoryStorageLog(directory, 1 << 20);
+        for (int i = 1; i <= 3; i++) {
+            storage.addGameHistory(createGameHistory("game" + i, i, "one"));
+        }
+        storage.close();
+
+        // Rolls over, so the first segment is sealed
+        storage = new GameHistoryStorageLog(directory, 100);
+        storage.addGameHistory(createGameHistory("game4", 4, "one"));
+        storage.close();
+
+        File sealed = directory.resolve("segment-000000.log").toFile();
+        long size = sealed.length();
+        try (RandomAccessFile file = new RandomAccessFile(sealed, "rw")) {
+            // In the middle of the second of three records
+            file.seek(size / 2);
+            int b = file.read();
+            file.seek(size / 2);
+            file.write(b ^ 0xff);
+        }
+
+        GameHistoryStorageLog reopened = new GameHistoryStorageLog(directory, 100);
+        assertEquals(size, sealed.length());
+        assertEquals(Arrays.asList("game4", "game3", "game1"), listGameIds(reopened, "one"));
+        assertFalse(reopened.getGameHistory("game2").isPresent());
+        assertGameHistory("game1", reopened.getGameHistory("game1").get());
+        assertGameHistory("game3", reopened.getGameHistory("game3").get());
+
+        // Read back from the active segment right after being appended
+        reopened.addGameHistory(createGameHistory("game5", 5, "one"));
+        assertGameHistory("game4", reopened.getGameHistory("game4").get());
+        assertGameHistory("game5", reopened.getGameHistory("game5").get());
+        reopened.close();
+    }
+
+    private static GameHistory createGameHistory(String gameId, int minutes, String... playerNames) {
+        SnakeInfo[] snakeInfos = new SnakeInfo[playerNames.length];
+        for (int i = 0; i < playerNames.length; i++) {
+            snakeInfos[i] = new SnakeInfo(playerNames[i], i, "id" + i, new int[] {i * 3, i * 3 + 1}, 0);
+        }
+
+        List<GameMessage> messages = new ArrayList<>();
+        for (int tick = 0; tick < 10; tick++) {
+            messages.add(new MapUpdateEvent(tick, gameId, new Map(10, 10, tick, snakeInfos, new int[] {50}, new int[0])));
+        }
+        messages.add(new GameEndedEvent("id0", playerNames[0], gameId, 10, null));
+
+        return new GameHistory(gameId, playerNames, GAME_DATE.plusMinutes(minutes), messages);
+    }
+
+    private static void assertGameHistory(String gameId, GameHistory gameHistory) {
+        assertEquals(gameId, gameHistory.getGameId());
+        assertEquals(11, gameHistory.getMessages().size());
+        MapUpdateEvent mapUpdate = (MapUpdateEvent) gameHistory.getMessages().get(3);
+        assertEquals(3, mapUpdate.getGameTick());
+        assertEquals(gameId, mapUpdate.getGameId());
+        assertTrue(gameHistory.getMessages().get(10) instanceof GameEndedEvent);
+    }
+
+    private static List<String> listGameIds(GameHistoryStorageLog storage, String playerName) {
+        return storage.listGamesWithPlayer(playerName).getItems().stream()
+                .map(GameHistorySearchItem::getGameId)
+                .collect(Collectors.toList());
+    }
+}
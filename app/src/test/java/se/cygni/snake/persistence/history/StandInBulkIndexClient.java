@@ -0,0 +1,64 @@
+package se.cygni.snake.persistence.history;
+
+import org.elasticsearch.action.index.IndexRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * In-process BulkIndexClient that records the bulk requests it gets and
+ * can be told to fail the next ones or to block until released.
+ */
+class StandInBulkIndexClient implements BulkIndexClient {
+
+    final List<List<IndexRequest>> bulks = new CopyOnWriteArrayList<>();
+    final List<String> indexedIds = new CopyOnWriteArrayList<>();
+
+    private volatile int failNextBulks;
+    private volatile boolean throwOnFailure;
+    private volatile CountDownLatch release;
+
+    void failNextBulks(int noofBulks, boolean throwOnFailure) {
+        this.failNextBulks = noofBulks;
+        this.throwOnFailure = throwOnFailure;
+    }
+
+    void blockUntilReleased() {
+        release = new CountDownLatch(1);
+    }
+
+    void release() {
+        release.countDown();
+    }
+
+    @Override
+    public List<IndexRequest> bulk(List<IndexRequest> requests) throws Exception {
+        if (release != null) {
+            release.await();
+        }
+        bulks.add(new ArrayList<>(requests));
+
+        if (failNextBulks > 0) {
+            failNextBulks--;
+            if (throwOnFailure) {
+                throw new IllegalStateException("Stand-in failure");
+            }
+            // Fail every other request of the bulk
+            List<IndexRequest> failed = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                if (i % 2 == 0) {
+                    failed.add(requests.get(i));
+                } else {
+                    indexedIds.add(requests.get(i).id());
+                }
+            }
+            return failed;
+        }
+
+        requests.forEach(request -> indexedIds.add(request.id()));
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,94 @@
+package se.cygni.snake.player;
+
+import org.junit.Test;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.response.HeartBeatResponse;
+
+import static org.junit.Assert.*;
+
+public class PlayerSessionRegistryTest {
+
+    @Test
+    public void testPostOnlyReachesReceivingPlayer() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+        RecordingSession b = register(registry, "b");
+
+        registry.post(message("b"));
+
+        assertTrue(a.messages.isEmpty());
+        assertEquals(1, b.messages.size());
+    }
+
+    @Test
+    public void testPostToUnknownPlayerIsDropped() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+
+        registry.post(message("c"));
+
+        assertTrue(a.messages.isEmpty());
+    }
+
+    @Test
+    public void testPostWithoutReceiverIsDropped() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+
+        registry.post(message(null));
+
+        assertTrue(a.messages.isEmpty());
+    }
+
+    @Test
+    public void testBroadcast() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+        RecordingSession b = register(registry, "b");
+
+        registry.broadcast(message(null));
+
+        assertEquals(1, a.messages.size());
+        assertEquals(1, b.messages.size());
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+
+        registry.unregister(a);
+        registry.post(message("a"));
+
+        assertFalse(registry.isRegistered("a"));
+        assertTrue(a.messages.isEmpty());
+    }
+
+    @Test
+    public void testFailingSessionDoesNotStopBroadcast() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        registry.register(new RecordingSession("a") {
+            @Override
+            public void sendSnakeMessage(GameMessage message) {
+                throw new IllegalStateException("closed");
+            }
+        });
+        RecordingSession b = register(registry, "b");
+
+        registry.broadcast(message(null));
+
+        assertEquals(1, b.messages.size());
+    }
+
+    private static HeartBeatResponse message(String receivingPlayerId) {
+        HeartBeatResponse message = new HeartBeatResponse();
+        message.setReceivingPlayerId(receivingPlayerId);
+        return message;
+    }
+
+    private static RecordingSession register(PlayerSessionRegistry registry, String playerId) {
+        RecordingSession session = new RecordingSession(playerId);
+        registry.register(session);
+        return session;
+    }
+}
@@ -0,0 +1,34 @@
+package se.cygni.snake.player;
+
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.event.EncodedGameMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class RecordingSession implements PlayerSession {
+
+    final List<GameMessage> messages = new ArrayList<>();
+    final List<EncodedGameMessage> encodedMessages = new ArrayList<>();
+
+    private final String playerId;
+
+    RecordingSession(String playerId) {
+        this.playerId = playerId;
+    }
+
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public void sendSnakeMessage(GameMessage message) {
+        messages.add(message);
+    }
+
+    @Override
+    public void sendEncodedMessage(EncodedGameMessage message) {
+        encodedMessages.add(message);
+    }
+}
@@ -0,0 +1,59 @@
+package se.cygni.snake.player;
+
+import org.junit.Test;
+import se.cygni.game.Player;
+import se.cygni.snake.api.event.GameEndedEvent;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RemotePlayerTest {
+
+    @Test
+    public void testBroadcastEncodesOnceForAllRegistries() throws Exception {
+        PlayerSessionRegistry first = new PlayerSessionRegistry("first");
+        PlayerSessionRegistry second = new PlayerSessionRegistry("second");
+        RecordingSession a = register(first, "a");
+        RecordingSession b = register(first, "b");
+        RecordingSession c = register(second, "c");
+        RecordingSession notPlaying = register(first, "d");
+
+        RemotePlayer.broadcast(Arrays.asList(
+                remotePlayer("a", first),
+                remotePlayer("b", first),
+                remotePlayer("c", second)),
+                new GameEndedEvent("a", "a", "game", 10, null));
+
+        assertEquals(1, a.encodedMessages.size());
+        assertEquals(1, c.encodedMessages.size());
+        assertSame(a.encodedMessages.get(0), c.encodedMessages.get(0));
+        assertTrue(b.encodedMessages.get(0).getPayload("b").contains("\"receivingPlayerId\":\"b\""));
+        assertTrue(notPlaying.encodedMessages.isEmpty());
+    }
+
+    @Test
+    public void testEventsAreRoutedToOwnSession() throws Exception {
+        PlayerSessionRegistry registry = new PlayerSessionRegistry("test");
+        RecordingSession a = register(registry, "a");
+        RecordingSession b = register(registry, "b");
+
+        remotePlayer("b", registry).onGameEnded(new GameEndedEvent("a", "a", "game", 10, null));
+
+        assertTrue(a.messages.isEmpty());
+        assertEquals(1, b.messages.size());
+        assertEquals("b", b.messages.get(0).getReceivingPlayerId());
+    }
+
+    private static RemotePlayer remotePlayer(String playerId, PlayerSessionRegistry registry) {
+        Player player = new Player(playerId);
+        player.setPlayerId(playerId);
+        return new RemotePlayer(player, registry);
+    }
+
+    private static RecordingSession register(PlayerSessionRegistry registry, String playerId) {
+        RecordingSession session = new RecordingSession(playerId);
+        registry.register(session);
+        return session;
+    }
+}
@@ -0,0 +1,51 @@
+package se.cygni.snake.simulation;
+
+import org.junit.Test;
+import se.cygni.snake.game.GameFeatures;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BotSimulatorTest {
+
+    private static final List<String> BOTS = Arrays.asList("RandomBot", "StraightBot", "StayAliveBot", "DumbBot");
+
+    @Test
+    public void testSameSeedGivesSameResult() throws Exception {
+        SimulationResult first = simulator(42).run(20, 1);
+        SimulationResult second = simulator(42).run(20, 4);
+
+        assertEquals(20, first.getNoofGames());
+        assertTrue(first.getNoofTicks() > 0);
+        assertEquals(first.getNoofTicks(), second.getNoofTicks());
+        for (String bot : BOTS) {
+            assertEquals(first.getWins(bot), second.getWins(bot));
+        }
+    }
+
+    @Test
+    public void testWinRates() throws Exception {
+        SimulationResult result = simulator(1).run(20, 2);
+
+        int wins = 0;
+        for (String bot : BOTS) {
+            wins += result.getWins(bot);
+            assertEquals(result.getWins(bot) / 20d, result.getWinRate(bot), 0.0001);
+        }
+        assertEquals(20, wins);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBot() throws Exception {
+        new BotSimulator(new GameFeatures(), Arrays.asList("RandomBot", "NoSuchBot"), 1, 100);
+    }
+
+    private BotSimulator simulator(long seed) {
+        GameFeatures gameFeatures = new GameFeatures();
+        gameFeatures.setMaxNoofPlayers(BOTS.size());
+        return new BotSimulator(gameFeatures, BOTS, seed, 200);
+    }
+}
@@ -0,0 +1,129 @@
+package se.cygni.snake.websocket;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import se.cygni.snake.api.event.GameEndedEvent;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OutboundQueueTest {
+
+    private WebSocketSession session;
+    private List<Runnable> writerTasks;
+    private OutboundQueueMetrics metrics;
+
+    @Before
+    public void setup() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session");
+        writerTasks = new ArrayList<>();
+        metrics = new OutboundQueueMetrics();
+    }
+
+    @Test
+    public void testMessagesAreWrittenInOrderByWriter() throws Exception {
+        OutboundQueue queue = createQueue(4, OutboundQueue.OverflowPolicy.DISCONNECT);
+
+        queue.offer(new TextMessage("1"), MapUpdateEvent.class);
+        queue.offer(new TextMessage("2"), GameEndedEvent.class);
+
+        verify(session, never()).sendMessage(any());
+        assertEquals(1, writerTasks.size());
+        assertEquals(2, metrics.getTotalDepth());
+
+        runWriter();
+
+        assertEquals(Arrays.asList("1", "2"), written(2));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testNewMapUpdateDropsStaleMapUpdates() throws Exception {
+        OutboundQueue queue = createQueue(4, OutboundQueue.OverflowPolicy.DROP_STALE_MAP_UPDATES);
+
+        queue.offer(new TextMessage("map 1"), MapUpdateEvent.class);
+        queue.offer(new TextMessage("delta 2"), MapUpdateDeltaEvent.class);
+        queue.offer(new TextMessage("other"), GameEndedEvent.class);
+        queue.offer(new TextMessage("delta 3"), MapUpdateDeltaEvent.class);
+        queue.offer(new TextMessage("map 4"), MapUpdateEvent.class);
+
+        assertEquals(2, queue.size());
+        assertEquals(3, metrics.getDroppedFrames());
+
+        runWriter();
+
+        assertEquals(Arrays.asList("other", "map 4"), written(2));
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    public void testDeltaKeepsItsMapUpdate() throws Exception {
+        OutboundQueue queue = createQueue(3, OutboundQueue.OverflowPolicy.DROP_STALE_MAP_UPDATES);
+
+        queue.offer(new TextMessage("map 1"), MapUpdateEvent.class);
+        queue.offer(new TextMessage("delta 2"), MapUpdateDeltaEvent.class);
+        queue.offer(new TextMessage("map 3"), MapUpdateEvent.class);
+        queue.offer(new TextMessage("delta 4"), MapUpdateDeltaEvent.class);
+
+        runWriter();
+
+        assertEquals(Arrays.asList("map 3", "delta 4"), written(2));
+        assertEquals(2, metrics.getDroppedFrames());
+    }
+
+    @Test
+    public void testDisconnectWhenNothingCanBeDropped() throws Exception {
+        OutboundQueue queue = createQueue(2, OutboundQueue.OverflowPolicy.DROP_STALE_MAP_UPDATES);
+
+        queue.offer(new TextMessage("other 1"), GameEndedEvent.class);
+        queue.offer(new TextMessage("other 2"), GameEndedEvent.class);
+        queue.offer(new TextMessage("delta"), MapUpdateDeltaEvent.class);
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, metrics.getDisconnects());
+        assertEquals(0, metrics.getNoofQueues());
+
+        queue.offer(new TextMessage("after close"), GameEndedEvent.class);
+        runWriter();
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    public void testDisconnectPolicy() throws Exception {
+        OutboundQueue queue = createQueue(1, OutboundQueue.OverflowPolicy.DISCONNECT);
+
+        queue.offer(new TextMessage("map 1"), MapUpdateEvent.class);
+        queue.offer(new TextMessage("map 2"), MapUpdateEvent.class);
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, metrics.getDroppedFrames());
+    }
+
+    private OutboundQueue createQueue(int capacity, OutboundQueue.OverflowPolicy overflowPolicy) {
+        return new OutboundQueue(session, capacity, overflowPolicy, writerTasks::add, metrics);
+    }
+
+    private void runWriter() {
+        List<Runnable> tasks = new ArrayList<>(writerTasks);
+        writerTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private List<String> written(int noofMessages) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(noofMessages)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package se.cygni.snake.websocket.event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.socket.TextMessage;
+import se.cygni.snake.eventapi.response.ActiveGamesList;
+import se.cygni.snake.game.Game;
+import se.cygni.snake.game.GameFeatures;
+import se.cygni.snake.game.GameManager;
+import se.cygni.snake.game.PlayerManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ActiveGamesViewTest {
+
+    private GameManager gameManager;
+    private Game game1;
+    private Game game2;
+    private ActiveGamesView view;
+
+    @Before
+    public void setup() {
+        gameManager = mock(GameManager.class);
+        game1 = createGame("game1");
+        game2 = createGame("game2");
+        when(gameManager.listAllGames()).thenReturn(Arrays.asList(game1));
+        view = new ActiveGamesView(gameManager);
+    }
+
+    @Test
+    public void testEncodedOnceUntilChanged() throws Exception {
+        TextMessage encoded = view.encode(new String[0]);
+        assertSame(encoded, view.encode(null));
+        assertTrue(encoded.getPayload().contains("game1"));
+
+        when(gameManager.getGame("game2")).thenReturn(game2);
+        view.gameChanged("game2");
+        TextMessage updated = view.encode(null);
+        assertNotSame(encoded, updated);
+        assertTrue(updated.getPayload().contains("game2"));
+    }
+
+    @Test
+    public void testOnlyChangedGamesAreConverted() throws Exception {
+        view.getActiveGamesList(null);
+        when(gameManager.getGame("game2")).thenReturn(game2);
+        view.gameChanged("game2");
+        view.gameChanged("game2");
+        view.getActiveGamesList(null);
+        view.getActiveGamesList(null);
+
+        verify(game1, times(1)).getPlayerManager();
+        verify(game2, times(1)).getPlayerManager();
+        verify(gameManager, times(1)).listAllGames();
+    }
+
+    @Test
+    public void testRemovedGames() throws Exception {
+        when(gameManager.getGame("game1")).thenReturn(game1);
+        view.getActiveGamesList(null);
+        view.gameChanged("game1");
+        view.gameRemoved("game1");
+
+        assertTrue(view.getActiveGamesList(null).games.isEmpty());
+    }
+
+    @Test
+    public void testSubscribedGamesAreMarked() throws Exception {
+        view.getActiveGamesList(null);
+        when(gameManager.getGame("game2")).thenReturn(game2);
+        view.gameChanged("game2");
+
+        ActiveGamesList list = view.getActiveGamesList(new String[] {"game2"});
+        assertEquals(2, list.games.size());
+        assertFalse(list.games.get(0).subscribing);
+        assertTrue(list.games.get(1).subscribing);
+
+        assertFalse(view.encode(null).getPayload().contains("\"subscribing\":true"));
+        assertTrue(view.encode(new String[] {"game2"}).getPayload().contains("\"subscribing\":true"));
+    }
+
+    private static Game createGame(String gameId) {
+        PlayerManager playerManager = mock(PlayerManager.class);
+        when(playerManager.toSet()).thenReturn(Collections.emptySet());
+
+        Game game = mock(Game.class);
+        when(game.getGameId()).thenReturn(gameId);
+        when(game.getPlayerManager()).thenReturn(playerManager);
+        when(game.getGameFeatures()).thenReturn(new GameFeatures());
+        return game;
+    }
+}
@@ -0,0 +1,112 @@
+package se.cygni.snake.websocket.event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.socket.TextMessage;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.GameEndedEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.event.SnakeDeadEvent;
+import se.cygni.snake.api.model.DeathReason;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PlaybackControllerTest {
+
+    private RecordingSpectator spectator;
+    private PlaybackController playback;
+
+    @Before
+    public void setup() {
+        spectator = new RecordingSpectator();
+        playback = new PlaybackController(spectator, 3);
+    }
+
+    @Test
+    public void testOneFramePerCall() throws Exception {
+        offer(new MapUpdateEvent(1, "game1", null));
+        offer(new SnakeDeadEvent(DeathReason.CollisionWithWall, "id1", 0, 0, "game1", 2));
+        offer(new MapUpdateEvent(2, "game1", null));
+        assertTrue(spectator.messages.isEmpty());
+        assertEquals(2, playback.getBufferedFrames());
+
+        playback.playNextFrame();
+        assertEquals(1, spectator.messages.size());
+        assertEquals("MapUpdateEvent 1", lastPayload());
+        assertEquals(1, playback.getBufferedFrames());
+
+        // Events between frames go with the frame after them
+        playback.playNextFrame();
+        assertEquals(3, spectator.messages.size());
+        assertEquals("MapUpdateEvent 2", lastPayload());
+        assertEquals(0, playback.getBufferedFrames());
+        assertFalse(playback.isPlaying("game1"));
+    }
+
+    @Test
+    public void testOldestFramesAreSkipped() throws Exception {
+        for (int tick = 1; tick <= 5; tick++) {
+            offer(new MapUpdateEvent(tick, "game1", null));
+        }
+        offer(new GameEndedEvent("id1", "one", "game1", 5, null));
+
+        assertEquals(3, playback.getBufferedFrames());
+        assertEquals(2, playback.getSkippedFrames());
+
+        playback.playNextFrame();
+        assertEquals("MapUpdateEvent 3", lastPayload());
+
+        playback.playRemaining();
+        assertEquals(4, spectator.messages.size());
+        assertEquals("MapUpdateEvent 5", spectator.messages.get(2).getPayload());
+        assertTrue(spectator.messages.get(3).getPayload().contains("GameEndedEvent"));
+    }
+
+    @Test
+    public void testRetainGames() throws Exception {
+        offer(new MapUpdateEvent(1, "game1", null));
+        offer(new MapUpdateEvent(1, "game2", null));
+        playback.retainGames(new String[] {"game2"});
+
+        assertFalse(playback.isPlaying("game1"));
+        assertTrue(playback.isPlaying("game2"));
+        assertEquals(1, playback.getBufferedFrames());
+    }
+
+    @Test
+    public void testFrameIsNotHandedOffWhileThePreviousIsPending() throws Exception {
+        List<Runnable> handedOff = new ArrayList<>();
+        offer(new MapUpdateEvent(1, "game1", null));
+        offer(new MapUpdateEvent(2, "game1", null));
+
+        playback.playNextFrame(handedOff::add);
+        playback.playNextFrame(handedOff::add);
+        assertEquals(1, handedOff.size());
+        assertTrue(spectator.messages.isEmpty());
+
+        handedOff.get(0).run();
+        assertEquals(1, spectator.messages.size());
+
+        playback.playNextFrame(handedOff::add);
+        assertEquals(2, handedOff.size());
+        handedOff.get(1).run();
+        assertEquals("MapUpdateEvent 2", lastPayload());
+    }
+
+    private void offer(GameMessage gameMessage) throws Exception {
+        String gameId = "game1";
+        String payload = gameMessage.getClass().getSimpleName();
+        if (gameMessage instanceof MapUpdateEvent) {
+            gameId = ((MapUpdateEvent) gameMessage).getGameId();
+            payload += " " + ((MapUpdateEvent) gameMessage).getGameTick();
+        }
+        playback.offer(gameId, gameMessage, new TextMessage(payload));
+    }
+
+    private String lastPayload() {
+        return spectator.messages.get(spectator.messages.size() - 1).getPayload();
+    }
+}
@@ -0,0 +1,22 @@
+package se.cygni.snake.websocket.event;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class RecordingSpectator implements SpectatorSession {
+
+    final List<TextMessage> messages = new CopyOnWriteArrayList<>();
+    int activeGamesChanges = 0;
+
+    @Override
+    public void sendMessage(TextMessage message) {
+        messages.add(message);
+    }
+
+    @Override
+    public void onActiveGamesChanged() {
+        activeGamesChanges++;
+    }
+}
@@ -0,0 +1,183 @@
+package se.cygni.snake.websocket.event;
+
+import com.google.common.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Test;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.event.ArenaUpdateEvent;
+import se.cygni.snake.api.event.GameAbortedEvent;
+import se.cygni.snake.api.event.GameCreatedEvent;
+import se.cygni.snake.api.event.GameStartingEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.event.InternalGameEvent;
+import se.cygni.snake.game.GameManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class SpectatorHubTest {
+
+    private EventBus eventBus;
+    private SpectatorHub hub;
+    private RecordingSpectator one;
+    private RecordingSpectator two;
+
+    @Before
+    public void setup() {
+        eventBus = new EventBus();
+        hub = new SpectatorHub(eventBus, new ActiveGamesView(mock(GameManager.class)), 0, 20);
+        one = new RecordingSpectator();
+        two = new RecordingSpectator();
+        hub.register(one);
+        hub.register(two);
+    }
+
+    @Test
+    public void testOnlyWatchersGetGameEvents() throws Exception {
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.setGameFilter(two, new String[] {"game1", "game2"});
+
+        post(new GameStartingEvent("game1", 2, 10, 10, null));
+        post(new GameStartingEvent("game2", 2, 10, 10, null));
+        post(new GameStartingEvent("game3", 2, 10, 10, null));
+
+        assertEquals(1, one.messages.size());
+        assertEquals(2, two.messages.size());
+        assertTrue(one.messages.get(0).getPayload().contains("game1"));
+        // Encoded once for everyone
+        assertSame(one.messages.get(0), two.messages.get(0));
+    }
+
+    @Test
+    public void testNewFilterReplacesOld() throws Exception {
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.setGameFilter(one, new String[] {"game2"});
+
+        post(new GameStartingEvent("game1", 2, 10, 10, null));
+        assertTrue(one.messages.isEmpty());
+        assertEquals(0, hub.getNoofWatchers("game1"));
+        assertEquals(1, hub.getNoofWatchers("game2"));
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.unregister(one);
+        hub.setGameFilter(one, new String[] {"game1"});
+
+        post(new GameStartingEvent("game1", 2, 10, 10, null));
+        post(new GameCreatedEvent("game4"));
+
+        assertTrue(one.messages.isEmpty());
+        assertEquals(0, one.activeGamesChanges);
+        assertEquals(1, two.activeGamesChanges);
+        assertEquals(0, hub.getNoofWatchers("game1"));
+        assertEquals(1, hub.getNoofSessions());
+    }
+
+    @Test
+    public void testArenaUpdatesGoToArenaAndGameWatchersOnce() throws Exception {
+        hub.setArena(one, "arena");
+        hub.setArena(two, "other");
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.setGameFilter(two, new String[] {"game1"});
+
+        post(new ArenaUpdateEvent("arena", "game1", false, null, null, null));
+
+        assertEquals(1, one.messages.size());
+        assertEquals(1, two.messages.size());
+    }
+
+    @Test
+    public void testGameListChangesGoToEveryone() throws Exception {
+        post(new GameCreatedEvent("game1"));
+
+        assertEquals(1, one.activeGamesChanges);
+        assertEquals(1, two.activeGamesChanges);
+        assertTrue(one.messages.isEmpty());
+    }
+
+    @Test
+    public void testGameListChangesAreCoalesced() throws Exception {
+        SpectatorHub coalescingHub = new SpectatorHub(eventBus, new ActiveGamesView(mock(GameManager.class)), 60000, 20);
+        RecordingSpectator three = new RecordingSpectator();
+        coalescingHub.register(three);
+        try {
+            post(new GameCreatedEvent("game1"));
+            post(new GameCreatedEvent("game2"));
+            post(new GameAbortedEvent("game1"));
+            assertEquals(0, three.activeGamesChanges);
+
+            coalescingHub.flushActiveGamesChanges();
+            coalescingHub.flushActiveGamesChanges();
+            assertEquals(1, three.activeGamesChanges);
+        } finally {
+            coalescingHub.shutdown();
+        }
+    }
+
+    @Test
+    public void testPlaybackRate() throws Exception {
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.setGameFilter(two, new String[] {"game1"});
+        // The first frame is due in a second
+        hub.setPlaybackRate(one, 1);
+
+        post(new MapUpdateEvent(1, "game1", null));
+        assertTrue(one.messages.isEmpty());
+        assertEquals(1, two.messages.size());
+        assertFalse(hub.isPlaybackFinished("game1"));
+        assertFalse(hub.isPlaybackKnown("game1"));
+
+        hub.setGameFilter(two, new String[0]);
+        assertTrue(hub.isPlaybackKnown("game1"));
+
+        hub.setPlaybackRate(one, 0);
+        assertEquals(1, one.messages.size());
+        assertTrue(hub.isPlaybackFinished("game1"));
+        assertFalse(hub.isPlaybackKnown("game1"));
+    }
+
+    @Test
+    public void testPlaybackRateIsCapped() throws Exception {
+        hub.setGameFilter(one, new String[] {"game1"});
+
+        assertFalse(hub.setPlaybackRate(one, SpectatorHub.MAX_FRAMES_PER_SECOND + 1));
+        assertFalse(hub.setPlaybackRate(one, -1));
+        assertFalse(hub.isPlaybackKnown("game1"));
+
+        assertTrue(hub.setPlaybackRate(one, SpectatorHub.MAX_FRAMES_PER_SECOND));
+        assertTrue(hub.isPlaybackKnown("game1"));
+    }
+
+    @Test
+    public void testPlaybackMetrics() throws Exception {
+        PlaybackMetrics metrics = hub.getPlaybackMetrics();
+        hub.setGameFilter(one, new String[] {"game1"});
+        hub.setGameFilter(two, new String[] {"game1"});
+        hub.setPlaybackRate(one, 1);
+        hub.setPlaybackRate(two, 1);
+
+        // 20 frames may be buffered, two frames behind that are skipped
+        for (int tick = 1; tick <= 22; tick++) {
+            post(new MapUpdateEvent(tick, "game1", null));
+        }
+        hub.setGameFilter(two, new String[0]);
+
+        assertEquals(2, metrics.getNoofSessions());
+        assertEquals(20, metrics.getMaxBufferedFrames());
+        assertEquals(20, metrics.getTotalBufferedFrames());
+        assertEquals(4, metrics.getSkippedFrames());
+
+        hub.setPlaybackRate(one, 0);
+        hub.unregister(two);
+
+        assertEquals(0, metrics.getNoofSessions());
+        assertEquals(0, metrics.getMaxBufferedFrames());
+        assertEquals(4, metrics.getSkippedFrames());
+    }
+
+    private void post(GameMessage gameMessage) {
+        eventBus.post(new InternalGameEvent(System.currentTimeMillis(), gameMessage));
+    }
+}
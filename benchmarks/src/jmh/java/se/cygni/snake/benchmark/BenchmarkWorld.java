@@ -0,0 +1,122 @@
+package se.cygni.snake.benchmark;
+
+import se.cygni.game.Player;
+import se.cygni.game.Tile;
+import se.cygni.game.WorldState;
+import se.cygni.game.enums.Direction;
+import se.cygni.game.worldobject.*;
+import se.cygni.snake.game.PlayerManager;
+import se.cygni.snake.player.IPlayer;
+import se.cygni.snake.player.PlayerSessionRegistry;
+import se.cygni.snake.player.RemotePlayer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A reproducible world for the benchmarks.
+ *
+ * Snakes are laid out horizontally, one per row, with their heads facing
+ * right so that every snake survives the next tick. Food and obstacles are
+ * scattered over the rows not used by any snake.
+ */
+public class BenchmarkWorld {
+
+    private static final long SEED = 4711;
+    private static final int FOOD_PERCENT = 3;
+    private static final int OBSTACLE_PERCENT = 2;
+
+    private final WorldState worldState;
+    private final PlayerManager playerManager;
+    private final Map<String, Direction> directions;
+    private final SnakeHead[] snakeHeads;
+
+    private BenchmarkWorld(WorldState worldState, PlayerManager playerManager,
+                           Map<String, Direction> directions, SnakeHead[] snakeHeads) {
+        this.worldState = worldState;
+        this.playerManager = playerManager;
+        this.directions = directions;
+        this.snakeHeads = snakeHeads;
+    }
+
+    /**
+     * @param boardSize on the form WIDTHxHEIGHT, e.g. 46x34
+     */
+    public static BenchmarkWorld create(String boardSize, int noofSnakes, int snakeLength) {
+        String[] dimensions = boardSize.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        noofSnakes = Math.min(noofSnakes, height);
+        snakeLength = Math.min(snakeLength, width - 1);
+        int rowSpacing = Math.max(1, height / (noofSnakes + 1));
+
+        Tile[] tiles = new WorldState(width, height).getTiles();
+        boolean[] snakeRows = new boolean[height];
+        PlayerManager playerManager = new PlayerManager();
+        Map<String, Direction> directions = new HashMap<>();
+        SnakeHead[] snakeHeads = new SnakeHead[noofSnakes];
+        PlayerSessionRegistry playerSessions = new PlayerSessionRegistry("benchmark");
+
+        for (int s = 0; s < noofSnakes; s++) {
+            int row = rowSpacing == 1 ? s : rowSpacing * (s + 1);
+            snakeRows[row] = true;
+
+            Player player = new Player("snake-" + s);
+            player.setPlayerId("id-" + s);
+            playerManager.add(new RemotePlayer(player, playerSessions));
+            directions.put(player.getPlayerId(), Direction.RIGHT);
+
+            int headPosition = row * width + snakeLength - 1;
+            SnakeHead head = new SnakeHead(player.getName(), player.getPlayerId(), headPosition);
+            tiles[headPosition] = new Tile(head);
+
+            SnakePart previous = head;
+            for (int x = snakeLength - 2; x >= 0; x--) {
+                SnakeBody body = new SnakeBody(player.getPlayerId(), row * width + x);
+                previous.setNextSnakePart(body);
+                tiles[body.getPosition()] = new Tile(body);
+                previous = body;
+            }
+            snakeHeads[s] = head;
+        }
+
+        Random random = new Random(SEED);
+        for (int position = 0; position < tiles.length; position++) {
+            if (snakeRows[position / width]) {
+                continue;
+            }
+
+            int roll = random.nextInt(100);
+            if (roll < FOOD_PERCENT) {
+                tiles[position] = new Tile(new Food());
+            } else if (roll < FOOD_PERCENT + OBSTACLE_PERCENT) {
+                tiles[position] = new Tile(new Obstacle());
+            }
+        }
+
+        return new BenchmarkWorld(new WorldState(width, height, tiles), playerManager, directions, snakeHeads);
+    }
+
+    public WorldState getWorldState() {
+        return worldState;
+    }
+
+    public PlayerManager getPlayerManager() {
+        return playerManager;
+    }
+
+    public Set<IPlayer> getPlayers() {
+        return playerManager.toSet();
+    }
+
+    public Map<String, Direction> getDirections() {
+        return directions;
+    }
+
+    public SnakeHead getSnakeHead(int index) {
+        return snakeHeads[index];
+    }
+}
@@ -0,0 +1,102 @@
+package se.cygni.snake.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.SnakeDirection;
+import se.cygni.snake.api.request.RegisterMove;
+import se.cygni.snake.apiconversion.GameMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameMessageParser against the way it used to parse: an ObjectMapper
+ * looking up its serializers per call, binding through the GameMessage type
+ * id and encoding to a String through a ByteArrayOutputStream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameMessageParserBenchmark {
+
+    @Param({"15x15", "46x34", "100x100"})
+    public String boardSize;
+
+    @Param({"10"})
+    public int noofSnakes;
+
+    @Param({"30"})
+    public int snakeLength;
+
+    private ObjectMapper legacyMapper;
+    private MapUpdateEvent mapUpdateEvent;
+    private String encodedMapUpdateEvent;
+    private byte[] encodedMapUpdateEventBytes;
+    private String encodedRegisterMove;
+
+    @Setup
+    public void setup() throws Exception {
+        legacyMapper = new ObjectMapper();
+        legacyMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        legacyMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        legacyMapper.registerModule(new JavaTimeModule());
+
+        BenchmarkWorld world = BenchmarkWorld.create(boardSize, noofSnakes, snakeLength);
+        mapUpdateEvent = GameMessageConverter.onWorldUpdate(world.getWorldState(), "benchmark", 1, world.getPlayers());
+        mapUpdateEvent.setReceivingPlayerId(world.getSnakeHead(0).getPlayerId());
+        encodedMapUpdateEvent = GameMessageParser.encodeMessage(mapUpdateEvent);
+        encodedMapUpdateEventBytes = GameMessageParser.encodeMessageAsBytes(mapUpdateEvent);
+
+        RegisterMove registerMove = new RegisterMove("benchmark", 1, SnakeDirection.LEFT);
+        registerMove.setReceivingPlayerId(world.getSnakeHead(0).getPlayerId());
+        encodedRegisterMove = GameMessageParser.encodeMessage(registerMove);
+    }
+
+    @Benchmark
+    public String encodeMapUpdateLegacy() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        legacyMapper.writeValue(out, mapUpdateEvent);
+        return out.toString();
+    }
+
+    @Benchmark
+    public String encodeMapUpdate() throws Exception {
+        return GameMessageParser.encodeMessage(mapUpdateEvent);
+    }
+
+    @Benchmark
+    public byte[] encodeMapUpdateAsBytes() throws Exception {
+        return GameMessageParser.encodeMessageAsBytes(mapUpdateEvent);
+    }
+
+    @Benchmark
+    public GameMessage decodeMapUpdateLegacy() throws Exception {
+        return legacyMapper.readValue(encodedMapUpdateEvent, GameMessage.class);
+    }
+
+    @Benchmark
+    public GameMessage decodeMapUpdate() throws Exception {
+        return GameMessageParser.decodeMessage(encodedMapUpdateEvent);
+    }
+
+    @Benchmark
+    public GameMessage decodeMapUpdateFromBytes() throws Exception {
+        return GameMessageParser.decodeMessage(encodedMapUpdateEventBytes);
+    }
+
+    @Benchmark
+    public GameMessage decodeRegisterMoveLegacy() throws Exception {
+        return legacyMapper.readValue(encodedRegisterMove, GameMessage.class);
+    }
+
+    @Benchmark
+    public GameMessage decodeRegisterMove() throws Exception {
+        return GameMessageParser.decodeMessage(encodedRegisterMove);
+    }
+}
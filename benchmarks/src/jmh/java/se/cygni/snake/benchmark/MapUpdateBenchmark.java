@@ -0,0 +1,73 @@
+package se.cygni.snake.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.cygni.game.WorldState;
+import se.cygni.snake.api.GameMessage;
+import se.cygni.snake.api.GameMessageParser;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.apiconversion.GameMessageConverter;
+import se.cygni.snake.apiconversion.WorldStateConverter;
+import se.cygni.snake.client.MapUtil;
+import se.cygni.snake.player.IPlayer;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The path a world takes every tick from the engine to a client: conversion
+ * to the api model, serialization, deserialization and finally the MapUtil
+ * most clients build from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapUpdateBenchmark {
+
+    @Param({"15x15", "46x34", "100x100"})
+    public String boardSize;
+
+    @Param({"2", "10"})
+    public int noofSnakes;
+
+    @Param({"5", "30"})
+    public int snakeLength;
+
+    private WorldState worldState;
+    private Set<IPlayer> players;
+    private MapUpdateEvent mapUpdateEvent;
+    private String encodedMapUpdateEvent;
+    private String playerId;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkWorld world = BenchmarkWorld.create(boardSize, noofSnakes, snakeLength);
+        worldState = world.getWorldState();
+        players = world.getPlayers();
+        playerId = world.getSnakeHead(0).getPlayerId();
+
+        mapUpdateEvent = GameMessageConverter.onWorldUpdate(worldState, "benchmark", 1, players);
+        mapUpdateEvent.setReceivingPlayerId(playerId);
+        encodedMapUpdateEvent = GameMessageParser.encodeMessage(mapUpdateEvent);
+    }
+
+    @Benchmark
+    public Map convertWorldState() {
+        return WorldStateConverter.convertWorldState(worldState, 1, players);
+    }
+
+    @Benchmark
+    public String encodeMessage() throws Exception {
+        return GameMessageParser.encodeMessage(mapUpdateEvent);
+    }
+
+    @Benchmark
+    public GameMessage decodeMessage() throws Exception {
+        return GameMessageParser.decodeMessage(encodedMapUpdateEvent);
+    }
+
+    @Benchmark
+    public MapUtil createMapUtil() {
+        return new MapUtil(mapUpdateEvent.getMap(), playerId);
+    }
+}
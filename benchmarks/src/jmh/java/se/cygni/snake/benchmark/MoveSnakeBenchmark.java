@@ -0,0 +1,50 @@
+package se.cygni.snake.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.cygni.game.WorldState;
+import se.cygni.game.enums.Direction;
+import se.cygni.game.transformation.MoveSnake;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snakes are moved in place, so each call needs a world of its own. A batch
+ * of worlds is built before every iteration and each iteration times one
+ * move in each of them, the score is the time for the whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = MoveSnakeBenchmark.BATCH_SIZE)
+@Measurement(batchSize = MoveSnakeBenchmark.BATCH_SIZE)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveSnakeBenchmark {
+
+    static final int BATCH_SIZE = 200;
+
+    @Param({"15x15", "46x34", "100x100"})
+    public String boardSize;
+
+    @Param({"5", "30"})
+    public int snakeLength;
+
+    @Param({"false", "true"})
+    public boolean grow;
+
+    private final BenchmarkWorld[] worlds = new BenchmarkWorld[BATCH_SIZE];
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            worlds[i] = BenchmarkWorld.create(boardSize, 1, snakeLength);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public WorldState moveSnake() throws Exception {
+        BenchmarkWorld world = worlds[next++];
+        MoveSnake moveSnake = new MoveSnake(world.getSnakeHead(0), Direction.RIGHT, grow);
+        return moveSnake.transform(world.getWorldState());
+    }
+}
@@ -0,0 +1,33 @@
+package se.cygni.snake.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.cygni.game.WorldState;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldStateBenchmark {
+
+    @Param({"15x15", "46x34", "100x100"})
+    public String boardSize;
+
+    @Param({"2", "10"})
+    public int noofSnakes;
+
+    @Param({"5", "30"})
+    public int snakeLength;
+
+    private WorldState worldState;
+
+    @Setup
+    public void setup() {
+        worldState = BenchmarkWorld.create(boardSize, noofSnakes, snakeLength).getWorldState();
+    }
+
+    @Benchmark
+    public int[] listEmptyValidPositions() {
+        return worldState.listEmptyValidPositions();
+    }
+}
@@ -0,0 +1,79 @@
+package se.cygni.snake.benchmark;
+
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.*;
+import se.cygni.game.WorldState;
+import se.cygni.snake.game.GameFeatures;
+import se.cygni.snake.game.MergingWorldTransformer;
+import se.cygni.snake.game.PlayerManager;
+import se.cygni.snake.game.WorldTransformer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One world tick through the collision resolution, compared against the
+ * merging implementation it replaced.
+ *
+ * Snakes are moved in place, so each tick needs a world of its own. A batch
+ * of worlds is built before every iteration and each iteration times one
+ * tick in each of them, the score is the time for the whole batch.
+ *
+ * Like a GameEngine, which keeps one transformer for all ticks of a game,
+ * the transformer is created once and reused, so that its merge buffer is
+ * not counted in every tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = WorldTransformerBenchmark.BATCH_SIZE)
+@Measurement(batchSize = WorldTransformerBenchmark.BATCH_SIZE)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldTransformerBenchmark {
+
+    static final int BATCH_SIZE = 200;
+
+    @Param({"15x15", "46x34", "100x100"})
+    public String boardSize;
+
+    @Param({"2", "10"})
+    public int noofSnakes;
+
+    @Param({"5", "30"})
+    public int snakeLength;
+
+    @Param({"singlepass", "merging"})
+    public String engine;
+
+    private final GameFeatures gameFeatures = new GameFeatures();
+    private final EventBus globalEventBus = new EventBus();
+    private final BenchmarkWorld[] worlds = new BenchmarkWorld[BATCH_SIZE];
+    private int next;
+    private WorldTransformer worldTransformer;
+    private MergingWorldTransformer mergingWorldTransformer;
+
+    // Every world has the same players and they all survive the tick, so
+    // the players of one of them serve for all
+    @Setup(Level.Trial)
+    public void createTransformer() {
+        PlayerManager playerManager = BenchmarkWorld.create(boardSize, noofSnakes, snakeLength).getPlayerManager();
+        worldTransformer = new WorldTransformer(gameFeatures, playerManager, "benchmark", globalEventBus);
+        mergingWorldTransformer = new MergingWorldTransformer(gameFeatures, playerManager, "benchmark", globalEventBus);
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            worlds[i] = BenchmarkWorld.create(boardSize, noofSnakes, snakeLength);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public WorldState transform() throws Exception {
+        BenchmarkWorld world = worlds[next++];
+        if ("merging".equals(engine)) {
+            return mergingWorldTransformer.transform(world.getDirections(), gameFeatures, world.getWorldState(), false, 1);
+        }
+
+        return worldTransformer.transform(world.getDirections(), gameFeatures, world.getWorldState(), false, 1);
+    }
+}
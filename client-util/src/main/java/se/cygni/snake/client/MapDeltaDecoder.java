@@ -0,0 +1,96 @@
+package se.cygni.snake.client;
+
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.Map;
+import se.cygni.snake.api.model.SnakeDelta;
+import se.cygni.snake.api.model.SnakeInfo;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Rebuilds the full Map from the MapUpdateEvents and MapUpdateDeltaEvents
+ * sent to a player that registered for delta map updates, so that clients
+ * built on MapUtil work the same either way.
+ *
+ * Every map update of a game has to be passed to update(), in the order
+ * received.
+ */
+public class MapDeltaDecoder {
+
+    private MapUpdateEvent current;
+
+    /**
+     * @return mapUpdateEvent, which every following delta applies to
+     */
+    public MapUpdateEvent update(MapUpdateEvent mapUpdateEvent) {
+        current = mapUpdateEvent;
+        return mapUpdateEvent;
+    }
+
+    /**
+     * @return the MapUpdateEvent that the server would have sent instead
+     * @throws IllegalStateException if the map delta applies to was missed
+     */
+    public MapUpdateEvent update(MapUpdateDeltaEvent delta) {
+        if (current == null || current.getGameTick() != delta.getPreviousGameTick() ||
+                !current.getGameId().equals(delta.getGameId())) {
+            throw new IllegalStateException("Missed the map update of game tick " + delta.getPreviousGameTick());
+        }
+
+        Map previous = current.getMap();
+        Map map = new Map(
+                previous.getWidth(),
+                previous.getHeight(),
+                delta.getGameTick(),
+                apply(previous.getSnakeInfos(), delta.getSnakeDeltas()),
+                apply(previous.getFoodPositions(), delta.getAddedFoodPositions(), delta.getRemovedFoodPositions()),
+                apply(previous.getObstaclePositions(), delta.getAddedObstaclePositions(), delta.getRemovedObstaclePositions()));
+
+        MapUpdateEvent mapUpdateEvent = new MapUpdateEvent(delta.getGameTick(), delta.getGameId(), map);
+        mapUpdateEvent.setReceivingPlayerId(delta.getReceivingPlayerId());
+        mapUpdateEvent.setTimestamp(delta.getTimestamp());
+        current = mapUpdateEvent;
+        return mapUpdateEvent;
+    }
+
+    private static SnakeInfo[] apply(SnakeInfo[] snakeInfos, SnakeDelta[] snakeDeltas) {
+        SnakeInfo[] updated = snakeInfos.clone();
+        for (SnakeDelta snakeDelta : snakeDeltas) {
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i].getId().equals(snakeDelta.getPlayerId())) {
+                    updated[i] = apply(updated[i], snakeDelta);
+                }
+            }
+        }
+        return updated;
+    }
+
+    private static SnakeInfo apply(SnakeInfo snakeInfo, SnakeDelta snakeDelta) {
+        int[] newHeads = snakeDelta.getNewHeadPositions();
+        int kept = snakeInfo.getPositions().length - snakeDelta.getRemovedTailLength();
+
+        int[] positions = new int[newHeads.length + kept];
+        System.arraycopy(newHeads, 0, positions, 0, newHeads.length);
+        System.arraycopy(snakeInfo.getPositions(), 0, positions, newHeads.length, kept);
+
+        return new SnakeInfo(
+                snakeInfo.getName(),
+                snakeDelta.getPoints(),
+                snakeInfo.getId(),
+                positions,
+                snakeDelta.getTailProtectedForGameTicks());
+    }
+
+    private static int[] apply(int[] positions, int[] added, int[] removed) {
+        int[] sortedRemoved = removed.clone();
+        Arrays.sort(sortedRemoved);
+
+        return IntStream.concat(
+                Arrays.stream(positions).filter(position -> Arrays.binarySearch(sortedRemoved, position) < 0),
+                Arrays.stream(added))
+                .sorted()
+                .toArray();
+    }
+}
@@ -0,0 +1,61 @@
+package se.cygni.snake.client;
+
+import org.junit.Test;
+import se.cygni.snake.api.event.MapUpdateDeltaEvent;
+import se.cygni.snake.api.event.MapUpdateEvent;
+import se.cygni.snake.api.model.*;
+
+import static org.junit.Assert.*;
+
+public class MapDeltaDecoderTest {
+
+    @Test
+    public void testApplyDelta() throws Exception {
+        MapDeltaDecoder decoder = new MapDeltaDecoder();
+        decoder.update(keyframe());
+
+        MapUpdateDeltaEvent delta = new MapUpdateDeltaEvent(6, 5, "game",
+                new SnakeDelta[] { new SnakeDelta("a", new int[] {7}, 0, 4, 2) },
+                new int[] {1}, new int[] {4},
+                new int[0], new int[0]);
+        Map map = decoder.update(delta).getMap();
+
+        assertEquals(6, map.getWorldTick());
+        assertEquals(3, map.getWidth());
+        assertArrayEquals(new int[] {7, 8, 5, 2}, map.getSnakeInfos()[0].getPositions());
+        assertEquals(4, map.getSnakeInfos()[0].getPoints());
+        assertEquals(2, map.getSnakeInfos()[0].getTailProtectedForGameTicks());
+        assertEquals("b", map.getSnakeInfos()[1].getId());
+        assertArrayEquals(new int[] {0}, map.getSnakeInfos()[1].getPositions());
+        assertArrayEquals(new int[] {1}, map.getFoodPositions());
+        assertArrayEquals(new int[] {6}, map.getObstaclePositions());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeltaWithoutKeyframe() throws Exception {
+        new MapDeltaDecoder().update(new MapUpdateDeltaEvent(6, 5, "game",
+                new SnakeDelta[0], new int[0], new int[0], new int[0], new int[0]));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeltaAfterMissedUpdate() throws Exception {
+        MapDeltaDecoder decoder = new MapDeltaDecoder();
+        decoder.update(keyframe());
+
+        decoder.update(new MapUpdateDeltaEvent(7, 6, "game",
+                new SnakeDelta[0], new int[0], new int[0], new int[0], new int[0]));
+    }
+
+    /*
+        0 1 2
+        3 4 5
+        6 7 8
+    */
+    private static MapUpdateEvent keyframe() {
+        SnakeInfo[] snakeInfos = new SnakeInfo[] {
+                new SnakeInfo("a", 3, "a", new int[] {8, 5, 2}, 0),
+                new SnakeInfo("b", 1, "b", new int[] {0}, 0)
+        };
+        return new MapUpdateEvent(5, "game", new Map(3, 3, 5, snakeInfos, new int[] {4}, new int[] {6}));
+    }
+}
@@ -4,12 +4,14 @@ import org.apache.commons.lang3.SystemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 import se.cygni.snake.api.GameMessage;
 import se.cygni.snake.api.GameMessageParser;
 import se.cygni.snake.api.event.*;
@@ -28,10 +30,12 @@ import se.cygni.snake.api.response.PlayerRegistered;
 import javax.websocket.OnError;
 import javax.websocket.Session;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.URI;
 
-public abstract class BaseSnakeClient extends TextWebSocketHandler implements SnakeClient {
+public abstract class BaseSnakeClient extends AbstractWebSocketHandler implements SnakeClient {
 
     private static final Logger log = LoggerFactory.getLogger(BaseSnakeClient.class);
 
@@ -44,9 +48,29 @@ public abstract class BaseSnakeClient extends TextWebSocketHandler implements Sn
 
     private String arenaName = null;
 
+    private final MapDeltaDecoder mapDeltaDecoder = new MapDeltaDecoder();
+    private boolean smile = false;
+
+    /**
+     * Override to receive map updates as deltas between keyframes. The
+     * full map is still what onMapUpdate() gets.
+     */
+    protected boolean isDeltaMapUpdates() {
+        return false;
+    }
+
+    /**
+     * Override to ask the server for game messages encoded as Smile, a
+     * binary encoding of JSON that is smaller and faster to parse. Text
+     * JSON is used if the server does not support it.
+     */
+    protected boolean isSmileProtocol() {
+        return false;
+    }
+
     public void registerForGame(GameSettings gameSettings) {
         log.info("Register for game...");
-        RegisterPlayer registerPlayer = new RegisterPlayer(getName(), gameSettings);
+        RegisterPlayer registerPlayer = new RegisterPlayer(getName(), gameSettings, isDeltaMapUpdates());
         sendMessage(registerPlayer);
     }
 
@@ -126,7 +150,11 @@ public abstract class BaseSnakeClient extends TextWebSocketHandler implements Sn
         log.info("Connecting to {}", uri);
 
         WebSocketClient wsClient = new StandardWebSocketClient();
-        return wsClient.doHandshake(this, uri);
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        if (isSmileProtocol()) {
+            headers.setSecWebSocketProtocol(GameMessageParser.SMILE_PROTOCOL);
+        }
+        return wsClient.doHandshake(this, headers, URI.create(uri));
     }
 
     private void sendHeartbeat() {
@@ -142,9 +170,15 @@ public abstract class BaseSnakeClient extends TextWebSocketHandler implements Sn
                 log.debug("Sending: {}", GameMessageParser.encodeMessage(message));
             }
 
-            session.sendMessage(new TextMessage(
-                    GameMessageParser.encodeMessage(message)
-            ));
+            if (smile) {
+                session.sendMessage(new BinaryMessage(
+                        GameMessageParser.encodeSmileMessage(message)
+                ));
+            } else {
+                session.sendMessage(new TextMessage(
+                        GameMessageParser.encodeMessage(message)
+                ));
+            }
         } catch (Exception e) {
             log.error("Failed to send message over websocket", e);
         }
@@ -154,11 +188,13 @@ public abstract class BaseSnakeClient extends TextWebSocketHandler implements Sn
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         log.info("Connected to server");
         this.session = session;
+        this.smile = GameMessageParser.SMILE_PROTOCOL.equals(session.getAcceptedProtocol());
         this.onConnected();
         sendHeartbeat();
     }
 
     private StringBuilder msgBuffer = new StringBuilder();
+    private final ByteArrayOutputStream binaryBuffer = new ByteArrayOutputStream();
 
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
@@ -175,59 +211,91 @@ public abstract class BaseSnakeClient extends TextWebSocketHandler implements Sn
             // Deserialize message
             GameMessage gameMessage = GameMessageParser.decodeMessage(messageRaw);
             log.debug(messageRaw);
+            handleGameMessage(gameMessage);
+        } catch (Exception e) {
+            log.error("Could not understand received message from server: {}", messageRaw, e);
+        }
+    }
 
-            if (gameMessage instanceof PlayerRegistered) {
-                this.onPlayerRegistered((PlayerRegistered) gameMessage);
-                this.playerId = gameMessage.getReceivingPlayerId();
-                sendClientInfo();
-            }
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        byte[] part = new byte[message.getPayloadLength()];
+        message.getPayload().get(part);
+        binaryBuffer.write(part);
 
-            if (gameMessage instanceof MapUpdateEvent) {
-                MapUpdateEvent mue = (MapUpdateEvent) gameMessage;
-                this.lastGameId = mue.getGameId();
-                this.onMapUpdate(mue);
-            }
-            if (gameMessage instanceof GameStartingEvent)
-                this.onGameStarting((GameStartingEvent) gameMessage);
+        if (!message.isLast()) {
+            return;
+        }
 
-            if (gameMessage instanceof SnakeDeadEvent)
-                this.onSnakeDead((SnakeDeadEvent) gameMessage);
+        byte[] messageRaw = binaryBuffer.toByteArray();
+        binaryBuffer.reset();
 
-            if (gameMessage instanceof GameResultEvent) {
-                this.onGameResult((GameResultEvent) gameMessage);
-            }
+        try {
+            GameMessage gameMessage = GameMessageParser.decodeSmileMessage(messageRaw);
+            log.debug("{}", gameMessage);
+            handleGameMessage(gameMessage);
+        } catch (Exception e) {
+            log.error("Could not understand received Smile message of {} bytes from server", messageRaw.length, e);
+        }
+    }
 
-            if (gameMessage instanceof GameEndedEvent) {
-                this.onGameEnded((GameEndedEvent) gameMessage);
-                gameEnded = true;
-            }
+    private void handleGameMessage(GameMessage gameMessage) throws Exception {
+        if (gameMessage instanceof PlayerRegistered) {
+            this.onPlayerRegistered((PlayerRegistered) gameMessage);
+            this.playerId = gameMessage.getReceivingPlayerId();
+            sendClientInfo();
+        }
 
-            if (gameMessage instanceof TournamentEndedEvent) {
-                this.onTournamentEnded((TournamentEndedEvent)gameMessage);
-                tournamentEnded = true;
-            }
+        if (gameMessage instanceof MapUpdateEvent) {
+            MapUpdateEvent mue = mapDeltaDecoder.update((MapUpdateEvent) gameMessage);
+            this.lastGameId = mue.getGameId();
+            this.onMapUpdate(mue);
+        }
 
-            if (gameMessage instanceof InvalidPlayerName) {
-                this.onInvalidPlayerName((InvalidPlayerName) gameMessage);
-            }
+        if (gameMessage instanceof MapUpdateDeltaEvent) {
+            MapUpdateEvent mue = mapDeltaDecoder.update((MapUpdateDeltaEvent) gameMessage);
+            this.lastGameId = mue.getGameId();
+            this.onMapUpdate(mue);
+        }
 
-            if (gameMessage instanceof GameLinkEvent) {
-                this.onGameLink((GameLinkEvent)gameMessage);
-            }
+        if (gameMessage instanceof GameStartingEvent)
+            this.onGameStarting((GameStartingEvent) gameMessage);
 
-            if (gameMessage instanceof HeartBeatResponse) {
-                this.sendHeartbeat();
-            }
+        if (gameMessage instanceof SnakeDeadEvent)
+            this.onSnakeDead((SnakeDeadEvent) gameMessage);
 
-            if (gameMessage instanceof InvalidMessage) {
-                InvalidMessage invalidMessage = (InvalidMessage) gameMessage;
+        if (gameMessage instanceof GameResultEvent) {
+            this.onGameResult((GameResultEvent) gameMessage);
+        }
 
-                log.error("Server did not understand my last message");
-                log.error("Message sent: " + invalidMessage.getReceivedMessage());
-                log.error("Error message: " + invalidMessage.getErrorMessage());
-            }
-        } catch (Exception e) {
-            log.error("Could not understand received message from server: {}", messageRaw, e);
+        if (gameMessage instanceof GameEndedEvent) {
+            this.onGameEnded((GameEndedEvent) gameMessage);
+            gameEnded = true;
+        }
+
+        if (gameMessage instanceof TournamentEndedEvent) {
+            this.onTournamentEnded((TournamentEndedEvent)gameMessage);
+            tournamentEnded = true;
+        }
+
+        if (gameMessage instanceof InvalidPlayerName) {
+            this.onInvalidPlayerName((InvalidPlayerName) gameMessage);
+        }
+
+        if (gameMessage instanceof GameLinkEvent) {
+            this.onGameLink((GameLinkEvent)gameMessage);
+        }
+
+        if (gameMessage instanceof HeartBeatResponse) {
+            this.sendHeartbeat();
+        }
+
+        if (gameMessage instanceof InvalidMessage) {
+            InvalidMessage invalidMessage = (InvalidMessage) gameMessage;
+
+            log.error("Server did not understand my last message");
+            log.error("Message sent: " + invalidMessage.getReceivedMessage());
+            log.error("Error message: " + invalidMessage.getErrorMessage());
         }
     }
 
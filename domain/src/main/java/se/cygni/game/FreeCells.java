@@ -0,0 +1,158 @@
+package se.cygni.game;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The set of empty positions in a world.
+ *
+ * Positions are kept in a dense array, and an index array maps every
+ * position to its place in it. Adding, removing and picking a position by
+ * index are all O(1). A removed position is replaced by the last one.
+ *
+ * Both arrays are split in chunks that a copy shares with the set it was
+ * made from until it writes to them, so a copy only pays for the chunks it
+ * changes. A set must not be changed once it has been copied.
+ */
+class FreeCells {
+
+    private static final int ABSENT = -1;
+
+    // Attempts at picking a random valid position before falling back
+    // to listing all of them
+    private static final int MAX_RANDOM_PICKS = 16;
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int[][] cells;
+    private final int[][] indexOf;
+
+    // Chunks this set has copied and may write to
+    private final boolean[] ownsCells;
+    private final boolean[] ownsIndexOf;
+    private int size = 0;
+
+    FreeCells(int worldSize) {
+        int noofChunks = (worldSize + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        cells = new int[noofChunks][];
+        indexOf = new int[noofChunks][];
+        for (int chunk = 0; chunk < noofChunks; chunk++) {
+            int chunkSize = Math.min(CHUNK_SIZE, worldSize - (chunk << CHUNK_BITS));
+            cells[chunk] = new int[chunkSize];
+            indexOf[chunk] = new int[chunkSize];
+            Arrays.fill(indexOf[chunk], ABSENT);
+        }
+        ownsCells = new boolean[noofChunks];
+        ownsIndexOf = new boolean[noofChunks];
+        Arrays.fill(ownsCells, true);
+        Arrays.fill(ownsIndexOf, true);
+    }
+
+    FreeCells(FreeCells copy) {
+        cells = copy.cells.clone();
+        indexOf = copy.indexOf.clone();
+        ownsCells = new boolean[cells.length];
+        ownsIndexOf = new boolean[indexOf.length];
+        size = copy.size;
+    }
+
+    void add(int position) {
+        if (indexOf(position) != ABSENT) {
+            return;
+        }
+
+        setCell(size, position);
+        setIndexOf(position, size++);
+    }
+
+    void remove(int position) {
+        int index = indexOf(position);
+        if (index == ABSENT) {
+            return;
+        }
+
+        int last = get(--size);
+        setCell(index, last);
+        setIndexOf(last, index);
+        setIndexOf(position, ABSENT);
+    }
+
+    boolean contains(int position) {
+        return indexOf(position) != ABSENT;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index between 0 and size() - 1
+     */
+    int get(int index) {
+        return cells[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * @return the positions in ascending order
+     */
+    int[] toSortedArray() {
+        int[] positions = new int[size];
+        for (int copied = 0; copied < size; copied += CHUNK_SIZE) {
+            int[] chunk = cells[copied >>> CHUNK_BITS];
+            System.arraycopy(chunk, 0, positions, copied, Math.min(chunk.length, size - copied));
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Picks one of the positions that are valid with equal probability.
+     * Random positions are tried first, which in all but a nearly full
+     * world avoids looking at all of them.
+     *
+     * @return a random valid position or -1 if there is none
+     */
+    int pickRandom(Random random, IntPredicate valid) {
+        if (size == 0) {
+            return -1;
+        }
+
+        for (int pick = 0; pick < MAX_RANDOM_PICKS; pick++) {
+            int position = get(random.nextInt(size));
+            if (valid.test(position)) {
+                return position;
+            }
+        }
+
+        int[] validPositions = IntStream.of(toSortedArray()).filter(valid).toArray();
+        if (validPositions.length == 0) {
+            return -1;
+        }
+        return validPositions[random.nextInt(validPositions.length)];
+    }
+
+    private int indexOf(int position) {
+        return indexOf[position >>> CHUNK_BITS][position & CHUNK_MASK];
+    }
+
+    private void setCell(int index, int position) {
+        int chunk = index >>> CHUNK_BITS;
+        if (!ownsCells[chunk]) {
+            cells[chunk] = cells[chunk].clone();
+            ownsCells[chunk] = true;
+        }
+        cells[chunk][index & CHUNK_MASK] = position;
+    }
+
+    private void setIndexOf(int position, int index) {
+        int chunk = position >>> CHUNK_BITS;
+        if (!ownsIndexOf[chunk]) {
+            indexOf[chunk] = indexOf[chunk].clone();
+            ownsIndexOf[chunk] = true;
+        }
+        indexOf[chunk][position & CHUNK_MASK] = index;
+    }
+}
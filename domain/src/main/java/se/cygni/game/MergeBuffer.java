@@ -0,0 +1,118 @@
+package se.cygni.game;
+
+import java.util.Arrays;
+
+/**
+ * Records what occupies the tiles of a world while a tick is resolved, so
+ * that collisions are found without allocating anything.
+ *
+ * An occupant is an int chosen by the caller, typically an index into its
+ * own list of snakes, stored together with a type tag in primitive arrays.
+ * A buffer is meant to be kept for a whole game: clear() forgets every
+ * tile in constant time by moving on to a new generation.
+ */
+public class MergeBuffer {
+
+    public static final byte HEAD = 1;
+    public static final byte BODY = 2;
+
+    // Four heads coming from every side and one body is the most a tile
+    // can hold
+    private static final int SLOT_BITS = 3;
+    private static final int SLOTS_PER_TILE = 1 << SLOT_BITS;
+
+    private final int[] generations;
+    private final int[] counts;
+    private final int[] occupants;
+    private final byte[] tags;
+
+    // The occupied positions, in the order they were first occupied
+    private final int[] positions;
+    private int noofPositions = 0;
+    private int generation = 1;
+
+    public MergeBuffer(int worldSize) {
+        generations = new int[worldSize];
+        counts = new int[worldSize];
+        occupants = new int[worldSize << SLOT_BITS];
+        tags = new byte[worldSize << SLOT_BITS];
+        positions = new int[worldSize];
+    }
+
+    public int getWorldSize() {
+        return generations.length;
+    }
+
+    public void clear() {
+        noofPositions = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    public void add(int position, int occupant, byte tag) {
+        if (generations[position] != generation) {
+            generations[position] = generation;
+            counts[position] = 0;
+            positions[noofPositions++] = position;
+        }
+
+        int count = counts[position];
+        if (count == SLOTS_PER_TILE) {
+            throw new IllegalStateException("Too many occupants at position " + position);
+        }
+
+        int slot = (position << SLOT_BITS) + count;
+        occupants[slot] = occupant;
+        tags[slot] = tag;
+        counts[position] = count + 1;
+    }
+
+    public boolean isOccupied(int position) {
+        return generations[position] == generation;
+    }
+
+    public int count(int position) {
+        return isOccupied(position) ? counts[position] : 0;
+    }
+
+    public int countTagged(int position, byte tag) {
+        int tagged = 0;
+        for (int i = 0; i < count(position); i++) {
+            if (getTag(position, i) == tag) {
+                tagged++;
+            }
+        }
+        return tagged;
+    }
+
+    /**
+     * @param i between 0 and count(position) - 1, in the order added
+     */
+    public int getOccupant(int position, int i) {
+        return occupants[(position << SLOT_BITS) + i];
+    }
+
+    public byte getTag(int position, int i) {
+        return tags[(position << SLOT_BITS) + i];
+    }
+
+    public int getNoofOccupiedPositions() {
+        return noofPositions;
+    }
+
+    /**
+     * @param i between 0 and getNoofOccupiedPositions() - 1
+     */
+    public int getOccupiedPosition(int i) {
+        return positions[i];
+    }
+
+    /**
+     * Orders the occupied positions in ascending order.
+     */
+    public void sortOccupiedPositions() {
+        Arrays.sort(positions, 0, noofPositions);
+    }
+}
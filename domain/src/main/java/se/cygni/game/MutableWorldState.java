@@ -0,0 +1,210 @@
+package se.cygni.game;
+
+import se.cygni.game.enums.Direction;
+import se.cygni.game.exception.OutOfBoundsException;
+import se.cygni.game.worldobject.Empty;
+import se.cygni.game.worldobject.SnakeHead;
+import se.cygni.game.worldobject.WorldObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A working copy of a WorldState that tiles can be replaced in one by one.
+ *
+ * Chunks of tiles and the indexes of the world it was made from are shared
+ * until they are written to, and toWorldState() publishes the current tiles
+ * as a new immutable WorldState without copying them. Not thread safe.
+ */
+public class MutableWorldState {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int CHUNK_BITS = WorldState.CHUNK_BITS;
+    private static final int CHUNK_MASK = WorldState.CHUNK_MASK;
+
+    // Used for the geometry of the world only
+    private final WorldState base;
+
+    private Tile[][] chunks;
+    private boolean[] ownsChunk;
+
+    // Null until needed if the world this was made from had not built them
+    private FreeCells freeCells;
+    private boolean ownsFreeCells = false;
+    private Map<String, Integer> headPositions;
+    private boolean ownsHeadPositions = false;
+
+    public MutableWorldState(WorldState worldState) {
+        this.base = worldState;
+        this.chunks = worldState.chunks().clone();
+        this.ownsChunk = new boolean[chunks.length];
+        this.freeCells = worldState.builtFreeCells();
+        this.headPositions = worldState.builtHeadPositions();
+    }
+
+    public int getWidth() {
+        return base.getWidth();
+    }
+
+    public int getHeight() {
+        return base.getHeight();
+    }
+
+    public int getSize() {
+        return base.getSize();
+    }
+
+    public Tile getTile(int position) {
+        if (position < 0)
+            throw new OutOfBoundsException("Can not get tiles at negative position");
+        if (position >= getSize())
+            throw new OutOfBoundsException("Can not get tiles beyond world");
+
+        return tileAt(position);
+    }
+
+    public boolean isTileEmpty(int position) {
+        return getTile(position).getContent() instanceof Empty;
+    }
+
+    public void setTile(int position, Tile tile) {
+        WorldObject replaced = getTile(position).getContent();
+
+        int chunk = position >>> CHUNK_BITS;
+        if (!ownsChunk[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            ownsChunk[chunk] = true;
+        }
+        chunks[chunk][position & CHUNK_MASK] = tile;
+
+        if (freeCells != null) {
+            if (tile.getContent() instanceof Empty) {
+                writableFreeCells().add(position);
+            } else {
+                writableFreeCells().remove(position);
+            }
+        }
+
+        if (headPositions != null) {
+            // A head may already have been put at its new position
+            if (replaced instanceof SnakeHead) {
+                writableHeadPositions().remove(((SnakeHead) replaced).getPlayerId(), position);
+            }
+            if (tile.getContent() instanceof SnakeHead) {
+                writableHeadPositions().put(((SnakeHead) tile.getContent()).getPlayerId(), position);
+            }
+        }
+    }
+
+    /**
+     * @param positions the positions to replace, in the same order as tiles
+     */
+    public void setTiles(int[] positions, Tile[] replacements) {
+        for (int i = 0; i < positions.length; i++) {
+            setTile(positions[i], replacements[i]);
+        }
+    }
+
+    public SnakeHead getSnakeHeadById(String playerId) {
+        Integer position = headPositions().get(playerId);
+        if (position == null) {
+            throw new IllegalArgumentException("Could not find SnakeHead with playerId " + playerId);
+        }
+        return (SnakeHead)tileAt(position).getContent();
+    }
+
+    /**
+     * @return the positions holding content of clazz, in ascending order
+     */
+    public <T extends WorldObject> int[] listPositionsWithContentOf(Class<T> clazz) {
+        if (clazz == SnakeHead.class) {
+            return headPositions().values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        if (clazz == Empty.class) {
+            return freeCells().toSortedArray();
+        }
+
+        return IntStream.range(0, getSize()).filter(position ->
+                tileAt(position).getContent().getClass() == clazz).toArray();
+    }
+
+    /**
+     * Same as WorldState.getRandomEmptyValidPosition, and draws the same
+     * numbers from random for the same tiles.
+     */
+    public int getRandomEmptyValidPosition(Random random) {
+        return freeCells().pickRandom(random, position -> !isAdjacentToSnakeHead(position));
+    }
+
+    public boolean isAdjacentToSnakeHead(int position) {
+        for (Direction direction : DIRECTIONS) {
+            if (base.hasAdjacentTile(position, direction) &&
+                    tileAt(base.getPositionForAdjacent(position, direction)).getContent() instanceof SnakeHead) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes the current tiles. Later changes to this working copy do
+     * not show in the returned world.
+     */
+    public WorldState toWorldState() {
+        WorldState published = new WorldState(base.getWidth(), base.getHeight(),
+                chunks.clone(), freeCells, headPositions);
+        ownsChunk = new boolean[chunks.length];
+        ownsFreeCells = false;
+        ownsHeadPositions = false;
+        return published;
+    }
+
+    private Tile tileAt(int position) {
+        return chunks[position >>> CHUNK_BITS][position & CHUNK_MASK];
+    }
+
+    private FreeCells freeCells() {
+        if (freeCells == null) {
+            freeCells = new FreeCells(getSize());
+            ownsFreeCells = true;
+            for (int position = 0; position < getSize(); position++) {
+                if (tileAt(position).getContent() instanceof Empty) {
+                    freeCells.add(position);
+                }
+            }
+        }
+        return freeCells;
+    }
+
+    private FreeCells writableFreeCells() {
+        if (!ownsFreeCells) {
+            freeCells = new FreeCells(freeCells);
+            ownsFreeCells = true;
+        }
+        return freeCells;
+    }
+
+    private Map<String, Integer> headPositions() {
+        if (headPositions == null) {
+            headPositions = new HashMap<>();
+            ownsHeadPositions = true;
+            for (int position = 0; position < getSize(); position++) {
+                WorldObject content = tileAt(position).getContent();
+                if (content.getClass() == SnakeHead.class) {
+                    headPositions.put(((SnakeHead) content).getPlayerId(), position);
+                }
+            }
+        }
+        return headPositions;
+    }
+
+    private Map<String, Integer> writableHeadPositions() {
+        if (!ownsHeadPositions) {
+            headPositions = new HashMap<>(headPositions);
+            ownsHeadPositions = true;
+        }
+        return headPositions;
+    }
+}
@@ -0,0 +1,519 @@
+package se.cygni.game;
+
+import se.cygni.game.enums.Direction;
+import se.cygni.game.exception.OutOfBoundsException;
+import se.cygni.game.worldobject.*;
+
+import java.util.Arrays;
+
+/**
+ * A compact alternative to WorldState.
+ *
+ * The world is a byte[] occupancy grid with one content tag per tile and an
+ * int[] holding the snake slot that owns a tile. Each snake keeps its body as a
+ * ring buffer of positions, head first, so moving a snake only touches the new
+ * head tile and the old tail tile. The points and tail protection of a snake
+ * are kept in its slot as well. A removed snake keeps its slot, it is reused
+ * if a snake with the same playerId is added again.
+ *
+ * All queries have a variant that writes into a caller supplied buffer and
+ * returns the number of positions written. Together with the in place mutators
+ * this lets a game loop run without allocating anything per tick.
+ */
+public class PackedWorldState {
+
+    public static final byte EMPTY = 0;
+    public static final byte FOOD = 1;
+    public static final byte OBSTACLE = 2;
+    public static final byte SNAKE_HEAD = 3;
+    public static final byte SNAKE_BODY = 4;
+
+    public static final int NO_SNAKE = -1;
+
+    private static final int INITIAL_BODY_CAPACITY = 16;
+
+    private final int width, height;
+    private final byte[] contents;
+    private final int[] owners;
+
+    private int noofSlots = 0;
+    private String[] playerIds;
+    private String[] names;
+    private int[][] bodies;
+    private int[] headIndexes;
+    private int[] lengths;
+    private int[] points;
+    private int[] tailProtections;
+
+    public PackedWorldState(int width, int height) {
+        this(width, height, 8);
+    }
+
+    public PackedWorldState(int width, int height, int expectedNoofSnakes) {
+        this.width = width;
+        this.height = height;
+        this.contents = new byte[width * height];
+        this.owners = new int[width * height];
+        Arrays.fill(owners, NO_SNAKE);
+
+        int slots = Math.max(1, expectedNoofSnakes);
+        playerIds = new String[slots];
+        names = new String[slots];
+        bodies = new int[slots][];
+        headIndexes = new int[slots];
+        lengths = new int[slots];
+        points = new int[slots];
+        tailProtections = new int[slots];
+    }
+
+    public PackedWorldState(PackedWorldState copy) {
+        this.width = copy.width;
+        this.height = copy.height;
+        this.contents = copy.contents.clone();
+        this.owners = copy.owners.clone();
+
+        this.noofSlots = copy.noofSlots;
+        this.playerIds = copy.playerIds.clone();
+        this.names = copy.names.clone();
+        this.bodies = new int[copy.bodies.length][];
+        for (int slot = 0; slot < copy.noofSlots; slot++) {
+            if (copy.bodies[slot] != null) {
+                bodies[slot] = copy.bodies[slot].clone();
+            }
+        }
+        this.headIndexes = copy.headIndexes.clone();
+        this.lengths = copy.lengths.clone();
+        this.points = copy.points.clone();
+        this.tailProtections = copy.tailProtections.clone();
+    }
+
+    /**
+     * Builds a packed copy of a WorldState. Snakes are assigned slots in the
+     * order their heads appear in the world.
+     */
+    public static PackedWorldState fromWorldState(WorldState worldState) {
+        int[] headPositions = worldState.listPositionsWithContentOf(SnakeHead.class);
+        PackedWorldState packed = new PackedWorldState(
+                worldState.getWidth(), worldState.getHeight(), headPositions.length);
+
+        for (int position = 0; position < worldState.getSize(); position++) {
+            byte type = typeOf(worldState.getTile(position).getContent());
+            if (type == FOOD || type == OBSTACLE) {
+                packed.contents[position] = type;
+            }
+        }
+
+        for (int headPosition : headPositions) {
+            SnakeHead head = (SnakeHead) worldState.getTile(headPosition).getContent();
+            int slot = packed.addSnake(head.getName(), head.getPlayerId(), worldState.getSnakeSpread(head));
+            packed.points[slot] = head.getPoints();
+            packed.tailProtections[slot] = head.getTailProtectedForGameTicks();
+        }
+
+        return packed;
+    }
+
+    /**
+     * Builds a WorldState with fresh WorldObjects from this packed world.
+     */
+    public WorldState toWorldState() {
+        Tile[] tiles = new Tile[getSize()];
+
+        for (int position = 0; position < tiles.length; position++) {
+            switch (contents[position]) {
+                case FOOD:     tiles[position] = new Tile(new Food()); break;
+                case OBSTACLE: tiles[position] = new Tile(new Obstacle()); break;
+                default:       tiles[position] = new Tile(); break;
+            }
+        }
+
+        for (int slot = 0; slot < noofSlots; slot++) {
+            if (!isSnakeAlive(slot)) {
+                continue;
+            }
+
+            int[] spread = getSnakeSpread(slot);
+            SnakeHead head = new SnakeHead(names[slot], playerIds[slot], spread[0]);
+            head.setPoints(points[slot]);
+            head.setTailProtectedForGameTicks(tailProtections[slot]);
+            tiles[spread[0]] = new Tile(head);
+
+            SnakePart previous = head;
+            for (int i = 1; i < spread.length; i++) {
+                SnakeBody body = new SnakeBody(playerIds[slot], spread[i]);
+                previous.setNextSnakePart(body);
+                tiles[spread[i]] = new Tile(body);
+                previous = body;
+            }
+        }
+
+        return new WorldState(width, height, tiles);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSize() {
+        return width * height;
+    }
+
+    public byte getContentType(int position) {
+        checkBounds(position);
+        return contents[position];
+    }
+
+    public boolean isTileEmpty(int position) {
+        return getContentType(position) == EMPTY;
+    }
+
+    public <T extends WorldObject> boolean isTileContentOfType(int position, Class<T> clazz) {
+        return getContentType(position) == typeOf(clazz);
+    }
+
+    /**
+     * @return the snake slot occupying this position or NO_SNAKE
+     */
+    public int getOwner(int position) {
+        checkBounds(position);
+        return owners[position];
+    }
+
+    public void setContent(int position, byte type) {
+        checkBounds(position);
+        if (type == SNAKE_HEAD || type == SNAKE_BODY) {
+            throw new IllegalArgumentException("Snakes must be placed with addSnake");
+        }
+        if (owners[position] != NO_SNAKE) {
+            throw new IllegalStateException("Position " + position + " is occupied by a snake");
+        }
+        contents[position] = type;
+    }
+
+    public <T extends WorldObject> int[] listPositionsWithContentOf(Class<T> clazz) {
+        int[] positions = new int[countPositionsWithContentOf(typeOf(clazz))];
+        listPositionsWithContentOf(typeOf(clazz), positions);
+        return positions;
+    }
+
+    /**
+     * @param dest must be able to hold all matching positions
+     * @return the number of positions written to dest
+     */
+    public int listPositionsWithContentOf(byte type, int[] dest) {
+        int count = 0;
+        for (int position = 0; position < contents.length; position++) {
+            if (contents[position] == type) {
+                dest[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    public int countPositionsWithContentOf(byte type) {
+        int count = 0;
+        for (byte content : contents) {
+            if (content == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getPositionForAdjacent(int position, Direction direction) {
+        if (!hasAdjacentTile(position, direction))
+            throw new OutOfBoundsException("Tile " + direction + " from position " + position + " is out of bounds");
+
+        switch (direction) {
+            case DOWN:  return position + width;
+            case UP:    return position - width;
+            case RIGHT: return position + 1;
+            case LEFT:  return position - 1;
+            default:    throw new RuntimeException("Invalid direction");
+        }
+    }
+
+    public boolean hasAdjacentTile(int position, Direction direction) {
+        switch (direction) {
+            case UP   : return (position-width >= 0);
+            case DOWN : return (position+width < getSize());
+            case LEFT : return (position % width != 0);
+            case RIGHT: return ((position+1) % width != 0);
+            default   : return false;
+        }
+    }
+
+    /**
+     * Places a snake in the world, with no points and no tail protection.
+     *
+     * @param spread the positions of the snake, head first
+     * @return the slot assigned to the snake, the slot it had before if it
+     * has been removed
+     */
+    public int addSnake(String name, String playerId, int... spread) {
+        if (spread.length == 0) {
+            throw new IllegalArgumentException("A snake needs at least a head");
+        }
+        int slot = findSlot(playerId);
+        if (isSnakeAlive(slot)) {
+            throw new IllegalArgumentException("Snake with playerId " + playerId + " already exists");
+        }
+        for (int position : spread) {
+            checkBounds(position);
+            if (contents[position] != EMPTY) {
+                throw new IllegalStateException("Position " + position + " is not empty");
+            }
+        }
+
+        if (slot == NO_SNAKE) {
+            slot = newSlot();
+        }
+
+        int capacity = INITIAL_BODY_CAPACITY;
+        while (capacity < spread.length) {
+            capacity <<= 1;
+        }
+
+        playerIds[slot] = playerId;
+        names[slot] = name;
+        bodies[slot] = new int[capacity];
+        headIndexes[slot] = 0;
+        lengths[slot] = spread.length;
+        points[slot] = 0;
+        tailProtections[slot] = 0;
+
+        for (int i = 0; i < spread.length; i++) {
+            bodies[slot][i] = spread[i];
+            contents[spread[i]] = i == 0 ? SNAKE_HEAD : SNAKE_BODY;
+            owners[spread[i]] = slot;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Moves the head of a snake to target. Unless the snake grows the tail is
+     * released. No collision detection is made, the caller is expected to have
+     * resolved that already. Any Food on the target is consumed.
+     */
+    public void moveSnake(int slot, int target, boolean grow) {
+        checkAlive(slot);
+        checkBounds(target);
+
+        int[] body = bodies[slot];
+        int length = lengths[slot];
+
+        if (grow && length == body.length) {
+            body = growBody(slot);
+        }
+
+        int mask = body.length - 1;
+        int oldHead = body[headIndexes[slot]];
+
+        if (!grow) {
+            int tail = body[(headIndexes[slot] + length - 1) & mask];
+            release(tail, slot);
+        }
+
+        if (length > 1 || grow) {
+            contents[oldHead] = SNAKE_BODY;
+        }
+
+        int headIndex = (headIndexes[slot] - 1) & mask;
+        body[headIndex] = target;
+        headIndexes[slot] = headIndex;
+        if (grow) {
+            lengths[slot] = length + 1;
+        }
+
+        contents[target] = SNAKE_HEAD;
+        owners[target] = slot;
+    }
+
+    /**
+     * Removes the last part of a snake. A snake consisting only of a head
+     * can not lose its tail.
+     */
+    public void removeTail(int slot) {
+        checkAlive(slot);
+        if (lengths[slot] < 2) {
+            throw new IllegalStateException("Snake in slot " + slot + " has no tail to remove");
+        }
+
+        release(getSnakeTailPosition(slot), slot);
+        lengths[slot]--;
+    }
+
+    public void removeSnake(int slot) {
+        checkAlive(slot);
+
+        int[] body = bodies[slot];
+        int mask = body.length - 1;
+        for (int i = 0; i < lengths[slot]; i++) {
+            release(body[(headIndexes[slot] + i) & mask], slot);
+        }
+        lengths[slot] = 0;
+    }
+
+    public int getNoofSnakeSlots() {
+        return noofSlots;
+    }
+
+    /**
+     * @return the slot of the live snake of playerId or NO_SNAKE
+     */
+    public int getSnakeSlot(String playerId) {
+        int slot = findSlot(playerId);
+        return isSnakeAlive(slot) ? slot : NO_SNAKE;
+    }
+
+    public String getPlayerId(int slot) {
+        return playerIds[slot];
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public boolean isSnakeAlive(int slot) {
+        return slot >= 0 && slot < noofSlots && lengths[slot] > 0;
+    }
+
+    public int getSnakeLength(int slot) {
+        return lengths[slot];
+    }
+
+    public int getPoints(int slot) {
+        return points[slot];
+    }
+
+    public void setPoints(int slot, int points) {
+        checkAlive(slot);
+        this.points[slot] = points;
+    }
+
+    public int getTailProtectedForGameTicks(int slot) {
+        return tailProtections[slot];
+    }
+
+    public void setTailProtectedForGameTicks(int slot, int tailProtectedForGameTicks) {
+        checkAlive(slot);
+        tailProtections[slot] = tailProtectedForGameTicks;
+    }
+
+    public int getSnakeHeadPosition(int slot) {
+        checkAlive(slot);
+        return bodies[slot][headIndexes[slot]];
+    }
+
+    public int getSnakeTailPosition(int slot) {
+        checkAlive(slot);
+        int[] body = bodies[slot];
+        return body[(headIndexes[slot] + lengths[slot] - 1) & (body.length - 1)];
+    }
+
+    /**
+     * @return an array of all positions that this snake occupies, head first
+     */
+    public int[] getSnakeSpread(String playerId) {
+        int slot = getSnakeSlot(playerId);
+        if (slot == NO_SNAKE) {
+            throw new IllegalArgumentException("Could not find snake with playerId " + playerId);
+        }
+        return getSnakeSpread(slot);
+    }
+
+    public int[] getSnakeSpread(int slot) {
+        int[] spread = new int[lengths[slot]];
+        getSnakeSpread(slot, spread);
+        return spread;
+    }
+
+    /**
+     * @param dest must be able to hold getSnakeLength(slot) positions
+     * @return the number of positions written to dest
+     */
+    public int getSnakeSpread(int slot, int[] dest) {
+        int[] body = bodies[slot];
+        int length = lengths[slot];
+        int mask = body.length - 1;
+        int headIndex = headIndexes[slot];
+
+        int firstRun = Math.min(length, body.length - headIndex);
+        System.arraycopy(body, headIndex, dest, 0, firstRun);
+        if (firstRun < length) {
+            System.arraycopy(body, 0, dest, firstRun, length - firstRun);
+        }
+        return length;
+    }
+
+    public static byte typeOf(WorldObject worldObject) {
+        return typeOf(worldObject.getClass());
+    }
+
+    public static byte typeOf(Class<?> clazz) {
+        if (clazz == Empty.class)     return EMPTY;
+        if (clazz == Food.class)      return FOOD;
+        if (clazz == Obstacle.class)  return OBSTACLE;
+        if (clazz == SnakeHead.class) return SNAKE_HEAD;
+        if (clazz == SnakeBody.class) return SNAKE_BODY;
+        throw new IllegalArgumentException("Unknown WorldObject type: " + clazz.getSimpleName());
+    }
+
+    private void release(int position, int slot) {
+        // A new head may already have taken over this position
+        if (owners[position] == slot) {
+            contents[position] = EMPTY;
+            owners[position] = NO_SNAKE;
+        }
+    }
+
+    private int findSlot(String playerId) {
+        for (int slot = 0; slot < noofSlots; slot++) {
+            if (playerIds[slot].equals(playerId)) {
+                return slot;
+            }
+        }
+        return NO_SNAKE;
+    }
+
+    private int newSlot() {
+        if (noofSlots == playerIds.length) {
+            int newLength = playerIds.length * 2;
+            playerIds = Arrays.copyOf(playerIds, newLength);
+            names = Arrays.copyOf(names, newLength);
+            bodies = Arrays.copyOf(bodies, newLength);
+            headIndexes = Arrays.copyOf(headIndexes, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            points = Arrays.copyOf(points, newLength);
+            tailProtections = Arrays.copyOf(tailProtections, newLength);
+        }
+        return noofSlots++;
+    }
+
+    private int[] growBody(int slot) {
+        int[] body = bodies[slot];
+        int[] grown = new int[body.length << 1];
+        getSnakeSpread(slot, grown);
+        bodies[slot] = grown;
+        headIndexes[slot] = 0;
+        return grown;
+    }
+
+    private void checkAlive(int slot) {
+        if (!isSnakeAlive(slot)) {
+            throw new IllegalArgumentException("No live snake in slot " + slot);
+        }
+    }
+
+    private void checkBounds(int position) {
+        if (position < 0)
+            throw new OutOfBoundsException("Can not get tiles at negative position");
+        if (position >= getSize())
+            throw new OutOfBoundsException("Can not get tiles beyond world");
+    }
+}
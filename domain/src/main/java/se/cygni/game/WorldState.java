@@ -1,37 +1,94 @@
 package se.cygni.game;
 
-import org.apache.commons.lang3.ArrayUtils;
 import se.cygni.game.enums.Direction;
 import se.cygni.game.exception.OutOfBoundsException;
 import se.cygni.game.worldobject.*;
 
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * An immutable snapshot of a world.
+ *
+ * The tiles are kept in chunks that are shared between a world and the
+ * worlds derived from it with withTiles, which only copies the chunks it
+ * replaces tiles in. Keeping every world of a game is therefore cheap.
+ */
 public class WorldState {
 
+    private static final Direction[] DIRECTIONS = Direction.values();
+    static final int CHUNK_BITS = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
     private final int width, height;
-    private final Tile[] tiles;
+
+    // Never changed once published, chunks are shared between worlds
+    private final Tile[][] chunks;
+
+    // Built on first use, carried over to worlds derived with withTiles.
+    // Never changed once published.
+    private volatile FreeCells freeCells;
+
+    // Position of the SnakeHead of every snake in this world, by playerId.
+    // Built and carried over like freeCells.
+    private volatile Map<String, Integer> headPositions;
 
     public WorldState(int width, int height) {
         this.width = width;
         this.height = height;
-        tiles = createEmptyTiles();
+        this.chunks = toChunks(createEmptyTiles());
     }
 
     public WorldState(int width, int height, Tile[] tiles) {
         this.width = width;
         this.height = height;
-        this.tiles = ArrayUtils.clone(tiles);
+        this.chunks = toChunks(tiles);
     }
 
+    /**
+     * Creates a world with the same tiles, sharing all of them.
+     */
     public WorldState(WorldState worldState) {
         this.width = worldState.getWidth();
         this.height = worldState.getHeight();
-        this.tiles = worldState.getTiles();
+        this.chunks = worldState.chunks;
+        this.freeCells = worldState.freeCells;
+        this.headPositions = worldState.headPositions;
+    }
+
+    /**
+     * @return a copy of this world with the tile at position replaced
+     */
+    public WorldState withTile(int position, Tile tile) {
+        return withTiles(new int[] {position}, new Tile[] {tile});
+    }
+
+    /**
+     * Creates a copy of this world with some tiles replaced. Unlike
+     * building a new WorldState from getTiles() only the chunks holding
+     * replaced tiles are copied, and the index of empty positions is
+     * updated for the replaced tiles instead of rebuilt.
+     *
+     * @param positions the positions to replace, in the same order as tiles
+     */
+    public WorldState withTiles(int[] positions, Tile[] replacements) {
+        MutableWorldState derived = new MutableWorldState(this);
+        derived.setTiles(positions, replacements);
+        return derived.toWorldState();
+    }
+
+    WorldState(int width, int height, Tile[][] chunks, FreeCells freeCells, Map<String, Integer> headPositions) {
+        this.width = width;
+        this.height = height;
+        this.chunks = chunks;
+        this.freeCells = freeCells;
+        this.headPositions = headPositions;
     }
 
     public int getWidth() {
@@ -62,7 +119,7 @@ public class WorldState {
         if (position >= getSize())
             throw new OutOfBoundsException("Can not get tiles beyond world");
 
-        return tiles[position];
+        return tileAt(position);
     }
 
     public boolean isTileEmpty(int position) {
@@ -73,50 +130,53 @@ public class WorldState {
         return getTile(position).getContent().getClass() == clazz;
     }
 
+    /**
+     * @return the position of the SnakeHead of playerId or -1 if that
+     * snake is not in this world
+     */
     public int getPositionOfSnakeHead(String playerId) {
-        int[] snakeHeadPositions = listPositionsWithContentOf(SnakeHead.class);
+        Integer position = headPositions().get(playerId);
+        return position == null ? -1 : position;
+    }
 
-        for (int position : snakeHeadPositions) {
-            SnakeHead sh = (SnakeHead)getTile(position).getContent();
-            if (sh.getPlayerId().equals(playerId))
-                return position;
-        }
-        return -1;
+    public boolean hasSnake(String playerId) {
+        return headPositions().containsKey(playerId);
     }
 
     public SnakeHead getSnakeHeadById(String playerId) {
-        int[] snakeHeadPositions = listPositionsWithContentOf(SnakeHead.class);
-        for (int pos : snakeHeadPositions) {
-            SnakeHead head = (SnakeHead)tiles[pos].getContent();
-            if (head.getPlayerId().equals(playerId)) {
-                return head;
-            }
+        Integer position = headPositions().get(playerId);
+        if (position == null) {
+            throw new IllegalArgumentException("Could not find SnakeHead with playerId " + playerId);
         }
-        throw new IllegalArgumentException("Could not find SnakeHead with playerId " + playerId);
+        return (SnakeHead)tileAt(position).getContent();
     }
 
+    /**
+     * Every SnakePart carries the playerId of its snake, so the owner of a
+     * position is found through the tile content and the head index.
+     */
     public SnakeHead getSnakeHeadForBodyAt(int position) {
-        if (! (getTile(position).getContent() instanceof SnakePart)) {
+        WorldObject content = getTile(position).getContent();
+        if (! (content instanceof SnakePart)) {
             throw new RuntimeException("Tile at position " + position + " didn't contain a SnakePart");
         }
 
-        int[] snakeHeadPositions = listPositionsWithContentOf(SnakeHead.class);
-        for (int snakeHeadPosition : snakeHeadPositions) {
-            SnakeHead snakeHead = (SnakeHead)getTile(snakeHeadPosition).getContent();
-            int[] snakeSpread = getSnakeSpread(snakeHead);
-            if (ArrayUtils.contains(snakeSpread, position))
-                return snakeHead;
+        Integer headPosition = headPositions().get(((SnakePart)content).getPlayerId());
+        if (headPosition == null) {
+            throw new IllegalStateException("Found SnakePart without head");
         }
-
-        throw new IllegalStateException("Found SnakePart without head");
+        return (SnakeHead)tileAt(headPosition).getContent();
     }
 
+    /**
+     * @return the playerIds of all snakes in this world, ordered by the
+     * position of their heads
+     */
     public List<String> listSnakeIds() {
-
-        return Arrays.stream(tiles).filter(tile -> tile.getContent() instanceof SnakeHead)
-                .map(tile1 -> {
-                    return ((SnakeHead)tile1.getContent()).getPlayerId();
-                }).collect(Collectors.toList());
+        return headPositions().entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -125,14 +185,7 @@ public class WorldState {
      * @return an array of all positions that this snake occupies
      */
     public int[] getSnakeSpread(SnakeHead snakeHead) {
-        int[] snakeSpread = new int[snakeHead.getLength()];
-        int counter = 0;
-        SnakePart snakePart = (SnakePart)snakeHead;
-        while (snakePart != null) {
-            snakeSpread[counter++] = snakePart.getPosition();
-            snakePart = snakePart.getNextSnakePart();
-        }
-        return snakeSpread;
+        return snakeHead.getSpread();
     }
 
     public int getPositionForAdjacent(int position, Direction direction) {
@@ -194,6 +247,13 @@ public class WorldState {
     }
 
     public <T extends WorldObject> int[] listPositionsWithContentOf(Class<T> clazz) {
+        if (clazz == SnakeHead.class) {
+            return headPositions().values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        if (clazz == Empty.class) {
+            return freeCells().toSortedArray();
+        }
+
         return IntStream.range(0, getSize()).filter( position ->
             isTileContentOfType(position, clazz)).toArray();
     }
@@ -227,25 +287,114 @@ public class WorldState {
         return listPositionsWithContentOf(Obstacle.class);
     }
 
+    /**
+     * @return all empty positions not adjacent to a SnakeHead, in
+     * ascending order
+     */
     public int[] listEmptyValidPositions() {
-        int[] emptyPositions = listEmptyPositions();
-        int[] snakeAdjacentPositions = listPositionsAdjacentToSnakeHeads();
+        return IntStream.of(freeCells().toSortedArray())
+                .filter(pos -> !isAdjacentToSnakeHead(pos))
+                .toArray();
+    }
 
-        return IntStream.of(emptyPositions).filter(pos ->
-            !ArrayUtils.contains(snakeAdjacentPositions, pos)
-        ).toArray();
+    /**
+     * Picks one of the positions in listEmptyValidPositions() with equal
+     * probability. Random empty positions are tried first, which in all but
+     * a nearly full world avoids looking at the whole world.
+     *
+     * @return a random valid position or -1 if there is none
+     */
+    public int getRandomEmptyValidPosition(Random random) {
+        return freeCells().pickRandom(random, position -> !isAdjacentToSnakeHead(position));
+    }
+
+    public int countEmptyPositions() {
+        return freeCells().size();
+    }
+
+    public boolean isAdjacentToSnakeHead(int position) {
+        for (Direction direction : DIRECTIONS) {
+            if (hasAdjacentTile(position, direction) &&
+                    tileAt(getPositionForAdjacent(position, direction)).getContent() instanceof SnakeHead) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * @return a copy of the tiles
      */
     public Tile[] getTiles() {
-        return ArrayUtils.clone(tiles);
+        Tile[] tiles = new Tile[getSize()];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            System.arraycopy(chunks[chunk], 0, tiles, chunk << CHUNK_BITS, chunks[chunk].length);
+        }
+        return tiles;
+    }
+
+    private Tile tileAt(int position) {
+        return chunks[position >>> CHUNK_BITS][position & CHUNK_MASK];
+    }
+
+    Tile[][] chunks() {
+        return chunks;
+    }
+
+    /**
+     * @return the index of empty positions or null if not built yet
+     */
+    FreeCells builtFreeCells() {
+        return freeCells;
     }
 
     /**
-     * The world is represented by a single array
+     * @return the index of snake heads or null if not built yet
      */
+    Map<String, Integer> builtHeadPositions() {
+        return headPositions;
+    }
+
+    private Map<String, Integer> headPositions() {
+        Map<String, Integer> heads = headPositions;
+        if (heads == null) {
+            heads = new HashMap<>();
+            for (int position = 0; position < getSize(); position++) {
+                WorldObject content = tileAt(position).getContent();
+                if (content.getClass() == SnakeHead.class) {
+                    heads.put(((SnakeHead)content).getPlayerId(), position);
+                }
+            }
+            headPositions = heads;
+        }
+        return heads;
+    }
+
+    private FreeCells freeCells() {
+        FreeCells free = freeCells;
+        if (free == null) {
+            free = new FreeCells(getSize());
+            for (int position = 0; position < getSize(); position++) {
+                if (tileAt(position).getContent() instanceof Empty) {
+                    free.add(position);
+                }
+            }
+            freeCells = free;
+        }
+        return free;
+    }
+
+    private Tile[][] toChunks(Tile[] tiles) {
+        int size = getSize();
+        Tile[][] chunks = new Tile[(size + CHUNK_SIZE - 1) >>> CHUNK_BITS][];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int from = chunk << CHUNK_BITS;
+            chunks[chunk] = new Tile[Math.min(CHUNK_SIZE, size - from)];
+            System.arraycopy(tiles, from, chunks[chunk], 0, chunks[chunk].length);
+        }
+        return chunks;
+    }
+
     private Tile[] createEmptyTiles() {
         int size = getSize();
         Tile[] tiles = new Tile[size];
@@ -1,26 +1,40 @@
 package se.cygni.game.random;
 
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Borrowed from here:
  * http://www.javamex.com/tutorials/random_numbers/java_util_random_subclassing.shtml
  *
+ * Not thread safe, every game owns its own instance. Seeded with the
+ * same value it always produces the same sequence.
  */
 public class XORShiftRandom extends Random {
 
-    private AtomicLong seed = new AtomicLong(System.nanoTime());
+    private long seed;
 
     public XORShiftRandom() {
+        this(System.nanoTime());
     }
 
+    public XORShiftRandom(long seed) {
+        // Random(long) calls setSeed
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // A zero state would only ever produce zeros
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    @Override
     protected int next(int nbits) {
-        long x = this.seed.get();
+        long x = seed;
         x ^= (x << 21);
         x ^= (x >>> 35);
         x ^= (x << 4);
-        this.seed.set(x);
+        seed = x;
         x &= ((1L << nbits) -1);
         return (int) x;
     }
@@ -16,10 +16,18 @@ public class AddRandomObstacle implements WorldTransformation {
     private static Logger log = LoggerFactory
             .getLogger(AddRandomObstacle.class);
 
-    private Random random = new XORShiftRandom();
+    private final Random random;
     final static int[] sizes = new int[] {1, 2, 3};
     final static int MAX_RETRIES = 15;
 
+    public AddRandomObstacle() {
+        this(new XORShiftRandom());
+    }
+
+    public AddRandomObstacle(Random random) {
+        this.random = random;
+    }
+
     @Override
     public WorldState transform(WorldState currentWorld) {
 
@@ -29,14 +37,11 @@ public class AddRandomObstacle implements WorldTransformation {
             return currentWorld;
         }
 
-        Tile[] tiles = currentWorld.getTiles();
-
         int choosenSize = sizes[random.nextInt(3)];
 
-        boolean placedObstacle = false;
         int noofRetries = 0;
 
-        while (!placedObstacle && noofRetries < MAX_RETRIES) {
+        while (noofRetries < MAX_RETRIES) {
             noofRetries++;
 
             int randomPosition = validPositions[random.nextInt(validPositions.length)];
@@ -46,26 +51,24 @@ public class AddRandomObstacle implements WorldTransformation {
             if (isObstacleWithinBounds(randomPosition, choosenSize, currentWorld) &&
                     areAllPositionsAvailable(positionsNeeded, validPositions)) {
 
-                tiles = placeObstacle(positionsNeeded, currentWorld);
-                placedObstacle = true;
+                return placeObstacle(positionsNeeded, currentWorld);
             }
 
-            if (!placedObstacle)
-                log.debug("Had to replace obstacle!");
+            log.debug("Had to replace obstacle!");
         }
 
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        return currentWorld;
     }
 
-    private Tile[] placeObstacle(int[] positions, WorldState currentWorld) {
+    private WorldState placeObstacle(int[] positions, WorldState currentWorld) {
 
-        Tile[] tiles = currentWorld.getTiles();
+        Tile[] obstacles = new Tile[positions.length];
 
-        for (int pos : positions) {
-            tiles[pos] = new Tile(new Obstacle());
+        for (int i = 0; i < positions.length; i++) {
+            obstacles[i] = new Tile(new Obstacle());
         }
 
-        return tiles;
+        return currentWorld.withTiles(positions, obstacles);
     }
 
     private int[] listPositions(int choosenSize, int position, WorldState worldState) {
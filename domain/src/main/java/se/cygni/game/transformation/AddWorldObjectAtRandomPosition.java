@@ -1,49 +1,51 @@
 package se.cygni.game.transformation;
 
-import org.apache.commons.lang3.ArrayUtils;
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
 import se.cygni.game.WorldState;
 import se.cygni.game.random.XORShiftRandom;
 import se.cygni.game.worldobject.SnakePart;
 import se.cygni.game.worldobject.WorldObject;
 
+import java.util.Random;
+
 /**
  * Adds a WorldObject at random free Tile
  */
-public class AddWorldObjectAtRandomPosition implements WorldTransformation {
+public class AddWorldObjectAtRandomPosition implements InPlaceTransformation {
 
     private final WorldObject worldObject;
-    private XORShiftRandom random = new XORShiftRandom();
+    private final Random random;
 
     public AddWorldObjectAtRandomPosition(WorldObject worldObject) {
+        this(worldObject, new XORShiftRandom());
+    }
+
+    public AddWorldObjectAtRandomPosition(WorldObject worldObject, Random random) {
         this.worldObject = worldObject;
+        this.random = random;
     }
 
     @Override
     public WorldState transform(WorldState currentWorld) {
+        MutableWorldState world = new MutableWorldState(currentWorld);
+        transform(world);
+        return world.toWorldState();
+    }
 
-        int[] emptyPositions = currentWorld.listEmptyPositions();
-        if (emptyPositions.length == 0) {
-            return currentWorld;
-        }
-
-        int[] illegalPositions = currentWorld.listPositionsAdjacentToSnakeHeads();
+    @Override
+    public void transform(MutableWorldState world) {
 
-        int[] validPositions = ArrayUtils.removeElements(emptyPositions, illegalPositions);
-        if (validPositions.length == 0) {
-            return currentWorld;
+        int randomPosition = world.getRandomEmptyValidPosition(random);
+        if (randomPosition < 0) {
+            return;
         }
 
-        int randomPosition = validPositions[random.nextInt(validPositions.length)];
-
-        Tile[] tiles = currentWorld.getTiles();
-        tiles[randomPosition] = new Tile(worldObject);
-
         if (worldObject instanceof SnakePart) {
             SnakePart snakePart = (SnakePart)worldObject;
             snakePart.setPosition(randomPosition);
         }
 
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        world.setTile(randomPosition, new Tile(worldObject));
     }
 }
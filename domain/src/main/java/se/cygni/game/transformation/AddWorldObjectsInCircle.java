@@ -9,6 +9,7 @@ import se.cygni.game.worldobject.WorldObject;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -21,8 +22,12 @@ public class AddWorldObjectsInCircle implements WorldTransformation {
     private final double scaleFactor;
 
     public AddWorldObjectsInCircle(List<? extends WorldObject> worldObjects, double scaleFactor) {
+        this(worldObjects, scaleFactor, new XORShiftRandom());
+    }
+
+    public AddWorldObjectsInCircle(List<? extends WorldObject> worldObjects, double scaleFactor, Random random) {
         this.worldObjects = worldObjects;
-        Collections.shuffle(this.worldObjects, new XORShiftRandom());
+        Collections.shuffle(this.worldObjects, random);
         this.scaleFactor = scaleFactor;
     }
 
@@ -1,24 +1,29 @@
 package se.cygni.game.transformation;
 
-import se.cygni.game.Tile;
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.WorldState;
 import se.cygni.game.worldobject.SnakeHead;
 
 import java.util.stream.IntStream;
 
-public class DecrementTailProtection implements WorldTransformation {
+public class DecrementTailProtection implements InPlaceTransformation {
 
     @Override
     public WorldState transform(WorldState currentWorld) {
+        MutableWorldState world = new MutableWorldState(currentWorld);
+        transform(world);
+        return world.toWorldState();
+    }
+
+    @Override
+    public void transform(MutableWorldState world) {
 
-        Tile[] tiles = currentWorld.getTiles();
-        int[] headPositions = currentWorld.listPositionsWithContentOf(SnakeHead.class);
+        int[] headPositions = world.listPositionsWithContentOf(SnakeHead.class);
 
+        // No tile changes, the snake heads are changed in place
         IntStream.of(headPositions).forEach( headPosition -> {
-            SnakeHead snakeHead = (SnakeHead)tiles[headPosition].getContent();
+            SnakeHead snakeHead = (SnakeHead)world.getTile(headPosition).getContent();
             snakeHead.decrementTailProtection();
         });
-
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
     }
 }
@@ -0,0 +1,22 @@
+package se.cygni.game.transformation;
+
+import se.cygni.game.MutableWorldState;
+import se.cygni.game.WorldState;
+import se.cygni.game.exception.TransformationException;
+
+/**
+ * A WorldTransformation that can replace tiles in a working copy of the
+ * world instead of creating a new WorldState, so that several of them can
+ * run in a TransformationPipeline that publishes one world at the end.
+ */
+public interface InPlaceTransformation extends WorldTransformation {
+
+    void transform(MutableWorldState world) throws TransformationException;
+
+    @Override
+    default WorldState transform(WorldState currentWorld) throws TransformationException {
+        MutableWorldState world = new MutableWorldState(currentWorld);
+        transform(world);
+        return world.toWorldState();
+    }
+}
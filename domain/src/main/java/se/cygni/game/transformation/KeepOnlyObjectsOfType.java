@@ -4,12 +4,12 @@ import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.ArrayUtils;
 
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
-import se.cygni.game.WorldState;
 import se.cygni.game.exception.TransformationException;
 import se.cygni.game.worldobject.WorldObject;
 
-public class KeepOnlyObjectsOfType implements WorldTransformation {
+public class KeepOnlyObjectsOfType implements InPlaceTransformation {
 
     private final Class<WorldObject>[] types;
 
@@ -19,16 +19,12 @@ public class KeepOnlyObjectsOfType implements WorldTransformation {
     }
 
     @Override
-    public WorldState transform(WorldState currentWorld) throws TransformationException {
-	final Tile[] tiles = currentWorld.getTiles();
-
-	IntStream.range(0, tiles.length).forEach(pos -> {
-	    final WorldObject content = tiles[pos].getContent();
+    public void transform(MutableWorldState world) throws TransformationException {
+	IntStream.range(0, world.getSize()).forEach(pos -> {
+	    final WorldObject content = world.getTile(pos).getContent();
 	    if (!ArrayUtils.contains(types, content.getClass())) {
-		tiles[pos] = new Tile();
+		world.setTile(pos, new Tile());
 	    }
 	});
-
-	return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
     }
 }
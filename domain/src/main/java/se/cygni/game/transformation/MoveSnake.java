@@ -66,12 +66,25 @@ public class MoveSnake implements WorldTransformation {
             }
         }
 
-        Tile[] tiles = currentWorld.getTiles();
-
         growthExecuted = consumedFood || forceGrowth;
-        updateSnakeBody(tiles, targetSnakePos, snakeHead, growthExecuted);
-
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        int releasedPosition = snakeHead.moveTo(targetSnakePos, growthExecuted);
+
+        // Only the new head, the part that took its place and the released
+        // tail change
+        SnakePart follower = snakeHead.getNextSnakePart();
+        if (follower == null) {
+            return currentWorld.withTiles(
+                    new int[] {releasedPosition, targetSnakePos},
+                    new Tile[] {new Tile(), new Tile(snakeHead)});
+        }
+        if (releasedPosition < 0) {
+            return currentWorld.withTiles(
+                    new int[] {targetSnakePos, snakeHeadPos},
+                    new Tile[] {new Tile(snakeHead), new Tile(follower)});
+        }
+        return currentWorld.withTiles(
+                new int[] {releasedPosition, targetSnakePos, snakeHeadPos},
+                new Tile[] {new Tile(), new Tile(snakeHead), new Tile(follower)});
     }
 
     public boolean isGrowthExecuted() {
@@ -81,23 +94,4 @@ public class MoveSnake implements WorldTransformation {
     public boolean isFoodConsumed() {
         return consumedFood;
     }
-
-    private void updateSnakeBody(Tile[] tiles, int targetPosition, SnakePart snakePart, boolean grow) {
-        int currentPosition = snakePart.getPosition();
-
-        tiles[targetPosition] = new Tile(snakePart);
-        snakePart.setPosition(targetPosition);
-
-        if (snakePart.isTail()) {
-            if (grow) {
-                SnakeBody newTail = new SnakeBody(snakePart.getPlayerId(), currentPosition);
-                tiles[currentPosition] = new Tile(newTail);
-                snakePart.setNextSnakePart(newTail);
-            } else {
-                tiles[currentPosition] = new Tile();
-            }
-        } else {
-            updateSnakeBody(tiles, currentPosition, snakePart.getNextSnakePart(), grow);
-        }
-    }
 }
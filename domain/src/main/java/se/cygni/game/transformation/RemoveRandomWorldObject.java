@@ -1,35 +1,47 @@
 package se.cygni.game.transformation;
 
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
 import se.cygni.game.WorldState;
 import se.cygni.game.random.XORShiftRandom;
 import se.cygni.game.worldobject.Empty;
 import se.cygni.game.worldobject.WorldObject;
 
+import java.util.Random;
+
 /**
  * Adds a Food object at random free Tile
  */
-public class RemoveRandomWorldObject<T extends WorldObject> implements WorldTransformation {
+public class RemoveRandomWorldObject<T extends WorldObject> implements InPlaceTransformation {
 
     private final Class<T> worldObjectType;
-    private XORShiftRandom random = new XORShiftRandom();
+    private final Random random;
 
     public RemoveRandomWorldObject(Class<T> worldObjectType) {
+        this(worldObjectType, new XORShiftRandom());
+    }
+
+    public RemoveRandomWorldObject(Class<T> worldObjectType, Random random) {
         this.worldObjectType = worldObjectType;
+        this.random = random;
     }
 
     @Override
     public WorldState transform(WorldState currentWorld) {
+        MutableWorldState world = new MutableWorldState(currentWorld);
+        transform(world);
+        return world.toWorldState();
+    }
 
-        int[] positionsWithContentOfType = currentWorld.listPositionsWithContentOf(worldObjectType);
+    @Override
+    public void transform(MutableWorldState world) {
+
+        int[] positionsWithContentOfType = world.listPositionsWithContentOf(worldObjectType);
         if (positionsWithContentOfType.length == 0)
-            return currentWorld;
+            return;
 
         int randomPosition = positionsWithContentOfType[random.nextInt(positionsWithContentOfType.length)];
 
-        Tile[] tiles = currentWorld.getTiles();
-        tiles[randomPosition] = new Tile(new Empty());
-
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        world.setTile(randomPosition, new Tile(new Empty()));
     }
 }
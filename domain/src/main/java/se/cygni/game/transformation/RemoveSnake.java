@@ -1,12 +1,11 @@
 package se.cygni.game.transformation;
 
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
-import se.cygni.game.WorldState;
 import se.cygni.game.exception.TransformationException;
 import se.cygni.game.worldobject.SnakeHead;
-import se.cygni.game.worldobject.SnakePart;
 
-public class RemoveSnake implements WorldTransformation {
+public class RemoveSnake implements InPlaceTransformation {
 
     private SnakeHead snakeHead;
     private String snakeId;
@@ -20,28 +19,17 @@ public class RemoveSnake implements WorldTransformation {
     }
 
     @Override
-    public WorldState transform(WorldState currentWorld) throws TransformationException {
+    public void transform(MutableWorldState world) throws TransformationException {
         if (snakeHead == null) {
-            snakeHead = currentWorld.getSnakeHeadById(snakeId);
+            snakeHead = world.getSnakeHeadById(snakeId);
         }
 
-        Tile[] tiles = currentWorld.getTiles();
-
-        tiles[snakeHead.getPosition()] = new Tile();
-
-        if (!snakeHead.isTail())
-            removeSnakeBody(tiles, snakeHead.getNextSnakePart());
-
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
-    }
-
-    private void removeSnakeBody(Tile[] tiles, SnakePart snakePart) {
-
-        int currentPosition = snakePart.getPosition();
-        tiles[currentPosition] = new Tile();
-
-        if (!snakePart.isTail()) {
-            removeSnakeBody(tiles, snakePart.getNextSnakePart());
+        int[] snakeSpread = snakeHead.getSpread();
+        Tile[] emptyTiles = new Tile[snakeSpread.length];
+        for (int i = 0; i < emptyTiles.length; i++) {
+            emptyTiles[i] = new Tile();
         }
+
+        world.setTiles(snakeSpread, emptyTiles);
     }
 }
@@ -1,14 +1,14 @@
 package se.cygni.game.transformation;
 
+import se.cygni.game.MutableWorldState;
 import se.cygni.game.Tile;
-import se.cygni.game.WorldState;
 import se.cygni.game.exception.TransformationException;
 import se.cygni.game.worldobject.WorldObject;
 
 /**
  * Adds a Food object at random free Tile
  */
-public class ReplaceWorldObject implements WorldTransformation {
+public class ReplaceWorldObject implements InPlaceTransformation {
 
     private final WorldObject worldObject;
     private final int position;
@@ -19,14 +19,11 @@ public class ReplaceWorldObject implements WorldTransformation {
     }
 
     @Override
-    public WorldState transform(WorldState currentWorld) throws TransformationException {
+    public void transform(MutableWorldState world) throws TransformationException {
         if (worldObject == null) {
             throw new TransformationException("Cannot replace a WorldObject with null!");
         }
 
-        Tile[] tiles = currentWorld.getTiles();
-        tiles[position] = new Tile(worldObject);
-
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        world.setTile(position, new Tile(worldObject));
     }
 }
@@ -5,7 +5,6 @@ import se.cygni.game.Tile;
 import se.cygni.game.WorldState;
 import se.cygni.game.exception.TransformationException;
 import se.cygni.game.worldobject.SnakeHead;
-import se.cygni.game.worldobject.SnakePart;
 
 /**
  * Adds a Food object at random free Tile
@@ -36,14 +35,9 @@ public class TailNibbled implements WorldTransformation {
             throw new TransformationException("Supplied position was not the snakes tail");
         }
 
-        Tile[] tiles = currentWorld.getTiles();
-        tiles[position] = new Tile();
-
-        int previousPartPosition = snakeSpread[snakeSpread.length - 2];
-        SnakePart previousPart = (SnakePart) tiles[previousPartPosition].getContent();
-        previousPart.setNextSnakePart(null);
+        head.removeTail();
 
         head.setTailProtectedForGameTicks(protectedForTicks + 1);
-        return new WorldState(currentWorld.getWidth(), currentWorld.getHeight(), tiles);
+        return currentWorld.withTile(position, new Tile());
     }
 }
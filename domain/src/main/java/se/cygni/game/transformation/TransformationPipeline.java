@@ -0,0 +1,40 @@
+package se.cygni.game.transformation;
+
+import se.cygni.game.MutableWorldState;
+import se.cygni.game.WorldState;
+import se.cygni.game.exception.TransformationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a sequence of transformations as one. InPlaceTransformations all
+ * work on the same working copy of the world and only the end result is
+ * published as a WorldState. Any other transformation is given the world
+ * as it is at that point, and the working copy continues from its result.
+ *
+ * The result is the same as running the transformations one after the
+ * other.
+ */
+public class TransformationPipeline implements WorldTransformation {
+
+    private final List<WorldTransformation> transformations = new ArrayList<>();
+
+    public TransformationPipeline then(WorldTransformation transformation) {
+        transformations.add(transformation);
+        return this;
+    }
+
+    @Override
+    public WorldState transform(WorldState currentWorld) throws TransformationException {
+        MutableWorldState world = new MutableWorldState(currentWorld);
+        for (WorldTransformation transformation : transformations) {
+            if (transformation instanceof InPlaceTransformation) {
+                ((InPlaceTransformation) transformation).transform(world);
+            } else {
+                world = new MutableWorldState(transformation.transform(world.toWorldState()));
+            }
+        }
+        return world.toWorldState();
+    }
+}
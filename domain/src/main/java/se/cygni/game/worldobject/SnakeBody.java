@@ -6,6 +6,9 @@ public class SnakeBody implements SnakePart {
     private int position;
     private String playerId;
 
+    // The head that indexed this part, told when the chain changes
+    private SnakeHead owner;
+
     public SnakeBody(String playerId, SnakePart nextSnakePart, int position) {
         this.playerId = playerId;
         this.nextSnakePart = nextSnakePart;
@@ -30,6 +33,7 @@ public class SnakeBody implements SnakePart {
     @Override
     public void setNextSnakePart(SnakePart nextSnakePart) {
         this.nextSnakePart = nextSnakePart;
+        invalidateOwner();
     }
 
     @Override
@@ -50,5 +54,28 @@ public class SnakeBody implements SnakePart {
     @Override
     public void setPosition(int position) {
         this.position = position;
+        invalidateOwner();
+    }
+
+    void setOwner(SnakeHead owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Links this part to owner without invalidating its spread
+     */
+    void follow(SnakeHead owner, SnakePart nextSnakePart) {
+        this.owner = owner;
+        this.nextSnakePart = nextSnakePart;
+    }
+
+    void moveTo(int position) {
+        this.position = position;
+    }
+
+    private void invalidateOwner() {
+        if (owner != null) {
+            owner.invalidateSpread();
+        }
     }
 }
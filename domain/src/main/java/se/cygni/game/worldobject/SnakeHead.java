@@ -10,6 +10,12 @@ public class SnakeHead implements SnakePart {
     private int tailProtectedForGameTicks;
     private SnakePart nextSnakePart = null;
 
+    // The chain of SnakeParts in a ring buffer, rebuilt from the chain on
+    // first use after the chain was changed through setNextSnakePart or
+    // setPosition. Moves made with moveTo keep it up to date.
+    private final SnakeSpread spread = new SnakeSpread();
+    private boolean spreadValid = false;
+
     public SnakeHead(String name, String playerId, int position) {
         this.name = name;
         this.playerId = playerId;
@@ -42,6 +48,7 @@ public class SnakeHead implements SnakePart {
     @Override
     public void setNextSnakePart(SnakePart nextSnakePart) {
         this.nextSnakePart = nextSnakePart;
+        invalidateSpread();
     }
 
     public String getName() {
@@ -54,6 +61,7 @@ public class SnakeHead implements SnakePart {
 
     public void setPosition(int position) {
         this.position = position;
+        invalidateSpread();
     }
 
     public int getTailProtectedForGameTicks() {
@@ -71,17 +79,103 @@ public class SnakeHead implements SnakePart {
     }
 
     public int getLength() {
-        int length = 0;
-        SnakePart part = this;
-        while (part != null) {
-            length++;
-            part = part.getNextSnakePart();
+        return spread().length();
+    }
+
+    /**
+     * @return the positions of all parts of this snake, head first
+     */
+    public int[] getSpread() {
+        return spread().toArray();
+    }
+
+    public int getTailPosition() {
+        SnakeSpread parts = spread();
+        return parts.getPosition(parts.length() - 1);
+    }
+
+    /**
+     * Moves the head to target in constant time. The tail, or a new
+     * SnakeBody if the snake grows, takes the place the head left, so no
+     * other part of the snake is touched.
+     *
+     * @return the position released by the tail or -1 if the snake grew
+     */
+    public int moveTo(int target, boolean grow) {
+        SnakeSpread parts = spread();
+        int previousPosition = position;
+        int released = -1;
+
+        SnakeBody follower = null;
+        if (grow) {
+            follower = new SnakeBody(playerId, previousPosition);
+        } else {
+            released = parts.getPosition(parts.length() - 1);
+            if (parts.length() > 1) {
+                follower = (SnakeBody) parts.removeLast();
+                link(parts.getPart(parts.length() - 1), null);
+                follower.moveTo(previousPosition);
+            }
+        }
+
+        position = target;
+        if (follower == null) {
+            parts.set(0, this, target);
+            return released;
         }
 
-        return length;
+        follower.follow(this, nextSnakePart);
+        nextSnakePart = follower;
+        parts.set(0, follower, previousPosition);
+        parts.addFirst(this, target);
+        return released;
+    }
+
+    /**
+     * Removes the last part of this snake in constant time.
+     *
+     * @return the removed tail
+     */
+    public SnakePart removeTail() {
+        SnakeSpread parts = spread();
+        if (parts.length() < 2) {
+            throw new IllegalStateException("Snake " + playerId + " has no tail to remove");
+        }
+
+        SnakePart tail = parts.removeLast();
+        link(parts.getPart(parts.length() - 1), null);
+        return tail;
     }
 
     public String getPlayerId() {
         return playerId;
     }
+
+    void invalidateSpread() {
+        spreadValid = false;
+    }
+
+    private SnakeSpread spread() {
+        if (!spreadValid) {
+            spread.clear();
+            SnakePart part = this;
+            while (part != null) {
+                if (part instanceof SnakeBody) {
+                    ((SnakeBody) part).setOwner(this);
+                }
+                spread.addLast(part, part.getPosition());
+                part = part.getNextSnakePart();
+            }
+            spreadValid = true;
+        }
+        return spread;
+    }
+
+    private void link(SnakePart part, SnakePart next) {
+        if (part == this) {
+            nextSnakePart = next;
+        } else {
+            ((SnakeBody) part).follow(this, next);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package se.cygni.game.worldobject;
+
+import java.util.Arrays;
+
+/**
+ * The parts of one snake, head first, in a ring buffer.
+ *
+ * Positions are kept in a circular int[] next to the parts themselves, so
+ * pushing a new head and popping the tail are both O(1) and the positions
+ * of the whole snake are copied out with at most two array copies.
+ */
+class SnakeSpread {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private SnakePart[] parts = new SnakePart[INITIAL_CAPACITY];
+    private int headIndex = 0;
+    private int length = 0;
+
+    void clear() {
+        Arrays.fill(parts, null);
+        headIndex = 0;
+        length = 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void addFirst(SnakePart part, int position) {
+        ensureCapacity(length + 1);
+        headIndex = (headIndex - 1) & mask();
+        positions[headIndex] = position;
+        parts[headIndex] = part;
+        length++;
+    }
+
+    void addLast(SnakePart part, int position) {
+        ensureCapacity(length + 1);
+        int index = (headIndex + length) & mask();
+        positions[index] = position;
+        parts[index] = part;
+        length++;
+    }
+
+    SnakePart removeLast() {
+        int index = (headIndex + length - 1) & mask();
+        SnakePart part = parts[index];
+        parts[index] = null;
+        length--;
+        return part;
+    }
+
+    /**
+     * @param i 0 for the head, length() - 1 for the tail
+     */
+    SnakePart getPart(int i) {
+        return parts[(headIndex + i) & mask()];
+    }
+
+    int getPosition(int i) {
+        return positions[(headIndex + i) & mask()];
+    }
+
+    void set(int i, SnakePart part, int position) {
+        int index = (headIndex + i) & mask();
+        positions[index] = position;
+        parts[index] = part;
+    }
+
+    int[] toArray() {
+        int[] spread = new int[length];
+        int firstRun = Math.min(length, positions.length - headIndex);
+        System.arraycopy(positions, headIndex, spread, 0, firstRun);
+        if (firstRun < length) {
+            System.arraycopy(positions, 0, spread, firstRun, length - firstRun);
+        }
+        return spread;
+    }
+
+    private int mask() {
+        return positions.length - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) {
+            return;
+        }
+
+        int newCapacity = positions.length << 1;
+        int[] newPositions = new int[newCapacity];
+        SnakePart[] newParts = new SnakePart[newCapacity];
+        for (int i = 0; i < length; i++) {
+            newPositions[i] = getPosition(i);
+            newParts[i] = getPart(i);
+        }
+        positions = newPositions;
+        parts = newParts;
+        headIndex = 0;
+    }
+}
@@ -0,0 +1,67 @@
+package se.cygni.game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MergeBufferTest {
+
+    @Test
+    public void testAddAndRead() {
+        MergeBuffer buffer = new MergeBuffer(100);
+        buffer.add(42, 0, MergeBuffer.HEAD);
+        buffer.add(42, 3, MergeBuffer.BODY);
+        buffer.add(7, 1, MergeBuffer.HEAD);
+
+        assertEquals(2, buffer.count(42));
+        assertEquals(1, buffer.count(7));
+        assertEquals(0, buffer.count(8));
+        assertFalse(buffer.isOccupied(8));
+
+        assertEquals(0, buffer.getOccupant(42, 0));
+        assertEquals(MergeBuffer.HEAD, buffer.getTag(42, 0));
+        assertEquals(3, buffer.getOccupant(42, 1));
+        assertEquals(MergeBuffer.BODY, buffer.getTag(42, 1));
+        assertEquals(1, buffer.countTagged(42, MergeBuffer.HEAD));
+        assertEquals(1, buffer.countTagged(42, MergeBuffer.BODY));
+    }
+
+    @Test
+    public void testOccupiedPositions() {
+        MergeBuffer buffer = new MergeBuffer(100);
+        buffer.add(42, 0, MergeBuffer.HEAD);
+        buffer.add(7, 1, MergeBuffer.HEAD);
+        buffer.add(42, 2, MergeBuffer.HEAD);
+
+        assertEquals(2, buffer.getNoofOccupiedPositions());
+        assertEquals(42, buffer.getOccupiedPosition(0));
+        assertEquals(7, buffer.getOccupiedPosition(1));
+
+        buffer.sortOccupiedPositions();
+        assertEquals(7, buffer.getOccupiedPosition(0));
+        assertEquals(42, buffer.getOccupiedPosition(1));
+    }
+
+    @Test
+    public void testClearForgetsAllTiles() {
+        MergeBuffer buffer = new MergeBuffer(100);
+        buffer.add(42, 0, MergeBuffer.HEAD);
+        buffer.add(42, 1, MergeBuffer.HEAD);
+
+        buffer.clear();
+        assertEquals(0, buffer.count(42));
+        assertEquals(0, buffer.getNoofOccupiedPositions());
+
+        buffer.add(42, 5, MergeBuffer.BODY);
+        assertEquals(1, buffer.count(42));
+        assertEquals(5, buffer.getOccupant(42, 0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTooManyOccupants() {
+        MergeBuffer buffer = new MergeBuffer(10);
+        for (int occupant = 0; occupant < 9; occupant++) {
+            buffer.add(3, occupant, MergeBuffer.HEAD);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package se.cygni.game;
+
+import org.junit.Test;
+import se.cygni.game.enums.Direction;
+import se.cygni.game.exception.OutOfBoundsException;
+import se.cygni.game.testutil.SnakeTestUtil;
+import se.cygni.game.worldobject.Food;
+import se.cygni.game.worldobject.Obstacle;
+import se.cygni.game.worldobject.SnakeBody;
+import se.cygni.game.worldobject.SnakeHead;
+
+import static org.junit.Assert.*;
+
+public class PackedWorldStateTest {
+
+    @Test
+    public void testAddSnake() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32, 42);
+
+        assertEquals(PackedWorldState.SNAKE_HEAD, ws.getContentType(22));
+        assertEquals(PackedWorldState.SNAKE_BODY, ws.getContentType(32));
+        assertEquals(PackedWorldState.SNAKE_BODY, ws.getContentType(42));
+        assertEquals(slot, ws.getOwner(42));
+        assertEquals(slot, ws.getSnakeSlot("id"));
+        assertEquals(3, ws.getSnakeLength(slot));
+        assertArrayEquals(new int[] {22, 32, 42}, ws.getSnakeSpread("id"));
+    }
+
+    @Test
+    public void testIsTileEmpty() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        ws.setContent(12, PackedWorldState.FOOD);
+
+        assertFalse(ws.isTileEmpty(12));
+        assertTrue(ws.isTileEmpty(0));
+        assertTrue(ws.isTileContentOfType(12, Food.class));
+    }
+
+    @Test(expected = OutOfBoundsException.class)
+    public void testGetContentOutOfBounds() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        ws.getContentType(100);
+    }
+
+    @Test
+    public void testGetPositionForAdjacent() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+
+        assertEquals(10, ws.getPositionForAdjacent(0, Direction.DOWN));
+        assertEquals(1, ws.getPositionForAdjacent(0, Direction.RIGHT));
+        assertEquals(89, ws.getPositionForAdjacent(99, Direction.UP));
+        assertEquals(98, ws.getPositionForAdjacent(99, Direction.LEFT));
+
+        assertFalse(ws.hasAdjacentTile(19, Direction.RIGHT));
+        assertFalse(ws.hasAdjacentTile(10, Direction.LEFT));
+    }
+
+    @Test(expected = OutOfBoundsException.class)
+    public void testGetPositionForAdjacentOutOfBounds() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        ws.getPositionForAdjacent(0, Direction.UP);
+    }
+
+    @Test
+    public void testListPositionsWithContentOf() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        ws.setContent(5, PackedWorldState.FOOD);
+        ws.setContent(25, PackedWorldState.FOOD);
+        ws.setContent(78, PackedWorldState.OBSTACLE);
+        ws.addSnake("snake", "id", 40, 41);
+
+        assertArrayEquals(new int[] {5, 25}, ws.listPositionsWithContentOf(Food.class));
+        assertArrayEquals(new int[] {78}, ws.listPositionsWithContentOf(Obstacle.class));
+        assertArrayEquals(new int[] {40}, ws.listPositionsWithContentOf(SnakeHead.class));
+        assertArrayEquals(new int[] {41}, ws.listPositionsWithContentOf(SnakeBody.class));
+
+        int[] buffer = new int[ws.getSize()];
+        assertEquals(2, ws.listPositionsWithContentOf(PackedWorldState.FOOD, buffer));
+        assertEquals(5, buffer[0]);
+        assertEquals(25, buffer[1]);
+    }
+
+    @Test
+    public void testMoveSnake() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32, 42);
+
+        ws.moveSnake(slot, 12, false);
+
+        assertArrayEquals(new int[] {12, 22, 32}, ws.getSnakeSpread(slot));
+        assertEquals(PackedWorldState.SNAKE_HEAD, ws.getContentType(12));
+        assertEquals(PackedWorldState.SNAKE_BODY, ws.getContentType(22));
+        assertTrue(ws.isTileEmpty(42));
+        assertEquals(PackedWorldState.NO_SNAKE, ws.getOwner(42));
+    }
+
+    @Test
+    public void testMoveSnakeWithGrowth() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22);
+
+        ws.moveSnake(slot, 23, true);
+        ws.moveSnake(slot, 24, false);
+
+        assertArrayEquals(new int[] {24, 23}, ws.getSnakeSpread(slot));
+        assertEquals(2, ws.getSnakeLength(slot));
+        assertTrue(ws.isTileEmpty(22));
+    }
+
+    @Test
+    public void testMoveSnakeIntoOwnTail() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 11, 12, 22, 21);
+
+        ws.moveSnake(slot, 21, false);
+
+        assertArrayEquals(new int[] {21, 11, 12, 22}, ws.getSnakeSpread(slot));
+        assertEquals(PackedWorldState.SNAKE_HEAD, ws.getContentType(21));
+        assertEquals(slot, ws.getOwner(21));
+    }
+
+    @Test
+    public void testLongSnakeWrapsAroundRingBuffer() throws Exception {
+        PackedWorldState ws = new PackedWorldState(100, 1);
+        int slot = ws.addSnake("snake", "id", 0);
+
+        for (int pos = 1; pos < 60; pos++) {
+            ws.moveSnake(slot, pos, pos % 2 == 0);
+        }
+
+        int[] spread = ws.getSnakeSpread(slot);
+        assertEquals(30, spread.length);
+        for (int i = 0; i < spread.length; i++) {
+            assertEquals(59 - i, spread[i]);
+        }
+        assertEquals(30, ws.countPositionsWithContentOf(PackedWorldState.SNAKE_HEAD)
+                + ws.countPositionsWithContentOf(PackedWorldState.SNAKE_BODY));
+    }
+
+    @Test
+    public void testRemoveTail() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32, 42);
+
+        ws.removeTail(slot);
+
+        assertArrayEquals(new int[] {22, 32}, ws.getSnakeSpread(slot));
+        assertTrue(ws.isTileEmpty(42));
+    }
+
+    @Test
+    public void testRemoveSnake() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32, 42);
+
+        ws.removeSnake(slot);
+
+        assertFalse(ws.isSnakeAlive(slot));
+        assertEquals(0, ws.countPositionsWithContentOf(PackedWorldState.SNAKE_BODY));
+        assertTrue(ws.isTileEmpty(22));
+        assertEquals(PackedWorldState.NO_SNAKE, ws.getSnakeSlot("id"));
+    }
+
+    @Test
+    public void testRemovedSnakeCanBeAddedAgain() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32, 42);
+        ws.setPoints(slot, 7);
+        ws.removeSnake(slot);
+
+        assertEquals(slot, ws.addSnake("snake", "id", 55));
+        assertEquals(1, ws.getNoofSnakeSlots());
+        assertEquals(slot, ws.getSnakeSlot("id"));
+        assertEquals(0, ws.getPoints(slot));
+        assertArrayEquals(new int[] {55}, ws.getSnakeSpread("id"));
+        assertTrue(ws.isTileEmpty(22));
+    }
+
+    @Test
+    public void testCopyIsIndependent() throws Exception {
+        PackedWorldState ws = new PackedWorldState(10, 10);
+        int slot = ws.addSnake("snake", "id", 22, 32);
+
+        PackedWorldState copy = new PackedWorldState(ws);
+        copy.moveSnake(slot, 12, false);
+
+        assertArrayEquals(new int[] {22, 32}, ws.getSnakeSpread(slot));
+        assertArrayEquals(new int[] {12, 22}, copy.getSnakeSpread(slot));
+    }
+
+    @Test
+    public void testConversionRoundTrip() throws Exception {
+        WorldState ws = SnakeTestUtil.createWorld(Obstacle.class, 10, 10, 5, 6, 7);
+        ws = SnakeTestUtil.replaceWorldObjectAt(ws, new Food(), 55);
+        ws = SnakeTestUtil.addSnake(ws, SnakeTestUtil.createSnake("snake1", "id1", 22, 32, 33));
+        ws = SnakeTestUtil.addSnake(ws, SnakeTestUtil.createSnake("snake2", "id2", 77, 78));
+        ws.getSnakeHeadById("id1").setPoints(12);
+        ws.getSnakeHeadById("id2").setTailProtectedForGameTicks(3);
+
+        PackedWorldState packed = PackedWorldState.fromWorldState(ws);
+
+        assertArrayEquals(ws.listObstaclePositions(), packed.listPositionsWithContentOf(Obstacle.class));
+        assertArrayEquals(ws.listFoodPositions(), packed.listPositionsWithContentOf(Food.class));
+        assertArrayEquals(new int[] {22, 32, 33}, packed.getSnakeSpread("id1"));
+        assertArrayEquals(new int[] {77, 78}, packed.getSnakeSpread("id2"));
+
+        WorldState converted = packed.toWorldState();
+
+        assertArrayEquals(ws.listObstaclePositions(), converted.listObstaclePositions());
+        assertArrayEquals(ws.listFoodPositions(), converted.listFoodPositions());
+        assertArrayEquals(new int[] {22, 32, 33}, converted.getSnakeSpread(converted.getSnakeHeadById("id1")));
+        assertEquals("snake2", converted.getSnakeHeadById("id2").getName());
+        assertEquals(12, converted.getSnakeHeadById("id1").getPoints());
+        assertEquals(3, converted.getSnakeHeadById("id2").getTailProtectedForGameTicks());
+    }
+}
@@ -11,6 +11,7 @@ import se.cygni.game.worldobject.Obstacle;
 import se.cygni.game.worldobject.SnakeHead;
 import se.cygni.game.worldobject.SnakePart;
 
+import java.util.Random;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -286,6 +287,47 @@ public class WorldStateTest {
         assertArrayEquals(validPositions, ws.listEmptyValidPositions());
     }
 
+    @Test
+    public void testWithTilesUpdatesEmptyPositions() throws Exception {
+        WorldState ws = SnakeTestUtil.createWorld(Food.class, 10, 10, 2, 6, 90);
+        assertEquals(97, ws.countEmptyPositions());
+
+        SnakeHead head = new SnakeHead("h1", "p1", 16);
+        ws = ws.withTiles(new int[] {2, 16, 55}, new Tile[] {new Tile(), new Tile(head), new Tile(new Obstacle())});
+
+        assertEquals(96, ws.countEmptyPositions());
+        assertArrayEquals(new WorldState(10, 10, ws.getTiles()).listEmptyValidPositions(), ws.listEmptyValidPositions());
+        assertTrue(ArrayUtils.contains(ws.listEmptyValidPositions(), 2));
+        assertFalse(ArrayUtils.contains(ws.listEmptyValidPositions(), 17));
+    }
+
+    @Test
+    public void testGetRandomEmptyValidPosition() throws Exception {
+        WorldState ws = SnakeTestUtil.createWorld(Food.class, 5, 5, 2, 6, 20);
+        ws = SnakeTestUtil.replaceWorldObjectAt(ws, new SnakeHead("h1", "p1", 12), 12);
+
+        int[] validPositions = ws.listEmptyValidPositions();
+        int[] picked = new int[ws.getSize()];
+        Random random = new Random(4711);
+        for (int i = 0; i < 2000; i++) {
+            int position = ws.getRandomEmptyValidPosition(random);
+            assertTrue(ArrayUtils.contains(validPositions, position));
+            picked[position]++;
+        }
+
+        for (int position : validPositions) {
+            assertTrue(picked[position] > 0);
+        }
+    }
+
+    @Test
+    public void testGetRandomEmptyValidPositionWithoutValidPositions() throws Exception {
+        WorldState ws = SnakeTestUtil.createWorld(Obstacle.class, 3, 1, 0, 2);
+        ws = SnakeTestUtil.replaceWorldObjectAt(ws, new SnakeHead("h1", "p1", 0), 0);
+
+        assertEquals(-1, ws.getRandomEmptyValidPosition(new Random(17)));
+    }
+
     @Test
     public void testListFoodPositions() throws Exception {
 
@@ -493,6 +535,45 @@ public class WorldStateTest {
         assertEquals(parts[0], head);
     }
 
+    @Test
+    public void testSnakeLookupsFollowWithTiles() throws Exception {
+        WorldState ws = new WorldState(10, 10);
+
+        SnakePart[] snake1 = SnakeTestUtil.createSnake("s1", "id1", 13, 23, 24);
+        SnakePart[] snake2 = SnakeTestUtil.createSnake("s2", "id2", 77, 78);
+        ws = SnakeTestUtil.addSnake(ws, snake1);
+        ws = SnakeTestUtil.addSnake(ws, snake2);
+
+        assertEquals(13, ws.getPositionOfSnakeHead("id1"));
+        assertEquals(snake1[0], ws.getSnakeHeadForBodyAt(24));
+        assertThat(ws.listSnakeIds(), contains("id1", "id2"));
+
+        // Move snake 1 up and remove snake 2
+        snake1[0].setPosition(3);
+        snake1[1].setPosition(13);
+        snake1[2].setPosition(23);
+        ws = ws.withTiles(
+                new int[] {13, 23, 24, 77, 78, 3, 13, 23},
+                new Tile[] {new Tile(), new Tile(), new Tile(), new Tile(), new Tile(),
+                        new Tile(snake1[0]), new Tile(snake1[1]), new Tile(snake1[2])});
+
+        assertEquals(3, ws.getPositionOfSnakeHead("id1"));
+        assertEquals(snake1[0], ws.getSnakeHeadById("id1"));
+        assertEquals(snake1[0], ws.getSnakeHeadForBodyAt(23));
+        assertEquals(-1, ws.getPositionOfSnakeHead("id2"));
+        assertFalse(ws.hasSnake("id2"));
+        assertThat(ws.listSnakeIds(), contains("id1"));
+        assertArrayEquals(new int[] {3}, ws.listPositionsWithContentOf(SnakeHead.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSnakeHeadByIdMissing() throws Exception {
+        WorldState ws = new WorldState(10, 10);
+        ws = SnakeTestUtil.addSnake(ws, SnakeTestUtil.createSnake("s1", "id1", 13, 23));
+
+        ws.getSnakeHeadById("id2");
+    }
+
     @Test(expected = RuntimeException.class)
     public void testGetSnakeHeadForBodyAtNonSnakePosition() throws Exception {
         WorldState ws = new WorldState(10, 10);
@@ -512,6 +593,53 @@ public class WorldStateTest {
         ws.getSnakeHeadForBodyAt(73);
     }
 
+    @Test
+    public void testWithTilesLeavesOriginalUnchanged() throws Exception {
+        WorldState ws = new WorldState(15, 15);
+        Food food = new Food();
+        Obstacle obstacle = new Obstacle();
+
+        WorldState derived = ws.withTiles(new int[] {3, 200, 224}, new Tile[] {new Tile(food), new Tile(obstacle), new Tile(food)});
+
+        assertEquals(food, derived.getTile(3).getContent());
+        assertEquals(obstacle, derived.getTile(200).getContent());
+        assertEquals(food, derived.getTile(224).getContent());
+        assertEquals(0, ws.listNonEmptyPositions().length);
+        assertEquals(225, ws.countEmptyPositions());
+        assertEquals(222, derived.countEmptyPositions());
+        assertArrayEquals(new int[] {3, 200, 224}, derived.listNonEmptyPositions());
+    }
+
+    @Test
+    public void testDerivedWorldsShareUntouchedTiles() throws Exception {
+        WorldState ws = new WorldState(20, 20);
+        Tile untouched = ws.getTile(399);
+
+        WorldState derived = ws.withTile(0, new Tile(new Food()));
+
+        assertSame(untouched, derived.getTile(399));
+        assertSame(untouched, new WorldState(derived).getTile(399));
+    }
+
+    @Test
+    public void testSiblingWorldsAreIndependent() throws Exception {
+        WorldState ws = new WorldState(10, 10);
+        ws.countEmptyPositions();
+
+        WorldState withFood = ws.withTile(42, new Tile(new Food()));
+        WorldState withObstacle = ws.withTile(43, new Tile(new Obstacle()));
+
+        assertArrayEquals(new int[] {42}, withFood.listFoodPositions());
+        assertEquals(0, withFood.listObstaclePositions().length);
+        assertArrayEquals(new int[] {43}, withObstacle.listObstaclePositions());
+        assertEquals(0, withObstacle.listFoodPositions().length);
+        assertTrue(withFood.isTileEmpty(43));
+        assertEquals(99, withFood.countEmptyPositions());
+        assertEquals(99, withObstacle.countEmptyPositions());
+        assertFalse(IntStream.of(withObstacle.listEmptyPositions()).anyMatch(p -> p == 43));
+        assertTrue(IntStream.of(withObstacle.listEmptyPositions()).anyMatch(p -> p == 42));
+    }
+
     @Test @Ignore
     public void testPrintCoordinatePosition() {
         int size = 10;
@@ -0,0 +1,35 @@
+package se.cygni.game.random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class XORShiftRandomTest {
+
+    @Test
+    public void testSameSeedGivesSameSequence() throws Exception {
+        XORShiftRandom first = new XORShiftRandom(4711);
+        XORShiftRandom second = new XORShiftRandom(4711);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.nextInt(46), second.nextInt(46));
+        }
+    }
+
+    @Test
+    public void testSetSeedRestartsSequence() throws Exception {
+        XORShiftRandom random = new XORShiftRandom(17);
+        long first = random.nextLong();
+
+        random.setSeed(17);
+        assertEquals(first, random.nextLong());
+    }
+
+    @Test
+    public void testZeroSeed() throws Exception {
+        XORShiftRandom random = new XORShiftRandom(0);
+
+        assertNotEquals(random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,171 @@
+package se.cygni.game.transformation;
+
+import org.junit.Test;
+import se.cygni.game.Tile;
+import se.cygni.game.WorldState;
+import se.cygni.game.exception.TransformationException;
+import se.cygni.game.random.XORShiftRandom;
+import se.cygni.game.testutil.SnakeTestUtil;
+import se.cygni.game.worldobject.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs random sequences of transformations one by one and as a
+ * TransformationPipeline on identical worlds and compares the results.
+ */
+public class TransformationPipelineTest {
+
+    private static final int WIDTH = 15;
+    private static final int HEIGHT = 15;
+    private static final int NOOF_SEQUENCES = 300;
+
+    @Test
+    public void testPipelineIsEquivalentToSequentialTransformations() throws Exception {
+        for (long seed = 0; seed < NOOF_SEQUENCES; seed++) {
+            WorldState sequential = createWorld();
+            for (WorldTransformation transformation : createTransformations(seed)) {
+                sequential = transformation.transform(sequential);
+            }
+
+            TransformationPipeline pipeline = new TransformationPipeline();
+            for (WorldTransformation transformation : createTransformations(seed)) {
+                pipeline.then(transformation);
+            }
+            WorldState fused = pipeline.transform(createWorld());
+
+            assertEquivalent("seed " + seed, sequential, fused);
+        }
+    }
+
+    @Test
+    public void testPipelineLeavesInputUnchanged() throws Exception {
+        WorldState ws = createWorld();
+        Tile[] before = ws.getTiles();
+
+        WorldState result = new TransformationPipeline()
+                .then(new ReplaceWorldObject(new Obstacle(), 0))
+                .then(new AddWorldObjectAtRandomPosition(new Food(), new XORShiftRandom(1)))
+                .then(new RemoveSnake("id1"))
+                .transform(ws);
+
+        assertArrayEquals(before, ws.getTiles());
+        assertTrue(ws.hasSnake("id1"));
+        assertFalse(result.hasSnake("id1"));
+        assertTrue(result.getTile(0).getContent() instanceof Obstacle);
+    }
+
+    @Test
+    public void testFailingStepPublishesNothing() throws Exception {
+        WorldState ws = createWorld();
+        Tile[] before = ws.getTiles();
+
+        TransformationPipeline pipeline = new TransformationPipeline()
+                .then(new ReplaceWorldObject(new Obstacle(), 0))
+                .then((InPlaceTransformation) world -> {
+                    throw new TransformationException("Failing step");
+                });
+
+        try {
+            pipeline.transform(ws);
+            fail("Expected the failing step to abort the pipeline");
+        } catch (TransformationException e) {
+            // The caller keeps ws
+        }
+
+        assertArrayEquals(before, ws.getTiles());
+        assertFalse(ws.getTile(0).getContent() instanceof Obstacle);
+    }
+
+    @Test
+    public void testEmptyPipeline() throws Exception {
+        WorldState ws = createWorld();
+
+        assertArrayEquals(ws.getTiles(), new TransformationPipeline().transform(ws).getTiles());
+    }
+
+    private static WorldState createWorld() {
+        WorldState ws = new WorldState(WIDTH, HEIGHT);
+        ws = SnakeTestUtil.addSnake(ws, SnakeTestUtil.createSnake("one", "id1", 32, 31, 30, 45));
+        ws = SnakeTestUtil.addSnake(ws, SnakeTestUtil.createSnake("two", "id2", 190, 191, 192));
+        ((SnakeHead) ws.getTile(32).getContent()).setTailProtectedForGameTicks(3);
+        return ws;
+    }
+
+    /**
+     * Creates the same transformations, with the same random numbers, for
+     * the same seed.
+     */
+    private static List<WorldTransformation> createTransformations(long seed) {
+        Random random = new Random(seed);
+        int noofTransformations = 1 + random.nextInt(12);
+        int removeSnakeAt = random.nextInt(2 * noofTransformations);
+
+        List<WorldTransformation> transformations = new ArrayList<>();
+        for (int i = 0; i < noofTransformations; i++) {
+            if (i == removeSnakeAt) {
+                transformations.add(new RemoveSnake(random.nextBoolean() ? "id1" : "id2"));
+            }
+
+            switch (random.nextInt(7)) {
+                case 0:
+                    transformations.add(new AddWorldObjectAtRandomPosition(new Food(), new XORShiftRandom(random.nextLong())));
+                    break;
+                case 1:
+                    transformations.add(new AddWorldObjectAtRandomPosition(new Obstacle(), new XORShiftRandom(random.nextLong())));
+                    break;
+                case 2:
+                    transformations.add(new RemoveRandomWorldObject<>(Food.class, new XORShiftRandom(random.nextLong())));
+                    break;
+                case 3:
+                    transformations.add(new ReplaceWorldObject(new Food(), randomPositionAwayFromSnakes(random)));
+                    break;
+                case 4:
+                    transformations.add(new DecrementTailProtection());
+                    break;
+                case 5:
+                    // Not an InPlaceTransformation, the pipeline has to publish before it
+                    transformations.add(new AddRandomObstacle(new XORShiftRandom(random.nextLong())));
+                    break;
+                default:
+                    transformations.add(new ReplaceWorldObject(new Empty(), randomPositionAwayFromSnakes(random)));
+            }
+        }
+        return transformations;
+    }
+
+    // The snakes are on the rows above and below
+    private static int randomPositionAwayFromSnakes(Random random) {
+        return 4 * WIDTH + random.nextInt(8 * WIDTH);
+    }
+
+    private static void assertEquivalent(String message, WorldState expected, WorldState actual) {
+        for (int position = 0; position < expected.getSize(); position++) {
+            WorldObject expectedContent = expected.getTile(position).getContent();
+            WorldObject actualContent = actual.getTile(position).getContent();
+            assertEquals(message + ", position " + position, expectedContent.getClass(), actualContent.getClass());
+            if (expectedContent instanceof SnakeHead) {
+                assertEquals(message, ((SnakeHead) expectedContent).getTailProtectedForGameTicks(),
+                        ((SnakeHead) actualContent).getTailProtectedForGameTicks());
+            }
+        }
+
+        assertEquals(message, expected.listSnakeIds(), actual.listSnakeIds());
+        assertArrayEquals(message, expected.listEmptyPositions(), actual.listEmptyPositions());
+        assertArrayEquals(message, expected.listPositionsWithContentOf(SnakeHead.class),
+                actual.listPositionsWithContentOf(SnakeHead.class));
+
+        // The index of empty positions must be in the same order for
+        // random picks to stay the same
+        Random expectedRandom = new Random(42);
+        Random actualRandom = new Random(42);
+        for (int pick = 0; pick < 10; pick++) {
+            assertEquals(message, expected.getRandomEmptyValidPosition(expectedRandom),
+                    actual.getRandomEmptyValidPosition(actualRandom));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package se.cygni.game.worldobject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnakeHeadTest {
+
+    @Test
+    public void testSpreadFollowsChain() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+        SnakeBody body = new SnakeBody("id", 11);
+        head.setNextSnakePart(body);
+        body.setNextSnakePart(new SnakeBody("id", 10));
+
+        assertEquals(3, head.getLength());
+        assertArrayEquals(new int[]{12, 11, 10}, head.getSpread());
+        assertEquals(10, head.getTailPosition());
+    }
+
+    @Test
+    public void testSpreadRebuiltWhenChainChanges() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+        SnakeBody body = new SnakeBody("id", 11);
+        head.setNextSnakePart(body);
+        assertEquals(2, head.getLength());
+
+        body.setNextSnakePart(new SnakeBody("id", 10));
+        assertArrayEquals(new int[]{12, 11, 10}, head.getSpread());
+
+        body.setPosition(2);
+        assertArrayEquals(new int[]{12, 2, 10}, head.getSpread());
+    }
+
+    @Test
+    public void testMoveToReleasesTail() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+        SnakeBody body = new SnakeBody("id", 11);
+        head.setNextSnakePart(body);
+        body.setNextSnakePart(new SnakeBody("id", 10));
+
+        assertEquals(10, head.moveTo(13, false));
+        assertArrayEquals(new int[]{13, 12, 11}, head.getSpread());
+        assertArrayEquals(new int[]{13, 12, 11}, chainPositions(head));
+    }
+
+    @Test
+    public void testMoveToWithGrowth() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+        head.setNextSnakePart(new SnakeBody("id", 11));
+
+        assertEquals(-1, head.moveTo(13, true));
+        assertEquals(3, head.getLength());
+        assertArrayEquals(new int[]{13, 12, 11}, chainPositions(head));
+    }
+
+    @Test
+    public void testMoveToWithOnlyHead() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+
+        assertEquals(12, head.moveTo(13, false));
+        assertEquals(13, head.getPosition());
+        assertArrayEquals(new int[]{13}, head.getSpread());
+    }
+
+    @Test
+    public void testLongSnakeWrapsAround() {
+        SnakeHead head = new SnakeHead("test", "id", 0);
+        for (int position = 1; position <= 40; position++) {
+            head.moveTo(position, position <= 20);
+        }
+
+        int[] expected = new int[21];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = 40 - i;
+        }
+        assertArrayEquals(expected, head.getSpread());
+        assertArrayEquals(expected, chainPositions(head));
+    }
+
+    @Test
+    public void testRemoveTail() {
+        SnakeHead head = new SnakeHead("test", "id", 12);
+        SnakeBody body = new SnakeBody("id", 11);
+        SnakeBody tail = new SnakeBody("id", 10);
+        head.setNextSnakePart(body);
+        body.setNextSnakePart(tail);
+
+        assertSame(tail, head.removeTail());
+        assertTrue(body.isTail());
+        assertArrayEquals(new int[]{12, 11}, head.getSpread());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRemoveTailOfOnlyHead() {
+        new SnakeHead("test", "id", 12).removeTail();
+    }
+
+    private static int[] chainPositions(SnakeHead head) {
+        int[] positions = new int[head.getLength()];
+        SnakePart part = head;
+        for (int i = 0; part != null; i++) {
+            positions[i] = part.getPosition();
+            part = part.getNextSnakePart();
+        }
+        return positions;
+    }
+}